@@ -79,7 +79,8 @@ public class TestAppConfigValidator extends AbstractCoreIntegrationTest {
                 types,
                 rawTypes,
                 dataFormats,
-                0);
+                0,
+                null);
 
         final Result<AbstractConfig> result = appConfigValidator.validate(metaServiceConfig);
 
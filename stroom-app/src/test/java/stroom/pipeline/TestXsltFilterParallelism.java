@@ -0,0 +1,167 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.pipeline;
+
+import stroom.docref.DocRef;
+import stroom.pipeline.errorhandler.ErrorReceiverProxy;
+import stroom.pipeline.factory.Pipeline;
+import stroom.pipeline.factory.PipelineDataCache;
+import stroom.pipeline.factory.PipelineFactory;
+import stroom.pipeline.filter.TestFilter;
+import stroom.pipeline.filter.XsltFilter;
+import stroom.pipeline.shared.PipelineDoc;
+import stroom.pipeline.shared.XsltDoc;
+import stroom.pipeline.shared.data.PipelineData;
+import stroom.pipeline.shared.data.PipelineDataBuilder;
+import stroom.pipeline.shared.data.PipelineDataUtil;
+import stroom.pipeline.shared.data.PipelineProperty;
+import stroom.pipeline.shared.data.PipelinePropertyValue;
+import stroom.pipeline.state.PipelineContext;
+import stroom.pipeline.xslt.XsltStore;
+import stroom.task.api.SimpleTaskContext;
+import stroom.test.AbstractProcessIntegrationTest;
+import stroom.test.common.StroomPipelineTestFileUtil;
+import stroom.util.io.StreamUtil;
+import stroom.util.pipeline.scope.PipelineScopeRunnable;
+import stroom.util.shared.Severity;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that transforming split documents in parallel gives exactly the same results as transforming them one at a
+ * time on the pipeline thread.
+ */
+class TestXsltFilterParallelism extends AbstractProcessIntegrationTest {
+
+    private static final String DIR = "TestXsltFilterParallelism/";
+    private static final String INPUT = "TestXMLTransformer/XML-EVENTS.nxml";
+    private static final String XSLT_PATH = DIR + "Parallelism.xsl";
+    private static final String PIPELINE = DIR + "Parallelism.Pipeline.json";
+
+    private static final int NUMBER_OF_RECORDS = 10;
+    private static final int PARALLELISM = 4;
+
+    @Inject
+    private Provider<PipelineFactory> pipelineFactoryProvider;
+    @Inject
+    private Provider<ErrorReceiverProxy> errorReceiverProvider;
+    @Inject
+    private Provider<PipelineContext> pipelineContextProvider;
+    @Inject
+    private XsltStore xsltStore;
+    @Inject
+    private PipelineStore pipelineStore;
+    @Inject
+    private PipelineDataCache pipelineDataCache;
+    @Inject
+    private PipelineScopeRunnable pipelineScopeRunnable;
+
+    @Test
+    void testSameResultsAsSerial() {
+        final TransformResult serial = transform(1, false);
+        assertThat(serial.parallel()).isFalse();
+        assertThat(serial.outputs()).hasSize(NUMBER_OF_RECORDS);
+        // Make sure there are errors from both the XSLT and the schema validation that follows it to compare.
+        assertThat(serial.errors())
+                .anySatisfy(error -> assertThat(error).startsWith(Severity.WARNING + " "))
+                .anySatisfy(error -> assertThat(error).startsWith(Severity.ERROR + " "));
+
+        final TransformResult parallel = transform(PARALLELISM, false);
+        assertThat(parallel.parallel()).isTrue();
+        assertThat(parallel.outputs()).containsExactlyElementsOf(serial.outputs());
+        assertThat(parallel.errors()).containsExactlyElementsOf(serial.errors());
+    }
+
+    @Test
+    void testSerialWhenStepping() {
+        final TransformResult serial = transform(1, true);
+
+        final TransformResult stepping = transform(PARALLELISM, true);
+        assertThat(stepping.parallel()).isFalse();
+        assertThat(stepping.outputs()).containsExactlyElementsOf(serial.outputs());
+    }
+
+    private TransformResult transform(final int parallelism, final boolean stepping) {
+        final DocRef pipelineRef = createPipeline(parallelism);
+        return pipelineScopeRunnable.scopeResult(() -> {
+            try (final InputStream inputStream = StroomPipelineTestFileUtil.getInputStream(INPUT)) {
+                pipelineContextProvider.get().setStepping(stepping);
+
+                // Record every error with its location in the order they reach the pipeline error handler.
+                final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+                errorReceiverProvider.get().setErrorReceiver((severity, location, elementId, message, errorType, e) ->
+                        errors.add(severity + " " +
+                                   (location != null
+                                           ? location.getLineNo() + ":" + location.getColNo()
+                                           : "-") +
+                                   " " + elementId + " " + message));
+
+                final PipelineDoc pipelineDoc = pipelineStore.readDocument(pipelineRef);
+                final PipelineData pipelineData = pipelineDataCache.get(pipelineDoc);
+                final Pipeline pipeline = pipelineFactoryProvider.get().create(pipelineData, new SimpleTaskContext());
+
+                pipeline.startProcessing();
+                final boolean parallel = pipeline.findFilters(XsltFilter.class).getFirst().isTransformingInParallel();
+                pipeline.process(inputStream);
+                pipeline.endProcessing();
+
+                final List<String> outputs = pipeline.findFilters(TestFilter.class).getFirst().getOutputs();
+                return new TransformResult(parallel, List.copyOf(outputs), List.copyOf(errors));
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private DocRef createPipeline(final int parallelism) {
+        final InputStream xsltInputStream = StroomPipelineTestFileUtil.getInputStream(XSLT_PATH);
+        final DocRef xsltRef = xsltStore.createDocument("Test XSLT");
+        final XsltDoc xsltDoc = xsltStore.readDocument(xsltRef)
+                .copy().data(StreamUtil.streamToString(xsltInputStream)).build();
+        xsltStore.writeDocument(xsltDoc);
+
+        final String data = StroomPipelineTestFileUtil.getString(PIPELINE);
+        final DocRef pipelineRef = PipelineTestUtil.createTestPipeline(pipelineStore, data);
+        PipelineDoc pipelineDoc = pipelineStore.readDocument(pipelineRef);
+        final PipelineDataBuilder builder = new PipelineDataBuilder(pipelineDoc.getPipelineData());
+        builder.addProperty(PipelineDataUtil.createProperty("translationFilter", "xslt", xsltRef));
+        builder.addProperty(new PipelineProperty(
+                "translationFilter", "parallelism", new PipelinePropertyValue(parallelism)));
+        pipelineDoc = pipelineDoc.copy().pipelineData(builder.build()).build();
+        pipelineStore.writeDocument(pipelineDoc);
+        return pipelineRef;
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    private record TransformResult(boolean parallel, List<String> outputs, List<String> errors) {
+
+    }
+}
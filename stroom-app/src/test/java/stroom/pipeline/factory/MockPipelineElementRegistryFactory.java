@@ -17,10 +17,12 @@
 package stroom.pipeline.factory;
 
 import stroom.pipeline.LocationFactoryProxy;
+import stroom.pipeline.PipelineConfig;
 import stroom.pipeline.filter.RecordCountFilter;
 import stroom.pipeline.filter.RecordOutputFilter;
 import stroom.pipeline.filter.SchemaFilter;
 import stroom.pipeline.filter.SchemaFilterSplit;
+import stroom.pipeline.filter.SchemaValidationMetrics;
 import stroom.pipeline.filter.SplitFilter;
 import stroom.pipeline.filter.XsltFilter;
 import stroom.pipeline.parser.CombinedParser;
@@ -29,19 +31,40 @@ import stroom.pipeline.parser.JSONParser;
 import stroom.pipeline.parser.XMLFragmentParser;
 import stroom.pipeline.parser.XMLParser;
 import stroom.pipeline.source.SourceElement;
+import stroom.pipeline.state.LocationHolder;
+import stroom.pipeline.state.MetaHolder;
 import stroom.pipeline.state.PipelineContext;
+import stroom.pipeline.state.PipelineHolder;
 import stroom.pipeline.writer.FileAppender;
 import stroom.pipeline.writer.JSONWriter;
 import stroom.pipeline.writer.StreamAppender;
 import stroom.pipeline.writer.TextWriter;
 import stroom.pipeline.writer.XMLWriter;
+import stroom.task.api.ExecutorProvider;
+import stroom.task.api.SimpleTaskContextFactory;
+import stroom.task.shared.ThreadPool;
+import stroom.util.pipeline.scope.PipelineScope;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 public class MockPipelineElementRegistryFactory implements ElementRegistryFactory, ElementFactory {
 
+    // Elements created here are never used to transform documents in parallel so just run any work in the caller.
+    private static final ExecutorProvider EXECUTOR_PROVIDER = new ExecutorProvider() {
+        @Override
+        public Executor get(final ThreadPool threadPool) {
+            return Runnable::run;
+        }
+
+        @Override
+        public Executor get() {
+            return Runnable::run;
+        }
+    };
+
     private final ElementRegistry registry;
 
     MockPipelineElementRegistryFactory() {
@@ -132,7 +155,11 @@ public class MockPipelineElementRegistryFactory implements ElementRegistryFactor
                         null,
                         null,
                         null,
-                        null);
+                        null,
+                        EXECUTOR_PROVIDER,
+                        new SimpleTaskContextFactory(),
+                        new PipelineScope(),
+                        new LocationHolder(new MetaHolder()));
             }
             if (elementClass.equals(SchemaFilterSplit.class)) {
                 return (T) new SchemaFilterSplit(new SchemaFilter(
@@ -140,7 +167,9 @@ public class MockPipelineElementRegistryFactory implements ElementRegistryFactor
                         null,
                         null,
                         new LocationFactoryProxy(),
-                        new PipelineContext()),
+                        new PipelineContext(),
+                        new PipelineHolder(),
+                        new SchemaValidationMetrics(PipelineConfig::new)),
                         null);
             }
             if (elementClass.equals(RecordOutputFilter.class)) {
@@ -19,6 +19,7 @@ package stroom.pipeline.factory;
 import stroom.docref.DocRef;
 import stroom.docstore.impl.Serialiser2FactoryImpl;
 import stroom.docstore.shared.DocRefUtil;
+import stroom.pipeline.PipelineConfig;
 import stroom.pipeline.PipelineSerialiser;
 import stroom.pipeline.PipelineTestUtil;
 import stroom.pipeline.errorhandler.ErrorReceiverProxy;
@@ -28,6 +29,7 @@ import stroom.pipeline.shared.data.PipelineData;
 import stroom.pipeline.shared.data.PipelineDataUtil;
 import stroom.pipeline.shared.data.PipelineElementType;
 import stroom.pipeline.shared.data.PipelineLayer;
+import stroom.pipeline.state.PipelineHolder;
 import stroom.task.api.SimpleTaskContext;
 import stroom.test.AbstractProcessIntegrationTest;
 import stroom.test.common.StroomPipelineTestFileUtil;
@@ -70,7 +72,10 @@ class TestPipelineFactory extends AbstractProcessIntegrationTest {
                 elementRegistryFactory,
                 elementRegistryFactory,
                 new SimpleProcessorFactory(),
-                mockErrorReceiverProxy);
+                mockErrorReceiverProxy,
+                new PipelineTemplateCache(),
+                new PipelineProfiles(PipelineConfig::new),
+                new PipelineHolder());
         final Pipeline pipeline = pipelineFactory.create(mergedPipelineData, new SimpleTaskContext());
 
         System.out.println(pipeline);
@@ -82,7 +87,10 @@ class TestPipelineFactory extends AbstractProcessIntegrationTest {
                 elementRegistryFactory,
                 elementRegistryFactory,
                 new SimpleProcessorFactory(),
-                mockErrorReceiverProxy);
+                mockErrorReceiverProxy,
+                new PipelineTemplateCache(),
+                new PipelineProfiles(PipelineConfig::new),
+                new PipelineHolder());
 
         final String data1 = StroomPipelineTestFileUtil
                 .getString("TestPipelineFactory/EventDataPipeline.Pipeline.json");
@@ -129,7 +137,10 @@ class TestPipelineFactory extends AbstractProcessIntegrationTest {
                 elementRegistryFactory,
                 elementRegistryFactory,
                 new SimpleProcessorFactory(),
-                mockErrorReceiverProxy);
+                mockErrorReceiverProxy,
+                new PipelineTemplateCache(),
+                new PipelineProfiles(PipelineConfig::new),
+                new PipelineHolder());
 
         final String data1 = StroomPipelineTestFileUtil
                 .getString("TestPipelineFactory/TestBasePipeline.Pipeline.json");
@@ -169,4 +180,36 @@ class TestPipelineFactory extends AbstractProcessIntegrationTest {
         // Create a parser with the merged config.
         pipelineFactory.create(pipelineData3, new SimpleTaskContext());
     }
+
+    @Test
+    void testTemplateReuse() {
+        final PipelineDoc pipelineDoc = PipelineTestUtil.createBasicPipeline(
+                StroomPipelineTestFileUtil.getString("TestPipelineFactory/EventDataPipeline.Pipeline.json"));
+        final PipelineDataMerger pipelineDataMerger = new PipelineDataMerger();
+        pipelineDataMerger.merge(new PipelineLayer(DocRefUtil.create(pipelineDoc), pipelineDoc.getPipelineData()));
+        final PipelineData mergedPipelineData = pipelineDataMerger.createMergedData();
+
+        final PipelineTemplateCache pipelineTemplateCache = new PipelineTemplateCache();
+        final PipelineFactory pipelineFactory = new PipelineFactory(
+                elementRegistryFactory,
+                elementRegistryFactory,
+                new SimpleProcessorFactory(),
+                mockErrorReceiverProxy,
+                pipelineTemplateCache,
+                new PipelineProfiles(PipelineConfig::new),
+                new PipelineHolder());
+
+        // Each task must get its own element instances even though the template is shared.
+        final Pipeline pipeline1 = pipelineFactory.create(mergedPipelineData, new SimpleTaskContext());
+        final Pipeline pipeline2 = pipelineFactory.create(mergedPipelineData, new SimpleTaskContext());
+        assertThat(pipeline1.findFilters(Element.class))
+                .hasSameSizeAs(pipeline2.findFilters(Element.class))
+                .doesNotContainAnyElementsOf(pipeline2.findFilters(Element.class));
+
+        final Map<String, Object> details = pipelineTemplateCache.getSystemInfo().getDetails();
+        assertThat(details)
+                .containsEntry("templates", 1L)
+                .containsEntry("hits", 1L)
+                .containsEntry("misses", 1L);
+    }
 }
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.pipeline.factory;
+
+import stroom.docref.DocRef;
+import stroom.pipeline.PipelineConfig;
+import stroom.pipeline.PipelineStore;
+import stroom.pipeline.PipelineTestUtil;
+import stroom.pipeline.errorhandler.ErrorReceiverProxy;
+import stroom.pipeline.errorhandler.LoggingErrorReceiver;
+import stroom.pipeline.filter.SplitFilter;
+import stroom.pipeline.shared.PipelineDoc;
+import stroom.pipeline.shared.XsltDoc;
+import stroom.pipeline.shared.data.PipelineData;
+import stroom.pipeline.shared.data.PipelineDataBuilder;
+import stroom.pipeline.shared.data.PipelineDataUtil;
+import stroom.pipeline.state.PipelineHolder;
+import stroom.pipeline.xslt.XsltStore;
+import stroom.task.api.SimpleTaskContext;
+import stroom.test.AbstractProcessIntegrationTest;
+import stroom.test.common.StroomPipelineTestFileUtil;
+import stroom.util.io.StreamUtil;
+import stroom.util.pipeline.scope.PipelineScopeRunnable;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+import org.assertj.core.api.InstanceOfAssertFactories;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestPipelineProfiling extends AbstractProcessIntegrationTest {
+
+    private static final String DIR = "TestXMLTransformer/";
+    private static final String INPUT = DIR + "XML-EVENTS.nxml";
+    private static final String XSLT_PATH = DIR + "DATA_SPLITTER-EVENTS_no-ref.xsl";
+    private static final String PIPELINE = DIR + "XMLTransformer.Pipeline.json";
+
+    @Inject
+    private ElementRegistryFactory elementRegistryFactory;
+    @Inject
+    private ElementFactory elementFactory;
+    @Inject
+    private ProcessorFactory processorFactory;
+    @Inject
+    private Provider<ErrorReceiverProxy> errorReceiverProvider;
+    @Inject
+    private Provider<PipelineHolder> pipelineHolderProvider;
+    @Inject
+    private XsltStore xsltStore;
+    @Inject
+    private PipelineStore pipelineStore;
+    @Inject
+    private PipelineDataCache pipelineDataCache;
+    @Inject
+    private PipelineScopeRunnable pipelineScopeRunnable;
+
+    @Test
+    void testProfiledPipeline() {
+        final DocRef pipelineRef = createPipeline();
+        final PipelineProfiles pipelineProfiles = new PipelineProfiles(() ->
+                new PipelineConfig().withProfileElements(true));
+
+        pipelineScopeRunnable.scopeRunnable(() -> {
+            try (final InputStream inputStream = StroomPipelineTestFileUtil.getInputStream(INPUT)) {
+                final LoggingErrorReceiver loggingErrorReceiver = new LoggingErrorReceiver();
+                errorReceiverProvider.get().setErrorReceiver(loggingErrorReceiver);
+                final PipelineHolder pipelineHolder = pipelineHolderProvider.get();
+                pipelineHolder.setPipeline(pipelineRef);
+
+                final PipelineFactory pipelineFactory = new PipelineFactory(
+                        elementRegistryFactory,
+                        elementFactory,
+                        processorFactory,
+                        errorReceiverProvider.get(),
+                        new PipelineTemplateCache(),
+                        pipelineProfiles,
+                        pipelineHolder);
+                final PipelineData pipelineData = pipelineDataCache.get(pipelineStore.readDocument(pipelineRef));
+                final Pipeline pipeline = pipelineFactory.create(pipelineData, new SimpleTaskContext());
+
+                // Each XML filter is fed through a profiling filter.
+                final List<SplitFilter> splitFilters = pipeline.findFilters(SplitFilter.class);
+                assertThat(splitFilters).hasSize(1);
+                assertThat(splitFilters.getFirst().getFilter()).isInstanceOf(ProfilingFilter.class);
+
+                pipeline.startProcessing();
+                pipeline.process(inputStream);
+
+                // Nothing is recorded until processing ends.
+                assertThat(pipelineProfiles.getSystemInfo().getDetails().get("pipelines"))
+                        .asInstanceOf(InstanceOfAssertFactories.LIST)
+                        .isEmpty();
+
+                pipeline.endProcessing();
+
+                assertThat(loggingErrorReceiver.isAllOk())
+                        .as(loggingErrorReceiver.toString())
+                        .isTrue();
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        final Map<String, Object> details = pipelineProfiles
+                .getSystemInfo(Map.of("pipeline", pipelineRef.getUuid()))
+                .getDetails();
+        assertThat(details).containsEntry("runs", 1L);
+
+        // Lines are "<stack> <value>" with the XSLT function a child frame of the XSLT filter.
+        assertThat(details.get("collapsedStacks"))
+                .asInstanceOf(InstanceOfAssertFactories.list(String.class))
+                .isNotEmpty()
+                .allSatisfy(line -> assertThat(line).startsWith("Source"))
+                .anySatisfy(line -> assertThat(line).contains(";splitFilter;translationFilter "))
+                .anySatisfy(line -> assertThat(line).contains(";translationFilter;stroom:format-date "));
+    }
+
+    private DocRef createPipeline() {
+        final InputStream xsltInputStream = StroomPipelineTestFileUtil.getInputStream(XSLT_PATH);
+        final DocRef xsltRef = xsltStore.createDocument("Test XSLT");
+        final XsltDoc xsltDoc = xsltStore.readDocument(xsltRef)
+                .copy().data(StreamUtil.streamToString(xsltInputStream)).build();
+        xsltStore.writeDocument(xsltDoc);
+
+        final String data = StroomPipelineTestFileUtil.getString(PIPELINE);
+        final DocRef pipelineRef = PipelineTestUtil.createTestPipeline(pipelineStore, data);
+        PipelineDoc pipelineDoc = pipelineStore.readDocument(pipelineRef);
+        final PipelineDataBuilder builder = new PipelineDataBuilder(pipelineDoc.getPipelineData());
+        builder.addProperty(PipelineDataUtil.createProperty("translationFilter", "xslt", xsltRef));
+        pipelineDoc = pipelineDoc.copy().pipelineData(builder.build()).build();
+        pipelineStore.writeDocument(pipelineDoc);
+        return pipelineRef;
+    }
+}
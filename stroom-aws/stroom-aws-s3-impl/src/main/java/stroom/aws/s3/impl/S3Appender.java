@@ -74,6 +74,7 @@ public class S3Appender extends AbstractAppender {
     private final PathCreator pathCreator;
     private final OutputFactory outputFactory;
     private final S3ClientConfigCache s3ClientConfigCache;
+    private final S3ClientPool s3ClientPool;
     private final MetaDataHolder metaDataHolder;
     private final MetaHolder metaHolder;
     private DocRef s3ConfigRef;
@@ -91,11 +92,13 @@ public class S3Appender extends AbstractAppender {
                       final MetaHolder metaHolder,
                       final S3AppenderTempDir s3AppenderTempDir,
                       final PathCreator pathCreator,
-                      final S3ClientConfigCache s3ClientConfigCache) {
+                      final S3ClientConfigCache s3ClientConfigCache,
+                      final S3ClientPool s3ClientPool) {
         super(errorReceiverProxy);
         this.s3AppenderTempDir = s3AppenderTempDir;
         this.pathCreator = pathCreator;
         this.s3ClientConfigCache = s3ClientConfigCache;
+        this.s3ClientPool = s3ClientPool;
         this.metaDataHolder = metaDataHolder;
         this.metaHolder = metaHolder;
         outputFactory = new OutputFactory(metaDataHolder);
@@ -138,7 +141,7 @@ public class S3Appender extends AbstractAppender {
                     super.close();
 
                     try {
-                        final S3Manager s3Manager = new S3Manager(pathCreator, s3ClientConfig);
+                        final S3Manager s3Manager = new S3Manager(pathCreator, s3ClientConfig, s3ClientPool);
                         final String bucketNamePattern = NullSafe
                                 .nonBlank(S3Appender.this.bucketNamePattern)
                                 .orElse(s3Manager.getBucketNamePattern());
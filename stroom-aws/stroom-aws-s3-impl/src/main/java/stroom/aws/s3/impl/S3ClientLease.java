@@ -0,0 +1,65 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.aws.s3.impl;
+
+import com.codahale.metrics.Timer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+
+/**
+ * A lease on the S3 clients for a config. The lease holds one of the concurrency permits for the config until it is
+ * closed and records the request time and bytes transferred against the config when closed.
+ */
+public final class S3ClientLease implements AutoCloseable {
+
+    private final S3Clients s3Clients;
+    private final Timer.Context timerContext;
+    private long bytesRead;
+    private long bytesWritten;
+    private boolean closed;
+
+    S3ClientLease(final S3Clients s3Clients,
+                  final Timer.Context timerContext) {
+        this.s3Clients = s3Clients;
+        this.timerContext = timerContext;
+    }
+
+    public S3Client getClient() {
+        return s3Clients.getClient();
+    }
+
+    public S3AsyncClient getAsyncClient() {
+        return s3Clients.getAsyncClient();
+    }
+
+    public void addBytesRead(final long bytes) {
+        bytesRead += bytes;
+    }
+
+    public void addBytesWritten(final long bytes) {
+        bytesWritten += bytes;
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            s3Clients.release(timerContext, bytesRead, bytesWritten);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.aws.s3.impl;
+
+import stroom.aws.s3.impl.S3Clients.S3ClientMetrics;
+import stroom.aws.s3.shared.S3ClientConfig;
+import stroom.util.logging.LambdaLogger;
+import stroom.util.logging.LambdaLoggerFactory;
+import stroom.util.metrics.Metrics;
+import stroom.util.shared.Clearable;
+import stroom.util.shared.NullSafe;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Holds long-lived S3 clients keyed by {@link S3ClientConfig} so that volumes sharing a config share clients, and
+ * connection pools, rather than creating and closing a client for every request.
+ * <p>
+ * Requests for each config are limited to the max concurrency of the config. Request time, bytes read and written,
+ * and in-flight requests are recorded as metrics for each config. The least recently used clients are closed if more
+ * than {@link #MAX_CONFIGS} configs are in use, e.g. after a config has been edited many times.
+ */
+@Singleton
+public class S3ClientPool implements Clearable {
+
+    private static final LambdaLogger LOGGER = LambdaLoggerFactory.getLogger(S3ClientPool.class);
+
+    static final int MAX_CONFIGS = 32;
+
+    private final Metrics metrics;
+    private final Map<S3ClientConfig, S3Clients> map = new LinkedHashMap<>(16, 0.75F, true);
+
+    @Inject
+    public S3ClientPool(final Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Lease the pooled clients for the config, blocking if the max concurrency for the config has been reached.
+     * The lease must be closed.
+     */
+    S3ClientLease acquire(final S3ClientConfig s3ClientConfig,
+                          final Function<S3ClientConfig, S3Client> clientFactory,
+                          final Function<S3ClientConfig, S3AsyncClient> asyncClientFactory) {
+        return get(s3ClientConfig, clientFactory, asyncClientFactory).acquire();
+    }
+
+    private S3Clients get(final S3ClientConfig s3ClientConfig,
+                          final Function<S3ClientConfig, S3Client> clientFactory,
+                          final Function<S3ClientConfig, S3AsyncClient> asyncClientFactory) {
+        final List<S3Clients> evicted = new ArrayList<>();
+        final S3Clients s3Clients;
+        synchronized (map) {
+            s3Clients = map.computeIfAbsent(s3ClientConfig, config -> new S3Clients(
+                    config,
+                    clientFactory,
+                    asyncClientFactory,
+                    createMetrics(config)));
+            while (map.size() > MAX_CONFIGS) {
+                final Iterator<S3Clients> iterator = map.values().iterator();
+                evicted.add(iterator.next());
+                iterator.remove();
+            }
+        }
+        // Evicted clients with in-flight requests are closed when their last lease is released.
+        evicted.forEach(S3Clients::close);
+        return s3Clients;
+    }
+
+    private S3ClientMetrics createMetrics(final S3ClientConfig s3ClientConfig) {
+        final String name = getMetricName(s3ClientConfig);
+        LOGGER.debug(() -> "Creating pooled S3 clients for " + name);
+        return new S3ClientMetrics(
+                metrics.registrationBuilder(getClass())
+                        .addNamePart(name)
+                        .addNamePart("requestTime")
+                        .timer()
+                        .createAndRegister(),
+                metrics.registrationBuilder(getClass())
+                        .addNamePart(name)
+                        .addNamePart("inFlight")
+                        .counter()
+                        .createAndRegister(),
+                metrics.registrationBuilder(getClass())
+                        .addNamePart(name)
+                        .addNamePart(Metrics.READ)
+                        .addNamePart(Metrics.SIZE_IN_BYTES)
+                        .counter()
+                        .createAndRegister(),
+                metrics.registrationBuilder(getClass())
+                        .addNamePart(name)
+                        .addNamePart(Metrics.WRITE)
+                        .addNamePart(Metrics.SIZE_IN_BYTES)
+                        .counter()
+                        .createAndRegister());
+    }
+
+    /**
+     * Configs are identified in metric names by endpoint and region. Configs that only differ in other settings,
+     * e.g. credentials, share metrics.
+     */
+    static String getMetricName(final S3ClientConfig s3ClientConfig) {
+        final String endpoint = NullSafe.nonBlankStringElse(s3ClientConfig.getEndpointOverride(), "aws")
+                .replaceFirst("^[a-zA-Z]+://", "")
+                .replace('.', '-');
+        final String region = NullSafe.nonBlankStringElse(s3ClientConfig.getRegion(), "default");
+        return endpoint + "-" + region;
+    }
+
+    int size() {
+        synchronized (map) {
+            return map.size();
+        }
+    }
+
+    @Override
+    public void clear() {
+        final List<S3Clients> all;
+        synchronized (map) {
+            all = new ArrayList<>(map.values());
+            map.clear();
+        }
+        all.forEach(S3Clients::close);
+    }
+}
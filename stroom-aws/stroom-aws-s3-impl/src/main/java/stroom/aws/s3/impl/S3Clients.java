@@ -0,0 +1,182 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.aws.s3.impl;
+
+import stroom.aws.s3.shared.S3ClientConfig;
+import stroom.util.concurrent.UncheckedInterruptedException;
+import stroom.util.logging.LambdaLogger;
+import stroom.util.logging.LambdaLoggerFactory;
+import stroom.util.shared.NullSafe;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Timer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * The sync and async clients for a single {@link S3ClientConfig}. Clients are created lazily and are shared by all
+ * requests that lease them. The number of concurrent leases is bounded by the max concurrency of the config.
+ * <p>
+ * Once retired the clients are closed as soon as the last outstanding lease is released.
+ */
+class S3Clients implements AutoCloseable {
+
+    private static final LambdaLogger LOGGER = LambdaLoggerFactory.getLogger(S3Clients.class);
+
+    static final int DEFAULT_MAX_CONCURRENCY = 50;
+
+    private final S3ClientConfig s3ClientConfig;
+    private final Function<S3ClientConfig, S3Client> clientFactory;
+    private final Function<S3ClientConfig, S3AsyncClient> asyncClientFactory;
+    private final S3ClientMetrics metrics;
+    private final Semaphore permits;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private S3Client client;
+    private S3AsyncClient asyncClient;
+    private volatile boolean retired;
+
+    /**
+     * @param metrics The metrics to record requests against, may be null.
+     */
+    S3Clients(final S3ClientConfig s3ClientConfig,
+              final Function<S3ClientConfig, S3Client> clientFactory,
+              final Function<S3ClientConfig, S3AsyncClient> asyncClientFactory,
+              final S3ClientMetrics metrics) {
+        this.s3ClientConfig = s3ClientConfig;
+        this.clientFactory = clientFactory;
+        this.asyncClientFactory = asyncClientFactory;
+        this.metrics = metrics;
+        this.permits = new Semaphore(getMaxConcurrency(s3ClientConfig), true);
+    }
+
+    /**
+     * Lease clients that are closed as soon as the lease is released. Used where there is no pool.
+     */
+    static S3ClientLease acquireOnce(final S3ClientConfig s3ClientConfig,
+                                     final Function<S3ClientConfig, S3Client> clientFactory,
+                                     final Function<S3ClientConfig, S3AsyncClient> asyncClientFactory) {
+        final S3Clients s3Clients = new S3Clients(s3ClientConfig, clientFactory, asyncClientFactory, null);
+        s3Clients.retired = true;
+        return s3Clients.acquire();
+    }
+
+    static int getMaxConcurrency(final S3ClientConfig s3ClientConfig) {
+        final Integer maxConcurrency = NullSafe.get(s3ClientConfig, S3ClientConfig::getMaxConcurrency);
+        return maxConcurrency != null && maxConcurrency > 0
+                ? maxConcurrency
+                : DEFAULT_MAX_CONCURRENCY;
+    }
+
+    /**
+     * Lease the clients, blocking if the max concurrency for the config has been reached. The lease must be closed.
+     */
+    S3ClientLease acquire() {
+        try {
+            permits.acquire();
+        } catch (final InterruptedException e) {
+            throw UncheckedInterruptedException.create("Interrupted waiting for an S3 client", e);
+        }
+        inFlight.incrementAndGet();
+        if (metrics != null) {
+            metrics.inFlight().inc();
+            return new S3ClientLease(this, metrics.requestTime().time());
+        }
+        return new S3ClientLease(this, null);
+    }
+
+    void release(final Timer.Context timerContext,
+                 final long bytesRead,
+                 final long bytesWritten) {
+        if (metrics != null) {
+            timerContext.stop();
+            metrics.inFlight().dec();
+            metrics.bytesRead().inc(bytesRead);
+            metrics.bytesWritten().inc(bytesWritten);
+        }
+        final int remaining = inFlight.decrementAndGet();
+        permits.release();
+        if (retired && remaining == 0) {
+            closeClients();
+        }
+    }
+
+    synchronized S3Client getClient() {
+        if (client == null) {
+            LOGGER.debug(() -> "Creating S3 client for " + s3ClientConfig.getRegion());
+            client = clientFactory.apply(s3ClientConfig);
+        }
+        return client;
+    }
+
+    synchronized S3AsyncClient getAsyncClient() {
+        if (asyncClient == null) {
+            LOGGER.debug(() -> "Creating S3 async client for " + s3ClientConfig.getRegion());
+            asyncClient = asyncClientFactory.apply(s3ClientConfig);
+        }
+        return asyncClient;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    boolean isRetired() {
+        return retired;
+    }
+
+    /**
+     * Stop the clients from being used by the pool. The clients are closed now if there are no outstanding leases or
+     * when the last lease is released.
+     */
+    @Override
+    public void close() {
+        retired = true;
+        if (inFlight.get() == 0) {
+            closeClients();
+        }
+    }
+
+    private synchronized void closeClients() {
+        if (client != null) {
+            LOGGER.debug(() -> "Closing S3 client for " + s3ClientConfig.getRegion());
+            client.close();
+            client = null;
+        }
+        if (asyncClient != null) {
+            LOGGER.debug(() -> "Closing S3 async client for " + s3ClientConfig.getRegion());
+            asyncClient.close();
+            asyncClient = null;
+        }
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    record S3ClientMetrics(Timer requestTime,
+                           Counter inFlight,
+                           Counter bytesRead,
+                           Counter bytesWritten) {
+
+    }
+}
@@ -32,7 +32,8 @@ public class S3ConfigModule extends PipelineElementModule {
                 .bind(S3ConfigDoc.TYPE, S3ConfigStore.class, S3ConfigStoreImpl.class);
 
         GuiceUtil.buildMultiBinder(binder(), Clearable.class)
-                .addBinding(S3ClientConfigCache.class);
+                .addBinding(S3ClientConfigCache.class)
+                .addBinding(S3ClientPool.class);
     }
 
     @Override
@@ -89,8 +89,10 @@ import software.amazon.awssdk.transfer.s3.model.FileUpload;
 import software.amazon.awssdk.transfer.s3.model.UploadFileRequest;
 import software.amazon.awssdk.transfer.s3.progress.LoggingTransferListener;
 
+import java.io.IOException;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
@@ -127,11 +129,39 @@ public class S3Manager {
 
     private final PathCreator pathCreator;
     private final S3ClientConfig s3ClientConfig;
+    private final S3ClientPool s3ClientPool;
 
     public S3Manager(final PathCreator pathCreator,
                      final S3ClientConfig s3ClientConfig) {
+        this(pathCreator, s3ClientConfig, null);
+    }
+
+    /**
+     * @param s3ClientPool The pool to take long-lived clients from. If null a new client is created and closed for
+     *                     every request.
+     */
+    public S3Manager(final PathCreator pathCreator,
+                     final S3ClientConfig s3ClientConfig,
+                     final S3ClientPool s3ClientPool) {
         this.pathCreator = pathCreator;
         this.s3ClientConfig = s3ClientConfig;
+        this.s3ClientPool = s3ClientPool;
+    }
+
+    private S3ClientLease acquireClient() {
+        if (s3ClientPool != null) {
+            return s3ClientPool.acquire(s3ClientConfig, this::createClient, this::createAsyncClient);
+        }
+        return S3Clients.acquireOnce(s3ClientConfig, this::createClient, this::createAsyncClient);
+    }
+
+    private static long sizeOf(final Path path) {
+        try {
+            return Files.size(path);
+        } catch (final IOException e) {
+            LOGGER.debug(() -> "Unable to get size of " + path, e);
+            return 0;
+        }
     }
 
     private S3AsyncClient createAsyncClient(final S3ClientConfig s3ClientConfig) {
@@ -499,7 +529,8 @@ public class S3Manager {
 
         final PutObjectResponse response;
         if (s3ClientConfig.isAsync()) {
-            try (final S3AsyncClient s3AsyncClient = createAsyncClient(s3ClientConfig)) {
+            try (final S3ClientLease lease = acquireClient()) {
+                final S3AsyncClient s3AsyncClient = lease.getAsyncClient();
                 if (s3ClientConfig.isMultipart()) {
                     try (final S3TransferManager transferManager =
                             S3TransferManager.builder()
@@ -526,10 +557,13 @@ public class S3Manager {
                 } else {
                     response = s3AsyncClient.putObject(request, source).join();
                 }
+                lease.addBytesWritten(sizeOf(source));
             }
         } else {
-            try (final S3Client s3Client = createClient(s3ClientConfig)) {
+            try (final S3ClientLease lease = acquireClient()) {
+                final S3Client s3Client = lease.getClient();
                 response = s3Client.putObject(request, source);
+                lease.addBytesWritten(sizeOf(source));
             }
         }
 
@@ -543,7 +577,8 @@ public class S3Manager {
 
         final CreateBucketResponse response;
         if (s3ClientConfig.isAsync()) {
-            try (final S3AsyncClient s3AsyncClient = createAsyncClient(s3ClientConfig)) {
+            try (final S3ClientLease lease = acquireClient()) {
+                final S3AsyncClient s3AsyncClient = lease.getAsyncClient();
                 response = s3AsyncClient.createBucket(
                         request).join();
             } catch (final S3Exception e) {
@@ -551,7 +586,8 @@ public class S3Manager {
                 throw e;
             }
         } else {
-            try (final S3Client s3Client = createClient(s3ClientConfig)) {
+            try (final S3ClientLease lease = acquireClient()) {
+                final S3Client s3Client = lease.getClient();
                 response = s3Client.createBucket(request);
             } catch (final S3Exception e) {
                 error("Error creating bucket: ", bucketName, null, e);
@@ -575,7 +611,8 @@ public class S3Manager {
 
         final GetObjectResponse response;
         if (s3ClientConfig.isAsync()) {
-            try (final S3AsyncClient s3AsyncClient = createAsyncClient(s3ClientConfig)) {
+            try (final S3ClientLease lease = acquireClient()) {
+                final S3AsyncClient s3AsyncClient = lease.getAsyncClient();
                 if (s3ClientConfig.isMultipart()) {
                     try (final S3TransferManager transferManager =
                             S3TransferManager.builder()
@@ -602,13 +639,16 @@ public class S3Manager {
                 } else {
                     response = s3AsyncClient.getObject(request, dest).join();
                 }
+                lease.addBytesRead(sizeOf(dest));
             } catch (final RuntimeException e) {
                 error("Error downloading: ", bucketName, key, e);
                 throw e;
             }
         } else {
-            try (final S3Client s3Client = createClient(s3ClientConfig)) {
+            try (final S3ClientLease lease = acquireClient()) {
+                final S3Client s3Client = lease.getClient();
                 response = s3Client.getObject(request, dest);
+                lease.addBytesRead(sizeOf(dest));
             } catch (final RuntimeException e) {
                 error("Error downloading: ", bucketName, key, e);
                 throw e;
@@ -619,6 +659,24 @@ public class S3Manager {
         return response;
     }
 
+    /**
+     * Open a reader that fetches byte ranges of the object for this meta rather than downloading the whole object.
+     * The caller must close the reader.
+     */
+    public S3RangeReader openRangeReader(final Meta meta,
+                                         final TimeBasis timeBasis) {
+        final String bucketName = createBucketName(getBucketNamePattern(), meta);
+        final String key = createKey(getKeyNamePattern(), meta, timeBasis);
+        LOGGER.debug(() -> "Opening range reader: " + getDebugIdentity(bucketName, key));
+        if (s3ClientPool != null) {
+            return new S3RangeReader(() -> s3ClientPool.acquire(s3ClientConfig, this::createClient,
+                    this::createAsyncClient), null, bucketName, key);
+        }
+        // Without a pool keep a single client for the life of the reader.
+        final S3Clients s3Clients = new S3Clients(s3ClientConfig, this::createClient, this::createAsyncClient, null);
+        return new S3RangeReader(s3Clients::acquire, s3Clients, bucketName, key);
+    }
+
     public DeleteObjectResponse delete(final Meta meta, final TimeBasis timeBasis) {
         final String bucketName = createBucketName(getBucketNamePattern(), meta);
         final String key = createKey(getKeyNamePattern(), meta, timeBasis);
@@ -630,14 +688,16 @@ public class S3Manager {
 
         final DeleteObjectResponse response;
         if (s3ClientConfig.isAsync()) {
-            try (final S3AsyncClient s3AsyncClient = createAsyncClient(s3ClientConfig)) {
+            try (final S3ClientLease lease = acquireClient()) {
+                final S3AsyncClient s3AsyncClient = lease.getAsyncClient();
                 response = s3AsyncClient.deleteObject(request).join();
             } catch (final S3Exception e) {
                 error("Error deleting: ", bucketName, key, e);
                 throw e;
             }
         } else {
-            try (final S3Client s3Client = createClient(s3ClientConfig)) {
+            try (final S3ClientLease lease = acquireClient()) {
+                final S3Client s3Client = lease.getClient();
                 response = s3Client.deleteObject(request);
             } catch (final S3Exception e) {
                 error("Error deleting: ", bucketName, key, e);
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.aws.s3.impl;
+
+import stroom.util.logging.LambdaLogger;
+import stroom.util.logging.LambdaLoggerFactory;
+
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.function.Supplier;
+
+/**
+ * Reads byte ranges of a single S3 object with HTTP range GETs so that callers can read parts of an object without
+ * downloading all of it. Each request leases a client so that range reads share the concurrency limits and
+ * metrics of the pooled client for the volume.
+ */
+public class S3RangeReader implements AutoCloseable {
+
+    private static final LambdaLogger LOGGER = LambdaLoggerFactory.getLogger(S3RangeReader.class);
+
+    private final Supplier<S3ClientLease> leaseSupplier;
+    private final S3Clients owned;
+    private final String bucketName;
+    private final String key;
+    private volatile long size = -1;
+
+    /**
+     * @param owned Clients owned by this reader that must be closed with it, null if the clients are pooled.
+     */
+    S3RangeReader(final Supplier<S3ClientLease> leaseSupplier,
+                  final S3Clients owned,
+                  final String bucketName,
+                  final String key) {
+        this.leaseSupplier = leaseSupplier;
+        this.owned = owned;
+        this.bucketName = bucketName;
+        this.key = key;
+    }
+
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return The total size of the object in bytes.
+     */
+    public long getSize() {
+        if (size == -1) {
+            final HeadObjectRequest request = HeadObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .build();
+            try (final S3ClientLease lease = leaseSupplier.get()) {
+                size = lease.getClient().headObject(request).contentLength();
+            }
+            LOGGER.debug(() -> "Object size: bucketName=" + bucketName + ", key=" + key + ", size=" + size);
+        }
+        return size;
+    }
+
+    /**
+     * Read exactly length bytes starting at position into the buffer.
+     */
+    public void readFully(final long position,
+                          final byte[] buffer,
+                          final int offset,
+                          final int length) throws IOException {
+        if (length == 0) {
+            return;
+        }
+        final GetObjectRequest request = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .range("bytes=" + position + "-" + (position + length - 1))
+                .build();
+        LOGGER.trace(() -> "Range read: bucketName=" + bucketName +
+                           ", key=" + key +
+                           ", position=" + position +
+                           ", length=" + length);
+        final byte[] bytes;
+        try (final S3ClientLease lease = leaseSupplier.get()) {
+            final ResponseBytes<GetObjectResponse> responseBytes = lease.getClient().getObjectAsBytes(request);
+            bytes = responseBytes.asByteArrayUnsafe();
+            lease.addBytesRead(bytes.length);
+        }
+        if (bytes.length < length) {
+            throw new EOFException("Expected " + length + " bytes at position " + position +
+                                   " but received " + bytes.length);
+        }
+        System.arraycopy(bytes, 0, buffer, offset, length);
+    }
+
+    @Override
+    public void close() {
+        if (owned != null) {
+            owned.close();
+        }
+    }
+}
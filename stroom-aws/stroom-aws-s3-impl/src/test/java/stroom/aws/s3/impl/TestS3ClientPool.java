@@ -0,0 +1,172 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.aws.s3.impl;
+
+import stroom.aws.s3.shared.S3ClientConfig;
+import stroom.util.metrics.MetricsImpl;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestS3ClientPool {
+
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+    private final List<StubClient> clients = new ArrayList<>();
+
+    @Test
+    void testClientsAreShared() {
+        final S3ClientPool pool = new S3ClientPool(new MetricsImpl(metricRegistry));
+        final S3ClientConfig config = config("eu-west-2", 2);
+
+        final S3Client client1;
+        try (final S3ClientLease lease = acquire(pool, config)) {
+            client1 = lease.getClient();
+            lease.addBytesRead(100);
+        }
+        final S3Client client2;
+        try (final S3ClientLease lease = acquire(pool, config)) {
+            client2 = lease.getClient();
+            lease.addBytesWritten(50);
+        }
+
+        assertThat(client2).isSameAs(client1);
+        assertThat(clients).hasSize(1);
+        assertThat(clients.getFirst().closed).isFalse();
+
+        final String prefix = S3ClientPool.class.getName() + "." + S3ClientPool.getMetricName(config);
+        assertThat(metricRegistry.timer(prefix + ".requestTime").getCount()).isEqualTo(2);
+        assertThat(metricRegistry.counter(prefix + ".inFlight").getCount()).isZero();
+        assertThat(metricRegistry.counter(prefix + ".read.sizeInBytes").getCount()).isEqualTo(100);
+        assertThat(metricRegistry.counter(prefix + ".write.sizeInBytes").getCount()).isEqualTo(50);
+
+        // A different config gets its own client.
+        try (final S3ClientLease lease = acquire(pool, config("eu-west-1", 2))) {
+            assertThat(lease.getClient()).isNotSameAs(client1);
+        }
+        assertThat(pool.size()).isEqualTo(2);
+    }
+
+    @Test
+    void testConcurrencyLimit() throws Exception {
+        final S3ClientPool pool = new S3ClientPool(new MetricsImpl(metricRegistry));
+        final S3ClientConfig config = config("eu-west-2", 1);
+
+        final S3ClientLease lease1 = acquire(pool, config);
+        final CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
+            try (final S3ClientLease lease2 = acquire(pool, config)) {
+                lease2.getClient();
+            }
+        });
+
+        // The second request must wait for the first to finish.
+        Thread.sleep(100);
+        assertThat(future).isNotDone();
+        lease1.close();
+        future.get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testClearClosesIdleClients() {
+        final S3ClientPool pool = new S3ClientPool(new MetricsImpl(metricRegistry));
+        final S3ClientConfig config = config("eu-west-2", 2);
+
+        final S3ClientLease lease = acquire(pool, config);
+        lease.getClient();
+        pool.clear();
+
+        // The client is in use so must not be closed until the lease is released.
+        assertThat(clients.getFirst().closed).isFalse();
+        lease.close();
+        assertThat(clients.getFirst().closed).isTrue();
+        assertThat(pool.size()).isZero();
+    }
+
+    @Test
+    void testEviction() {
+        final S3ClientPool pool = new S3ClientPool(new MetricsImpl(metricRegistry));
+        for (int i = 0; i <= S3ClientPool.MAX_CONFIGS; i++) {
+            try (final S3ClientLease lease = acquire(pool, config("region-" + i, 2))) {
+                lease.getClient();
+            }
+        }
+
+        assertThat(pool.size()).isEqualTo(S3ClientPool.MAX_CONFIGS);
+        assertThat(clients.getFirst().closed).isTrue();
+        assertThat(clients.getLast().closed).isFalse();
+    }
+
+    @Test
+    void testAcquireOnce() {
+        try (final S3ClientLease lease = S3Clients.acquireOnce(config("eu-west-2", 2),
+                this::createClient,
+                this::createAsyncClient)) {
+            lease.getClient();
+            assertThat(clients.getFirst().closed).isFalse();
+        }
+        assertThat(clients.getFirst().closed).isTrue();
+    }
+
+    private S3ClientLease acquire(final S3ClientPool pool, final S3ClientConfig config) {
+        return pool.acquire(config, this::createClient, this::createAsyncClient);
+    }
+
+    private synchronized S3Client createClient(final S3ClientConfig config) {
+        final StubClient client = new StubClient();
+        clients.add(client);
+        return client;
+    }
+
+    private S3AsyncClient createAsyncClient(final S3ClientConfig config) {
+        throw new UnsupportedOperationException();
+    }
+
+    private static S3ClientConfig config(final String region, final int maxConcurrency) {
+        return S3ClientConfig.builder()
+                .region(region)
+                .maxConcurrency(maxConcurrency)
+                .build();
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    private static class StubClient implements S3Client {
+
+        private volatile boolean closed;
+
+        @Override
+        public String serviceName() {
+            return SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -447,6 +447,15 @@ public class ConfigProvidersModule extends AbstractModule {
                 stroom.lmdb.LmdbLibraryConfig.class);
     }
 
+    @Generated("stroom.config.global.impl.GenerateConfigProvidersModule")
+    @Provides
+    @SuppressWarnings("unused")
+    stroom.meta.impl.MetaPartitionConfig getMetaPartitionConfig(
+            final ConfigMapper configMapper) {
+        return configMapper.getConfigObject(
+                stroom.meta.impl.MetaPartitionConfig.class);
+    }
+
     @Generated("stroom.config.global.impl.GenerateConfigProvidersModule")
     @Provides
     @SuppressWarnings("unused")
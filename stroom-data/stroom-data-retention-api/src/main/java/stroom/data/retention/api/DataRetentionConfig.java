@@ -24,6 +24,8 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyDescription;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
+import jakarta.validation.constraints.Min;
+
 import java.util.Objects;
 
 
@@ -32,6 +34,7 @@ public class DataRetentionConfig extends AbstractConfig implements IsStroomConfi
 
     private static final int DEFAULT_DELETE_BATCH_SIZE = 1_000;
     private static final boolean DEFAULT_USE_QUERY_OPTIMISATION = true;
+    private static final int DEFAULT_DELETE_THREAD_COUNT = 1;
 
     @JsonProperty
     @JsonPropertyDescription("The number of records that will be logically deleted in each pass of the data " +
@@ -39,6 +42,12 @@ public class DataRetentionConfig extends AbstractConfig implements IsStroomConfi
             "held for.")
     private final int deleteBatchSize;
 
+    @Min(1)
+    @JsonProperty
+    @JsonPropertyDescription("The number of threads used to logically delete batches of records in parallel. " +
+            "Each batch covers a distinct range of record ids so batches do not contend for the same rows.")
+    private final int deleteThreadCount;
+
     @JsonProperty
     @JsonPropertyDescription("If true stroom will add additional clauses to the data retention deletion SQL in order " +
             "to make use of other database indexes in order to improve performance. Due to the varied nature of " +
@@ -48,13 +57,16 @@ public class DataRetentionConfig extends AbstractConfig implements IsStroomConfi
 
     public DataRetentionConfig() {
         deleteBatchSize = DEFAULT_DELETE_BATCH_SIZE;
+        deleteThreadCount = DEFAULT_DELETE_THREAD_COUNT;
         useQueryOptimisation = DEFAULT_USE_QUERY_OPTIMISATION;
     }
 
     @JsonCreator
     public DataRetentionConfig(@JsonProperty("deleteBatchSize") final Integer deleteBatchSize,
-                               @JsonProperty("useQueryOptimisation") final Boolean useQueryOptimisation) {
+                               @JsonProperty("useQueryOptimisation") final Boolean useQueryOptimisation,
+                               @JsonProperty("deleteThreadCount") final Integer deleteThreadCount) {
         this.deleteBatchSize = Objects.requireNonNullElse(deleteBatchSize, DEFAULT_DELETE_BATCH_SIZE);
+        this.deleteThreadCount = Objects.requireNonNullElse(deleteThreadCount, DEFAULT_DELETE_THREAD_COUNT);
         this.useQueryOptimisation = Objects.requireNonNullElse(useQueryOptimisation, DEFAULT_USE_QUERY_OPTIMISATION);
     }
 
@@ -62,11 +74,19 @@ public class DataRetentionConfig extends AbstractConfig implements IsStroomConfi
         return deleteBatchSize;
     }
 
+    public int getDeleteThreadCount() {
+        return deleteThreadCount;
+    }
+
     public boolean isUseQueryOptimisation() {
         return useQueryOptimisation;
     }
 
     public DataRetentionConfig withDeleteBatchSize(final int deleteBatchSize) {
-        return new DataRetentionConfig(deleteBatchSize, useQueryOptimisation);
+        return new DataRetentionConfig(deleteBatchSize, useQueryOptimisation, deleteThreadCount);
+    }
+
+    public DataRetentionConfig withDeleteThreadCount(final int deleteThreadCount) {
+        return new DataRetentionConfig(deleteBatchSize, useQueryOptimisation, deleteThreadCount);
     }
 }
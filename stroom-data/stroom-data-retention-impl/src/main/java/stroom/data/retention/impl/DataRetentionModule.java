@@ -19,6 +19,7 @@ package stroom.data.retention.impl;
 import stroom.data.retention.api.DataRetentionRulesProvider;
 import stroom.job.api.ScheduledJobsBinder;
 import stroom.util.RunnableWrapper;
+import stroom.util.guice.HasSystemInfoBinder;
 import stroom.util.guice.RestResourcesBinder;
 import stroom.util.shared.scheduler.CronExpressions;
 
@@ -41,6 +42,9 @@ public class DataRetentionModule extends AbstractModule {
                         .description("Delete data that exceeds the retention period " +
                                      "specified by data retention policy")
                         .cronSchedule(CronExpressions.EVERY_DAY_AT_MIDNIGHT.getExpression()));
+
+        HasSystemInfoBinder.create(binder())
+                .bind(DataRetentionPolicyExecutor.class);
     }
 
     private static class DataRetention extends RunnableWrapper {
@@ -32,6 +32,8 @@ import stroom.util.logging.LambdaLoggerFactory;
 import stroom.util.logging.LogExecutionTime;
 import stroom.util.logging.LogUtil;
 import stroom.util.shared.NullSafe;
+import stroom.util.sysinfo.HasSystemInfo;
+import stroom.util.sysinfo.SystemInfoResult;
 import stroom.util.time.TimePeriod;
 import stroom.util.time.TimeUtils;
 
@@ -40,6 +42,7 @@ import io.vavr.Tuple;
 import io.vavr.Tuple2;
 import jakarta.annotation.Nullable;
 import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
 
 import java.time.Duration;
 import java.time.Instant;
@@ -48,11 +51,14 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -84,8 +90,14 @@ import java.util.stream.Collectors;
  * 1d ago => now (Ignored as ALL rules have age >= this, so all data is retained)
  * 1mnth+1d ago => 1mnth ago
  * 1yr+1d ago => 1yr ago
+ * <p>
+ * The tracker for each rule age is updated as soon as its period has been processed so an interrupted
+ * run only repeats the periods it had not finished. Changing the rules changes the rules version so all
+ * trackers are ignored and the next run does a full pass. Progress of the current run and the outcome of
+ * the last one are available as system info.
  */
-public class DataRetentionPolicyExecutor {
+@Singleton
+public class DataRetentionPolicyExecutor implements HasSystemInfo {
 
     private static final LambdaLogger LOGGER = LambdaLoggerFactory.getLogger(DataRetentionPolicyExecutor.class);
 
@@ -97,6 +109,9 @@ public class DataRetentionPolicyExecutor {
     private final MetaService metaService;
     private final TaskContextFactory taskContextFactory;
 
+    private volatile Progress currentProgress;
+    private volatile Progress lastProgress;
+
     @Inject
     DataRetentionPolicyExecutor(final ClusterLockService clusterLockService,
                                 final DataRetentionRulesProvider dataRetentionRulesProvider,
@@ -118,23 +133,48 @@ public class DataRetentionPolicyExecutor {
     void exec(final Instant now) {
         clusterLockService.tryLock(LOCK_NAME, () -> {
             final LogExecutionTime logExecutionTime = new LogExecutionTime();
+            // Only ever update our own progress, currentProgress is just for system info to read.
+            final Progress progress = new Progress(now);
+            currentProgress = progress;
             try {
                 info(() -> "Starting data retention process");
                 // MUST truncate down to millis as the DB stores in millis and TimePeriod
                 // also truncates to millis so we need to work to a consistent precision else
                 // some of the date logic fails due to micro second differences
-                process(now.truncatedTo(ChronoUnit.MILLIS));
+                process(now.truncatedTo(ChronoUnit.MILLIS), progress);
+                progress.outcome = "Completed";
                 info(() -> "Finished data retention process in " + logExecutionTime);
             } catch (final TaskTerminatedException e) {
+                progress.outcome = "Terminated";
                 LOGGER.debug("exec() - Task terminated", e);
                 LOGGER.error(JOB_NAME + " - Task terminated after " + logExecutionTime);
             } catch (final RuntimeException e) {
+                progress.outcome = "Failed: " + e.getMessage();
                 LOGGER.error(JOB_NAME + " - Error enforcing data retention policies: {}", e.getMessage(), e);
+            } finally {
+                progress.endTime = Instant.now();
+                lastProgress = progress;
+                currentProgress = null;
             }
         });
     }
 
-    private synchronized void process(final Instant now) {
+    @Override
+    public SystemInfoResult getSystemInfo() {
+        final SystemInfoResult.Builder builder = SystemInfoResult.builder(this);
+        final Progress current = currentProgress;
+        final Progress last = lastProgress;
+        builder.addDetail("running", current != null);
+        if (current != null) {
+            builder.addDetail("currentRun", current.toMap());
+        }
+        if (last != null) {
+            builder.addDetail("lastRun", last.toMap());
+        }
+        return builder.build();
+    }
+
+    private synchronized void process(final Instant now, final Progress progress) {
         final DataRetentionRules dataRetentionRules = dataRetentionRulesProvider.getOrCreate();
         LOGGER.info("process() - All retention time calculations based on now()={}", now);
         final List<DataRetentionRule> activeRules = NullSafe.get(
@@ -149,6 +189,7 @@ public class DataRetentionPolicyExecutor {
                     dataRetentionRules,
                     activeRules,
                     now);
+            progress.periodCount = processablePeriods.size();
 
             // Rules must be in ascending order by rule number so they applied in the correct order
             processablePeriods.stream()
@@ -172,7 +213,11 @@ public class DataRetentionPolicyExecutor {
                                 .sorted(DataRetentionRuleAction.comparingByRuleNo())
                                 .collect(Collectors.toList());
 
-                        processPeriod(period, sortedActions, processablePeriod.ruleAge, now);
+                        progress.currentRuleAge = processablePeriod.ruleAge;
+                        progress.currentPeriod = period.toString();
+                        final int count = processPeriod(period, sortedActions, processablePeriod.ruleAge, now);
+                        progress.periodsProcessed.incrementAndGet();
+                        progress.markedDeleted.addAndGet(count);
 
                         // We have successfully processed this period so update the tracker
                         // so the next run on this period can work from where we got to
@@ -287,10 +332,10 @@ public class DataRetentionPolicyExecutor {
                 TimeUtils.periodAsAgeStr(period));
     }
 
-    private void processPeriod(final TimePeriod period,
-                               final List<DataRetentionRuleAction> sortedRuleActions,
-                               final String ruleAge,
-                               final Instant now) {
+    private int processPeriod(final TimePeriod period,
+                              final List<DataRetentionRuleAction> sortedRuleActions,
+                              final String ruleAge,
+                              final Instant now) {
         info(() -> LogUtil.message(
                 "Considering streams created " +
                 "between {}, {} rule actions:\n{}",
@@ -300,7 +345,7 @@ public class DataRetentionPolicyExecutor {
                         .map(this::getRuleActionInfo)
                         .collect(Collectors.joining("\n"))));
 
-        LOGGER.logDurationIfInfoEnabled(
+        return LOGGER.logDurationIfInfoEnabled(
                 () ->
                         metaService.delete(sortedRuleActions, period),
                 count ->
@@ -535,4 +580,43 @@ public class DataRetentionPolicyExecutor {
             this.dataRetentionRuleActions = dataRetentionRuleActions;
         }
     }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    /**
+     * Progress of a single run for system info.
+     */
+    private static class Progress {
+
+        private final Instant startTime;
+        private final AtomicInteger periodsProcessed = new AtomicInteger();
+        private final AtomicLong markedDeleted = new AtomicLong();
+        private volatile int periodCount;
+        private volatile String currentRuleAge;
+        private volatile String currentPeriod;
+        private volatile String outcome;
+        private volatile Instant endTime;
+
+        private Progress(final Instant startTime) {
+            this.startTime = startTime;
+        }
+
+        private Map<String, Object> toMap() {
+            final Map<String, Object> map = new LinkedHashMap<>();
+            map.put("startTime", startTime.toString());
+            map.put("periodCount", periodCount);
+            map.put("periodsProcessed", periodsProcessed.get());
+            map.put("markedDeleted", markedDeleted.get());
+            NullSafe.consume(currentRuleAge, val -> map.put("currentRuleAge", val));
+            NullSafe.consume(currentPeriod, val -> map.put("currentPeriod", val));
+            NullSafe.consume(outcome, val -> map.put("outcome", val));
+            NullSafe.consume(endTime, val -> {
+                map.put("endTime", val.toString());
+                map.put("duration", Duration.between(startTime, val).toString());
+            });
+            return map;
+        }
+    }
 }
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.data.store.api;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Reads streams ahead of time so that a later {@link Store#openSource(long)} for them does not have to wait on cold
+ * storage.
+ */
+public interface DataPrefetcher {
+
+    /**
+     * Start reading the supplied streams in the background. Returns immediately.
+     *
+     * @param metaIds The ids of the streams that are expected to be opened soon.
+     */
+    void prefetch(Collection<Long> metaIds);
+
+    /**
+     * Called just before a stream that may have been prefetched is opened. Records whether the prefetch was useful
+     * and stops tracking the stream.
+     *
+     * @param metaId The id of the stream about to be opened.
+     */
+    void claim(long metaId);
+
+    /**
+     * Stop tracking streams that will no longer be opened, e.g. because their tasks have been abandoned.
+     *
+     * @param metaIds The ids of the streams that will not be opened.
+     */
+    void cancel(Collection<Long> metaIds);
+
+    /**
+     * @return Statistics on how effective prefetching has been.
+     */
+    Map<String, Object> getStatistics();
+}
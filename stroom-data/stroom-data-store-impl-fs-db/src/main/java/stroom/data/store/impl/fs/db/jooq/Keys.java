@@ -13,6 +13,7 @@ import org.jooq.impl.QOM.ForeignKeyRule;
 
 import stroom.data.store.impl.fs.db.jooq.tables.FsFeedPath;
 import stroom.data.store.impl.fs.db.jooq.tables.FsMetaVolume;
+import stroom.data.store.impl.fs.db.jooq.tables.FsOrphanedFileTracker;
 import stroom.data.store.impl.fs.db.jooq.tables.FsOrphanedMetaTracker;
 import stroom.data.store.impl.fs.db.jooq.tables.FsTypePath;
 import stroom.data.store.impl.fs.db.jooq.tables.FsVolume;
@@ -20,6 +21,7 @@ import stroom.data.store.impl.fs.db.jooq.tables.FsVolumeGroup;
 import stroom.data.store.impl.fs.db.jooq.tables.FsVolumeState;
 import stroom.data.store.impl.fs.db.jooq.tables.records.FsFeedPathRecord;
 import stroom.data.store.impl.fs.db.jooq.tables.records.FsMetaVolumeRecord;
+import stroom.data.store.impl.fs.db.jooq.tables.records.FsOrphanedFileTrackerRecord;
 import stroom.data.store.impl.fs.db.jooq.tables.records.FsOrphanedMetaTrackerRecord;
 import stroom.data.store.impl.fs.db.jooq.tables.records.FsTypePathRecord;
 import stroom.data.store.impl.fs.db.jooq.tables.records.FsVolumeGroupRecord;
@@ -41,6 +43,7 @@ public class Keys {
     public static final UniqueKey<FsFeedPathRecord> KEY_FS_FEED_PATH_NAME = Internal.createUniqueKey(FsFeedPath.FS_FEED_PATH, DSL.name("KEY_fs_feed_path_name"), new TableField[] { FsFeedPath.FS_FEED_PATH.NAME }, true);
     public static final UniqueKey<FsFeedPathRecord> KEY_FS_FEED_PATH_PRIMARY = Internal.createUniqueKey(FsFeedPath.FS_FEED_PATH, DSL.name("KEY_fs_feed_path_PRIMARY"), new TableField[] { FsFeedPath.FS_FEED_PATH.ID }, true);
     public static final UniqueKey<FsMetaVolumeRecord> KEY_FS_META_VOLUME_PRIMARY = Internal.createUniqueKey(FsMetaVolume.FS_META_VOLUME, DSL.name("KEY_fs_meta_volume_PRIMARY"), new TableField[] { FsMetaVolume.FS_META_VOLUME.META_ID, FsMetaVolume.FS_META_VOLUME.FS_VOLUME_ID }, true);
+    public static final UniqueKey<FsOrphanedFileTrackerRecord> KEY_FS_ORPHANED_FILE_TRACKER_PRIMARY = Internal.createUniqueKey(FsOrphanedFileTracker.FS_ORPHANED_FILE_TRACKER, DSL.name("KEY_fs_orphaned_file_tracker_PRIMARY"), new TableField[] { FsOrphanedFileTracker.FS_ORPHANED_FILE_TRACKER.FS_VOLUME_ID }, true);
     public static final UniqueKey<FsOrphanedMetaTrackerRecord> KEY_FS_ORPHANED_META_TRACKER_PRIMARY = Internal.createUniqueKey(FsOrphanedMetaTracker.FS_ORPHANED_META_TRACKER, DSL.name("KEY_fs_orphaned_meta_tracker_PRIMARY"), new TableField[] { FsOrphanedMetaTracker.FS_ORPHANED_META_TRACKER.ID }, true);
     public static final UniqueKey<FsTypePathRecord> KEY_FS_TYPE_PATH_NAME = Internal.createUniqueKey(FsTypePath.FS_TYPE_PATH, DSL.name("KEY_fs_type_path_name"), new TableField[] { FsTypePath.FS_TYPE_PATH.NAME }, true);
     public static final UniqueKey<FsTypePathRecord> KEY_FS_TYPE_PATH_PRIMARY = Internal.createUniqueKey(FsTypePath.FS_TYPE_PATH, DSL.name("KEY_fs_type_path_PRIMARY"), new TableField[] { FsTypePath.FS_TYPE_PATH.ID }, true);
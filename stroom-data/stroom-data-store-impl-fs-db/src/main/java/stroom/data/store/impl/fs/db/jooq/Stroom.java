@@ -14,6 +14,7 @@ import org.jooq.impl.SchemaImpl;
 
 import stroom.data.store.impl.fs.db.jooq.tables.FsFeedPath;
 import stroom.data.store.impl.fs.db.jooq.tables.FsMetaVolume;
+import stroom.data.store.impl.fs.db.jooq.tables.FsOrphanedFileTracker;
 import stroom.data.store.impl.fs.db.jooq.tables.FsOrphanedMetaTracker;
 import stroom.data.store.impl.fs.db.jooq.tables.FsTypePath;
 import stroom.data.store.impl.fs.db.jooq.tables.FsVolume;
@@ -44,6 +45,11 @@ public class Stroom extends SchemaImpl {
      */
     public final FsMetaVolume FS_META_VOLUME = FsMetaVolume.FS_META_VOLUME;
 
+    /**
+     * The table <code>stroom.fs_orphaned_file_tracker</code>.
+     */
+    public final FsOrphanedFileTracker FS_ORPHANED_FILE_TRACKER = FsOrphanedFileTracker.FS_ORPHANED_FILE_TRACKER;
+
     /**
      * The table <code>stroom.fs_orphaned_meta_tracker</code>.
      */
@@ -87,6 +93,7 @@ public class Stroom extends SchemaImpl {
         return Arrays.asList(
             FsFeedPath.FS_FEED_PATH,
             FsMetaVolume.FS_META_VOLUME,
+            FsOrphanedFileTracker.FS_ORPHANED_FILE_TRACKER,
             FsOrphanedMetaTracker.FS_ORPHANED_META_TRACKER,
             FsTypePath.FS_TYPE_PATH,
             FsVolume.FS_VOLUME,
@@ -6,6 +6,7 @@ package stroom.data.store.impl.fs.db.jooq;
 
 import stroom.data.store.impl.fs.db.jooq.tables.FsFeedPath;
 import stroom.data.store.impl.fs.db.jooq.tables.FsMetaVolume;
+import stroom.data.store.impl.fs.db.jooq.tables.FsOrphanedFileTracker;
 import stroom.data.store.impl.fs.db.jooq.tables.FsOrphanedMetaTracker;
 import stroom.data.store.impl.fs.db.jooq.tables.FsTypePath;
 import stroom.data.store.impl.fs.db.jooq.tables.FsVolume;
@@ -29,6 +30,11 @@ public class Tables {
      */
     public static final FsMetaVolume FS_META_VOLUME = FsMetaVolume.FS_META_VOLUME;
 
+    /**
+     * The table <code>stroom.fs_orphaned_file_tracker</code>.
+     */
+    public static final FsOrphanedFileTracker FS_ORPHANED_FILE_TRACKER = FsOrphanedFileTracker.FS_ORPHANED_FILE_TRACKER;
+
     /**
      * The table <code>stroom.fs_orphaned_meta_tracker</code>.
      */
@@ -0,0 +1,34 @@
+-- ------------------------------------------------------------------------
+-- Copyright 2025 Crown Copyright
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--     http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+-- ------------------------------------------------------------------------
+
+-- Stop NOTE level warnings about objects (not)? existing
+SET @OLD_SQL_NOTES=@@SQL_NOTES, SQL_NOTES=0;
+
+--
+-- Create the fs_orphaned_file_tracker table. Holds the last directory subtree
+-- of each volume that the orphan file finder has fully scanned so an
+-- interrupted scan can resume from where it got to.
+--
+CREATE TABLE IF NOT EXISTS fs_orphaned_file_tracker (
+    fs_volume_id              int NOT NULL,
+    last_path                 varchar(512) NOT NULL,
+    update_time_ms            bigint NOT NULL,
+    PRIMARY KEY (fs_volume_id)
+) ENGINE=InnoDB DEFAULT CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci;
+
+SET SQL_NOTES=@OLD_SQL_NOTES;
+
+-- vim: set shiftwidth=4 tabstop=4 expandtab:
@@ -42,11 +42,13 @@ class BenchmarkIO {
     private static final int MB = 1000000;
     private static final Map<StreamType, Integer> writeSpeed = new HashMap<>();
     private static final Map<StreamType, Integer> readSpeed = new HashMap<>();
+    private static final Map<StreamType, Double> compressionRatio = new HashMap<>();
 
     static {
         for (final StreamType streamType : StreamType.values()) {
             writeSpeed.put(streamType, 0);
             readSpeed.put(streamType, 0);
+            compressionRatio.put(streamType, 0D);
         }
     }
 
@@ -81,7 +83,9 @@ class BenchmarkIO {
 
                     for (final StreamType streamType : StreamType.values()) {
                         System.out.println("Average " + streamType + " write = " + (writeSpeed.get(streamType) / run)
-                                           + "Mb/s, read = " + (readSpeed.get(streamType) / run) + "Mb/s");
+                                           + "Mb/s, read = " + (readSpeed.get(streamType) / run) + "Mb/s"
+                                           + ", ratio = " + String.format("%.2f",
+                                compressionRatio.get(streamType) / run));
                     }
                     System.out.println();
                 }
@@ -103,6 +107,11 @@ class BenchmarkIO {
         final Path bgzipIdxFile2 = dir.resolve("test2.idx");
         final Path bgzipDatFile3 = dir.resolve("test3.dat.bgzip");
         final Path bgzipIdxFile3 = dir.resolve("test4.idx");
+        final Path bzstdFile = dir.resolve("test.bzstd");
+        final Path bzstdDatFile1a = dir.resolve("test5a.dat.bzstd");
+        final Path bzstdIdxFile1a = dir.resolve("test5a.idx");
+        final Path bzstdDatFile1b = dir.resolve("test5b.dat.bzstd");
+        final Path bzstdIdxFile1b = dir.resolve("test5b.idx.bzstd");
 
         Files.createDirectories(dir);
 
@@ -113,6 +122,9 @@ class BenchmarkIO {
         doTest(bgzipDatFile1b, bgzipIdxFile1b, data, StreamType.BGZIP_SEG_COMPRESS);
         doTest(bgzipDatFile2, bgzipIdxFile2, data, StreamType.RAW_SEG_TEXT);
         doTest(bgzipDatFile3, bgzipIdxFile3, data, StreamType.RAW_SEG_XML);
+        doTest(bzstdFile, null, data, StreamType.BZSTD);
+        doTest(bzstdDatFile1a, bzstdIdxFile1a, data, StreamType.BZSTD_SEG);
+        doTest(bzstdDatFile1b, bzstdIdxFile1b, data, StreamType.BZSTD_SEG_COMPRESS);
 
         Files.delete(rawFile);
         Files.delete(gzipFile);
@@ -125,6 +137,11 @@ class BenchmarkIO {
         Files.delete(bgzipIdxFile2);
         Files.delete(bgzipDatFile3);
         Files.delete(bgzipIdxFile3);
+        Files.delete(bzstdFile);
+        Files.delete(bzstdDatFile1a);
+        Files.delete(bzstdIdxFile1a);
+        Files.delete(bzstdDatFile1b);
+        Files.delete(bzstdIdxFile1b);
     }
 
     @SuppressWarnings("checkstyle:VariableDeclarationUsageDistance")
@@ -152,6 +169,17 @@ class BenchmarkIO {
                 os = new RASegmentOutputStream(new BlockGZIPOutputFile(file1), () ->
                         new BlockGZIPOutputFile(file2));
                 break;
+            case BZSTD:
+                os = new BlockGZIPOutputFile(file1, BlockCodec.ZSTD);
+                break;
+            case BZSTD_SEG:
+                os = new RASegmentOutputStream(new BlockGZIPOutputFile(file1, BlockCodec.ZSTD),
+                        () -> new LockingFileOutputStream(file2, false));
+                break;
+            case BZSTD_SEG_COMPRESS:
+                os = new RASegmentOutputStream(new BlockGZIPOutputFile(file1, BlockCodec.ZSTD), () ->
+                        new BlockGZIPOutputFile(file2, BlockCodec.ZSTD));
+                break;
             default:
                 throw new IllegalArgumentException("Unexpected stream type: " + streamType);
         }
@@ -193,8 +221,11 @@ class BenchmarkIO {
         System.out.println("Writing " + streamType + " " + (int) mb + "Mb to \"" +
                            FileUtil.getCanonicalPath(file1) + "\" took " + (int) elapsed + "ms = " + mbps + "Mb/s");
 
+        final double ratio = ((double) data.length) / fileLength;
         System.out.println("Output file is " + (int) (fileLength / MB) + "Mb, compression ratio = " +
-                           (int) (100 - ((100D / data.length) * fileLength)) + "%");
+                           (int) (100 - ((100D / data.length) * fileLength)) + "% (" +
+                           String.format("%.2f", ratio) + ":1)");
+        compressionRatio.put(streamType, compressionRatio.get(streamType) + ratio);
 
         if (file2 != null) {
             final long fileLength2 = Files.size(file2);
@@ -225,6 +256,17 @@ class BenchmarkIO {
                 is = new RASegmentInputStream(
                         new BlockGZIPInputFile(file1), new BlockGZIPInputFile(file2));
                 break;
+            case BZSTD:
+                is = new BlockGZIPInputFile(file1);
+                break;
+            case BZSTD_SEG:
+                is = new RASegmentInputStream(
+                        new BlockGZIPInputFile(file1), new UncompressedInputStream(file2, false));
+                break;
+            case BZSTD_SEG_COMPRESS:
+                is = new RASegmentInputStream(
+                        new BlockGZIPInputFile(file1), new BlockGZIPInputFile(file2));
+                break;
             case RAW_SEG_TEXT:
                 is = new RASegmentInputStream(
                         new BlockGZIPInputFile(file1), new UncompressedInputStream(file2, false));
@@ -301,6 +343,9 @@ class BenchmarkIO {
         BGZIP_SEG,
         BGZIP_SEG_COMPRESS,
         RAW_SEG_TEXT,
-        RAW_SEG_XML
+        RAW_SEG_XML,
+        BZSTD,
+        BZSTD_SEG,
+        BZSTD_SEG_COMPRESS
     }
 }
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.data.store.impl.fs;
+
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorInputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * The compression used for each block of a block compressed file. The codec is identified by the version marker at
+ * the start of the file so files written with any codec can be read regardless of the codec currently configured.
+ *
+ * @see BlockGZIPConstants
+ */
+enum BlockCodec {
+    GZIP(BlockGZIPConstants.BLOCK_GZIP_V1_IDENTIFIER) {
+        @Override
+        OutputStream compress(final OutputStream outputStream) throws IOException {
+            return new GzipCompressorOutputStream(outputStream);
+        }
+
+        @Override
+        InputStream decompress(final InputStream inputStream) throws IOException {
+            return new GzipCompressorInputStream(inputStream);
+        }
+    },
+    ZSTD(BlockGZIPConstants.BLOCK_ZSTD_V1_IDENTIFIER) {
+        @Override
+        OutputStream compress(final OutputStream outputStream) throws IOException {
+            return new ZstdCompressorOutputStream(outputStream, ZSTD_LEVEL);
+        }
+
+        @Override
+        InputStream decompress(final InputStream inputStream) throws IOException {
+            return new ZstdCompressorInputStream(inputStream);
+        }
+    };
+
+    /**
+     * The default zstd level gives better compression than gzip at several times the speed.
+     */
+    private static final int ZSTD_LEVEL = 3;
+
+    private final byte[] identifier;
+
+    BlockCodec(final byte[] identifier) {
+        this.identifier = identifier;
+    }
+
+    /**
+     * @return The version marker written at the start of files using this codec.
+     */
+    byte[] getIdentifier() {
+        return identifier;
+    }
+
+    /**
+     * Wrap the output stream so that data written to the returned stream is compressed. Closing the returned stream
+     * ends the compressed block.
+     */
+    abstract OutputStream compress(OutputStream outputStream) throws IOException;
+
+    /**
+     * Wrap the input stream so that data read from the returned stream is decompressed.
+     */
+    abstract InputStream decompress(InputStream inputStream) throws IOException;
+
+    /**
+     * @return The codec that writes the supplied version marker or null if the marker is not recognised.
+     */
+    static BlockCodec fromIdentifier(final byte[] identifier) {
+        for (final BlockCodec codec : values()) {
+            if (Arrays.equals(codec.identifier, identifier)) {
+                return codec;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The codec with the supplied name ignoring case, or the default if the name is null or blank.
+     */
+    static BlockCodec fromName(final String name, final BlockCodec defaultCodec) {
+        if (name == null || name.isBlank()) {
+            return defaultCodec;
+        }
+        return valueOf(name.trim().toUpperCase());
+    }
+}
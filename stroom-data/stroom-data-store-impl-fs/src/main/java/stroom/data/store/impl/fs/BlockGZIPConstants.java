@@ -25,6 +25,9 @@ import stroom.util.io.StreamUtil;
  * Data Length] [Index Position] [EOF Position] [Magic Marker] [Block Size]
  * [Block Data] [Magic Marker] [Block Size] [Block Data] ... [Magic Marker] <-
  * (Index Position) [Un-Compressed Index Data] [EOF] <- (EOF)
+ * <p>
+ * Files with blocks compressed with zstd have the same layout but start with the marker 'BZS1' instead, see
+ * {@link BlockCodec}.
  */
 final class BlockGZIPConstants {
 
@@ -52,6 +55,10 @@ final class BlockGZIPConstants {
      * Written at the start to identify .
      */
     static final byte[] BLOCK_GZIP_V1_IDENTIFIER = "BGZ1".getBytes(StreamUtil.DEFAULT_CHARSET);
+    /**
+     * Written at the start to identify blocks compressed with zstd.
+     */
+    static final byte[] BLOCK_ZSTD_V1_IDENTIFIER = "BZS1".getBytes(StreamUtil.DEFAULT_CHARSET);
     private static final byte MAGIC_HIGH = 127;
     private static final byte MAGIC_LOW = -128;
     /**
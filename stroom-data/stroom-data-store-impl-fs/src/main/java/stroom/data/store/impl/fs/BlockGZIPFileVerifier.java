@@ -19,7 +19,6 @@ package stroom.data.store.impl.fs;
 import stroom.util.io.FileUtil;
 
 import jakarta.validation.constraints.NotNull;
-import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -46,6 +45,7 @@ class BlockGZIPFileVerifier {
     private final LongBuffer longBuffer = ByteBuffer.wrap(longRawBuffer).asLongBuffer();
     private final byte[] magicMarkerRawBufffer = new byte[BlockGZIPConstants.MAGIC_MARKER.length];
     private final byte[] headerMarkerRawBuffer = new byte[BlockGZIPConstants.BLOCK_GZIP_V1_IDENTIFIER.length];
+    private BlockCodec codec;
 
     /**
      * Constructor to open a Block GZIP File.
@@ -82,6 +82,7 @@ class BlockGZIPFileVerifier {
 
         System.out.println("Header Info");
         System.out.println("===========");
+        System.out.println("codec=" + codec);
         System.out.println("blockSize=" + blockSize);
         System.out.println("dataLength=" + dataLength);
         System.out.println("idxStart=" + idxStart);
@@ -136,7 +137,7 @@ class BlockGZIPFileVerifier {
             System.out.println("Checking Block " + i + " GZIP Format");
 
             final ByteArrayInputStream is = new ByteArrayInputStream(buffer.getRawBuffer(), 0, buffer.size());
-            try (final GzipCompressorInputStream gzip = new GzipCompressorInputStream(is)) {
+            try (final InputStream gzip = codec.decompress(is)) {
                 int byteRead;
                 while ((byteRead = gzip.read()) != -1) {
                     // Do something to get around check style
@@ -219,7 +220,8 @@ class BlockGZIPFileVerifier {
 
     private void readHeaderMarker() throws IOException {
         fillBuffer(stream, headerMarkerRawBuffer, 0, headerMarkerRawBuffer.length);
-        if (!checkEqualBuffer(BlockGZIPConstants.BLOCK_GZIP_V1_IDENTIFIER, headerMarkerRawBuffer)) {
+        codec = BlockCodec.fromIdentifier(headerMarkerRawBuffer);
+        if (codec == null) {
             throw new IOException("Does not look like a Block GZIP V1 Stream \"" +
                     FileUtil.getCanonicalPath(path) +
                     "\"");
@@ -19,7 +19,6 @@ package stroom.data.store.impl.fs;
 import stroom.util.io.SeekableInputStream;
 
 import jakarta.validation.constraints.NotNull;
-import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
 
 import java.io.BufferedInputStream;
 import java.io.IOException;
@@ -33,9 +32,9 @@ import java.nio.LongBuffer;
 abstract class BlockGZIPInput extends InputStream implements SeekableInputStream {
 
     /**
-     * Pointer to the current GZIPstream
+     * Pointer to the current decompression stream
      */
-    GzipCompressorInputStream currentStream;
+    InputStream currentStream;
     /**
      * We read data into a buffer (rather than hit the RA file)
      */
@@ -48,6 +47,7 @@ abstract class BlockGZIPInput extends InputStream implements SeekableInputStream
      * Header info
      */
     int blockSize;
+    private BlockCodec codec;
     private int blockCount = 0;
     long idxStart;
     long dataLength;
@@ -195,7 +195,8 @@ abstract class BlockGZIPInput extends InputStream implements SeekableInputStream
      */
     private void readHeaderMarker() throws IOException {
         fillFromRawStreamBuffer(headerMarkerRawBuffer);
-        if (!checkEqualBuffer(BlockGZIPConstants.BLOCK_GZIP_V1_IDENTIFIER, headerMarkerRawBuffer)) {
+        codec = BlockCodec.fromIdentifier(headerMarkerRawBuffer);
+        if (codec == null) {
             invalid("Does not look like a Block GZIP V1 Stream");
         }
     }
@@ -239,7 +240,7 @@ abstract class BlockGZIPInput extends InputStream implements SeekableInputStream
         blockCount++;
         readMagicMarker();
         currentBlockRawGzipSize = readLong();
-        currentStream = new GzipCompressorInputStream(new GzipInputStreamAdaptor());
+        currentStream = codec.decompress(new GzipInputStreamAdaptor());
     }
 
     /**
@@ -383,6 +384,13 @@ abstract class BlockGZIPInput extends InputStream implements SeekableInputStream
         return blockCount;
     }
 
+    /**
+     * @return The codec used to compress the blocks, as read from the header.
+     */
+    BlockCodec getCodec() {
+        return codec;
+    }
+
     /**
      * Adaptor to create a stream over the raw buffer and ensures that we don't
      * read more than we are allowed to (for the gzip stream)
@@ -22,7 +22,6 @@ import stroom.util.io.SeekableOutputStream;
 import stroom.util.io.StreamCloser;
 
 import jakarta.validation.constraints.NotNull;
-import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
 
 import java.io.BufferedOutputStream;
 import java.io.IOException;
@@ -32,8 +31,20 @@ import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 
 /**
+ * Writes a block compressed file.
+ * <p>
+ * If an executor is supplied then whole blocks are buffered and compressed on the executor, with up to
+ * 'parallelism' blocks being compressed while earlier blocks are written. Blocks are always written in order and
+ * compressed in the same way as the serial mode so the output is identical.
+ *
  * @see BlockGZIPConstants
  */
 class BlockGZIPOutputFile extends OutputStream implements SeekableOutputStream {
@@ -55,9 +66,11 @@ class BlockGZIPOutputFile extends OutputStream implements SeekableOutputStream {
     private final StreamCloser streamCloser = new BasicStreamCloser();
     // The stream - we hold a buffer onto it as well
     private BufferedOutputStream currentStreamBuffer;
-    private GzipCompressorOutputStream currentStreamGzip;
+    private OutputStream currentStreamGzip;
     // The block size we are using
     private final int blockSize;
+    // The compression used for each block
+    private final BlockCodec codec;
     // The current 'logical' uncompressed data item we have written
     private long position = 0;
     // The current block number we are on
@@ -66,6 +79,17 @@ class BlockGZIPOutputFile extends OutputStream implements SeekableOutputStream {
     private long currentBlockEndPos = 0;
     private boolean closed;
 
+    // Used to compress blocks in parallel, null if compressing serially on the writing thread
+    private final Executor executor;
+    private final int parallelism;
+    // The uncompressed data for the current block when compressing in parallel
+    private byte[] blockData;
+    private int blockDataLength;
+    // Blocks that are being compressed, in the order they must be written
+    private final Deque<CompletableFuture<CompressedBlock>> pendingBlocks = new ArrayDeque<>();
+    // Block data buffers that can be reused once a block has been compressed
+    private final Deque<byte[]> freeBlockData = new ArrayDeque<>();
+
     /**
      * @see BlockGZIPConstants
      */
@@ -77,7 +101,39 @@ class BlockGZIPOutputFile extends OutputStream implements SeekableOutputStream {
      * @see BlockGZIPConstants
      */
     BlockGZIPOutputFile(final Path file, final int blockSize) throws IOException {
+        this(file, blockSize, BlockCodec.GZIP);
+    }
+
+    /**
+     * @see BlockGZIPConstants
+     */
+    BlockGZIPOutputFile(final Path file, final BlockCodec codec) throws IOException {
+        this(file, BlockGZIPConstants.DEFAULT_BLOCK_SIZE, codec);
+    }
+
+    /**
+     * @see BlockGZIPConstants
+     */
+    BlockGZIPOutputFile(final Path file, final int blockSize, final BlockCodec codec) throws IOException {
+        this(file, blockSize, codec, null, 0);
+    }
+
+    /**
+     * @param executor    The executor to compress blocks on or null to compress on the writing thread.
+     * @param parallelism The maximum number of blocks to compress at once when an executor is supplied.
+     * @see BlockGZIPConstants
+     */
+    BlockGZIPOutputFile(final Path file,
+                        final int blockSize,
+                        final BlockCodec codec,
+                        final Executor executor,
+                        final int parallelism) throws IOException {
         this.blockSize = blockSize;
+        this.codec = codec;
+        this.executor = parallelism > 0
+                ? executor
+                : null;
+        this.parallelism = parallelism;
         this.mainBuffer = new BlockByteArrayOutputStream();
         this.indexBuffer = new BlockByteArrayOutputStream();
 
@@ -97,7 +153,7 @@ class BlockGZIPOutputFile extends OutputStream implements SeekableOutputStream {
                 StandardOpenOption.WRITE);
         try {
             // Write a marker
-            mainBuffer.write(BlockGZIPConstants.BLOCK_GZIP_V1_IDENTIFIER);
+            mainBuffer.write(codec.getIdentifier());
             // At the start of the block file write the block size an empty place
             // for the index offset and the marker
             // we
@@ -149,7 +205,8 @@ class BlockGZIPOutputFile extends OutputStream implements SeekableOutputStream {
 
         currentStreamBuffer.flush();
         currentStreamGzip.flush();
-        currentStreamGzip.finish();
+        // Closing the compressor finishes the block, closing the main buffer does nothing.
+        currentStreamGzip.close();
 
         // Block Compressed size is size of stream less magic marker less block
         // size header (2 longs)
@@ -178,13 +235,17 @@ class BlockGZIPOutputFile extends OutputStream implements SeekableOutputStream {
         // Write some bytes for the long we will do later
         mainBuffer.writeLong(0);
 
-        // Connect a new GZIP stream
-        currentStreamGzip = new GzipCompressorOutputStream(mainBuffer);
+        // Connect a new compression stream
+        currentStreamGzip = codec.compress(mainBuffer);
         currentStreamBuffer = new BufferedOutputStream(currentStreamGzip, FileSystemUtil.STREAM_BUFFER_SIZE);
     }
 
     @Override
     public void write(final int b) throws IOException {
+        if (executor != null) {
+            write(new byte[]{(byte) b}, 0, 1);
+            return;
+        }
         if (currentStreamBuffer == null) {
             startGzipBlock();
         }
@@ -206,6 +267,10 @@ class BlockGZIPOutputFile extends OutputStream implements SeekableOutputStream {
 
     @Override
     public void write(@NotNull final byte[] bytes, final int offset, final int length) throws IOException {
+        if (executor != null) {
+            writeParallel(bytes, offset, length);
+            return;
+        }
         if (currentStreamBuffer == null) {
             startGzipBlock();
         }
@@ -233,6 +298,87 @@ class BlockGZIPOutputFile extends OutputStream implements SeekableOutputStream {
 
     }
 
+    private void writeParallel(final byte[] bytes, final int offset, final int length) throws IOException {
+        int off = offset;
+        int remaining = length;
+        while (remaining > 0) {
+            if (blockData == null) {
+                blockData = freeBlockData.isEmpty()
+                        ? new byte[blockSize]
+                        : freeBlockData.pop();
+                blockDataLength = 0;
+            }
+            final int len = Math.min(remaining, blockSize - blockDataLength);
+            System.arraycopy(bytes, off, blockData, blockDataLength, len);
+            blockDataLength += len;
+            position += len;
+            off += len;
+            remaining -= len;
+
+            if (blockDataLength == blockSize) {
+                submitBlock();
+            }
+        }
+    }
+
+    /**
+     * Hand the current block to the executor to compress, writing out completed blocks if we have too many pending.
+     */
+    private void submitBlock() throws IOException {
+        blockCount++;
+        final byte[] data = blockData;
+        final int dataLength = blockDataLength;
+        blockData = null;
+        blockDataLength = 0;
+
+        pendingBlocks.add(CompletableFuture.supplyAsync(() -> compressBlock(data, dataLength), executor));
+        while (pendingBlocks.size() > parallelism) {
+            writeNextPendingBlock();
+        }
+    }
+
+    private CompressedBlock compressBlock(final byte[] data, final int dataLength) {
+        try {
+            final BlockByteArrayOutputStream buffer = new BlockByteArrayOutputStream(dataLength / 2);
+            buffer.write(BlockGZIPConstants.MAGIC_MARKER);
+            buffer.writeLong(0);
+            try (final OutputStream compressor = codec.compress(buffer)) {
+                compressor.write(data, 0, dataLength);
+                // Flush before closing just like endGzipBlock() so the output is identical to a serial write.
+                compressor.flush();
+            }
+            final long rawBlockSize = buffer.size() - BlockGZIPConstants.LONG_BYTES - BlockGZIPConstants.LONG_BYTES;
+            buffer.overwriteLongAtOffset(BlockGZIPConstants.LONG_BYTES, rawBlockSize);
+            return new CompressedBlock(data, buffer);
+        } catch (final IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Wait for the oldest pending block to be compressed and append it to the file.
+     */
+    private void writeNextPendingBlock() throws IOException {
+        final CompressedBlock compressedBlock;
+        try {
+            compressedBlock = pendingBlocks.pop().get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted compressing block", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof final IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Error compressing block", e.getCause());
+        }
+
+        // Record the index
+        indexBuffer.writeLong(raFile.position());
+        final BlockByteArrayOutputStream buffer = compressedBlock.compressed();
+        raFile.write(ByteBuffer.wrap(buffer.getRawBuffer(), 0, buffer.size()));
+        freeBlockData.push(compressedBlock.data());
+    }
+
     @Override
     public void close() throws IOException {
         try {
@@ -243,6 +389,14 @@ class BlockGZIPOutputFile extends OutputStream implements SeekableOutputStream {
                     // End the data stream
                     endGzipBlock();
                 }
+                if (executor != null) {
+                    if (blockDataLength > 0) {
+                        submitBlock();
+                    }
+                    while (!pendingBlocks.isEmpty()) {
+                        writeNextPendingBlock();
+                    }
+                }
 
                 // Record where we are going to start writing the index
                 final long idxStart = raFile.position();
@@ -308,6 +462,18 @@ class BlockGZIPOutputFile extends OutputStream implements SeekableOutputStream {
 
     @Override
     public String toString() {
-        return "BGZIP@" + finalFile + "@" + position;
+        return "BGZIP@" + finalFile + "@" + position + "@" + codec;
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    /**
+     * @param data       The uncompressed block data buffer that can be reused.
+     * @param compressed The magic marker, compressed size and compressed data for the block.
+     */
+    private record CompressedBlock(byte[] data, BlockByteArrayOutputStream compressed) {
+
     }
 }
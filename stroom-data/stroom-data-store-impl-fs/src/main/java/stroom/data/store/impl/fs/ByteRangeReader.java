@@ -0,0 +1,36 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.data.store.impl.fs;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Reads byte ranges from a remote object, e.g. an S3 object, without fetching the whole object.
+ */
+interface ByteRangeReader extends Closeable {
+
+    /**
+     * @return A unique and stable identity for the object being read so that blocks can be cached.
+     */
+    String getId();
+
+    long getSize() throws IOException;
+
+    void readFully(long position, byte[] buffer, int offset, int length) throws IOException;
+}
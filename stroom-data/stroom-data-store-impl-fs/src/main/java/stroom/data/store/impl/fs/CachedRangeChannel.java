@@ -0,0 +1,138 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.data.store.impl.fs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * A read only channel over a remote object that maps reads onto blocks held in a {@link S3BlockCache}. This allows the
+ * zip central directory and individual entries to be read without fetching the whole object.
+ */
+class CachedRangeChannel implements SeekableByteChannel {
+
+    private final ByteRangeReader reader;
+    private final S3BlockCache blockCache;
+    private final int blockSize;
+    private long position;
+    private volatile boolean open = true;
+
+    CachedRangeChannel(final ByteRangeReader reader,
+                       final S3BlockCache blockCache,
+                       final int blockSize) {
+        this.reader = reader;
+        this.blockCache = blockCache;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public synchronized int read(final ByteBuffer dst) throws IOException {
+        final int read = read(position, dst);
+        if (read > 0) {
+            position += read;
+        }
+        return read;
+    }
+
+    /**
+     * Read from an absolute position without changing the position of the channel.
+     */
+    int read(final long pos, final ByteBuffer dst) throws IOException {
+        ensureOpen();
+        final long size = size();
+        if (pos >= size) {
+            return -1;
+        }
+
+        long current = pos;
+        while (dst.hasRemaining() && current < size) {
+            final byte[] block = getBlock(current / blockSize);
+            final int offset = (int) (current % blockSize);
+            final int length = Math.min(block.length - offset, dst.remaining());
+            if (length <= 0) {
+                break;
+            }
+            dst.put(block, offset, length);
+            current += length;
+        }
+        return (int) (current - pos);
+    }
+
+    byte[] getBlock(final long blockIndex) throws IOException {
+        ensureOpen();
+        return blockCache.getBlock(reader, blockIndex, blockSize);
+    }
+
+    int getBlockSize() {
+        return blockSize;
+    }
+
+    @Override
+    public int write(final ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public synchronized long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public synchronized SeekableByteChannel position(final long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("Negative position " + newPosition);
+        }
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return reader.getSize();
+    }
+
+    @Override
+    public SeekableByteChannel truncate(final long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (open) {
+            open = false;
+            reader.close();
+        }
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+}
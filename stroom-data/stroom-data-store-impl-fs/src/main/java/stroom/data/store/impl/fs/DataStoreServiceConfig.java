@@ -18,6 +18,7 @@ package stroom.data.store.impl.fs;
 
 import stroom.config.common.HasDbConfig;
 import stroom.data.store.impl.fs.db.DataStoreServiceDbConfig;
+import stroom.util.io.ByteSize;
 import stroom.util.shared.AbstractConfig;
 import stroom.util.shared.IsStroomConfig;
 import stroom.util.time.StroomDuration;
@@ -40,6 +41,14 @@ public class DataStoreServiceConfig extends AbstractConfig implements IsStroomCo
     private static final int DEFAULT_DELETE_FAILURE_THRESHOLD = 100;
     private static final int DEFAULT_FILE_SYSTEM_CLEAN_BATCH_SIZE = 20;
     private static final boolean DEFAULT_FILE_SYSTEM_CLEAN_DELETE_OUT = false;
+    private static final int DEFAULT_FILE_SYSTEM_VOLUME_CONCURRENCY = 20;
+    private static final int DEFAULT_FILE_SYSTEM_VOLUME_MAX_OPS_PER_SECOND = 0;
+    private static final ByteSize DEFAULT_PREFETCH_BYTE_BUDGET = ByteSize.ofMebibytes(512);
+    private static final int DEFAULT_PREFETCH_THREADS = 4;
+    private static final StroomDuration DEFAULT_PREFETCH_TIME_TO_LIVE = StroomDuration.ofMinutes(30);
+    private static final ByteSize DEFAULT_S3_BLOCK_CACHE_SIZE = ByteSize.ofMebibytes(256);
+    private static final ByteSize DEFAULT_S3_BLOCK_SIZE = ByteSize.ofMebibytes(1);
+    private static final boolean DEFAULT_S3_RANGE_READS_ENABLED = true;
 
     private final DataStoreServiceDbConfig dbConfig;
     private StroomDuration deletePurgeAge;
@@ -49,6 +58,14 @@ public class DataStoreServiceConfig extends AbstractConfig implements IsStroomCo
     private final boolean fileSystemCleanDeleteOut;
     // TODO 29/11/2021 AT: Make final
     private StroomDuration fileSystemCleanOldAge;
+    private final int fileSystemVolumeConcurrency;
+    private final int fileSystemVolumeMaxOpsPerSecond;
+    private final ByteSize prefetchByteBudget;
+    private final int prefetchThreads;
+    private final StroomDuration prefetchTimeToLive;
+    private final ByteSize s3BlockCacheSize;
+    private final ByteSize s3BlockSize;
+    private final boolean s3RangeReadsEnabled;
 
     public DataStoreServiceConfig() {
         dbConfig = new DataStoreServiceDbConfig();
@@ -58,6 +75,14 @@ public class DataStoreServiceConfig extends AbstractConfig implements IsStroomCo
         fileSystemCleanBatchSize = DEFAULT_FILE_SYSTEM_CLEAN_BATCH_SIZE;
         fileSystemCleanDeleteOut = DEFAULT_FILE_SYSTEM_CLEAN_DELETE_OUT;
         fileSystemCleanOldAge = StroomDuration.ofDays(1);
+        fileSystemVolumeConcurrency = DEFAULT_FILE_SYSTEM_VOLUME_CONCURRENCY;
+        fileSystemVolumeMaxOpsPerSecond = DEFAULT_FILE_SYSTEM_VOLUME_MAX_OPS_PER_SECOND;
+        prefetchByteBudget = DEFAULT_PREFETCH_BYTE_BUDGET;
+        prefetchThreads = DEFAULT_PREFETCH_THREADS;
+        prefetchTimeToLive = DEFAULT_PREFETCH_TIME_TO_LIVE;
+        s3BlockCacheSize = DEFAULT_S3_BLOCK_CACHE_SIZE;
+        s3BlockSize = DEFAULT_S3_BLOCK_SIZE;
+        s3RangeReadsEnabled = DEFAULT_S3_RANGE_READS_ENABLED;
     }
 
     @SuppressWarnings("unused")
@@ -69,7 +94,17 @@ public class DataStoreServiceConfig extends AbstractConfig implements IsStroomCo
                                       final Integer deleteFailureThreshold,
                                   @JsonProperty("fileSystemCleanBatchSize") final Integer fileSystemCleanBatchSize,
                                   @JsonProperty("fileSystemCleanDeleteOut") final Boolean fileSystemCleanDeleteOut,
-                                  @JsonProperty("fileSystemCleanOldAge") final StroomDuration fileSystemCleanOldAge) {
+                                  @JsonProperty("fileSystemCleanOldAge") final StroomDuration fileSystemCleanOldAge,
+                                  @JsonProperty("fileSystemVolumeConcurrency")
+                                      final Integer fileSystemVolumeConcurrency,
+                                  @JsonProperty("fileSystemVolumeMaxOpsPerSecond")
+                                      final Integer fileSystemVolumeMaxOpsPerSecond,
+                                  @JsonProperty("prefetchByteBudget") final ByteSize prefetchByteBudget,
+                                  @JsonProperty("prefetchThreads") final Integer prefetchThreads,
+                                  @JsonProperty("prefetchTimeToLive") final StroomDuration prefetchTimeToLive,
+                                  @JsonProperty("s3BlockCacheSize") final ByteSize s3BlockCacheSize,
+                                  @JsonProperty("s3BlockSize") final ByteSize s3BlockSize,
+                                  @JsonProperty("s3RangeReadsEnabled") final Boolean s3RangeReadsEnabled) {
         this.dbConfig = dbConfig;
         this.deletePurgeAge = deletePurgeAge;
         this.deleteBatchSize =
@@ -81,6 +116,16 @@ public class DataStoreServiceConfig extends AbstractConfig implements IsStroomCo
         this.fileSystemCleanDeleteOut =
                 Objects.requireNonNullElse(fileSystemCleanDeleteOut, DEFAULT_FILE_SYSTEM_CLEAN_DELETE_OUT);
         this.fileSystemCleanOldAge = fileSystemCleanOldAge;
+        this.fileSystemVolumeConcurrency = Objects.requireNonNullElse(
+                fileSystemVolumeConcurrency, DEFAULT_FILE_SYSTEM_VOLUME_CONCURRENCY);
+        this.fileSystemVolumeMaxOpsPerSecond = Objects.requireNonNullElse(
+                fileSystemVolumeMaxOpsPerSecond, DEFAULT_FILE_SYSTEM_VOLUME_MAX_OPS_PER_SECOND);
+        this.prefetchByteBudget = Objects.requireNonNullElse(prefetchByteBudget, DEFAULT_PREFETCH_BYTE_BUDGET);
+        this.prefetchThreads = Objects.requireNonNullElse(prefetchThreads, DEFAULT_PREFETCH_THREADS);
+        this.prefetchTimeToLive = Objects.requireNonNullElse(prefetchTimeToLive, DEFAULT_PREFETCH_TIME_TO_LIVE);
+        this.s3BlockCacheSize = Objects.requireNonNullElse(s3BlockCacheSize, DEFAULT_S3_BLOCK_CACHE_SIZE);
+        this.s3BlockSize = Objects.requireNonNullElse(s3BlockSize, DEFAULT_S3_BLOCK_SIZE);
+        this.s3RangeReadsEnabled = Objects.requireNonNullElse(s3RangeReadsEnabled, DEFAULT_S3_RANGE_READS_ENABLED);
     }
 
     @Override
@@ -128,6 +173,63 @@ public class DataStoreServiceConfig extends AbstractConfig implements IsStroomCo
         return fileSystemCleanOldAge;
     }
 
+    @Min(1)
+    @JsonPropertyDescription("The maximum number of directory subtrees or streams on a single volume that the '"
+            + PhysicalDeleteExecutor.TASK_NAME + "', '" + FsOrphanFileFinderExecutor.TASK_NAME + "' and '"
+            + FsOrphanMetaFinderExecutor.TASK_NAME + "' jobs will work on concurrently. Different volumes are " +
+            "worked on in parallel, each with this limit.")
+    public int getFileSystemVolumeConcurrency() {
+        return fileSystemVolumeConcurrency;
+    }
+
+    @Min(0)
+    @JsonPropertyDescription("The maximum number of file system operations (deleting the files of a stream, " +
+            "deleting a directory, visiting a file or listing a directory) per second that the file system " +
+            "clean up jobs will make against a single volume. Set to zero for no limit.")
+    public int getFileSystemVolumeMaxOpsPerSecond() {
+        return fileSystemVolumeMaxOpsPerSecond;
+    }
+
+    @JsonPropertyDescription("The maximum amount of stream data that this node will read ahead of time for " +
+            "processor tasks that it has been assigned but not yet started. Streams on standard volumes are read " +
+            "into the OS page cache and streams on S3 volumes are read into the local cache. Streams that do not " +
+            "fit in the remaining budget are only partly read. Set to zero to disable prefetching.")
+    public ByteSize getPrefetchByteBudget() {
+        return prefetchByteBudget;
+    }
+
+    @Min(1)
+    @JsonPropertyDescription("The maximum number of streams that will be prefetched concurrently for assigned " +
+            "processor tasks.")
+    public int getPrefetchThreads() {
+        return prefetchThreads;
+    }
+
+    @JsonPropertyDescription("How long a prefetched stream is held against the prefetch budget waiting for its " +
+            "processor task to start. Streams whose tasks have not started by then, e.g. because the task failed " +
+            "before it got to the stream, are dropped so that their share of the budget can be reused.")
+    public StroomDuration getPrefetchTimeToLive() {
+        return prefetchTimeToLive;
+    }
+
+    @JsonPropertyDescription("The maximum amount of data read from S3 volumes to hold in the local block cache. " +
+            "Only used when s3RangeReadsEnabled is true.")
+    public ByteSize getS3BlockCacheSize() {
+        return s3BlockCacheSize;
+    }
+
+    @JsonPropertyDescription("The size of each block requested from S3 volumes with a ranged read. " +
+            "Only used when s3RangeReadsEnabled is true.")
+    public ByteSize getS3BlockSize() {
+        return s3BlockSize;
+    }
+
+    @JsonPropertyDescription("If true, data on S3 volumes is read with ranged requests for just the parts of the " +
+            "stream zip that are needed rather than downloading and unzipping the whole stream.")
+    public boolean isS3RangeReadsEnabled() {
+        return s3RangeReadsEnabled;
+    }
+
     public DataStoreServiceConfig withDeletePurgeAge(final StroomDuration deletePurgeAge) {
         return new DataStoreServiceConfig(
                 dbConfig,
@@ -136,7 +238,15 @@ public class DataStoreServiceConfig extends AbstractConfig implements IsStroomCo
                 deleteFailureThreshold,
                 fileSystemCleanBatchSize,
                 fileSystemCleanDeleteOut,
-                fileSystemCleanOldAge);
+                fileSystemCleanOldAge,
+                fileSystemVolumeConcurrency,
+                fileSystemVolumeMaxOpsPerSecond,
+                prefetchByteBudget,
+                prefetchThreads,
+                prefetchTimeToLive,
+                s3BlockCacheSize,
+                s3BlockSize,
+                s3RangeReadsEnabled);
     }
 
     public DataStoreServiceConfig withDeleteBatchSize(final int deleteBatchSize) {
@@ -147,7 +257,15 @@ public class DataStoreServiceConfig extends AbstractConfig implements IsStroomCo
                 deleteFailureThreshold,
                 fileSystemCleanBatchSize,
                 fileSystemCleanDeleteOut,
-                fileSystemCleanOldAge);
+                fileSystemCleanOldAge,
+                fileSystemVolumeConcurrency,
+                fileSystemVolumeMaxOpsPerSecond,
+                prefetchByteBudget,
+                prefetchThreads,
+                prefetchTimeToLive,
+                s3BlockCacheSize,
+                s3BlockSize,
+                s3RangeReadsEnabled);
     }
 
     public DataStoreServiceConfig withFileSystemCleanOldAge(final StroomDuration fileSystemCleanOldAge) {
@@ -158,6 +276,14 @@ public class DataStoreServiceConfig extends AbstractConfig implements IsStroomCo
                 deleteFailureThreshold,
                 fileSystemCleanBatchSize,
                 fileSystemCleanDeleteOut,
-                fileSystemCleanOldAge);
+                fileSystemCleanOldAge,
+                fileSystemVolumeConcurrency,
+                fileSystemVolumeMaxOpsPerSecond,
+                prefetchByteBudget,
+                prefetchThreads,
+                prefetchTimeToLive,
+                s3BlockCacheSize,
+                s3BlockSize,
+                s3RangeReadsEnabled);
     }
 }
@@ -0,0 +1,459 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.data.store.impl.fs;
+
+import stroom.data.store.api.DataPrefetcher;
+import stroom.data.store.impl.fs.DataVolumeDao.DataVolume;
+import stroom.meta.api.MetaService;
+import stroom.meta.shared.Meta;
+import stroom.security.api.SecurityContext;
+import stroom.task.api.ExecutorProvider;
+import stroom.task.api.ThreadPoolImpl;
+import stroom.task.shared.ThreadPool;
+import stroom.util.io.PathCreator;
+import stroom.util.logging.LambdaLogger;
+import stroom.util.logging.LambdaLoggerFactory;
+import stroom.util.shared.ModelStringUtil;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+import jakarta.inject.Singleton;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.LongUnaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Reads the streams of assigned processor tasks in the background so that they are warm by the time the tasks run.
+ * Streams on standard volumes are read into the OS page cache and streams on S3 volumes are read into the local
+ * block or download cache.
+ * <p>
+ * The bytes read for streams that have not yet been claimed are limited by a budget so that we don't read so far
+ * ahead that the data is evicted again before it is used. A claimed stream counts as a hit if its prefetch had
+ * completed, and the time spent reading it in the background is counted as time saved.
+ * <p>
+ * Streams that are not claimed or cancelled within a time to live are dropped so that their reserved bytes are not
+ * held forever if their task never runs.
+ */
+@Singleton
+class FsDataPrefetcher implements DataPrefetcher {
+
+    private static final LambdaLogger LOGGER = LambdaLoggerFactory.getLogger(FsDataPrefetcher.class);
+
+    private static final ThreadPool THREAD_POOL = new ThreadPoolImpl("Data Prefetch#", Thread.MIN_PRIORITY);
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final LongSupplier budgetSupplier;
+    private final IntSupplier threadCountSupplier;
+    private final Supplier<Duration> timeToLiveSupplier;
+    private final Supplier<Executor> executorSupplier;
+    private final StreamReader streamReader;
+
+    private final Map<Long, Prefetch> prefetches = new ConcurrentHashMap<>();
+    private final Queue<Long> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+    private final AtomicLong reservedBytes = new AtomicLong();
+
+    private final LongAdder requested = new LongAdder();
+    private final LongAdder prefetched = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder late = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder timeSavedNs = new LongAdder();
+
+    @Inject
+    FsDataPrefetcher(final Provider<DataStoreServiceConfig> dataStoreServiceConfigProvider,
+                     final MetaService metaService,
+                     final DataVolumeService dataVolumeService,
+                     final PathCreator pathCreator,
+                     final FsPathHelper fileSystemStreamPathHelper,
+                     final S3Store s3Store,
+                     final ExecutorProvider executorProvider,
+                     final SecurityContext securityContext) {
+        this(() -> dataStoreServiceConfigProvider.get().getPrefetchByteBudget().getBytes(),
+                () -> dataStoreServiceConfigProvider.get().getPrefetchThreads(),
+                () -> dataStoreServiceConfigProvider.get().getPrefetchTimeToLive().getDuration(),
+                () -> executorProvider.get(THREAD_POOL),
+                (metaId, reserver) -> securityContext.asProcessingUserResult(() -> {
+                    final Meta meta = metaService.getMeta(metaId);
+                    if (meta == null) {
+                        // Deleted or locked so the task won't get far.
+                        return 0L;
+                    }
+                    final DataVolume dataVolume = dataVolumeService.findDataVolume(metaId);
+                    if (dataVolume == null) {
+                        return 0L;
+                    }
+                    return switch (dataVolume.getVolume().getVolumeType()) {
+                        case STANDARD -> {
+                            final Path volumePath = pathCreator.toAppPath(dataVolume.getVolume().getPath());
+                            final Path rootFile = fileSystemStreamPathHelper.getRootPath(
+                                    volumePath, meta, meta.getTypeName());
+                            final List<Path> files = new ArrayList<>();
+                            files.add(rootFile);
+                            files.addAll(fileSystemStreamPathHelper.findAllDescendantStreamFileList(rootFile));
+                            yield readFiles(files, reserver);
+                        }
+                        case S3 -> s3Store.prefetch(dataVolume, meta, reserver);
+                    };
+                }));
+    }
+
+    FsDataPrefetcher(final LongSupplier budgetSupplier,
+                     final IntSupplier threadCountSupplier,
+                     final Supplier<Duration> timeToLiveSupplier,
+                     final Supplier<Executor> executorSupplier,
+                     final StreamReader streamReader) {
+        this.budgetSupplier = budgetSupplier;
+        this.threadCountSupplier = threadCountSupplier;
+        this.timeToLiveSupplier = timeToLiveSupplier;
+        this.executorSupplier = executorSupplier;
+        this.streamReader = streamReader;
+    }
+
+    @Override
+    public void prefetch(final Collection<Long> metaIds) {
+        if (budgetSupplier.getAsLong() <= 0) {
+            return;
+        }
+        expireStale();
+        for (final Long metaId : metaIds) {
+            if (metaId != null && prefetches.putIfAbsent(metaId, new Prefetch()) == null) {
+                requested.increment();
+                queue.add(metaId);
+            }
+        }
+        startWorkers();
+    }
+
+    /**
+     * Drop any streams that have been waiting longer than the time to live to be claimed or cancelled.
+     */
+    private void expireStale() {
+        final long timeToLiveNs = timeToLiveSupplier.get().toNanos();
+        final long now = System.nanoTime();
+        prefetches.forEach((metaId, prefetch) -> {
+            if (now - prefetch.getCreateTimeNs() >= timeToLiveNs && prefetches.remove(metaId, prefetch)) {
+                prefetch.release();
+                expired.increment();
+                LOGGER.debug(() -> "Expired prefetch of stream " + metaId);
+            }
+        });
+    }
+
+    private void startWorkers() {
+        final int threadCount = threadCountSupplier.getAsInt();
+        int active = activeWorkers.get();
+        while (active < threadCount && !queue.isEmpty()) {
+            if (activeWorkers.compareAndSet(active, active + 1)) {
+                try {
+                    executorSupplier.get().execute(this::drainQueue);
+                } catch (final RuntimeException e) {
+                    activeWorkers.decrementAndGet();
+                    throw e;
+                }
+            }
+            active = activeWorkers.get();
+        }
+    }
+
+    private void drainQueue() {
+        try {
+            Long metaId = queue.poll();
+            while (metaId != null) {
+                prefetchStream(metaId);
+                metaId = queue.poll();
+            }
+        } finally {
+            activeWorkers.decrementAndGet();
+        }
+        // Something may have been queued after we last looked but before we stopped counting as active.
+        if (!queue.isEmpty()) {
+            startWorkers();
+        }
+    }
+
+    private void prefetchStream(final long metaId) {
+        final Prefetch prefetch = prefetches.get(metaId);
+        if (prefetch == null || !prefetch.start()) {
+            // Claimed or cancelled before we got to it.
+            return;
+        }
+
+        if (reservedBytes.get() >= budgetSupplier.getAsLong()) {
+            skipped.increment();
+            prefetch.finish(State.SKIPPED, 0, 0);
+            return;
+        }
+
+        final long startNs = System.nanoTime();
+        try {
+            final long read = streamReader.read(metaId, wanted -> reserve(prefetch, wanted));
+            bytesRead.add(read);
+            if (read > 0) {
+                prefetched.increment();
+                prefetch.finish(State.DONE, read, System.nanoTime() - startNs);
+            } else {
+                skipped.increment();
+                prefetch.finish(State.SKIPPED, 0, 0);
+            }
+            LOGGER.debug(() -> "Prefetched " + read + " bytes of stream " + metaId);
+        } catch (final RuntimeException e) {
+            LOGGER.debug(() -> "Failed to prefetch stream " + metaId + ": " + e.getMessage(), e);
+            failed.increment();
+            prefetch.finish(State.FAILED, 0, 0);
+        }
+    }
+
+    /**
+     * Reserve up to the wanted number of bytes from the remaining budget for a stream.
+     *
+     * @return The number of bytes the stream may read.
+     */
+    private long reserve(final Prefetch prefetch, final long wanted) {
+        final long budget = budgetSupplier.getAsLong();
+        long granted;
+        long current;
+        do {
+            current = reservedBytes.get();
+            granted = Math.max(0, Math.min(wanted, budget - current));
+        } while (granted > 0 && !reservedBytes.compareAndSet(current, current + granted));
+        prefetch.addReserved(granted);
+        return granted;
+    }
+
+    @Override
+    public void claim(final long metaId) {
+        final Prefetch prefetch = prefetches.remove(metaId);
+        if (prefetch == null) {
+            misses.increment();
+            return;
+        }
+
+        final State state = prefetch.release();
+        switch (state) {
+            case DONE -> {
+                hits.increment();
+                timeSavedNs.add(prefetch.getReadNs());
+            }
+            case QUEUED, READING -> late.increment();
+            default -> misses.increment();
+        }
+    }
+
+    @Override
+    public void cancel(final Collection<Long> metaIds) {
+        for (final Long metaId : metaIds) {
+            final Prefetch prefetch = metaId != null
+                    ? prefetches.remove(metaId)
+                    : null;
+            if (prefetch != null) {
+                prefetch.release();
+                cancelled.increment();
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStatistics() {
+        final long hitCount = hits.sum();
+        final long claimCount = hitCount + late.sum() + misses.sum();
+        final double hitRate = claimCount > 0
+                ? (double) hitCount / claimCount
+                : 0;
+
+        final Map<String, Object> map = new LinkedHashMap<>();
+        map.put("budget", ModelStringUtil.formatIECByteSizeString(budgetSupplier.getAsLong()));
+        map.put("reserved", ModelStringUtil.formatIECByteSizeString(reservedBytes.get()));
+        map.put("queued", queue.size());
+        map.put("tracked", prefetches.size());
+        map.put("requested", requested.sum());
+        map.put("prefetched", prefetched.sum());
+        map.put("skipped", skipped.sum());
+        map.put("failed", failed.sum());
+        map.put("cancelled", cancelled.sum());
+        map.put("expired", expired.sum());
+        map.put("hits", hitCount);
+        map.put("late", late.sum());
+        map.put("misses", misses.sum());
+        map.put("hitRate", Math.round(hitRate * 1000) / 1000D);
+        map.put("bytesRead", ModelStringUtil.formatIECByteSizeString(bytesRead.sum()));
+        map.put("timeSaved", Duration.ofNanos(timeSavedNs.sum()).toString());
+        return map;
+    }
+
+    long getReservedBytes() {
+        return reservedBytes.get();
+    }
+
+    /**
+     * Read files from the start, in order, to get them into the page cache.
+     */
+    private static long readFiles(final List<Path> files, final LongUnaryOperator reserver) {
+        long total = 0;
+        for (final Path file : files) {
+            try {
+                total += Files.size(file);
+            } catch (final IOException e) {
+                LOGGER.debug(e::getMessage, e);
+            }
+        }
+
+        final long allowed = reserver.applyAsLong(total);
+        final ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        long read = 0;
+        for (final Path file : files) {
+            if (read >= allowed) {
+                break;
+            }
+            try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                int count = 0;
+                while (count >= 0 && read < allowed) {
+                    buffer.clear();
+                    count = channel.read(buffer);
+                    if (count > 0) {
+                        read += count;
+                    }
+                }
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return read;
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    /**
+     * Reads all or part of a stream.
+     */
+    interface StreamReader {
+
+        /**
+         * @param reserver Given the number of bytes the reader would like to read, returns the number it may read.
+         * @return The number of bytes read.
+         */
+        long read(long metaId, LongUnaryOperator reserver);
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    private enum State {
+        QUEUED,
+        READING,
+        DONE,
+        SKIPPED,
+        FAILED,
+        RELEASED
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    private class Prefetch {
+
+        private final long createTimeNs = System.nanoTime();
+        private State state = State.QUEUED;
+        private long reserved;
+        private long readNs;
+
+        synchronized boolean start() {
+            if (state == State.QUEUED) {
+                state = State.READING;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized void addReserved(final long bytes) {
+            if (state == State.RELEASED) {
+                // Released while we were reading so give the bytes straight back.
+                reservedBytes.addAndGet(-bytes);
+            } else {
+                reserved += bytes;
+            }
+        }
+
+        /**
+         * Record the outcome of reading the stream and return any reserved bytes that were not read.
+         */
+        synchronized void finish(final State state, final long read, final long readNs) {
+            if (this.state == State.READING) {
+                final long unused = reserved - read;
+                if (unused > 0) {
+                    reservedBytes.addAndGet(-unused);
+                    reserved = read;
+                }
+                this.state = state;
+                this.readNs = readNs;
+            }
+        }
+
+        /**
+         * Stop tracking the stream and give back its reserved bytes.
+         *
+         * @return The state of the stream before it was released.
+         */
+        synchronized State release() {
+            final State previous = state;
+            reservedBytes.addAndGet(-reserved);
+            reserved = 0;
+            state = State.RELEASED;
+            return previous;
+        }
+
+        synchronized long getReadNs() {
+            return readNs;
+        }
+
+        long getCreateTimeNs() {
+            return createTimeNs;
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package stroom.data.store.impl.fs;
 
 import stroom.data.store.api.AttributeMapFactory;
+import stroom.data.store.api.DataPrefetcher;
 import stroom.data.store.api.FsVolumeGroupService;
 import stroom.data.store.api.Store;
 import stroom.data.store.impl.fs.shared.FsVolume;
@@ -35,11 +36,13 @@ public class FsDataStoreModule extends AbstractModule {
     protected void configure() {
         bind(Store.class).to(FsStore.class);
         bind(AttributeMapFactory.class).to(FsStore.class);
+        bind(DataPrefetcher.class).to(FsDataPrefetcher.class);
         bind(FsVolumeGroupService.class).to(FsVolumeGroupServiceImpl.class);
 
         GuiceUtil.buildMultiBinder(binder(), Clearable.class)
                 .addBinding(FsVolumeService.class)
-                .addBinding(FsVolumeGroupServiceImpl.class);
+                .addBinding(FsVolumeGroupServiceImpl.class)
+                .addBinding(SegmentIndexCache.class);
 
         RestResourcesBinder.create(binder())
                 .bind(FsVolumeResourceImpl.class)
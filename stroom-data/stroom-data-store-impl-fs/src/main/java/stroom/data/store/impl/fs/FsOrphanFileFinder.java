@@ -22,6 +22,8 @@ import stroom.meta.api.MetaService;
 import stroom.security.api.SecurityContext;
 import stroom.security.shared.AppPermission;
 import stroom.task.api.TaskContext;
+import stroom.task.api.TaskContextFactory;
+import stroom.util.concurrent.WorkQueue;
 import stroom.util.io.AbstractFileVisitor;
 import stroom.util.io.FileUtil;
 import stroom.util.io.PathCreator;
@@ -38,15 +40,25 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * API used by the tasks to interface to the stream store under the bonnet.
+ * <p>
+ * Each volume is split into subtrees, one per day directory, i.e. {@code store/<type>/<yyyy>/<mm>/<dd>},
+ * which are scanned concurrently. The last subtree that has been scanned, along with all those before it, is
+ * recorded in the DB so that a scan that is interrupted can resume from where it got to.
  */
 class FsOrphanFileFinder {
 
@@ -54,26 +66,37 @@ class FsOrphanFileFinder {
 
     private static final int BATCH_SIZE = 1_000;
 
+    // The depth of the day dirs below the store root, i.e. <type>/<yyyy>/<mm>/<dd>
+    static final int SUBTREE_DEPTH = 4;
+
     private final FsPathHelper fileSystemStreamPathHelper;
     private final MetaService metaService;
     private final SecurityContext securityContext;
     private final PathCreator pathCreator;
+    private final TaskContextFactory taskContextFactory;
+    private final FsOrphanedFileDao fsOrphanedFileDao;
 
     @Inject
     public FsOrphanFileFinder(final FsPathHelper fileSystemStreamPathHelper,
                               final MetaService metaService,
                               final SecurityContext securityContext,
-                              final PathCreator pathCreator) {
+                              final PathCreator pathCreator,
+                              final TaskContextFactory taskContextFactory,
+                              final FsOrphanedFileDao fsOrphanedFileDao) {
         this.fileSystemStreamPathHelper = fileSystemStreamPathHelper;
         this.metaService = metaService;
         this.securityContext = securityContext;
         this.pathCreator = pathCreator;
+        this.taskContextFactory = taskContextFactory;
+        this.fsOrphanedFileDao = fsOrphanedFileDao;
     }
 
     public ScanVolumePathResult scanVolumePath(final FsVolume volume,
                                                final Consumer<Path> orphanConsumer,
                                                final Instant oldestDirTime,
-                                               final TaskContext taskContext) {
+                                               final TaskContext taskContext,
+                                               final Executor executor,
+                                               final FsVolumeIoLimiter ioLimiter) {
         final String volumePathStr = pathCreator.toAppPath(volume.getPath()).toString();
 
         final FsOrphanFileFinderProgress cleanProgress = new FsOrphanFileFinderProgress(
@@ -89,92 +112,176 @@ class FsOrphanFileFinder {
                         " - Skipping as root is not a directory !!");
                 return result;
             }
-            LOGGER.debug(() -> LogUtil.message("{} - Scanning directory {} with oldestDirTime {}",
-                    FsOrphanFileFinderExecutor.TASK_NAME, directory, oldestDirTime));
 
-            final Map<Long, Set<Path>> fileMap = new HashMap<>();
-            final Map<Path, Instant> dirAges = new HashMap<>();
+            final List<Path> subtrees;
             try {
-                Files.walkFileTree(directory,
-                        EnumSet.of(FileVisitOption.FOLLOW_LINKS),
-                        Integer.MAX_VALUE,
-                        new AbstractFileVisitor() {
-                            @Override
-                            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) {
-                                cleanProgress.addDir();
-                                // Remember the dir age.
-                                final Instant instant = Instant.ofEpochMilli(attrs.lastModifiedTime().toMillis());
-                                dirAges.put(dir, instant);
-
-                                // The parent dir has child dirs so we won't be considering the dir for deletion.
-                                final Path parent = dir.getParent();
-                                if (parent != null) {
-                                    dirAges.remove(parent);
-                                }
+                subtrees = findSubtrees(directory);
+            } catch (final IOException | RuntimeException e) {
+                LOGGER.error(e.getMessage(), e);
+                return result;
+            }
+
+            // Skip any subtrees that an earlier scan got through before it was stopped.
+            final Optional<String> lastPath = fsOrphanedFileDao.getLastPath(volume.getId());
+            final List<Path> remaining = lastPath
+                    .map(last -> subtrees.stream()
+                            .filter(subtree -> toRelativePath(directory, subtree).compareTo(last) > 0)
+                            .toList())
+                    .orElse(subtrees);
+            cleanProgress.addSubtrees(subtrees.size(), subtrees.size() - remaining.size());
+
+            LOGGER.debug(() -> LogUtil.message("{} - Scanning directory {} with oldestDirTime {}, " +
+                                               "subtrees: {}, resuming after: {}",
+                    FsOrphanFileFinderExecutor.TASK_NAME,
+                    directory,
+                    oldestDirTime,
+                    subtrees.size(),
+                    lastPath.orElse(null)));
 
-                                return super.preVisitDirectory(dir, attrs);
+            final SubtreeCheckpoint checkpoint = new SubtreeCheckpoint(remaining);
+            final WorkQueue workQueue = new WorkQueue(
+                    executor,
+                    ioLimiter.getConcurrency(),
+                    ioLimiter.getConcurrency());
+            for (int i = 0; i < remaining.size(); i++) {
+                if (isTerminated(taskContext)) {
+                    break;
+                }
+                final int index = i;
+                final Path subtree = remaining.get(i);
+                workQueue.exec(taskContextFactory.childContext(
+                        taskContext,
+                        "Scanning subtree",
+                        childTaskContext -> {
+                            final boolean complete = scanSubtree(
+                                    subtree,
+                                    volumePathStr,
+                                    orphanConsumer,
+                                    oldestDirTime,
+                                    childTaskContext,
+                                    ioLimiter,
+                                    cleanProgress);
+                            if (complete) {
+                                cleanProgress.addScanComplete();
+                                checkpoint.markComplete(index, lastComplete ->
+                                        fsOrphanedFileDao.updateLastPath(
+                                                volume.getId(),
+                                                toRelativePath(directory, lastComplete)));
                             }
+                        }));
+            }
+            workQueue.join();
 
-                            @Override
-                            public FileVisitResult postVisitDirectory(final Path dir, final IOException exc) {
-                                // If the dir is empty and old then record it.
-                                final Instant age = dirAges.remove(dir);
-                                if (age != null && age.isBefore(oldestDirTime)) {
-                                    LOGGER.trace(() -> "Orphan dir: " + FileUtil.getCanonicalPath(dir));
-                                    orphanConsumer.accept(dir);
-                                } else {
-                                    LOGGER.trace("Ignoring recently created dir {}", dir);
-                                }
+            if (!isTerminated(taskContext) && checkpoint.isAllComplete()) {
+                // Next run we start from the beginning
+                fsOrphanedFileDao.clearLastPath(volume.getId());
+            } else {
+                LOGGER.info("{} - Stopped scanning {} with {}",
+                        FsOrphanFileFinderExecutor.TASK_NAME, directory, cleanProgress.traceInfo());
+            }
+
+            return result;
+        });
+    }
+
+    /**
+     * Scan one subtree of the volume.
+     *
+     * @return True if the whole subtree was scanned.
+     */
+    private boolean scanSubtree(final Path subtree,
+                                final String volume,
+                                final Consumer<Path> orphanConsumer,
+                                final Instant oldestDirTime,
+                                final TaskContext taskContext,
+                                final FsVolumeIoLimiter ioLimiter,
+                                final FsOrphanFileFinderProgress cleanProgress) {
+        final Map<Long, Set<Path>> fileMap = new HashMap<>();
+        final Map<Path, Instant> dirAges = new HashMap<>();
+        try {
+            Files.walkFileTree(subtree,
+                    EnumSet.of(FileVisitOption.FOLLOW_LINKS),
+                    Integer.MAX_VALUE,
+                    new AbstractFileVisitor() {
+                        @Override
+                        public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) {
+                            if (!throttle(ioLimiter, volume)) {
+                                return FileVisitResult.TERMINATE;
+                            }
+                            cleanProgress.addDir();
+                            // Remember the dir age.
+                            final Instant instant = Instant.ofEpochMilli(attrs.lastModifiedTime().toMillis());
+                            dirAges.put(dir, instant);
 
-                                return super.postVisitDirectory(dir, exc);
+                            // The parent dir has child dirs so we won't be considering the dir for deletion.
+                            final Path parent = dir.getParent();
+                            if (parent != null) {
+                                dirAges.remove(parent);
                             }
 
-                            @Override
-                            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
-                                // The parent dir has files so we won't be considering the dir for deletion.
-                                dirAges.remove(file.getParent());
+                            return super.preVisitDirectory(dir, attrs);
+                        }
 
-                                taskContext.info(() -> FileUtil.getCanonicalPath(file));
-                                cleanProgress.addFile();
+                        @Override
+                        public FileVisitResult postVisitDirectory(final Path dir, final IOException exc) {
+                            // If the dir is empty and old then record it.
+                            final Instant age = dirAges.remove(dir);
+                            if (age != null && age.isBefore(oldestDirTime)) {
+                                LOGGER.trace(() -> "Orphan dir: " + FileUtil.getCanonicalPath(dir));
+                                orphanConsumer.accept(dir);
+                            } else {
+                                LOGGER.trace("Ignoring recently created dir {}", dir);
+                            }
 
-                                if (Thread.currentThread().isInterrupted() || taskContext.isTerminated()) {
-                                    return FileVisitResult.TERMINATE;
-                                }
+                            return super.postVisitDirectory(dir, exc);
+                        }
 
-                                // Process only raw zip repo files, i.e. files that have not already been created
-                                // by the fragmenting process.
-                                final long id = fileSystemStreamPathHelper.getId(file);
-                                LOGGER.trace(() -> "Got id = " + id + " for file " + FileUtil.getCanonicalPath(file));
+                        @Override
+                        public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+                            // The parent dir has files so we won't be considering the dir for deletion.
+                            dirAges.remove(file.getParent());
 
-                                if (id == -1) {
-                                    LOGGER.trace(() -> "Orphan file as no id: " + FileUtil.getCanonicalPath(file));
-                                    cleanProgress.addOrphanCount();
-                                    orphanConsumer.accept(file);
-                                } else {
-                                    fileMap.computeIfAbsent(id, k -> new HashSet<>()).add(file);
-                                }
+                            taskContext.info(() -> FileUtil.getCanonicalPath(file));
+                            cleanProgress.addFile();
 
-                                if (fileMap.size() >= BATCH_SIZE) {
-                                    // Validate the batch of files against the DB.
-                                    validateFiles(fileMap, cleanProgress, orphanConsumer, taskContext);
-                                    fileMap.clear();
-                                }
+                            if (isTerminated(taskContext) || !throttle(ioLimiter, volume)) {
+                                return FileVisitResult.TERMINATE;
+                            }
 
-                                return FileVisitResult.CONTINUE;
+                            // Process only raw zip repo files, i.e. files that have not already been created
+                            // by the fragmenting process.
+                            final long id = fileSystemStreamPathHelper.getId(file);
+                            LOGGER.trace(() -> "Got id = " + id + " for file " + FileUtil.getCanonicalPath(file));
+
+                            if (id == -1) {
+                                LOGGER.trace(() -> "Orphan file as no id: " + FileUtil.getCanonicalPath(file));
+                                cleanProgress.addOrphanCount();
+                                orphanConsumer.accept(file);
+                            } else {
+                                fileMap.computeIfAbsent(id, k -> new HashSet<>()).add(file);
                             }
-                        });
-            } catch (final IOException | RuntimeException e) {
-                LOGGER.error(e.getMessage(), e);
-            }
 
-            if (!Thread.currentThread().isInterrupted() && !taskContext.isTerminated()) {
-                // Validate any remaining files against the DB.
-                validateFiles(fileMap, cleanProgress, orphanConsumer, taskContext);
-            }
-            fileMap.clear();
+                            if (fileMap.size() >= BATCH_SIZE) {
+                                // Validate the batch of files against the DB.
+                                validateFiles(fileMap, cleanProgress, orphanConsumer, taskContext);
+                                fileMap.clear();
+                            }
 
-            return result;
-        });
+                            return FileVisitResult.CONTINUE;
+                        }
+                    });
+        } catch (final IOException | RuntimeException e) {
+            LOGGER.error(e.getMessage(), e);
+            return false;
+        }
+
+        if (isTerminated(taskContext)) {
+            return false;
+        }
+        // Validate any remaining files against the DB.
+        validateFiles(fileMap, cleanProgress, orphanConsumer, taskContext);
+        fileMap.clear();
+        return !isTerminated(taskContext);
     }
 
     private void validateFiles(final Map<Long, Set<Path>> fileMap,
@@ -184,8 +291,6 @@ class FsOrphanFileFinder {
         // See if all the meta ids from the files exist in the db
         final Set<Long> metaIdSet = metaService.exists(fileMap.keySet());
 
-//        // If we have had the same number of results from the DB that we asked for then all is good.
-//        final Se<Meta> metaList = resultPage.getValues();
         if (metaIdSet.size() != fileMap.size()) {
             LOGGER.debug(() -> LogUtil.message(
                     "metaIdSet is is different size to file map: " +
@@ -198,8 +303,7 @@ class FsOrphanFileFinder {
             fileMap.values()
                     .forEach(list -> list
                             .stream()
-                            .takeWhile(item ->
-                                    !Thread.currentThread().isInterrupted() && !taskContext.isTerminated())
+                            .takeWhile(item -> !isTerminated(taskContext))
                             .forEach(file -> {
                                 LOGGER.trace(() -> "Orphan file: " + FileUtil.getCanonicalPath(file));
                                 if (Files.isRegularFile(file)) {
@@ -209,4 +313,100 @@ class FsOrphanFileFinder {
                             }));
         }
     }
+
+    /**
+     * Split the store root into the subtrees that can be scanned independently. These are the day dirs, plus
+     * any files or empty dirs found above that depth so that they still get checked.
+     *
+     * @return The subtrees in the order of their path relative to the root.
+     */
+    static List<Path> findSubtrees(final Path root) throws IOException {
+        final List<Path> subtrees = new ArrayList<>();
+        addSubtrees(root, 0, subtrees);
+        subtrees.sort(Comparator.comparing(subtree -> toRelativePath(root, subtree)));
+        return subtrees;
+    }
+
+    private static void addSubtrees(final Path dir,
+                                    final int depth,
+                                    final List<Path> subtrees) throws IOException {
+        if (depth >= SUBTREE_DEPTH) {
+            subtrees.add(dir);
+        } else {
+            final List<Path> children;
+            try (final Stream<Path> stream = Files.list(dir)) {
+                children = stream.toList();
+            }
+            if (children.isEmpty()) {
+                // Still need to visit it to see if it is an old empty dir.
+                subtrees.add(dir);
+            }
+            for (final Path child : children) {
+                if (Files.isDirectory(child)) {
+                    addSubtrees(child, depth + 1, subtrees);
+                } else {
+                    subtrees.add(child);
+                }
+            }
+        }
+    }
+
+    static String toRelativePath(final Path root, final Path subtree) {
+        // Use a fixed separator so the stored checkpoints compare the same way on all platforms
+        return root.relativize(subtree).toString().replace('\\', '/');
+    }
+
+    private static boolean throttle(final FsVolumeIoLimiter ioLimiter, final String volume) {
+        try {
+            ioLimiter.throttle(volume);
+            return true;
+        } catch (final InterruptedException e) {
+            LOGGER.debug("Interrupted waiting for IO rate limit on {}", volume);
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static boolean isTerminated(final TaskContext taskContext) {
+        return Thread.currentThread().isInterrupted() || taskContext.isTerminated();
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    /**
+     * Subtrees complete in any order, so this tracks the last subtree for which it and all the subtrees
+     * before it are complete. That is the point a later scan can safely resume from.
+     */
+    static final class SubtreeCheckpoint {
+
+        private final List<Path> subtrees;
+        private final boolean[] complete;
+        private int nextIncomplete = 0;
+
+        SubtreeCheckpoint(final List<Path> subtrees) {
+            this.subtrees = subtrees;
+            this.complete = new boolean[subtrees.size()];
+        }
+
+        /**
+         * Mark a subtree as complete. If this moves the checkpoint forward, the consumer is called with the new
+         * checkpoint. The consumer is called under lock so checkpoints are always saved in order.
+         */
+        synchronized void markComplete(final int index, final Consumer<Path> checkpointConsumer) {
+            complete[index] = true;
+            final int before = nextIncomplete;
+            while (nextIncomplete < complete.length && complete[nextIncomplete]) {
+                nextIncomplete++;
+            }
+            if (nextIncomplete > before) {
+                checkpointConsumer.accept(subtrees.get(nextIncomplete - 1));
+            }
+        }
+
+        synchronized boolean isAllComplete() {
+            return nextIncomplete == complete.length;
+        }
+    }
 }
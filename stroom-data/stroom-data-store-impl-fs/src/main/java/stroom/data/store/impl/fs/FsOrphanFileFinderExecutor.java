@@ -19,8 +19,11 @@ package stroom.data.store.impl.fs;
 import stroom.data.store.impl.fs.shared.FindFsVolumeCriteria;
 import stroom.data.store.impl.fs.shared.FsVolume;
 import stroom.data.store.impl.fs.shared.FsVolume.VolumeUseStatus;
+import stroom.task.api.ExecutorProvider;
 import stroom.task.api.TaskContext;
 import stroom.task.api.TaskContextFactory;
+import stroom.task.api.ThreadPoolImpl;
+import stroom.task.shared.ThreadPool;
 import stroom.util.date.DateUtil;
 import stroom.util.io.FileUtil;
 import stroom.util.io.PathCreator;
@@ -39,7 +42,10 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
@@ -51,11 +57,14 @@ class FsOrphanFileFinderExecutor {
     private static final LambdaLogger LOGGER = LambdaLoggerFactory.getLogger(FsOrphanFileFinderExecutor.class);
     private static final Logger ORPHAN_FILE_LOGGER = LoggerFactory.getLogger("orphan_file");
     public static final String TASK_NAME = "Orphan File Finder";
+    private static final ThreadPool THREAD_POOL = new ThreadPoolImpl("Orphan File Finder#", Thread.MIN_PRIORITY);
 
     private final FsVolumeService volumeService;
     private final Duration oldAge;
     private final Provider<FsOrphanFileFinder> orphanFileFinderProvider;
     private final TaskContextFactory taskContextFactory;
+    private final Provider<DataStoreServiceConfig> config;
+    private final ExecutorProvider executorProvider;
     private final PathCreator pathCreator;
 
 
@@ -64,10 +73,13 @@ class FsOrphanFileFinderExecutor {
                                final Provider<FsOrphanFileFinder> orphanFileFinderProvider,
                                final TaskContextFactory taskContextFactory,
                                final Provider<DataStoreServiceConfig> config,
+                               final ExecutorProvider executorProvider,
                                final PathCreator pathCreator) {
         this.volumeService = volumeService;
         this.orphanFileFinderProvider = orphanFileFinderProvider;
         this.taskContextFactory = taskContextFactory;
+        this.config = config;
+        this.executorProvider = executorProvider;
         this.pathCreator = pathCreator;
 
         Duration age;
@@ -136,32 +148,64 @@ class FsOrphanFileFinderExecutor {
 
         final LogExecutionTime logExecutionTime = LogExecutionTime.start();
 
+        // Volumes and the subtrees within them are scanned concurrently so make sure the consumer only
+        // gets one path at a time.
+        final Object consumerLock = new Object();
+        final Consumer<Path> synchronisedOrphanConsumer = path -> {
+            synchronized (consumerLock) {
+                orphanConsumer.accept(path);
+            }
+        };
+        final Executor executor = executorProvider.get(THREAD_POOL);
+        final FsVolumeIoLimiter ioLimiter = FsVolumeIoLimiter.create(config.get());
+
         final List<FsVolume> volumeList = volumeService.find(FindFsVolumeCriteria.matchAll()).getValues();
         if (volumeList != null && volumeList.size() > 0) {
+            final List<CompletableFuture<Void>> futures = new ArrayList<>(volumeList.size());
             for (final FsVolume volume : volumeList) {
                 if (Thread.currentThread().isInterrupted() || parentContext.isTerminated()) {
                     LOGGER.info("{} - Task terminated", TASK_NAME);
                     break;
                 }
                 if (VolumeUseStatus.ACTIVE.equals(volume.getStatus())) {
-                    scanVolume(volume, orphanConsumer, oldestDirTime, parentContext);
+                    futures.add(CompletableFuture.runAsync(taskContextFactory.childContext(
+                            parentContext,
+                            "Scanning volume",
+                            taskContext -> scanVolume(
+                                    volume,
+                                    synchronisedOrphanConsumer,
+                                    oldestDirTime,
+                                    taskContext,
+                                    executor,
+                                    ioLimiter)), executor));
                 }
             }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
         }
         parentContext.info(() -> "start() - Completed orphan file finder in " + logExecutionTime);
+        LOGGER.debug("{} - Time spent waiting on the volume IO rate limit: {}",
+                TASK_NAME, ioLimiter.getThrottledDuration());
     }
 
     private void scanVolume(final FsVolume volume,
                             final Consumer<Path> orphanConsumer,
                             final Instant oldestDirTime,
-                            final TaskContext taskContext) {
+                            final TaskContext taskContext,
+                            final Executor executor,
+                            final FsVolumeIoLimiter ioLimiter) {
         final Path absDir = pathCreator.toAppPath(volume.getPath());
         if (!Files.isDirectory(absDir)) {
             LOGGER.error(() -> "Directory for file delete list does not exist '" +
                     FileUtil.getCanonicalPath(absDir) +
                     "'");
         } else {
-            orphanFileFinderProvider.get().scanVolumePath(volume, orphanConsumer, oldestDirTime, taskContext);
+            orphanFileFinderProvider.get().scanVolumePath(
+                    volume,
+                    orphanConsumer,
+                    oldestDirTime,
+                    taskContext,
+                    executor,
+                    ioLimiter);
         }
     }
 }
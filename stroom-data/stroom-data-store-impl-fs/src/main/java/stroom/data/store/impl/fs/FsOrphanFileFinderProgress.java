@@ -32,6 +32,8 @@ class FsOrphanFileFinderProgress {
     private final AtomicLong scanTooNewToDeleteCount = new AtomicLong();
     private final AtomicLong scanPending = new AtomicLong(0);
     private final AtomicLong scanComplete = new AtomicLong(0);
+    private final AtomicLong subtreeCount = new AtomicLong(0);
+    private final AtomicLong subtreeSkippedCount = new AtomicLong(0);
 
     FsOrphanFileFinderProgress(final String volume,
                                final TaskContext taskContext) {
@@ -51,7 +53,27 @@ class FsOrphanFileFinderProgress {
         return "scanDirCount " + ModelStringUtil.formatCsv(scanDirCount) + ", scanFileCount "
                 + ModelStringUtil.formatCsv(scanFileCount) + ", scanDeleteCount "
                 + ModelStringUtil.formatCsv(scanOrphanCount) + ", scanTooNewToDeleteCount "
-                + ModelStringUtil.formatCsv(scanTooNewToDeleteCount);
+                + ModelStringUtil.formatCsv(scanTooNewToDeleteCount) + ", subtrees complete "
+                + ModelStringUtil.formatCsv(getSubtreesComplete()) + "/"
+                + ModelStringUtil.formatCsv(subtreeCount) + " (resumed after "
+                + ModelStringUtil.formatCsv(subtreeSkippedCount) + ")";
+    }
+
+    /**
+     * Record the subtrees of the volume that will be scanned.
+     *
+     * @param total   The number of subtrees in the volume.
+     * @param skipped The number of those that a previous scan completed, so will not be scanned.
+     */
+    void addSubtrees(final int total, final int skipped) {
+        subtreeCount.addAndGet(total);
+        subtreeSkippedCount.addAndGet(skipped);
+        scanPending.addAndGet(total - skipped);
+        log();
+    }
+
+    long getSubtreesComplete() {
+        return subtreeSkippedCount.get() + scanComplete.get();
     }
 
     void addDir() {
@@ -76,6 +98,7 @@ class FsOrphanFileFinderProgress {
     void addScanComplete() {
         scanComplete.incrementAndGet();
         scanPending.decrementAndGet();
+        log();
     }
 
     void log() {
@@ -84,6 +107,10 @@ class FsOrphanFileFinderProgress {
                 scanDirCount.get() +
                 "/" +
                 scanFileCount.get() +
+                ", Subtrees " +
+                getSubtreesComplete() +
+                "/" +
+                subtreeCount.get() +
                 ") found " +
                 scanOrphanCount.get() +
                 " orphans");
@@ -20,7 +20,11 @@ import stroom.data.store.impl.fs.DataVolumeDao.DataVolume;
 import stroom.data.store.impl.fs.shared.FsVolumeType;
 import stroom.meta.api.MetaService;
 import stroom.meta.shared.SimpleMeta;
+import stroom.task.api.ExecutorProvider;
 import stroom.task.api.TaskContext;
+import stroom.task.api.ThreadPoolImpl;
+import stroom.task.shared.ThreadPool;
+import stroom.util.concurrent.WorkQueue;
 import stroom.util.io.PathCreator;
 import stroom.util.logging.DurationTimer;
 import stroom.util.logging.DurationTimer.IterationTimer;
@@ -28,6 +32,7 @@ import stroom.util.logging.DurationTimer.TimedResult;
 import stroom.util.logging.LambdaLogger;
 import stroom.util.logging.LambdaLoggerFactory;
 import stroom.util.logging.LogUtil;
+import stroom.util.shared.NullSafe;
 import stroom.util.shared.ResultPage;
 import stroom.util.shared.Selection;
 
@@ -35,10 +40,13 @@ import jakarta.inject.Inject;
 import jakarta.inject.Provider;
 
 import java.nio.file.Path;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -49,11 +57,14 @@ import java.util.stream.Collectors;
 class FsOrphanMetaFinder {
 
     private static final LambdaLogger LOGGER = LambdaLoggerFactory.getLogger(FsOrphanMetaFinder.class);
+    private static final ThreadPool THREAD_POOL = new ThreadPoolImpl("Orphan Meta Finder#", Thread.MIN_PRIORITY);
 
     private final FsPathHelper fsPathHelper;
     private final MetaService metaService;
     private final DataVolumeService dataVolumeService;
     private final Provider<FsVolumeConfig> fsVolumeConfigProvider;
+    private final Provider<DataStoreServiceConfig> dataStoreServiceConfigProvider;
+    private final ExecutorProvider executorProvider;
     private final PathCreator pathCreator;
 
     @Inject
@@ -61,11 +72,15 @@ class FsOrphanMetaFinder {
                               final MetaService metaService,
                               final DataVolumeService dataVolumeService,
                               final Provider<FsVolumeConfig> fsVolumeConfigProvider,
+                              final Provider<DataStoreServiceConfig> dataStoreServiceConfigProvider,
+                              final ExecutorProvider executorProvider,
                               final PathCreator pathCreator) {
         this.fsPathHelper = fsPathHelper;
         this.metaService = metaService;
         this.dataVolumeService = dataVolumeService;
         this.fsVolumeConfigProvider = fsVolumeConfigProvider;
+        this.dataStoreServiceConfigProvider = dataStoreServiceConfigProvider;
+        this.executorProvider = executorProvider;
         this.pathCreator = pathCreator;
     }
 
@@ -78,6 +93,7 @@ class FsOrphanMetaFinder {
                 taskContext,
                 maxId,
                 batchSize);
+        final FsVolumeIoLimiter ioLimiter = FsVolumeIoLimiter.create(dataStoreServiceConfigProvider.get());
 
         long minId = dataVolumeService.getOrphanedMetaTrackerValue();
         LOGGER.info("Starting orphaned meta finder scan with min ID {}, max ID {}, batch size {}",
@@ -88,7 +104,7 @@ class FsOrphanMetaFinder {
         while (minId != -1
                 && !Thread.currentThread().isInterrupted()
                 && !taskContext.isTerminated()) {
-            minId = scanBatch(minId, maxId, orphanConsumer, progress, taskContext);
+            minId = scanBatch(minId, maxId, orphanConsumer, ioLimiter, progress, taskContext);
         }
         if (Thread.currentThread().isInterrupted() || taskContext.isTerminated()) {
             LOGGER.info("Aborted orphaned meta finder scan at meta ID {}, max ID {}, batch size {}",
@@ -105,6 +121,7 @@ class FsOrphanMetaFinder {
     private long scanBatch(final long minId,
                            final long maxId,
                            final Consumer<SimpleMeta> orphanConsumer,
+                           final FsVolumeIoLimiter ioLimiter,
                            final FsOrphanMetaFinderProgress progress,
                            final TaskContext taskContext) {
         progress.setMinId(minId);
@@ -139,12 +156,12 @@ class FsOrphanMetaFinder {
                     resultPage -> LogUtil.message("Found {} dataVolumes", resultPage.size()));
 
             final List<DataVolume> dataVolumes = volumeResultPage.getValues();
-            final Map<String, Map<Path, Set<Path>>> localDirListingMap = new HashMap<>();
+            final List<MetaRootFile> metaRootFiles = new ArrayList<>(dataVolumes.size());
             final IterationTimer getRootPathIterationTimer = DurationTimer.newIterationTimer();
 
             // DataVolume is 1:1 with SimpleMeta
-            // First pass to build a picture of the file contents of all the parent dirs as we are
-            // expecting/hoping for lots of the metas to share common parent dirs.
+            // First pass to work out the root file of each meta, so we can build a picture of the file contents
+            // of all the parent dirs as we are expecting/hoping for lots of the metas to share common parent dirs.
             // The hope is that it is cheaper to list the root files in N parent dirs, where N < batch size,
             // then see if that list contains each meta root file, rather than hitting the FS for each meta
             // root file to check existence.
@@ -168,47 +185,43 @@ class FsOrphanMetaFinder {
                                     volumePath,
                                     meta,
                                     streamTypeName));
-                    final Path rootFile = rootFileResult.getResult();
-
-                    // Never more than 1000 root files per dir, so set capacity to that
-                    final Map<Path, Set<Path>> parentPathToRootFilesMap = localDirListingMap.computeIfAbsent(
-                            streamTypeName, streamTypeName2 -> new HashMap<>(1_000));
-
-                    final Path parent = rootFile.getParent();
-                    if (parent != null) {
-                        // If not already found then find the root files under this parent
-                        // and cache them. First check the local cache and if not in there try
-                        // loading from the progress cache
-                        final Set<Path> rootFilePaths = parentPathToRootFilesMap.computeIfAbsent(parent, parent2 -> {
-                            // See if we already have it from the last batch, else hit the FS
-                            return progress.getCachedRootFiles(streamTypeName, parent2)
-                                    .orElseGet(() -> {
-                                        progress.recordCacheMiss();
-                                        final TimedResult<Set<Path>> rootFilesResult = DurationTimer.measureIf(
-                                                LOGGER.isDebugEnabled(),
-                                                () -> fsPathHelper.findRootStreamFiles(
-                                                        meta.getTypeName(), parent));
-
-                                        if (LOGGER.isDebugEnabled()) {
-                                            progress.recordFileListDuration(rootFilesResult.getDuration());
-                                        }
-                                        return rootFilesResult.getResult();
-                                    });
-                        });
-
-                        if (!rootFilePaths.contains(rootFile)) {
-                            // Can't find the root file for this meta, so record it
-                            LOGGER.trace("rootFilePath '{}' not found in parent '{}'", rootFile, parent);
-                            progress.foundOrphan();
-                            progress.log();
-                            orphanConsumer.accept(meta);
-                        }
-                    } else {
-                        // Should never be missing parent
-                        LOGGER.error("Root stream file '{}' for meta ID {} has no parent", rootFile, metaId);
+                    metaRootFiles.add(new MetaRootFile(meta, volumePath, rootFileResult.getResult()));
+                }
+            }
+
+            // Now list all the parent dirs we need, in parallel.
+            final Map<String, Map<Path, Set<Path>>> localDirListingMap = listParentDirs(
+                    metaRootFiles,
+                    ioLimiter,
+                    progress);
+
+            // Second pass to check each meta has its root file
+            for (final MetaRootFile metaRootFile : metaRootFiles) {
+                if (isTerminated(taskContext)) {
+                    break;
+                }
+                final SimpleMeta meta = metaRootFile.meta();
+                final Path rootFile = metaRootFile.rootFile();
+                final Path parent = rootFile.getParent();
+                if (parent != null) {
+                    final Set<Path> rootFilePaths = NullSafe.get(
+                            localDirListingMap.get(meta.getTypeName()),
+                            map -> map.get(parent));
+                    if (rootFilePaths == null) {
+                        // Listing was abandoned as we are shutting down, so don't record progress past here
+                        break;
+                    } else if (!rootFilePaths.contains(rootFile)) {
+                        // Can't find the root file for this meta, so record it
+                        LOGGER.trace("rootFilePath '{}' not found in parent '{}'", rootFile, parent);
+                        progress.foundOrphan();
+                        progress.log();
+                        orphanConsumer.accept(meta);
                     }
-                    progress.setId(metaId);
+                } else {
+                    // Should never be missing parent
+                    LOGGER.error("Root stream file '{}' for meta ID {} has no parent", rootFile, meta.getId());
                 }
+                progress.setId(meta.getId());
             }
 
             LOGGER.debug("getRootPath timings: {}", getRootPathIterationTimer);
@@ -245,6 +258,85 @@ class FsOrphanMetaFinder {
         return result;
     }
 
+    /**
+     * List the root files in each parent dir of the metas, using the listings from the last batch where
+     * we can. Dirs are listed concurrently, with each volume limited by ioLimiter.
+     *
+     * @return Map of streamType => Map(parentPath => Set<rootFilePath>)
+     */
+    private Map<String, Map<Path, Set<Path>>> listParentDirs(final List<MetaRootFile> metaRootFiles,
+                                                             final FsVolumeIoLimiter ioLimiter,
+                                                             final FsOrphanMetaFinderProgress progress) {
+        final Map<String, Map<Path, Set<Path>>> localDirListingMap = new ConcurrentHashMap<>();
+        final Set<ParentDir> parentDirs = new HashSet<>();
+        final List<MetaRootFile> dirsToList = new ArrayList<>();
+        final Set<Path> volumePaths = new HashSet<>();
+        for (final MetaRootFile metaRootFile : metaRootFiles) {
+            final String streamTypeName = metaRootFile.meta().getTypeName();
+            final Path parent = metaRootFile.rootFile().getParent();
+            if (parent != null) {
+                // Never more than 1000 root files per dir, so set capacity to that
+                final Map<Path, Set<Path>> parentPathToRootFilesMap = localDirListingMap.computeIfAbsent(
+                        streamTypeName, streamTypeName2 -> new ConcurrentHashMap<>(1_000));
+                if (parentDirs.add(new ParentDir(streamTypeName, parent))) {
+                    // See if we already have it from the last batch, else hit the FS
+                    progress.getCachedRootFiles(streamTypeName, parent)
+                            .ifPresentOrElse(
+                                    rootFilePaths -> parentPathToRootFilesMap.put(parent, rootFilePaths),
+                                    () -> {
+                                        progress.recordCacheMiss();
+                                        dirsToList.add(metaRootFile);
+                                        volumePaths.add(metaRootFile.volumePath());
+                                    });
+                }
+            }
+        }
+
+        if (!dirsToList.isEmpty()) {
+            final int threadCount = Math.min(
+                    dirsToList.size(),
+                    ioLimiter.getConcurrency() * volumePaths.size());
+            final AtomicReference<RuntimeException> error = new AtomicReference<>();
+            final WorkQueue workQueue = new WorkQueue(
+                    executorProvider.get(THREAD_POOL),
+                    threadCount,
+                    threadCount);
+            for (final MetaRootFile metaRootFile : dirsToList) {
+                workQueue.exec(() -> {
+                    final String streamTypeName = metaRootFile.meta().getTypeName();
+                    final Path parent = metaRootFile.rootFile().getParent();
+                    final String volume = metaRootFile.volumePath().toString();
+                    try {
+                        ioLimiter.acquire(volume);
+                        try {
+                            ioLimiter.throttle(volume);
+                            final TimedResult<Set<Path>> rootFilesResult = DurationTimer.measureIf(
+                                    LOGGER.isDebugEnabled(),
+                                    () -> fsPathHelper.findRootStreamFiles(streamTypeName, parent));
+
+                            if (LOGGER.isDebugEnabled()) {
+                                progress.recordFileListDuration(rootFilesResult.getDuration());
+                            }
+                            localDirListingMap.get(streamTypeName).put(parent, rootFilesResult.getResult());
+                        } finally {
+                            ioLimiter.release(volume);
+                        }
+                    } catch (final InterruptedException e) {
+                        LOGGER.debug("Interrupted listing dir {}", parent);
+                        Thread.currentThread().interrupt();
+                    } catch (final RuntimeException e) {
+                        error.compareAndSet(null, e);
+                    }
+                });
+            }
+            workQueue.join();
+            if (error.get() != null) {
+                throw error.get();
+            }
+        }
+        return localDirListingMap;
+    }
+
     private static void logBatchToDebug(final List<SimpleMeta> metaList) {
         LOGGER.debug("Metas in batch: {}, IDs: {} => {}",
                 metaList.size(),
@@ -261,4 +353,20 @@ class FsOrphanMetaFinder {
     private boolean isTerminated(final TaskContext taskContext) {
         return Thread.currentThread().isInterrupted() || taskContext.isTerminated();
     }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    private record MetaRootFile(SimpleMeta meta, Path volumePath, Path rootFile) {
+
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    private record ParentDir(String streamTypeName, Path parent) {
+
+    }
 }
@@ -93,11 +93,11 @@ class FsOrphanMetaFinderProgress {
         return cacheMissCount.longValue();
     }
 
-    public Duration getTotalFileListDuration() {
+    public synchronized Duration getTotalFileListDuration() {
         return fileListDuration;
     }
 
-    public Duration getAverageFileListDuration() {
+    public synchronized Duration getAverageFileListDuration() {
         if (fileListDuration.isZero()) {
             return Duration.ZERO;
         } else {
@@ -113,7 +113,7 @@ class FsOrphanMetaFinderProgress {
         cacheMissCount.increment();
     }
 
-    void recordFileListDuration(final Duration duration) {
+    synchronized void recordFileListDuration(final Duration duration) {
         if (duration != null) {
             this.fileListDuration = this.fileListDuration.plus(duration);
         }
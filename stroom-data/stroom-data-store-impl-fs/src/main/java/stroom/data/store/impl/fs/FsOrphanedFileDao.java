@@ -0,0 +1,36 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.data.store.impl.fs;
+
+import java.util.Optional;
+
+/**
+ * Holds the resume point of the orphan file finder for each volume.
+ */
+public interface FsOrphanedFileDao {
+
+    /**
+     * @return The path, relative to the volume's store root, of the last subtree that was fully
+     * scanned, or empty if the last scan of the volume completed.
+     */
+    Optional<String> getLastPath(int volumeId);
+
+    void updateLastPath(int volumeId, String lastPath);
+
+    void clearLastPath(int volumeId);
+}
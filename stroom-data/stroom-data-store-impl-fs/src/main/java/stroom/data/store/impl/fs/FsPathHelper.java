@@ -19,6 +19,9 @@ package stroom.data.store.impl.fs;
 import stroom.data.shared.StreamTypeNames;
 import stroom.meta.shared.Meta;
 import stroom.meta.shared.SimpleMeta;
+import stroom.task.api.ExecutorProvider;
+import stroom.task.api.ThreadPoolImpl;
+import stroom.task.shared.ThreadPool;
 import stroom.util.date.DateUtil;
 import stroom.util.io.FileUtil;
 import stroom.util.logging.LambdaLogger;
@@ -27,6 +30,7 @@ import stroom.util.logging.LogUtil;
 import stroom.util.shared.NullSafe;
 
 import com.google.inject.Inject;
+import jakarta.inject.Provider;
 
 import java.io.File;
 import java.io.IOException;
@@ -68,17 +72,41 @@ class FsPathHelper {
             StreamTypeNames.META,
             StreamTypeNames.CONTEXT};
 
+    private static final ThreadPool BLOCK_CODEC_THREAD_POOL = new ThreadPoolImpl("Stream Block Codec");
+
     private final FsFeedPathDao fileSystemFeedPaths;
     private final FsTypePathDao fileSystemTypePaths;
     private final StreamTypeExtensions streamTypeExtensions;
+    private final Provider<FsVolumeConfig> fsVolumeConfigProvider;
+    private final ExecutorProvider executorProvider;
 
-    @Inject
     FsPathHelper(final FsFeedPathDao fileSystemFeedPaths,
                  final FsTypePathDao fileSystemTypePaths,
                  final StreamTypeExtensions streamTypeExtensions) {
+        this(fileSystemFeedPaths, fileSystemTypePaths, streamTypeExtensions, FsVolumeConfig::new, null);
+    }
+
+    @Inject
+    FsPathHelper(final FsFeedPathDao fileSystemFeedPaths,
+                 final FsTypePathDao fileSystemTypePaths,
+                 final StreamTypeExtensions streamTypeExtensions,
+                 final Provider<FsVolumeConfig> fsVolumeConfigProvider,
+                 final ExecutorProvider executorProvider) {
         this.fileSystemFeedPaths = fileSystemFeedPaths;
         this.fileSystemTypePaths = fileSystemTypePaths;
         this.streamTypeExtensions = streamTypeExtensions;
+        this.fsVolumeConfigProvider = fsVolumeConfigProvider;
+        this.executorProvider = executorProvider;
+    }
+
+    /**
+     * @return The number of blocks to compress or decompress in parallel, 0 if we should use the calling thread.
+     */
+    private int getBlockCodecParallelism() {
+        if (executorProvider == null) {
+            return 0;
+        }
+        return fsVolumeConfigProvider.get().getBlockCodecParallelism();
     }
 
     static boolean isStreamFile(final Path path) {
@@ -116,6 +144,13 @@ class FsPathHelper {
             throw new IllegalArgumentException("Must Have a non-null stream type");
         }
         if (FileStoreType.bgz.equals(getFileStoreType(streamTypeName))) {
+            final int parallelism = getBlockCodecParallelism();
+            if (parallelism > 0) {
+                return new ParallelBlockGZIPInputFile(
+                        file,
+                        executorProvider.get(BLOCK_CODEC_THREAD_POOL),
+                        parallelism);
+            }
             return new BlockGZIPInputFile(file);
         }
         return new UncompressedInputStream(file, isStreamTypeLazy(streamTypeName));
@@ -142,6 +177,15 @@ class FsPathHelper {
      */
     public OutputStream getOutputStream(final String streamTypeName, final Path file)
             throws IOException {
+        return getOutputStream(streamTypeName, file, BlockCodec.GZIP);
+    }
+
+    /**
+     * Return back a output stream for a given stream type and file, compressing block compressed types with the
+     * supplied codec.
+     */
+    public OutputStream getOutputStream(final String streamTypeName, final Path file, final BlockCodec blockCodec)
+            throws IOException {
         if (streamTypeName == null) {
             throw new IllegalArgumentException("Must Have a non-null stream type");
         }
@@ -149,7 +193,17 @@ class FsPathHelper {
         OutputStream outputStream = null;
         if (FileStoreType.bgz.equals(getFileStoreType(streamTypeName))) {
             try {
-                outputStream = new BlockGZIPOutputFile(file);
+                final int parallelism = getBlockCodecParallelism();
+                if (parallelism > 0) {
+                    outputStream = new BlockGZIPOutputFile(
+                            file,
+                            BlockGZIPConstants.DEFAULT_BLOCK_SIZE,
+                            blockCodec,
+                            executorProvider.get(BLOCK_CODEC_THREAD_POOL),
+                            parallelism);
+                } else {
+                    outputStream = new BlockGZIPOutputFile(file, blockCodec);
+                }
             } catch (final IOException e) {
                 ioEx = e;
             }
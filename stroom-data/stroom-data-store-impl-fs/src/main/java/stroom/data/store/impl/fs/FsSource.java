@@ -48,6 +48,7 @@ final class FsSource implements InternalSource, SegmentInputStreamProviderFactor
     private static final LambdaLogger LOGGER = LambdaLoggerFactory.getLogger(FsSource.class);
 
     private final FsPathHelper fileSystemStreamPathHelper;
+    private final SegmentIndexCache segmentIndexCache;
     private final Map<String, FsSource> childMap = new HashMap<>();
     private final Map<String, SegmentInputStreamProvider> inputStreamMap = new HashMap<>(10);
     private final Path volumePath;
@@ -62,10 +63,12 @@ final class FsSource implements InternalSource, SegmentInputStreamProviderFactor
     private Long count;
 
     private FsSource(final FsPathHelper fileSystemStreamPathHelper,
+                     final SegmentIndexCache segmentIndexCache,
                      final Meta meta,
                      final Path volumePath,
                      final String streamType) {
         this.fileSystemStreamPathHelper = fileSystemStreamPathHelper;
+        this.segmentIndexCache = segmentIndexCache;
         this.meta = meta;
         this.volumePath = volumePath;
         this.parent = null;
@@ -79,6 +82,7 @@ final class FsSource implements InternalSource, SegmentInputStreamProviderFactor
                      final String streamType,
                      final Path file) {
         this.fileSystemStreamPathHelper = fileSystemStreamPathHelper;
+        this.segmentIndexCache = parent.segmentIndexCache;
         this.meta = parent.meta;
         this.volumePath = parent.volumePath;
         this.parent = parent;
@@ -96,7 +100,20 @@ final class FsSource implements InternalSource, SegmentInputStreamProviderFactor
                            final Meta meta,
                            final Path rootPath,
                            final String streamType) {
-        return new FsSource(fileSystemStreamPathHelper, meta, rootPath, streamType);
+        return create(fileSystemStreamPathHelper, null, meta, rootPath, streamType);
+    }
+
+    /**
+     * Creates a new file system stream source that gets segment and boundary indexes from a cache.
+     *
+     * @return A new file system source.
+     */
+    static FsSource create(final FsPathHelper fileSystemStreamPathHelper,
+                           final SegmentIndexCache segmentIndexCache,
+                           final Meta meta,
+                           final Path rootPath,
+                           final String streamType) {
+        return new FsSource(fileSystemStreamPathHelper, segmentIndexCache, meta, rootPath, streamType);
     }
 
     private void validate() {
@@ -191,8 +208,13 @@ final class FsSource implements InternalSource, SegmentInputStreamProviderFactor
     public long count() {
         if (count == null) {
             final InputStream data = getInputStream();
-            final InputStream boundaryIndex = getChildInputStream(InternalStreamTypeNames.BOUNDARY_INDEX);
-            count = new RASegmentInputStream(data, boundaryIndex).count();
+            final SegmentIndex segmentIndex = getChildSegmentIndex(InternalStreamTypeNames.BOUNDARY_INDEX);
+            if (segmentIndex != null) {
+                count = new RASegmentInputStream(data, segmentIndex).count();
+            } else {
+                final InputStream boundaryIndex = getChildInputStream(InternalStreamTypeNames.BOUNDARY_INDEX);
+                count = new RASegmentInputStream(data, boundaryIndex).count();
+            }
         }
         return count;
     }
@@ -300,6 +322,18 @@ final class FsSource implements InternalSource, SegmentInputStreamProviderFactor
         return null;
     }
 
+    @Override
+    public SegmentIndex getChildSegmentIndex(final String type) {
+        if (segmentIndexCache == null) {
+            return null;
+        }
+        final FsSource childSource = (FsSource) getChild(type);
+        if (childSource == null) {
+            return null;
+        }
+        return segmentIndexCache.get(meta, type, childSource.getFile());
+    }
+
     // ---------------------------------------------------------------------
     // END INTERNAL SOURCE
     // ---------------------------------------------------------------------
@@ -37,6 +37,7 @@ import stroom.util.logging.LambdaLogger;
 import stroom.util.logging.LambdaLoggerFactory;
 
 import jakarta.inject.Inject;
+import jakarta.inject.Provider;
 import jakarta.inject.Singleton;
 
 import java.io.IOException;
@@ -44,6 +45,7 @@ import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.util.Collections;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * A file system stream store.
@@ -57,11 +59,13 @@ class FsStore implements Store, AttributeMapFactory {
     private static final int MINIMUM_BYTE_COUNT = 10;
 
     private final FsPathHelper fileSystemStreamPathHelper;
+    private final SegmentIndexCache segmentIndexCache;
     private final MetaService metaService;
     private final FsVolumeService volumeService;
     private final DataVolumeService dataVolumeService;
     private final PathCreator pathCreator;
     private final S3Store s3Store;
+    private final Provider<FsVolumeConfig> fsVolumeConfigProvider;
 
     @Inject
     FsStore(final FsPathHelper fileSystemStreamPathHelper,
@@ -69,13 +73,17 @@ class FsStore implements Store, AttributeMapFactory {
             final FsVolumeService volumeService,
             final DataVolumeService dataVolumeService,
             final PathCreator pathCreator,
-            final S3Store s3Store) {
+            final S3Store s3Store,
+            final Provider<FsVolumeConfig> fsVolumeConfigProvider,
+            final SegmentIndexCache segmentIndexCache) {
         this.fileSystemStreamPathHelper = fileSystemStreamPathHelper;
+        this.segmentIndexCache = segmentIndexCache;
         this.metaService = metaService;
         this.volumeService = volumeService;
         this.dataVolumeService = dataVolumeService;
         this.pathCreator = pathCreator;
         this.s3Store = s3Store;
+        this.fsVolumeConfigProvider = fsVolumeConfigProvider;
     }
 
     @Override
@@ -108,7 +116,8 @@ class FsStore implements Store, AttributeMapFactory {
                         fileSystemStreamPathHelper,
                         meta,
                         volumePath,
-                        streamType);
+                        streamType,
+                        getBlockCodec(volumeGroup, streamType));
                 // Force Creation of the files
                 fsTarget.getOutputStream();
                 target = fsTarget;
@@ -121,6 +130,21 @@ class FsStore implements Store, AttributeMapFactory {
         return target;
     }
 
+    private BlockCodec getBlockCodec(final String volumeGroup, final String streamType) {
+        final FsVolumeConfig fsVolumeConfig = fsVolumeConfigProvider.get();
+        final String volumeGroupName = Objects.requireNonNullElse(
+                volumeGroup,
+                fsVolumeConfig.getDefaultStreamVolumeGroupName());
+        final String codecName = fsVolumeConfig.getBlockCodec(volumeGroupName, streamType);
+        try {
+            return BlockCodec.fromName(codecName, BlockCodec.GZIP);
+        } catch (final IllegalArgumentException e) {
+            LOGGER.warn(() -> "Unknown block codec '" + codecName + "' for stream type '" + streamType +
+                              "' and volume group '" + volumeGroupName + "', using " + BlockCodec.GZIP);
+            return BlockCodec.GZIP;
+        }
+    }
+
     @Override
     public void deleteTarget(final Target target) {
         // Make sure the stream is closed.
@@ -187,7 +211,12 @@ class FsStore implements Store, AttributeMapFactory {
             switch (dataVolume.getVolume().getVolumeType()) {
                 case STANDARD -> {
                     final Path volumePath = pathCreator.toAppPath(dataVolume.getVolume().getPath());
-                    source = FsSource.create(fileSystemStreamPathHelper, meta, volumePath, meta.getTypeName());
+                    source = FsSource.create(
+                            fileSystemStreamPathHelper,
+                            segmentIndexCache,
+                            meta,
+                            volumePath,
+                            meta.getTypeName());
                 }
                 case S3 -> source = s3Store.getSource(dataVolume, meta);
             }
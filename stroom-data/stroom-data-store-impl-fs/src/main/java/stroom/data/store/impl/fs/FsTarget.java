@@ -51,6 +51,7 @@ final class FsTarget implements InternalTarget, SegmentOutputStreamProviderFacto
     private final Map<String, SegmentOutputStreamProvider> outputStreamMap = new HashMap<>(10);
     private final Path volumePath;
     private final String streamType;
+    private final BlockCodec blockCodec;
     private final FsTarget parent;
     private AttributeMap attributeMap;
     private OutputStream outputStream;
@@ -65,13 +66,15 @@ final class FsTarget implements InternalTarget, SegmentOutputStreamProviderFacto
                      final FsPathHelper fileSystemStreamPathHelper,
                      final Meta requestMetaData,
                      final Path volumePath,
-                     final String streamType) {
+                     final String streamType,
+                     final BlockCodec blockCodec) {
         this.metaService = metaService;
         this.fileSystemStreamPathHelper = fileSystemStreamPathHelper;
         this.meta = requestMetaData;
         this.volumePath = volumePath;
         this.parent = null;
         this.streamType = streamType;
+        this.blockCodec = blockCodec;
 
         validate();
     }
@@ -87,6 +90,8 @@ final class FsTarget implements InternalTarget, SegmentOutputStreamProviderFacto
         this.volumePath = parent.volumePath;
         this.parent = parent;
         this.streamType = streamType;
+        // Child streams are compressed in the same way as their parent.
+        this.blockCodec = parent.blockCodec;
         this.file = file;
         validate();
     }
@@ -101,7 +106,21 @@ final class FsTarget implements InternalTarget, SegmentOutputStreamProviderFacto
                            final Meta meta,
                            final Path rootPath,
                            final String streamType) {
-        return new FsTarget(metaService, fileSystemStreamPathHelper, meta, rootPath, streamType);
+        return create(metaService, fileSystemStreamPathHelper, meta, rootPath, streamType, BlockCodec.GZIP);
+    }
+
+    /**
+     * Creates a new file system stream target that compresses its block compressed streams with the supplied codec.
+     *
+     * @return A new file system target.
+     */
+    static FsTarget create(final MetaService metaService,
+                           final FsPathHelper fileSystemStreamPathHelper,
+                           final Meta meta,
+                           final Path rootPath,
+                           final String streamType,
+                           final BlockCodec blockCodec) {
+        return new FsTarget(metaService, fileSystemStreamPathHelper, meta, rootPath, streamType, blockCodec);
     }
 
     private void validate() {
@@ -368,7 +387,7 @@ final class FsTarget implements InternalTarget, SegmentOutputStreamProviderFacto
                     }
                 }
 
-                outputStream = fileSystemStreamPathHelper.getOutputStream(streamType, file);
+                outputStream = fileSystemStreamPathHelper.getOutputStream(streamType, file, blockCodec);
             } catch (final IOException ioEx) {
                 LOGGER.error(() -> "getOutputStream() - " + ioEx.getMessage());
                 // No reason to get a IO on opening the out stream .... fail in
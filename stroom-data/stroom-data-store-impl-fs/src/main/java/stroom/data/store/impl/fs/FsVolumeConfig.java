@@ -19,6 +19,7 @@ package stroom.data.store.impl.fs;
 import stroom.data.shared.StreamTypeNames;
 import stroom.util.cache.CacheConfig;
 import stroom.util.config.annotations.RequiresRestart;
+import stroom.util.io.ByteSize;
 import stroom.util.io.capacity.HasCapacitySelectorFactory;
 import stroom.util.shared.AbstractConfig;
 import stroom.util.shared.IsStroomConfig;
@@ -29,6 +30,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyDescription;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Pattern;
 
 import java.util.List;
@@ -45,6 +47,10 @@ public class FsVolumeConfig extends AbstractConfig implements IsStroomConfig {
     private static final double DEFAULT_DEFAULT_STREAM_VOLUME_FILESYSTEM_UTILISATION = 0.9;
     private static final boolean DEFAULT_CREATE_DEFAULT_STREAM_VOLUMES_ON_START = true;
     private static final int DEFAULT_FIND_ORPHANED_META_BATCH_SIZE = 7_000;
+    private static final String DEFAULT_BLOCK_CODEC = BlockCodec.GZIP.name();
+    private static final String BLOCK_CODEC_PATTERN = "^(?i)(GZIP|ZSTD)$";
+    private static final int DEFAULT_BLOCK_CODEC_PARALLELISM = 0;
+    private static final ByteSize DEFAULT_SEGMENT_INDEX_CACHE_SIZE = ByteSize.ofMebibytes(64);
 
     // TreeMap for consistent ordering in the yaml
     private static final Map<String, String> DEFAULT_META_TYPE_EXTENSIONS = new TreeMap<>(Map.of(
@@ -75,6 +81,13 @@ public class FsVolumeConfig extends AbstractConfig implements IsStroomConfig {
     //    private final Map<String, String> metaTypeExtensionsReverseMap;
     private final StroomDuration maxVolumeStateAge;
     private final CacheConfig volumeCache;
+    private final ByteSize segmentIndexCacheSize;
+    private final String blockCodec;
+    // stream type name => block codec name
+    private final Map<String, String> blockCodecByStreamType;
+    // volume group name => block codec name
+    private final Map<String, String> blockCodecByVolumeGroup;
+    private final int blockCodecParallelism;
 
     public FsVolumeConfig() {
         volumeSelector = "RoundRobin";
@@ -101,6 +114,13 @@ public class FsVolumeConfig extends AbstractConfig implements IsStroomConfig {
                 .maximumSize(1000L)
                 .expireAfterWrite(StroomDuration.ofMinutes(10))
                 .build();
+
+        segmentIndexCacheSize = DEFAULT_SEGMENT_INDEX_CACHE_SIZE;
+
+        blockCodec = DEFAULT_BLOCK_CODEC;
+        blockCodecByStreamType = new TreeMap<>();
+        blockCodecByVolumeGroup = new TreeMap<>();
+        blockCodecParallelism = DEFAULT_BLOCK_CODEC_PARALLELISM;
     }
 
     @JsonCreator
@@ -116,7 +136,12 @@ public class FsVolumeConfig extends AbstractConfig implements IsStroomConfig {
             @JsonProperty("metaTypeExtensions") final Map<String, String> metaTypeExtensions,
             @JsonProperty("findOrphanedMetaBatchSize") final Integer findOrphanedMetaBatchSize,
             @JsonProperty("maxVolumeStateAge") final StroomDuration maxVolumeStateAge,
-            @JsonProperty("volumeCache") final CacheConfig volumeCache) {
+            @JsonProperty("volumeCache") final CacheConfig volumeCache,
+            @JsonProperty("blockCodec") final String blockCodec,
+            @JsonProperty("blockCodecByStreamType") final Map<String, String> blockCodecByStreamType,
+            @JsonProperty("blockCodecByVolumeGroup") final Map<String, String> blockCodecByVolumeGroup,
+            @JsonProperty("blockCodecParallelism") final Integer blockCodecParallelism,
+            @JsonProperty("segmentIndexCacheSize") final ByteSize segmentIndexCacheSize) {
 
         this.volumeSelector = volumeSelector;
         this.defaultStreamVolumePaths = defaultStreamVolumePaths;
@@ -129,6 +154,12 @@ public class FsVolumeConfig extends AbstractConfig implements IsStroomConfig {
         this.findOrphanedMetaBatchSize = Objects.requireNonNullElse(findOrphanedMetaBatchSize, DEFAULT_FIND_ORPHANED_META_BATCH_SIZE);
         this.maxVolumeStateAge = maxVolumeStateAge;
         this.volumeCache = volumeCache;
+        this.blockCodec = Objects.requireNonNullElse(blockCodec, DEFAULT_BLOCK_CODEC);
+        this.blockCodecByStreamType = Objects.requireNonNullElseGet(blockCodecByStreamType, TreeMap::new);
+        this.blockCodecByVolumeGroup = Objects.requireNonNullElseGet(blockCodecByVolumeGroup, TreeMap::new);
+        this.blockCodecParallelism = Objects.requireNonNullElse(blockCodecParallelism, DEFAULT_BLOCK_CODEC_PARALLELISM);
+        this.segmentIndexCacheSize = Objects.requireNonNullElse(segmentIndexCacheSize,
+                DEFAULT_SEGMENT_INDEX_CACHE_SIZE);
     }
 
     @JsonPropertyDescription(
@@ -202,7 +233,12 @@ public class FsVolumeConfig extends AbstractConfig implements IsStroomConfig {
                 metaTypeExtensions,
                 findOrphanedMetaBatchSize,
                 maxVolumeStateAge,
-                volumeCache);
+                volumeCache,
+                blockCodec,
+                blockCodecByStreamType,
+                blockCodecByVolumeGroup,
+                blockCodecParallelism,
+                segmentIndexCacheSize);
     }
 
     public FsVolumeConfig withVolumeSelector(final String volumeSelector) {
@@ -217,7 +253,12 @@ public class FsVolumeConfig extends AbstractConfig implements IsStroomConfig {
                 metaTypeExtensions,
                 findOrphanedMetaBatchSize,
                 maxVolumeStateAge,
-                volumeCache);
+                volumeCache,
+                blockCodec,
+                blockCodecByStreamType,
+                blockCodecByVolumeGroup,
+                blockCodecParallelism,
+                segmentIndexCacheSize);
     }
 
     @JsonPropertyDescription(
@@ -254,6 +295,66 @@ public class FsVolumeConfig extends AbstractConfig implements IsStroomConfig {
         return volumeCache;
     }
 
+    @JsonPropertyDescription(
+            "The maximum total size of the segment and boundary indexes of recently read streams to hold in " +
+            "memory. Each index holds 8 bytes per record or segment of a stream.")
+    public ByteSize getSegmentIndexCacheSize() {
+        return segmentIndexCacheSize;
+    }
+
+    @Pattern(regexp = BLOCK_CODEC_PATTERN)
+    @JsonPropertyDescription(
+            "The compression used for the blocks of new stream files, either 'GZIP' or 'ZSTD'. " +
+            "ZSTD is faster to compress and decompress and usually gives smaller files, but files written with it " +
+            "cannot be read by versions of Stroom that do not support it. Existing files are always read with " +
+            "the compression they were written with. Can be overridden per volume group with " +
+            "blockCodecByVolumeGroup or per stream type with blockCodecByStreamType.")
+    public String getBlockCodec() {
+        return blockCodec;
+    }
+
+    @JsonPropertyDescription(
+            "Map of stream type names to the block compression ('GZIP' or 'ZSTD') to use for new streams of " +
+            "that type, e.g. 'Events: ZSTD'. Takes precedence over blockCodec but not blockCodecByVolumeGroup.")
+    public Map<String, String> getBlockCodecByStreamType() {
+        return blockCodecByStreamType;
+    }
+
+    @JsonPropertyDescription(
+            "Map of volume group names to the block compression ('GZIP' or 'ZSTD') to use for new streams " +
+            "written to volumes in that group. Takes precedence over blockCodecByStreamType and blockCodec.")
+    public Map<String, String> getBlockCodecByVolumeGroup() {
+        return blockCodecByVolumeGroup;
+    }
+
+    @Min(0)
+    @JsonPropertyDescription(
+            "The number of blocks of a stream file to compress in parallel when writing, or decompress ahead " +
+            "when reading. Using more than one core can speed up writing and reading large streams at the cost " +
+            "of holding this many uncompressed blocks (about 1MB each) in memory per open stream. " +
+            "The compressed files are the same whatever the value. Set to 0 to compress and decompress " +
+            "on the thread that writes or reads the stream.")
+    public int getBlockCodecParallelism() {
+        return blockCodecParallelism;
+    }
+
+    /**
+     * @return The name of the block codec to use for a new stream of the supplied type in the supplied volume group.
+     */
+    @JsonIgnore
+    public String getBlockCodec(final String volumeGroupName, final String streamTypeName) {
+        String codec = null;
+        if (volumeGroupName != null && blockCodecByVolumeGroup != null) {
+            codec = blockCodecByVolumeGroup.get(volumeGroupName);
+        }
+        if (codec == null && streamTypeName != null && blockCodecByStreamType != null) {
+            codec = blockCodecByStreamType.get(streamTypeName);
+        }
+        return codec != null
+                ? codec
+                : blockCodec;
+    }
+
     @Override
     public String toString() {
         return "FsVolumeConfig{" +
@@ -268,6 +369,11 @@ public class FsVolumeConfig extends AbstractConfig implements IsStroomConfig {
                ", metaTypeExtensions=" + metaTypeExtensions +
                ", maxVolumeStateAge=" + maxVolumeStateAge +
                ", volumeCache=" + volumeCache +
+               ", blockCodec=" + blockCodec +
+               ", blockCodecByStreamType=" + blockCodecByStreamType +
+               ", blockCodecByVolumeGroup=" + blockCodecByVolumeGroup +
+               ", blockCodecParallelism=" + blockCodecParallelism +
+               ", segmentIndexCacheSize=" + segmentIndexCacheSize +
                '}';
     }
 }
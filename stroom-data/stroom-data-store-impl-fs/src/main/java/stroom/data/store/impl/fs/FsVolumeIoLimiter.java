@@ -0,0 +1,104 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.data.store.impl.fs;
+
+import stroom.util.concurrent.DurationAdder;
+import stroom.util.concurrent.RatePacer;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Bounds the file system work that the clean up jobs do against each volume. Each volume gets its own
+ * limit on the number of concurrent units of work and its own limit on the rate of file system operations
+ * so that one busy volume does not hold up the others and no volume is saturated by clean up work.
+ */
+class FsVolumeIoLimiter {
+
+    private final int concurrency;
+    private final long intervalNanos;
+    private final Map<String, VolumeLimit> volumeLimits = new ConcurrentHashMap<>();
+    private final DurationAdder throttledDuration = new DurationAdder();
+
+    FsVolumeIoLimiter(final int concurrency, final int maxOpsPerSecond) {
+        this.concurrency = Math.max(1, concurrency);
+        this.intervalNanos = RatePacer.intervalNanos(maxOpsPerSecond);
+    }
+
+    static FsVolumeIoLimiter create(final DataStoreServiceConfig config) {
+        return new FsVolumeIoLimiter(
+                config.getFileSystemVolumeConcurrency(),
+                config.getFileSystemVolumeMaxOpsPerSecond());
+    }
+
+    int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Wait for one of the concurrent work slots for the volume. Must be paired with a call
+     * to {@link FsVolumeIoLimiter#release(String)}.
+     */
+    void acquire(final String volume) throws InterruptedException {
+        getVolumeLimit(volume).semaphore.acquire();
+    }
+
+    void release(final String volume) {
+        getVolumeLimit(volume).semaphore.release();
+    }
+
+    /**
+     * Call before each file system operation against the volume. Blocks if the volume has reached its
+     * operation rate limit.
+     */
+    void throttle(final String volume) throws InterruptedException {
+        if (intervalNanos > 0) {
+            final long waitNanos = getVolumeLimit(volume).ratePacer.pace(intervalNanos);
+            if (waitNanos > 0) {
+                throttledDuration.add(Duration.ofNanos(waitNanos));
+            }
+        }
+    }
+
+    /**
+     * @return The total time that callers have spent waiting on the rate limit.
+     */
+    Duration getThrottledDuration() {
+        return throttledDuration.get();
+    }
+
+    private VolumeLimit getVolumeLimit(final String volume) {
+        return volumeLimits.computeIfAbsent(volume, k -> new VolumeLimit(concurrency));
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    private static final class VolumeLimit {
+
+        private final Semaphore semaphore;
+        private final RatePacer ratePacer = new RatePacer();
+
+        private VolumeLimit(final int concurrency) {
+            this.semaphore = new Semaphore(concurrency);
+        }
+    }
+}
@@ -25,4 +25,13 @@ public interface InternalSource extends Source {
     InputStream getInputStream();
 
     InputStream getChildInputStream(String type);
+
+    /**
+     * @param type The internal stream type of a segment or boundary index.
+     * @return An in memory copy of the child index of the supplied type or null if the index must be read from the
+     * child input stream.
+     */
+    default SegmentIndex getChildSegmentIndex(final String type) {
+        return null;
+    }
 }
@@ -0,0 +1,350 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.data.store.impl.fs;
+
+import stroom.util.io.FileUtil;
+import stroom.util.io.SeekableInputStream;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Reads a block compressed file, decompressing the blocks that follow the current one on an executor so that
+ * decompression of a large stream is spread over several threads.
+ * <p>
+ * Blocks are located with the block index so each block can be read and decompressed independently of the others.
+ * Up to 'readAhead' blocks after the current one are decompressed ahead of the reader. Seeking to a block that has
+ * not been read ahead discards the read ahead blocks.
+ *
+ * @see BlockGZIPConstants
+ * @see BlockGZIPInputFile
+ */
+class ParallelBlockGZIPInputFile extends InputStream implements SeekableInputStream {
+
+    private static final int HEADER_LENGTH = BlockGZIPConstants.BLOCK_GZIP_V1_IDENTIFIER.length +
+                                             (4 * BlockGZIPConstants.LONG_BYTES);
+    private static final int BLOCK_HEADER_LENGTH = BlockGZIPConstants.MAGIC_MARKER.length +
+                                                   BlockGZIPConstants.LONG_BYTES;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final Executor executor;
+    private final int readAhead;
+    private final BlockCodec codec;
+    private final int blockSize;
+    private final long dataLength;
+    private final long idxStart;
+    private final long eof;
+    private final long blockCount;
+    // Decompressed block buffers that can be reused
+    private final ConcurrentLinkedQueue<byte[]> freeBuffers = new ConcurrentLinkedQueue<>();
+    // Blocks being decompressed ahead of the reader, in block order
+    private final Deque<PendingBlock> pendingBlocks = new ArrayDeque<>();
+
+    private long[] index;
+    private DecompressedBlock currentBlock;
+    private long position;
+    private long lastMarkPosition;
+    private boolean closed;
+
+    ParallelBlockGZIPInputFile(final Path file,
+                               final Executor executor,
+                               final int readAhead) throws IOException {
+        this.file = file;
+        this.executor = executor;
+        this.readAhead = Math.max(1, readAhead);
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+            readFully(header, 0);
+            header.flip();
+
+            final byte[] identifier = new byte[BlockGZIPConstants.BLOCK_GZIP_V1_IDENTIFIER.length];
+            header.get(identifier);
+            codec = BlockCodec.fromIdentifier(identifier);
+            if (codec == null) {
+                throw invalid("Does not look like a Block GZIP V1 Stream");
+            }
+            blockSize = (int) header.getLong();
+            dataLength = header.getLong();
+            idxStart = header.getLong();
+            eof = header.getLong();
+            blockCount = (dataLength + blockSize - 1) / blockSize;
+        } catch (final IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    BlockCodec getCodec() {
+        return codec;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position >= dataLength) {
+            return -1;
+        }
+        final DecompressedBlock block = getBlock(position / blockSize);
+        final int b = block.data()[(int) (position % blockSize)] & 0xFF;
+        position++;
+        return b;
+    }
+
+    @Override
+    public int read(@NotNull final byte[] bytes) throws IOException {
+        return read(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public int read(@NotNull final byte[] bytes, final int off, final int len) throws IOException {
+        if (position >= dataLength) {
+            return -1;
+        }
+        if (len == 0) {
+            return 0;
+        }
+        final DecompressedBlock block = getBlock(position / blockSize);
+        final int blockOffset = (int) (position % blockSize);
+        // Only ever read from one block (make the caller do another read())
+        final int realLen = Math.min(len, block.length() - blockOffset);
+        System.arraycopy(block.data(), blockOffset, bytes, off, realLen);
+        position += realLen;
+        return realLen;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        final long newPosition = position + n;
+        if (newPosition > dataLength) {
+            throw new IOException("Seek past EOF");
+        }
+        if (newPosition < 0) {
+            throw new IOException("Seek past begining of file");
+        }
+        position = newPosition;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        if (currentBlock == null || currentBlock.blockNo() != position / blockSize) {
+            return 0;
+        }
+        return currentBlock.length() - (int) (position % blockSize);
+    }
+
+    @Override
+    public void mark(final int readlimit) {
+        lastMarkPosition = position;
+    }
+
+    @Override
+    public void reset() throws IOException {
+        seek(lastMarkPosition);
+    }
+
+    @Override
+    public long getSize() {
+        return dataLength;
+    }
+
+    @Override
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public void seek(final long pos) throws IOException {
+        if (pos > dataLength) {
+            throw new IOException("Seek past EOF");
+        }
+        if (pos < 0) {
+            throw new IOException("Seek past begining of file");
+        }
+        // Blocks are only fetched when read so seeking just moves the position.
+        position = pos;
+    }
+
+    /**
+     * Get the decompressed block, making sure the blocks after it are being decompressed.
+     */
+    private DecompressedBlock getBlock(final long blockNo) throws IOException {
+        if (currentBlock == null || currentBlock.blockNo() != blockNo) {
+            if (currentBlock != null) {
+                freeBuffers.add(currentBlock.data());
+                currentBlock = null;
+            }
+
+            // Drop any read ahead blocks before the one we want, e.g. after a seek.
+            while (!pendingBlocks.isEmpty() && pendingBlocks.peekFirst().blockNo() != blockNo) {
+                pendingBlocks.pollFirst().future().cancel(false);
+            }
+            if (pendingBlocks.isEmpty()) {
+                pendingBlocks.add(submit(blockNo));
+            }
+            currentBlock = await(pendingBlocks.pollFirst());
+        }
+
+        // Keep the read ahead queue full.
+        long nextBlockNo = pendingBlocks.isEmpty()
+                ? blockNo + 1
+                : pendingBlocks.peekLast().blockNo() + 1;
+        while (pendingBlocks.size() < readAhead && nextBlockNo < blockCount) {
+            pendingBlocks.add(submit(nextBlockNo));
+            nextBlockNo++;
+        }
+        return currentBlock;
+    }
+
+    private PendingBlock submit(final long blockNo) throws IOException {
+        final long blockStart = getIndex()[(int) blockNo];
+        return new PendingBlock(blockNo, CompletableFuture.supplyAsync(() -> {
+            try {
+                return decompress(blockNo, blockStart);
+            } catch (final IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor));
+    }
+
+    private DecompressedBlock decompress(final long blockNo, final long blockStart) throws IOException {
+        final ByteBuffer blockHeader = ByteBuffer.allocate(BLOCK_HEADER_LENGTH);
+        readFully(blockHeader, blockStart);
+        blockHeader.flip();
+        final byte[] magicMarker = new byte[BlockGZIPConstants.MAGIC_MARKER.length];
+        blockHeader.get(magicMarker);
+        if (!Arrays.equals(BlockGZIPConstants.MAGIC_MARKER, magicMarker)) {
+            throw invalid("Failed to find block sync point " + blockNo);
+        }
+        final int compressedLength = (int) blockHeader.getLong();
+        final ByteBuffer compressed = ByteBuffer.allocate(compressedLength);
+        readFully(compressed, blockStart + BLOCK_HEADER_LENGTH);
+
+        final int length = (int) Math.min(blockSize, dataLength - (blockNo * blockSize));
+        byte[] data = freeBuffers.poll();
+        if (data == null) {
+            data = new byte[blockSize];
+        }
+        try (final InputStream inputStream = codec.decompress(
+                new ByteArrayInputStream(compressed.array(), 0, compressedLength))) {
+            final int read = inputStream.readNBytes(data, 0, length);
+            if (read != length) {
+                throw invalid("Expected " + length + " bytes in block " + blockNo + " but found " + read);
+            }
+        }
+        return new DecompressedBlock(blockNo, data, length);
+    }
+
+    private DecompressedBlock await(final PendingBlock pendingBlock) throws IOException {
+        try {
+            return pendingBlock.future().get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted reading block " + pendingBlock.blockNo(), e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof final IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Error reading block " + pendingBlock.blockNo(), e.getCause());
+        }
+    }
+
+    /**
+     * Read the whole block index the first time we need it.
+     */
+    private long[] getIndex() throws IOException {
+        if (index == null) {
+            final ByteBuffer buffer = ByteBuffer.allocate((int) (eof - idxStart));
+            readFully(buffer, idxStart);
+            buffer.flip();
+            final byte[] magicMarker = new byte[BlockGZIPConstants.MAGIC_MARKER.length];
+            buffer.get(magicMarker);
+            if (!Arrays.equals(BlockGZIPConstants.MAGIC_MARKER, magicMarker)) {
+                throw invalid("Failed to find index sync point");
+            }
+            final long[] longs = new long[(int) blockCount];
+            buffer.asLongBuffer().get(longs);
+            index = longs;
+        }
+        return index;
+    }
+
+    private void readFully(final ByteBuffer buffer, final long position) throws IOException {
+        long pos = position;
+        while (buffer.hasRemaining()) {
+            final int read = channel.read(buffer, pos);
+            if (read == -1) {
+                throw new EOFException("Unexpected end of file \"" + FileUtil.getCanonicalPath(file) + "\"");
+            }
+            pos += read;
+        }
+    }
+
+    private IOException invalid(final String message) {
+        return new IOException(message + " \"" + FileUtil.getCanonicalPath(file) + "\"");
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            pendingBlocks.forEach(pendingBlock -> pendingBlock.future().cancel(false));
+            pendingBlocks.clear();
+            currentBlock = null;
+            try {
+                channel.close();
+            } finally {
+                super.close();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BGZIP " + file + " blockSize=" + blockSize + " fileSize=" + eof + " readAhead=" + readAhead;
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    private record PendingBlock(long blockNo, CompletableFuture<DecompressedBlock> future) {
+
+    }
+
+    private record DecompressedBlock(long blockNo, byte[] data, int length) {
+
+    }
+}
@@ -50,10 +50,12 @@ import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -139,6 +141,7 @@ public class PhysicalDeleteExecutor {
             long total = 0;
             if (slidingDeleteThreshold != null) {
                 final Executor executor = getExecutor();
+                final FsVolumeIoLimiter ioLimiter = FsVolumeIoLimiter.create(dataStoreServiceConfig);
                 final Set<Long> metaIdExcludeSet = new HashSet<>();
 
                 do {
@@ -193,6 +196,8 @@ public class PhysicalDeleteExecutor {
                                 simpleMetas,
                                 deleteThreshold, // slidingDeleteThreshold only used for the DB qry
                                 workQueue,
+                                executor,
+                                ioLimiter,
                                 progress);
 
                         // Advance the slidingDeleteThreshold backwards in time, so it is equal to the
@@ -244,6 +249,8 @@ public class PhysicalDeleteExecutor {
                                 "Cumulative progress after batch " + progress.getBatchCount() + ":");
                     }
                 } while (count >= deleteBatchSize);
+                LOGGER.debug("{} - Time spent waiting on the volume IO rate limit: {}",
+                        TASK_NAME, ioLimiter.getThrottledDuration());
             }
         }
     }
@@ -257,6 +264,7 @@ public class PhysicalDeleteExecutor {
      * Deletes a batch of simpleMetas from the file system and the database.
      *
      * @param deleteThresholdEpoch The threshold for statusTime, i.e. records <= deleteThresholdEpoch
+     * @param ioLimiter            Limits the concurrency and rate of file system operations on each volume
      * @param progress             Count of failures that spans multiple batches
      * @return Those simpleMeta items that could not be deleted for some reason.
      */
@@ -264,6 +272,8 @@ public class PhysicalDeleteExecutor {
                                                final List<SimpleMeta> simpleMetas,
                                                final Instant deleteThresholdEpoch,
                                                final WorkQueue workQueue,
+                                               final Executor executor,
+                                               final FsVolumeIoLimiter ioLimiter,
                                                final Progress progress) {
         Objects.requireNonNull(simpleMetas);
         Objects.requireNonNull(deleteThresholdEpoch);
@@ -278,13 +288,14 @@ public class PhysicalDeleteExecutor {
                     taskContext,
                     simpleMetas,
                     workQueue,
+                    ioLimiter,
                     progress,
                     dirToVolPathMap);
 
             if (!progress.hasBreachedThreshold()) {
                 // Remove any empty directories (including their ancestors, but not the root volumePath)
 
-                deleteEmptyDirs(simpleMetas, deleteThresholdEpoch, progress, dirToVolPathMap);
+                deleteEmptyDirs(simpleMetas, deleteThresholdEpoch, executor, ioLimiter, progress, dirToVolPathMap);
 
                 if (Thread.currentThread().isInterrupted()) {
                     throw new InterruptedException();
@@ -314,15 +325,40 @@ public class PhysicalDeleteExecutor {
 
     private void deleteEmptyDirs(final List<SimpleMeta> simpleMetas,
                                  final Instant deleteThresholdEpoch,
+                                 final Executor executor,
+                                 final FsVolumeIoLimiter ioLimiter,
                                  final Progress progress,
                                  final Map<Path, Path> dirToVolPathMap) {
         final DurationTimer dirDeletionTimer = DurationTimer.start();
-        dirToVolPathMap.forEach((dir, volumePath) ->
-                fsFileDeleter.tryDeleteDir(
-                        volumePath,
-                        dir,
-                        deleteThresholdEpoch.toEpochMilli(),
-                        progress::addDirDeletes));
+
+        // Each volume is done in parallel. Dirs within a volume are done one at a time as the dirs share
+        // ancestors that each delete may try to remove.
+        final Map<Path, List<Path>> volPathToDirsMap = dirToVolPathMap.entrySet()
+                .stream()
+                .collect(Collectors.groupingBy(
+                        Entry::getValue,
+                        Collectors.mapping(Entry::getKey, Collectors.toList())));
+        final CompletableFuture<?>[] futures = volPathToDirsMap.entrySet()
+                .stream()
+                .map(entry -> CompletableFuture.runAsync(() -> {
+                    final Path volumePath = entry.getKey();
+                    final String volume = volumePath.toString();
+                    try {
+                        for (final Path dir : entry.getValue()) {
+                            ioLimiter.throttle(volume);
+                            fsFileDeleter.tryDeleteDir(
+                                    volumePath,
+                                    dir,
+                                    deleteThresholdEpoch.toEpochMilli(),
+                                    progress::addDirDeletes);
+                        }
+                    } catch (final InterruptedException e) {
+                        LOGGER.debug("{} - Interrupted deleting dirs in {}", TASK_NAME, volume);
+                        Thread.currentThread().interrupt();
+                    }
+                }, executor))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(futures).join();
 
         progress.addDirDeletionDuration(dirDeletionTimer);
         LOGGER.debug(() -> LogUtil.message(
@@ -359,6 +395,7 @@ public class PhysicalDeleteExecutor {
             final TaskContext taskContext,
             final List<SimpleMeta> simpleMetas,
             final WorkQueue workQueue,
+            final FsVolumeIoLimiter ioLimiter,
             final Progress progress,
             final Map<Path, Path> dirToVolPathMap) throws InterruptedException {
 
@@ -375,6 +412,7 @@ public class PhysicalDeleteExecutor {
                     simpleMeta,
                     taskContext,
                     successfulMetaIdDeleteQueue,
+                    ioLimiter,
                     progress,
                     dirToVolPathMap);
 
@@ -402,6 +440,7 @@ public class PhysicalDeleteExecutor {
     private Runnable deleteFiles(final SimpleMeta simpleMeta,
                                  final TaskContext parentTaskContext,
                                  final Queue<Long> successfulMetaIdDeleteQueue,
+                                 final FsVolumeIoLimiter ioLimiter,
                                  final Progress progress,
                                  final Map<Path, Path> dirToVolPathMap) {
 
@@ -442,6 +481,7 @@ public class PhysicalDeleteExecutor {
                                 switch (volumeType) {
                                     case STANDARD -> {
                                         final Path volumePath = pathCreator.toAppPath(dataVolume.getVolume().getPath());
+                                        final String volume = volumePath.toString();
                                         final Path file = fileSystemStreamPathHelper.getRootPath(
                                                 volumePath,
                                                 simpleMeta,
@@ -450,16 +490,23 @@ public class PhysicalDeleteExecutor {
                                         String baseName = file.getFileName().toString();
                                         baseName = baseName.substring(0, baseName.indexOf("."));
 
-                                        if (Files.isDirectory(dir)) {
-                                            isSuccessful = fsFileDeleter.deleteFilesByBaseName(
-                                                    simpleMeta.getId(), dir, baseName, progress::addFileDeletes);
-
-                                            dirToVolPathMap.put(dir, volumePath);
-                                        } else {
-                                            isSuccessful = true;
-                                            LOGGER.warn(() -> LogUtil.message(
-                                                    "{} - Directory '{}' does not exist for meta {}",
-                                                    TASK_NAME, FileUtil.getCanonicalPath(dir), simpleMeta));
+                                        // Don't let one volume take all the delete threads
+                                        ioLimiter.acquire(volume);
+                                        try {
+                                            ioLimiter.throttle(volume);
+                                            if (Files.isDirectory(dir)) {
+                                                isSuccessful = fsFileDeleter.deleteFilesByBaseName(
+                                                        simpleMeta.getId(), dir, baseName, progress::addFileDeletes);
+
+                                                dirToVolPathMap.put(dir, volumePath);
+                                            } else {
+                                                isSuccessful = true;
+                                                LOGGER.warn(() -> LogUtil.message(
+                                                        "{} - Directory '{}' does not exist for meta {}",
+                                                        TASK_NAME, FileUtil.getCanonicalPath(dir), simpleMeta));
+                                            }
+                                        } finally {
+                                            ioLimiter.release(volume);
                                         }
                                     }
                                     case S3 -> {
@@ -50,6 +50,8 @@ public class RASegmentInputStream extends SegmentInputStream {
     private final LongBuffer longBuffer = ByteBuffer.wrap(eightBytes).asLongBuffer();
     private InputStream data;
     private InputStream indexInputStream;
+    // An in memory copy of the index to use instead of the index stream if we have one
+    private SegmentIndex segmentIndex;
     private Set<Long> included;
     private Iterator<Long> includedIterator;
     private Set<Long> excluded;
@@ -101,12 +103,44 @@ public class RASegmentInputStream extends SegmentInputStream {
         }
     }
 
+    /**
+     * Create a segment input stream that looks up segments in an index that has already been read into memory.
+     */
+    RASegmentInputStream(final InputStream data, final SegmentIndex segmentIndex) {
+        try {
+            this.data = data;
+            this.segmentIndex = segmentIndex;
+
+            initWindow(0, ((SeekableInputStream) data).getSize());
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e.getMessage(), e);
+        }
+    }
+
+    RASegmentInputStream(final InputStream data,
+                         final SegmentIndex segmentIndex,
+                         final long byteStart,
+                         final long byteEnd) {
+        try {
+            this.data = data;
+            this.segmentIndex = segmentIndex;
+
+            initWindow(byteStart, byteEnd);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e.getMessage(), e);
+        }
+    }
+
     private long getDataSize() throws IOException {
         return ((SeekableInputStream) data).getSize();
     }
 
     private void initWindow(final long byteStart, final long byteEnd) throws IOException {
-        totalSegmentCount = (((SeekableInputStream) indexInputStream).getSize() / INT8) + 1;
+        if (segmentIndex != null) {
+            totalSegmentCount = segmentIndex.size() + 1;
+        } else {
+            totalSegmentCount = (((SeekableInputStream) indexInputStream).getSize() / INT8) + 1;
+        }
 
         // If the window starts at 0 we start at segment 0 otherwise we need to
         // look at which segment includes byteStart
@@ -223,7 +257,7 @@ public class RASegmentInputStream extends SegmentInputStream {
      */
     @Override
     public int available() throws IOException {
-        if (data == null || indexInputStream == null) {
+        if (isClosed()) {
             throw new IOException("Stream closed");
         }
 
@@ -259,10 +293,15 @@ public class RASegmentInputStream extends SegmentInputStream {
 
         data = null;
         indexInputStream = null;
+        segmentIndex = null;
 
         super.close();
     }
 
+    private boolean isClosed() {
+        return data == null || (indexInputStream == null && segmentIndex == null);
+    }
+
     /**
      * Do a read keeping a watch on the end window.
      */
@@ -360,7 +399,7 @@ public class RASegmentInputStream extends SegmentInputStream {
 
         int totalBytesRead = 0;
 
-        if (data == null || indexInputStream == null) {
+        if (isClosed()) {
             throw new IOException("Stream closed");
         }
 
@@ -567,6 +606,10 @@ public class RASegmentInputStream extends SegmentInputStream {
             return 0;
         }
 
+        if (segmentIndex != null) {
+            return segmentIndex.getOffset(seekPos);
+        }
+
         ((SeekableInputStream) indexInputStream).seek((seekPos) * INT8);
 
         StreamUtil.eagerRead(indexInputStream, eightBytes);
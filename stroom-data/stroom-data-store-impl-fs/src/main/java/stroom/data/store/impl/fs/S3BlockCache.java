@@ -0,0 +1,117 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.data.store.impl.fs;
+
+import stroom.util.logging.LambdaLogger;
+import stroom.util.logging.LambdaLoggerFactory;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+import jakarta.inject.Singleton;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+import java.util.function.LongSupplier;
+
+/**
+ * A byte bounded LRU cache of blocks read from S3 objects. Blocks are shared between all sources reading the same
+ * object so repeated stepping or seeking within a stream does not fetch the same ranges again.
+ */
+@Singleton
+class S3BlockCache {
+
+    private static final LambdaLogger LOGGER = LambdaLoggerFactory.getLogger(S3BlockCache.class);
+
+    private final LongSupplier maxBytesSupplier;
+    private final LinkedHashMap<BlockKey, byte[]> blocks = new LinkedHashMap<>(16, 0.75F, true);
+    private long totalBytes;
+
+    @Inject
+    S3BlockCache(final Provider<DataStoreServiceConfig> dataStoreServiceConfigProvider) {
+        this(() -> dataStoreServiceConfigProvider.get().getS3BlockCacheSize().getBytes());
+    }
+
+    S3BlockCache(final LongSupplier maxBytesSupplier) {
+        this.maxBytesSupplier = maxBytesSupplier;
+    }
+
+    /**
+     * Get a block of an object, reading it with a single ranged read if it is not already cached.
+     *
+     * @param reader     The reader for the object.
+     * @param blockIndex The index of the block within the object.
+     * @param blockSize  The size of each block. The final block of an object may be shorter.
+     * @return The block.
+     */
+    byte[] getBlock(final ByteRangeReader reader,
+                    final long blockIndex,
+                    final int blockSize) throws IOException {
+        final BlockKey key = new BlockKey(reader.getId(), blockIndex, blockSize);
+        synchronized (this) {
+            final byte[] block = blocks.get(key);
+            if (block != null) {
+                return block;
+            }
+        }
+
+        // Read outside the lock so other blocks can be served while we wait for S3.
+        final long start = blockIndex * blockSize;
+        final int length = (int) Math.min(blockSize, reader.getSize() - start);
+        if (length <= 0) {
+            return new byte[0];
+        }
+        final byte[] block = new byte[length];
+        reader.readFully(start, block, 0, length);
+        LOGGER.debug(() -> "Read block " + blockIndex + " of " + reader.getId() + " (" + length + " bytes)");
+
+        synchronized (this) {
+            final byte[] existing = blocks.putIfAbsent(key, block);
+            if (existing != null) {
+                return existing;
+            }
+            totalBytes += block.length;
+            evict();
+        }
+        return block;
+    }
+
+    private void evict() {
+        final long maxBytes = maxBytesSupplier.getAsLong();
+        final Iterator<Entry<BlockKey, byte[]>> iterator = blocks.entrySet().iterator();
+        // Always keep the most recent block so the caller can use it.
+        while (totalBytes > maxBytes && blocks.size() > 1 && iterator.hasNext()) {
+            final Entry<BlockKey, byte[]> entry = iterator.next();
+            totalBytes -= entry.getValue().length;
+            iterator.remove();
+        }
+    }
+
+    synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    private record BlockKey(String id, long blockIndex, int blockSize) {
+
+    }
+}
@@ -16,8 +16,11 @@
 
 package stroom.data.store.impl.fs;
 
+import stroom.aws.s3.impl.S3ClientPool;
 import stroom.aws.s3.impl.S3FileExtensions;
 import stroom.aws.s3.impl.S3Manager;
+import stroom.aws.s3.impl.S3RangeReader;
+import stroom.data.store.api.Source;
 import stroom.data.store.impl.fs.DataVolumeDao.DataVolume;
 import stroom.meta.api.AttributeMap;
 import stroom.meta.api.MetaService;
@@ -31,6 +34,7 @@ import stroom.util.time.TimeBasis;
 import stroom.util.zip.ZipUtil;
 
 import jakarta.inject.Inject;
+import jakarta.inject.Provider;
 import jakarta.inject.Singleton;
 
 import java.io.IOException;
@@ -48,6 +52,7 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongUnaryOperator;
 
 @Singleton
 class S3Store {
@@ -61,14 +66,23 @@ class S3Store {
     private final Map<Long, TrackedSource> cache = new ConcurrentHashMap<>();
     private final Set<TrackedSource> evictable = new HashSet<>();
     private final MetaService metaService;
+    private final Provider<DataStoreServiceConfig> dataStoreServiceConfigProvider;
+    private final S3BlockCache blockCache;
+    private final S3ClientPool s3ClientPool;
     private final Path tempDir;
 
     @Inject
     S3Store(final TempDirProvider tempDirProvider,
             final PathCreator pathCreator,
-            final MetaService metaService) {
+            final MetaService metaService,
+            final Provider<DataStoreServiceConfig> dataStoreServiceConfigProvider,
+            final S3BlockCache blockCache,
+            final S3ClientPool s3ClientPool) {
         this.pathCreator = pathCreator;
         this.metaService = metaService;
+        this.dataStoreServiceConfigProvider = dataStoreServiceConfigProvider;
+        this.blockCache = blockCache;
+        this.s3ClientPool = s3ClientPool;
 
         try {
             tempDir = tempDirProvider.get().resolve("s3_cache");
@@ -79,7 +93,25 @@ class S3Store {
         }
     }
 
-    public S3Source getSource(final DataVolume dataVolume, final Meta meta) {
+    public Source getSource(final DataVolume dataVolume, final Meta meta) {
+        final DataStoreServiceConfig dataStoreServiceConfig = dataStoreServiceConfigProvider.get();
+        if (dataStoreServiceConfig.isS3RangeReadsEnabled()) {
+            return getRangeSource(dataVolume, meta, (int) dataStoreServiceConfig.getS3BlockSize().getBytes());
+        }
+        return getDownloadedSource(dataVolume, meta);
+    }
+
+    private Source getRangeSource(final DataVolume dataVolume, final Meta meta, final int blockSize) {
+        final S3Manager s3Manager = new S3Manager(pathCreator,
+                dataVolume.getVolume().getS3ClientConfig(),
+                s3ClientPool);
+        // Must use meta create time to give us deterministic time variable replacement in the s3 key
+        final S3RangeReader s3RangeReader = s3Manager.openRangeReader(meta, TIME_BASIS);
+        final ByteRangeReader reader = new S3ByteRangeReader(dataVolume, s3RangeReader);
+        return S3ZipSource.create(reader, blockCache, blockSize, getS3Path(dataVolume, meta), meta);
+    }
+
+    private S3Source getDownloadedSource(final DataVolume dataVolume, final Meta meta) {
         final TrackedSource trackedSource = cache.compute(meta.getId(), (k, v) -> {
             if (v == null) {
                 final Path tempPath = createTempPath(meta.getId());
@@ -90,7 +122,7 @@ class S3Store {
                         zipFile = tempPath.resolve(S3FileExtensions.ZIP_FILE_NAME);
                         // Download the zip from S3.
                         final S3Manager s3Manager =
-                                new S3Manager(pathCreator, dataVolume.getVolume().getS3ClientConfig());
+                                new S3Manager(pathCreator, dataVolume.getVolume().getS3ClientConfig(), s3ClientPool);
                         // Must use meta create time to give us deterministic time variable replacement
                         // in the s3 key
                         s3Manager.download(meta, zipFile, TIME_BASIS);
@@ -123,13 +155,61 @@ class S3Store {
         return new S3Source(this, trackedSource.getPath(), getS3Path(dataVolume, meta), meta);
     }
 
+    /**
+     * Read a stream from S3 into the local cache ahead of it being opened. With range reads the blocks holding the
+     * zip central directory and the start of the data are loaded into the block cache, otherwise the whole stream is
+     * downloaded and left in the downloaded source cache.
+     *
+     * @param reserver Given the number of bytes we would like to read, returns the number we are allowed to read.
+     * @return The number of bytes read.
+     */
+    long prefetch(final DataVolume dataVolume, final Meta meta, final LongUnaryOperator reserver) {
+        final DataStoreServiceConfig dataStoreServiceConfig = dataStoreServiceConfigProvider.get();
+        if (dataStoreServiceConfig.isS3RangeReadsEnabled()) {
+            final int blockSize = (int) dataStoreServiceConfig.getS3BlockSize().getBytes();
+            final S3Manager s3Manager =
+                    new S3Manager(pathCreator, dataVolume.getVolume().getS3ClientConfig(), s3ClientPool);
+            try (final ByteRangeReader reader =
+                    new S3ByteRangeReader(dataVolume, s3Manager.openRangeReader(meta, TIME_BASIS))) {
+                final long size = reader.getSize();
+                final long blockCount = (size + blockSize - 1) / blockSize;
+                final long allowed = reserver.applyAsLong(size);
+                long read = 0;
+                if (blockCount > 0 && allowed > 0) {
+                    // Opening the zip always needs the central directory at the end so get that first.
+                    final long lastBlock = blockCount - 1;
+                    read += blockCache.getBlock(reader, lastBlock, blockSize).length;
+                    for (long block = 0; block < lastBlock && read < allowed; block++) {
+                        read += blockCache.getBlock(reader, block, blockSize).length;
+                    }
+                }
+                return read;
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // Closing the source leaves the download in the cache until it is evicted.
+        final S3Source source = getDownloadedSource(dataVolume, meta);
+        try {
+            final TrackedSource trackedSource = cache.get(meta.getId());
+            return trackedSource != null
+                    ? reserver.applyAsLong(FileUtil.getByteSize(trackedSource.getPath()))
+                    : 0;
+        } finally {
+            source.close();
+        }
+    }
+
     public S3Target getTarget(final DataVolume dataVolume, final Meta meta) {
         final Path tempDir = createTempPath(meta.getId());
         return new S3Target(metaService, this, tempDir, dataVolume, meta);
     }
 
     private String getS3Path(final DataVolume dataVolume, final Meta meta) {
-        final S3Manager s3Manager = new S3Manager(pathCreator, dataVolume.getVolume().getS3ClientConfig());
+        final S3Manager s3Manager = new S3Manager(pathCreator,
+                dataVolume.getVolume().getS3ClientConfig(),
+                s3ClientPool);
         return "S3 > " +
                s3Manager.createBucketName(s3Manager.getBucketNamePattern(), meta) +
                " > " +
@@ -191,7 +271,9 @@ class S3Store {
             ZipUtil.zip(zipFile, tempDir);
 
             // Upload the zip to S3.
-            final S3Manager s3Manager = new S3Manager(pathCreator, dataVolume.getVolume().getS3ClientConfig());
+            final S3Manager s3Manager = new S3Manager(pathCreator,
+                    dataVolume.getVolume().getS3ClientConfig(),
+                    s3ClientPool);
             s3Manager.upload(meta, attributeMap, zipFile, null, TIME_BASIS);
 
         } catch (final IOException e) {
@@ -234,6 +316,44 @@ class S3Store {
         }
     }
 
+    private static class S3ByteRangeReader implements ByteRangeReader {
+
+        private final String id;
+        private final S3RangeReader s3RangeReader;
+
+        private S3ByteRangeReader(final DataVolume dataVolume, final S3RangeReader s3RangeReader) {
+            this.id = dataVolume.getVolume().getId() +
+                      "/" +
+                      s3RangeReader.getBucketName() +
+                      "/" +
+                      s3RangeReader.getKey();
+            this.s3RangeReader = s3RangeReader;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public long getSize() {
+            return s3RangeReader.getSize();
+        }
+
+        @Override
+        public void readFully(final long position,
+                              final byte[] buffer,
+                              final int offset,
+                              final int length) throws IOException {
+            s3RangeReader.readFully(position, buffer, offset, length);
+        }
+
+        @Override
+        public void close() {
+            s3RangeReader.close();
+        }
+    }
+
     private static class TrackedSource {
 
         private final Long metaId;
@@ -0,0 +1,294 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.data.store.impl.fs;
+
+import stroom.aws.s3.impl.S3FileExtensions;
+import stroom.data.shared.StreamTypeNames;
+import stroom.data.store.api.DataException;
+import stroom.data.store.api.InputStreamProvider;
+import stroom.data.store.api.SegmentInputStream;
+import stroom.data.store.api.Source;
+import stroom.meta.api.AttributeMap;
+import stroom.meta.api.AttributeMapUtil;
+import stroom.meta.shared.Meta;
+import stroom.util.logging.LambdaLogger;
+import stroom.util.logging.LambdaLoggerFactory;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A source for a stream held as a zip on an S3 volume that reads the zip central directory and then only the entries
+ * and blocks that are actually needed using ranged reads, rather than downloading and unzipping the whole stream.
+ */
+final class S3ZipSource implements Source {
+
+    private static final LambdaLogger LOGGER = LambdaLoggerFactory.getLogger(S3ZipSource.class);
+
+    private final List<S3ZipInputStreamProvider> providers = new ArrayList<>();
+    private final CachedRangeChannel channel;
+    private final ZipFile zipFile;
+    private final Map<String, ZipArchiveEntry> entries;
+    private final String s3Location;
+    private final Meta meta;
+    private final Map<String, Long> counts;
+    private AttributeMap attributeMap;
+    private boolean closed;
+
+    private S3ZipSource(final CachedRangeChannel channel,
+                        final ZipFile zipFile,
+                        final String s3Location,
+                        final Meta meta) {
+        this.channel = channel;
+        this.zipFile = zipFile;
+        this.s3Location = s3Location;
+        this.meta = meta;
+        this.entries = Collections.list(zipFile.getEntries())
+                .stream()
+                .collect(Collectors.toMap(ZipArchiveEntry::getName, entry -> entry, (a, b) -> a));
+        this.counts = countTypes();
+    }
+
+    static S3ZipSource create(final ByteRangeReader reader,
+                              final S3BlockCache blockCache,
+                              final int blockSize,
+                              final String s3Location,
+                              final Meta meta) {
+        final CachedRangeChannel channel = new CachedRangeChannel(reader, blockCache, blockSize);
+        try {
+            final ZipFile zipFile = ZipFile.builder()
+                    .setSeekableByteChannel(channel)
+                    .get();
+            return new S3ZipSource(channel, zipFile, s3Location, meta);
+        } catch (final IOException e) {
+            LOGGER.debug(e::getMessage, e);
+            closeChannel(channel);
+            throw new UncheckedIOException(e);
+        } catch (final RuntimeException e) {
+            LOGGER.debug(e::getMessage, e);
+            closeChannel(channel);
+            throw e;
+        }
+    }
+
+    private static void closeChannel(final CachedRangeChannel channel) {
+        try {
+            channel.close();
+        } catch (final IOException e) {
+            LOGGER.debug(e::getMessage, e);
+        }
+    }
+
+    @Override
+    public Meta getMeta() {
+        return meta;
+    }
+
+    @Override
+    public AttributeMap getAttributes() {
+        if (attributeMap == null) {
+            attributeMap = new AttributeMap();
+            readManifest(attributeMap);
+        }
+        return attributeMap;
+    }
+
+    private void readManifest(final AttributeMap attributeMap) {
+        final ZipArchiveEntry manifestEntry = entries.get(S3FileExtensions.MANIFEST_FILE_NAME);
+        if (manifestEntry != null) {
+            try (final InputStream inputStream = new BufferedInputStream(zipFile.getInputStream(manifestEntry))) {
+                AttributeMapUtil.read(inputStream, attributeMap);
+            } catch (final IOException e) {
+                LOGGER.error(e::getMessage, e);
+            }
+
+            attributeMap.put("S3 Location", s3Location);
+            attributeMap.put("Zip Entries", entries.keySet()
+                    .stream()
+                    .sorted()
+                    .collect(Collectors.joining("\n")));
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            throw new DataException("Source already closed");
+        }
+
+        try {
+            IOException streamCloseException = null;
+            for (final S3ZipInputStreamProvider provider : providers) {
+                try {
+                    provider.close();
+                } catch (final IOException e) {
+                    LOGGER.error(() -> "close() - Error on closing stream " + this, e);
+                    streamCloseException = e;
+                }
+            }
+            providers.clear();
+
+            try {
+                // Closing the zip file closes the channel and the underlying reader.
+                zipFile.close();
+            } catch (final IOException e) {
+                LOGGER.debug(e::getMessage, e);
+            }
+
+            if (streamCloseException != null) {
+                throw new UncheckedIOException(streamCloseException);
+            }
+        } finally {
+            closed = true;
+        }
+    }
+
+    @Override
+    public InputStreamProvider get(final long index) {
+        final long partNo = index + 1;
+        final S3ZipInputStreamProvider provider = new S3ZipInputStreamProvider(partNo);
+        providers.add(provider);
+        return provider;
+    }
+
+    @Override
+    public long count() {
+        return counts.getOrDefault(S3FileExtensions.DATA_EXTENSION, 0L);
+    }
+
+    @Override
+    public long count(final String childStreamType) {
+        if (childStreamType == null) {
+            return count();
+        }
+
+        final String extension = S3FileExtensions.EXTENSION_MAP.get(childStreamType);
+        if (extension == null) {
+            throw new RuntimeException("Unexpected child stream type: " + childStreamType);
+        }
+        return counts.getOrDefault(extension, 0L);
+    }
+
+    private Map<String, Long> countTypes() {
+        final Map<String, Long> counts = new HashMap<>();
+        for (final String fileName : entries.keySet()) {
+            final int index = fileName.indexOf(".");
+            if (index >= 0) {
+                final String extension = fileName.substring(index);
+                final String numPart = fileName.substring(0, index);
+                final long partNo = FsPrefixUtil.dePadId(numPart);
+                counts.merge(extension, partNo, Math::max);
+            }
+        }
+        return counts;
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    private class S3ZipInputStreamProvider implements InputStreamProvider {
+
+        private final String partString;
+        private final List<SegmentInputStream> segmentInputStreams = new ArrayList<>();
+        private SegmentInputStream dataStream;
+
+        public S3ZipInputStreamProvider(final long partNo) {
+            partString = FsPrefixUtil.padId(partNo);
+        }
+
+        @Override
+        public SegmentInputStream get() {
+            if (dataStream != null) {
+                throw new RuntimeException("Unexpected get");
+            }
+            dataStream = create(S3FileExtensions.DATA_EXTENSION);
+            return dataStream;
+        }
+
+        @Override
+        public SegmentInputStream get(final String childStreamType) {
+            if (childStreamType == null) {
+                return get();
+            }
+
+            final String extension = S3FileExtensions.EXTENSION_MAP.get(childStreamType);
+            if (extension == null) {
+                throw new RuntimeException("Unexpected child stream type: " + childStreamType);
+            }
+            return create(extension);
+        }
+
+        private SegmentInputStream create(final String extension) {
+            final String fileName = partString + extension;
+            final ZipArchiveEntry dataEntry = entries.get(fileName);
+            if (dataEntry == null) {
+                throw new UncheckedIOException(new IOException("No zip entry found for " + fileName));
+            }
+            final ZipArchiveEntry indexEntry = entries.get(fileName + S3FileExtensions.INDEX_EXTENSION);
+            final InputStream inputStream = new ZipEntryInputStream(zipFile, dataEntry, channel);
+            final InputStream indexStream = new ZipEntryInputStream(zipFile, indexEntry, channel);
+            final SegmentInputStream segmentInputStream = new RASegmentInputStream(inputStream, indexStream);
+            segmentInputStreams.add(segmentInputStream);
+            return segmentInputStream;
+        }
+
+        @Override
+        public Set<String> getChildTypes() {
+            final Set<String> childTypes = new HashSet<>();
+            if (entries.containsKey(partString + S3FileExtensions.META_EXTENSION)) {
+                childTypes.add(StreamTypeNames.META);
+            }
+            if (entries.containsKey(partString + S3FileExtensions.CONTEXT_EXTENSION)) {
+                childTypes.add(StreamTypeNames.CONTEXT);
+            }
+            return childTypes;
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOException exception = null;
+            for (final SegmentInputStream segmentInputStream : segmentInputStreams) {
+                try {
+                    segmentInputStream.close();
+                } catch (final IOException e) {
+                    LOGGER.debug(e::getMessage, e);
+                    if (exception == null) {
+                        exception = e;
+                    }
+                }
+            }
+            if (exception != null) {
+                throw exception;
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.data.store.impl.fs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * An in memory copy of a segment or boundary index (the '.seg' and '.bdy' child streams).
+ * <p>
+ * The index is a sequence of longs, each one being the byte offset in the data of the end of a segment (all but the
+ * last segment). Holding the offsets in an array means that finding the byte range of a segment, or the segment at
+ * a byte offset, does not need to seek and read the index stream for every lookup.
+ */
+public final class SegmentIndex {
+
+    private static final int INT8 = 8;
+    private static final int BUFFER_SIZE = INT8 * 1024;
+
+    static final SegmentIndex EMPTY = new SegmentIndex(new long[0]);
+
+    private final long[] offsets;
+
+    SegmentIndex(final long[] offsets) {
+        this.offsets = offsets;
+    }
+
+    /**
+     * Read a whole index stream.
+     *
+     * @param inputStream The index stream, which is not closed by this method.
+     * @param size        The uncompressed size of the index stream in bytes.
+     */
+    static SegmentIndex read(final InputStream inputStream, final long size) throws IOException {
+        if (size % INT8 != 0) {
+            throw new IOException("Segment index size " + size + " is not a multiple of " + INT8);
+        }
+        final long[] offsets = new long[Math.toIntExact(size / INT8)];
+        final byte[] bytes = new byte[BUFFER_SIZE];
+        final LongBuffer longBuffer = ByteBuffer.wrap(bytes).asLongBuffer();
+        int pos = 0;
+        while (pos < offsets.length) {
+            final int len = Math.min(BUFFER_SIZE, (offsets.length - pos) * INT8);
+            final int read = inputStream.readNBytes(bytes, 0, len);
+            if (read != len) {
+                throw new IOException("Unexpected end of segment index after " + (pos * (long) INT8) + " bytes");
+            }
+            longBuffer.clear();
+            longBuffer.get(offsets, pos, len / INT8);
+            pos += len / INT8;
+        }
+        return new SegmentIndex(offsets);
+    }
+
+    /**
+     * @return The number of offsets in the index, which is one less than the number of segments.
+     */
+    int size() {
+        return offsets.length;
+    }
+
+    /**
+     * @return The byte offset of the end of the segment at the supplied position in the index.
+     */
+    long getOffset(final long pos) {
+        return offsets[(int) pos];
+    }
+
+    /**
+     * @return The approximate heap used by this index.
+     */
+    long getByteSize() {
+        return (long) offsets.length * INT8;
+    }
+
+    @Override
+    public String toString() {
+        return "SegmentIndex{size=" + offsets.length + '}';
+    }
+}
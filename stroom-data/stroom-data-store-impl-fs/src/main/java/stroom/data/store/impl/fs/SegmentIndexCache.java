@@ -0,0 +1,126 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.data.store.impl.fs;
+
+import stroom.meta.shared.Meta;
+import stroom.meta.shared.Status;
+import stroom.util.io.FileUtil;
+import stroom.util.io.SeekableInputStream;
+import stroom.util.logging.LambdaLogger;
+import stroom.util.logging.LambdaLoggerFactory;
+import stroom.util.shared.Clearable;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+import jakarta.inject.Singleton;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Caches the segment and boundary indexes of recently read streams so that repeatedly fetching individual records
+ * from a stream, e.g. paging through it in the data viewer, does not need to read the index files each time.
+ * <p>
+ * Indexes hold 8 bytes per record so a single large stream can have a large index. The cache is therefore bounded
+ * by the total size of the indexes it holds rather than by the number of them.
+ */
+@Singleton
+public class SegmentIndexCache implements Clearable {
+
+    private static final LambdaLogger LOGGER = LambdaLoggerFactory.getLogger(SegmentIndexCache.class);
+    private static final Duration EXPIRE_AFTER_ACCESS = Duration.ofMinutes(10);
+
+    private final Cache<Key, SegmentIndex> cache;
+    private final Provider<FsVolumeConfig> fsVolumeConfigProvider;
+    private final FsPathHelper fileSystemStreamPathHelper;
+
+    @Inject
+    SegmentIndexCache(final Provider<FsVolumeConfig> fsVolumeConfigProvider,
+                      final FsPathHelper fileSystemStreamPathHelper) {
+        this.fsVolumeConfigProvider = fsVolumeConfigProvider;
+        this.fileSystemStreamPathHelper = fileSystemStreamPathHelper;
+        cache = Caffeine.newBuilder()
+                .maximumWeight(getMaxSizeBytes())
+                .weigher((final Key key, final SegmentIndex value) ->
+                        (int) Math.min(Integer.MAX_VALUE, value.getByteSize()))
+                .expireAfterAccess(EXPIRE_AFTER_ACCESS)
+                .build();
+    }
+
+    private long getMaxSizeBytes() {
+        return fsVolumeConfigProvider.get().getSegmentIndexCacheSize().getBytes();
+    }
+
+    /**
+     * Get the index held in the supplied file.
+     *
+     * @param meta           The meta of the stream that the index belongs to.
+     * @param streamTypeName The internal stream type of the index, i.e. segment or boundary index.
+     * @param file           The index file.
+     * @return The index, or null if the index cannot be cached and must be read from the file as a stream.
+     */
+    SegmentIndex get(final Meta meta, final String streamTypeName, final Path file) {
+        // Locked streams may still be being written so only cache indexes for streams that are complete.
+        if (meta == null || !Status.UNLOCKED.equals(meta.getStatus())) {
+            return null;
+        }
+        // A missing index means the stream has no segments.
+        if (!Files.isRegularFile(file)) {
+            return SegmentIndex.EMPTY;
+        }
+        // Pick up any change to the configured size.
+        final long maxSizeBytes = getMaxSizeBytes();
+        cache.policy().eviction().ifPresent(eviction -> {
+            if (eviction.getMaximum() != maxSizeBytes) {
+                eviction.setMaximum(maxSizeBytes);
+            }
+        });
+        return cache.get(new Key(meta.getId(), file), key -> read(streamTypeName, file));
+    }
+
+    private SegmentIndex read(final String streamTypeName, final Path file) {
+        try (final InputStream inputStream = fileSystemStreamPathHelper.getInputStream(streamTypeName, file)) {
+            final SegmentIndex segmentIndex = SegmentIndex.read(
+                    inputStream,
+                    ((SeekableInputStream) inputStream).getSize());
+            LOGGER.debug(() -> "Read " + segmentIndex + " from " + FileUtil.getCanonicalPath(file));
+            return segmentIndex;
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    private record Key(long metaId, Path file) {
+
+    }
+}
@@ -55,10 +55,7 @@ public class SegmentInputStreamProvider {
 
     public SegmentInputStream get(final long index) {
         try {
-            final InputStream boundaryIndex = getBoundaryIndex();
-            final InputStream segmentIndex = getSegmentIndex();
-
-            final RASegmentInputStream segmentInputStream = new RASegmentInputStream(getData(), boundaryIndex);
+            final RASegmentInputStream segmentInputStream = createBoundarySegmentInputStream();
 
             // Check bounds.
             final long segmentCount = segmentInputStream.count();
@@ -77,13 +74,21 @@ public class SegmentInputStreamProvider {
             final long entryByteOffsetEnd = entryByteOffsetEnd(segmentInputStream, index);
             final long size = entryByteOffsetEnd - entryByteOffsetStart;
 
-            if (segmentIndex == null) {
-                return new SingleSegmentInputStreamImpl(segmentInputStream, size);
+            final SegmentInputStream inputStream;
+            final SegmentIndex cachedSegmentIndex = source.getChildSegmentIndex(
+                    InternalStreamTypeNames.SEGMENT_INDEX);
+            if (cachedSegmentIndex != null) {
+                inputStream = new RASegmentInputStream(
+                        getData(), cachedSegmentIndex, entryByteOffsetStart, entryByteOffsetEnd);
+            } else {
+                final InputStream segmentIndex = getSegmentIndex();
+                if (segmentIndex == null) {
+                    return new SingleSegmentInputStreamImpl(segmentInputStream, size);
+                }
+                inputStream = new RASegmentInputStream(
+                        getData(), segmentIndex, entryByteOffsetStart, entryByteOffsetEnd);
             }
 
-            final SegmentInputStream inputStream = new RASegmentInputStream(
-                    getData(), segmentIndex, entryByteOffsetStart, entryByteOffsetEnd);
-
             return new WrappedSegmentInputStream(inputStream) {
                 @Override
                 public void close() {
@@ -95,6 +100,14 @@ public class SegmentInputStreamProvider {
         }
     }
 
+    private RASegmentInputStream createBoundarySegmentInputStream() {
+        final SegmentIndex cachedBoundaryIndex = source.getChildSegmentIndex(InternalStreamTypeNames.BOUNDARY_INDEX);
+        if (cachedBoundaryIndex != null) {
+            return new RASegmentInputStream(getData(), cachedBoundaryIndex);
+        }
+        return new RASegmentInputStream(getData(), getBoundaryIndex());
+    }
+
     void close() {
         if (boundaryIndex != null) {
             tryClose(boundaryIndex);
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.data.store.impl.fs;
+
+import stroom.util.io.SeekableInputStream;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.archivers.zip.ZipMethod;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A seekable stream over a single entry of a zip that is read through a {@link CachedRangeChannel}.
+ * <p>
+ * Stored (uncompressed) entries map seeks directly onto block reads. Compressed entries are inflated as they are
+ * read so seeking forwards skips and seeking backwards starts inflating again from the start of the entry.
+ * <p>
+ * If the entry is null the stream is treated as empty, in the same way as a lazy missing file.
+ */
+class ZipEntryInputStream extends InputStream implements SeekableInputStream {
+
+    private final ZipFile zipFile;
+    private final ZipArchiveEntry entry;
+    private final CachedRangeChannel channel;
+    private final boolean stored;
+    private final long size;
+
+    private long position;
+    private long lastMarkPosition;
+
+    // Stored entries.
+    private byte[] block;
+    private long blockStart = -1;
+
+    // Compressed entries.
+    private InputStream inflater;
+    private long inflaterPosition;
+
+    ZipEntryInputStream(final ZipFile zipFile,
+                        final ZipArchiveEntry entry,
+                        final CachedRangeChannel channel) {
+        this.zipFile = zipFile;
+        this.entry = entry;
+        this.channel = channel;
+        this.stored = entry != null && entry.getMethod() == ZipMethod.STORED.getCode();
+        this.size = entry == null
+                ? 0
+                : entry.getSize();
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] b = new byte[1];
+        final int read = read(b, 0, 1);
+        if (read == -1) {
+            return -1;
+        }
+        return b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (position >= size) {
+            return -1;
+        }
+
+        final int read;
+        if (stored) {
+            read = readStored(b, off, (int) Math.min(len, size - position));
+        } else {
+            read = readInflated(b, off, len);
+        }
+        if (read > 0) {
+            position += read;
+        }
+        return read;
+    }
+
+    private int readStored(final byte[] b, final int off, final int len) throws IOException {
+        final long absolute = entry.getDataOffset() + position;
+        final int blockSize = channel.getBlockSize();
+        final long blockIndex = absolute / blockSize;
+        final long start = blockIndex * blockSize;
+        if (block == null || blockStart != start) {
+            block = channel.getBlock(blockIndex);
+            blockStart = start;
+        }
+        final int offset = (int) (absolute - start);
+        final int length = Math.min(len, block.length - offset);
+        if (length <= 0) {
+            return -1;
+        }
+        System.arraycopy(block, offset, b, off, length);
+        return length;
+    }
+
+    private int readInflated(final byte[] b, final int off, final int len) throws IOException {
+        if (inflater == null || inflaterPosition > position) {
+            openInflater();
+        }
+        if (inflaterPosition < position) {
+            inflater.skipNBytes(position - inflaterPosition);
+            inflaterPosition = position;
+        }
+        final int read = inflater.read(b, off, len);
+        if (read > 0) {
+            inflaterPosition += read;
+        }
+        return read;
+    }
+
+    private void openInflater() throws IOException {
+        closeInflater();
+        inflater = zipFile.getInputStream(entry);
+        inflaterPosition = 0;
+    }
+
+    private void closeInflater() throws IOException {
+        if (inflater != null) {
+            inflater.close();
+            inflater = null;
+        }
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(0, size - position));
+    }
+
+    @Override
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public void seek(final long pos) {
+        position = pos;
+    }
+
+    @Override
+    public long skip(final long n) {
+        seek(position + n);
+        return n;
+    }
+
+    @Override
+    public void mark(final int readlimit) {
+        lastMarkPosition = position;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public void reset() {
+        seek(lastMarkPosition);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            closeInflater();
+        } finally {
+            super.close();
+        }
+    }
+}
@@ -18,6 +18,7 @@ package stroom.data.store.impl.fs.dao;
 
 import stroom.data.store.impl.fs.DataVolumeDao;
 import stroom.data.store.impl.fs.FsFeedPathDao;
+import stroom.data.store.impl.fs.FsOrphanedFileDao;
 import stroom.data.store.impl.fs.FsOrphanedMetaDao;
 import stroom.data.store.impl.fs.FsTypePathDao;
 import stroom.data.store.impl.fs.FsVolumeCache;
@@ -42,6 +43,7 @@ public class FsDataStoreDaoModule extends AbstractModule {
         bind(FsVolumeGroupDao.class).to(FsVolumeGroupDaoImpl.class);
         bind(FsVolumeStateDao.class).to(FsVolumeStateDaoImpl.class);
         bind(FsOrphanedMetaDao.class).to(FsOrphanedMetaDaoImpl.class);
+        bind(FsOrphanedFileDao.class).to(FsOrphanedFileDaoImpl.class);
 
         GuiceUtil.buildMultiBinder(binder(), Clearable.class)
                 .addBinding(FsVolumeCache.class);
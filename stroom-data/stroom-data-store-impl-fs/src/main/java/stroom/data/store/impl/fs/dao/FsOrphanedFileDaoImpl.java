@@ -0,0 +1,73 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.data.store.impl.fs.dao;
+
+import stroom.data.store.impl.fs.FsOrphanedFileDao;
+import stroom.data.store.impl.fs.db.FsDataStoreDbConnProvider;
+import stroom.db.util.JooqUtil;
+
+import jakarta.inject.Inject;
+
+import java.util.Optional;
+
+import static stroom.data.store.impl.fs.db.jooq.tables.FsOrphanedFileTracker.FS_ORPHANED_FILE_TRACKER;
+
+public class FsOrphanedFileDaoImpl implements FsOrphanedFileDao {
+
+    private final FsDataStoreDbConnProvider fsDataStoreDbConnProvider;
+
+    @Inject
+    public FsOrphanedFileDaoImpl(final FsDataStoreDbConnProvider fsDataStoreDbConnProvider) {
+        this.fsDataStoreDbConnProvider = fsDataStoreDbConnProvider;
+    }
+
+    @Override
+    public Optional<String> getLastPath(final int volumeId) {
+        return JooqUtil.contextResult(fsDataStoreDbConnProvider, context ->
+                context
+                        .select(FS_ORPHANED_FILE_TRACKER.LAST_PATH)
+                        .from(FS_ORPHANED_FILE_TRACKER)
+                        .where(FS_ORPHANED_FILE_TRACKER.FS_VOLUME_ID.eq(volumeId))
+                        .fetchOptional(FS_ORPHANED_FILE_TRACKER.LAST_PATH));
+    }
+
+    @Override
+    public void updateLastPath(final int volumeId, final String lastPath) {
+        final long now = System.currentTimeMillis();
+        JooqUtil.context(fsDataStoreDbConnProvider, context ->
+                context
+                        .insertInto(FS_ORPHANED_FILE_TRACKER,
+                                FS_ORPHANED_FILE_TRACKER.FS_VOLUME_ID,
+                                FS_ORPHANED_FILE_TRACKER.LAST_PATH,
+                                FS_ORPHANED_FILE_TRACKER.UPDATE_TIME_MS)
+                        .values(volumeId, lastPath, now)
+                        .onDuplicateKeyUpdate()
+                        .set(FS_ORPHANED_FILE_TRACKER.LAST_PATH, lastPath)
+                        .set(FS_ORPHANED_FILE_TRACKER.UPDATE_TIME_MS, now)
+                        .execute());
+    }
+
+    @Override
+    public void clearLastPath(final int volumeId) {
+        JooqUtil.context(fsDataStoreDbConnProvider, context ->
+                context
+                        .deleteFrom(FS_ORPHANED_FILE_TRACKER)
+                        .where(FS_ORPHANED_FILE_TRACKER.FS_VOLUME_ID.eq(volumeId))
+                        .execute());
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.data.store.impl.fs;
+
+import stroom.data.store.api.SegmentOutputStream;
+import stroom.util.io.StreamUtil;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TestBlockCodec {
+
+    @TempDir
+    Path tempDir;
+
+    @ParameterizedTest
+    @EnumSource(BlockCodec.class)
+    void testWriteAndRead(final BlockCodec codec) throws IOException {
+        final Path file = tempDir.resolve("test.bgz");
+        final byte[] data = createData();
+        try (final BlockGZIPOutputFile outputStream = new BlockGZIPOutputFile(file, 1000, codec)) {
+            outputStream.write(data);
+        }
+
+        final byte[] header = new byte[4];
+        try (final InputStream inputStream = Files.newInputStream(file)) {
+            assertThat(inputStream.read(header)).isEqualTo(4);
+        }
+        assertThat(header).isEqualTo(codec.getIdentifier());
+
+        try (final BlockGZIPInputFile inputStream = new BlockGZIPInputFile(file)) {
+            assertThat(inputStream.getCodec()).isEqualTo(codec);
+            assertThat(inputStream.readAllBytes()).isEqualTo(data);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(BlockCodec.class)
+    void testSeeking(final BlockCodec codec) throws IOException {
+        final Path file = tempDir.resolve("test.bgz");
+        final byte[] data = createData();
+        try (final BlockGZIPOutputFile outputStream = new BlockGZIPOutputFile(file, 1000, codec)) {
+            outputStream.write(data);
+        }
+
+        try (final BlockGZIPInputFile inputStream = new BlockGZIPInputFile(file)) {
+            // Forward across several blocks.
+            inputStream.seek(5_500);
+            assertThat(inputStream.read()).isEqualTo(data[5_500] & 0xFF);
+            // Back to an earlier block.
+            inputStream.seek(1_234);
+            assertThat(inputStream.read()).isEqualTo(data[1_234] & 0xFF);
+            // Within the same block.
+            inputStream.seek(1_900);
+            assertThat(inputStream.read()).isEqualTo(data[1_900] & 0xFF);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(BlockCodec.class)
+    void testSegments(final BlockCodec codec) throws IOException {
+        final Path dat = tempDir.resolve("test.dat");
+        final Path idx = tempDir.resolve("test.idx");
+        try (final SegmentOutputStream outputStream = new RASegmentOutputStream(
+                new BlockGZIPOutputFile(dat, codec),
+                () -> new BlockGZIPOutputFile(idx, codec))) {
+            for (int i = 0; i < 100; i++) {
+                if (i > 0) {
+                    outputStream.addSegment();
+                }
+                outputStream.write(("LINE " + i + "\n").getBytes(StreamUtil.DEFAULT_CHARSET));
+            }
+        }
+
+        try (final RASegmentInputStream inputStream = new RASegmentInputStream(
+                new BlockGZIPInputFile(dat),
+                new BlockGZIPInputFile(idx))) {
+            assertThat(inputStream.count()).isEqualTo(100);
+            inputStream.include(42);
+            assertThat(new String(inputStream.readAllBytes(), StreamUtil.DEFAULT_CHARSET)).isEqualTo("LINE 42\n");
+        }
+    }
+
+    @Test
+    void testFromName() {
+        assertThat(BlockCodec.fromName(null, BlockCodec.GZIP)).isEqualTo(BlockCodec.GZIP);
+        assertThat(BlockCodec.fromName(" ", BlockCodec.GZIP)).isEqualTo(BlockCodec.GZIP);
+        assertThat(BlockCodec.fromName("zstd", BlockCodec.GZIP)).isEqualTo(BlockCodec.ZSTD);
+        assertThatThrownBy(() -> BlockCodec.fromName("lz4", BlockCodec.GZIP))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testConfigSelection() {
+        final FsVolumeConfig config = new FsVolumeConfig(
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                "GZIP",
+                Map.of("Events", "ZSTD"),
+                Map.of("Fast", "ZSTD", "Archive", "GZIP"),
+                null,
+                null);
+
+        assertThat(config.getBlockCodec("Default", "Raw Events")).isEqualTo("GZIP");
+        assertThat(config.getBlockCodec("Default", "Events")).isEqualTo("ZSTD");
+        assertThat(config.getBlockCodec("Fast", "Raw Events")).isEqualTo("ZSTD");
+        assertThat(config.getBlockCodec("Archive", "Events")).isEqualTo("GZIP");
+    }
+
+    private byte[] createData() {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1_000; i++) {
+            sb.append("<record>").append(i).append(",user").append(i % 7).append("</record>\n");
+        }
+        return sb.toString().getBytes(StreamUtil.DEFAULT_CHARSET);
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.data.store.impl.fs;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestFsDataPrefetcher {
+
+    private final List<Runnable> pending = new ArrayList<>();
+    private final Executor executor = pending::add;
+
+    @Test
+    void testHitAndMiss() {
+        final FsDataPrefetcher prefetcher = new FsDataPrefetcher(
+                () -> 1000,
+                () -> 1,
+                () -> Duration.ofHours(1),
+                () -> executor,
+                (metaId, reserver) -> reserver.applyAsLong(100));
+
+        prefetcher.prefetch(List.of(1L, 2L));
+        runPending();
+
+        prefetcher.claim(1L);
+        prefetcher.claim(3L);
+
+        final Map<String, Object> statistics = prefetcher.getStatistics();
+        assertThat(statistics.get("requested")).isEqualTo(2L);
+        assertThat(statistics.get("prefetched")).isEqualTo(2L);
+        assertThat(statistics.get("hits")).isEqualTo(1L);
+        assertThat(statistics.get("misses")).isEqualTo(1L);
+        assertThat(statistics.get("hitRate")).isEqualTo(0.5D);
+
+        // Stream 2 is still holding its bytes until it is claimed or cancelled.
+        assertThat(prefetcher.getReservedBytes()).isEqualTo(100);
+        prefetcher.cancel(List.of(2L));
+        assertThat(prefetcher.getReservedBytes()).isZero();
+    }
+
+    @Test
+    void testBudget() {
+        final FsDataPrefetcher prefetcher = new FsDataPrefetcher(
+                () -> 250,
+                () -> 1,
+                () -> Duration.ofHours(1),
+                () -> executor,
+                (metaId, reserver) -> reserver.applyAsLong(100));
+
+        prefetcher.prefetch(List.of(1L, 2L, 3L, 4L));
+        runPending();
+
+        // The third stream only gets part of what it wants and the fourth gets nothing.
+        assertThat(prefetcher.getReservedBytes()).isEqualTo(250);
+        final Map<String, Object> statistics = prefetcher.getStatistics();
+        assertThat(statistics.get("prefetched")).isEqualTo(3L);
+        assertThat(statistics.get("skipped")).isEqualTo(1L);
+
+        prefetcher.claim(4L);
+        assertThat(prefetcher.getStatistics().get("misses")).isEqualTo(1L);
+
+        // Claiming frees up budget for later streams.
+        prefetcher.claim(1L);
+        assertThat(prefetcher.getReservedBytes()).isEqualTo(150);
+        prefetcher.prefetch(List.of(5L));
+        runPending();
+        assertThat(prefetcher.getReservedBytes()).isEqualTo(250);
+    }
+
+    @Test
+    void testClaimBeforeRead() {
+        final FsDataPrefetcher prefetcher = new FsDataPrefetcher(
+                () -> 1000,
+                () -> 1,
+                () -> Duration.ofHours(1),
+                () -> executor,
+                (metaId, reserver) -> reserver.applyAsLong(100));
+
+        prefetcher.prefetch(List.of(1L));
+        prefetcher.claim(1L);
+        runPending();
+
+        final Map<String, Object> statistics = prefetcher.getStatistics();
+        assertThat(statistics.get("late")).isEqualTo(1L);
+        assertThat(statistics.get("prefetched")).isEqualTo(0L);
+        assertThat(prefetcher.getReservedBytes()).isZero();
+    }
+
+    @Test
+    void testUnusedReservationReturned() {
+        final FsDataPrefetcher prefetcher = new FsDataPrefetcher(
+                () -> 1000,
+                () -> 1,
+                () -> Duration.ofHours(1),
+                () -> executor,
+                (metaId, reserver) -> {
+                    reserver.applyAsLong(100);
+                    return 40;
+                });
+
+        prefetcher.prefetch(List.of(1L));
+        runPending();
+        assertThat(prefetcher.getReservedBytes()).isEqualTo(40);
+    }
+
+    @Test
+    void testExpiry() {
+        final AtomicReference<Duration> timeToLive = new AtomicReference<>(Duration.ofHours(1));
+        final FsDataPrefetcher prefetcher = new FsDataPrefetcher(
+                () -> 1000,
+                () -> 1,
+                timeToLive::get,
+                () -> executor,
+                (metaId, reserver) -> reserver.applyAsLong(100));
+
+        prefetcher.prefetch(List.of(1L));
+        runPending();
+        assertThat(prefetcher.getReservedBytes()).isEqualTo(100);
+
+        // The task for stream 1 never ran so it is dropped the next time streams are prefetched.
+        timeToLive.set(Duration.ZERO);
+        prefetcher.prefetch(List.of(2L));
+        timeToLive.set(Duration.ofHours(1));
+        runPending();
+
+        assertThat(prefetcher.getReservedBytes()).isEqualTo(100);
+        final Map<String, Object> statistics = prefetcher.getStatistics();
+        assertThat(statistics.get("expired")).isEqualTo(1L);
+        assertThat(statistics.get("tracked")).isEqualTo(1);
+
+        prefetcher.claim(1L);
+        assertThat(prefetcher.getStatistics().get("misses")).isEqualTo(1L);
+    }
+
+    @Test
+    void testDisabled() {
+        final FsDataPrefetcher prefetcher = new FsDataPrefetcher(
+                () -> 0,
+                () -> 1,
+                () -> Duration.ofHours(1),
+                () -> executor,
+                (metaId, reserver) -> reserver.applyAsLong(100));
+
+        prefetcher.prefetch(List.of(1L));
+        assertThat(pending).isEmpty();
+        assertThat(prefetcher.getStatistics().get("requested")).isEqualTo(0L);
+    }
+
+    private void runPending() {
+        while (!pending.isEmpty()) {
+            pending.removeFirst().run();
+        }
+    }
+}
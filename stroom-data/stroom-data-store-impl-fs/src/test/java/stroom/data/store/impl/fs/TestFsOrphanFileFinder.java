@@ -0,0 +1,82 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.data.store.impl.fs;
+
+import stroom.data.store.impl.fs.FsOrphanFileFinder.SubtreeCheckpoint;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestFsOrphanFileFinder {
+
+    @Test
+    void testFindSubtrees(@TempDir final Path root) throws IOException {
+        Files.createDirectories(root.resolve("RAW_EVENTS/2024/01/02/001"));
+        Files.createDirectories(root.resolve("RAW_EVENTS/2024/01/01"));
+        Files.createDirectories(root.resolve("EVENTS/2024/12"));
+        Files.createDirectories(root.resolve("EVENTS/2023"));
+        Files.createFile(root.resolve("EVENTS/2023/stray.txt"));
+
+        final List<String> subtrees = FsOrphanFileFinder.findSubtrees(root)
+                .stream()
+                .map(subtree -> FsOrphanFileFinder.toRelativePath(root, subtree))
+                .toList();
+
+        // Empty dirs and files above the day dirs are still returned so they get checked
+        assertThat(subtrees)
+                .containsExactly(
+                        "EVENTS/2023/stray.txt",
+                        "EVENTS/2024/12",
+                        "RAW_EVENTS/2024/01/01",
+                        "RAW_EVENTS/2024/01/02");
+    }
+
+    @Test
+    void testFindSubtrees_emptyRoot(@TempDir final Path root) throws IOException {
+        assertThat(FsOrphanFileFinder.findSubtrees(root))
+                .containsExactly(root);
+    }
+
+    @Test
+    void testSubtreeCheckpoint() {
+        final List<Path> subtrees = List.of(Path.of("a"), Path.of("b"), Path.of("c"), Path.of("d"));
+        final SubtreeCheckpoint checkpoint = new SubtreeCheckpoint(subtrees);
+        final List<Path> checkpoints = new ArrayList<>();
+
+        // Out of order completion must not move the checkpoint past an incomplete subtree
+        checkpoint.markComplete(1, checkpoints::add);
+        checkpoint.markComplete(3, checkpoints::add);
+        assertThat(checkpoints).isEmpty();
+
+        checkpoint.markComplete(0, checkpoints::add);
+        assertThat(checkpoints).containsExactly(Path.of("b"));
+        assertThat(checkpoint.isAllComplete()).isFalse();
+
+        checkpoint.markComplete(2, checkpoints::add);
+        assertThat(checkpoints).containsExactly(Path.of("b"), Path.of("d"));
+        assertThat(checkpoint.isAllComplete()).isTrue();
+    }
+}
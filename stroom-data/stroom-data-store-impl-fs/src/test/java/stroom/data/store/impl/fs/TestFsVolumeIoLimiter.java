@@ -0,0 +1,83 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.data.store.impl.fs;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestFsVolumeIoLimiter {
+
+    @Test
+    void testConcurrency() throws InterruptedException {
+        final FsVolumeIoLimiter ioLimiter = new FsVolumeIoLimiter(2, 0);
+
+        ioLimiter.acquire("vol1");
+        ioLimiter.acquire("vol1");
+        // Each volume has its own limit
+        ioLimiter.acquire("vol2");
+
+        final Thread thread = new Thread(() -> {
+            try {
+                ioLimiter.acquire("vol1");
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+        thread.join(200);
+        assertThat(thread.isAlive())
+                .isTrue();
+
+        ioLimiter.release("vol1");
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+        assertThat(thread.isAlive())
+                .isFalse();
+    }
+
+    @Test
+    void testThrottle() throws InterruptedException {
+        final FsVolumeIoLimiter ioLimiter = new FsVolumeIoLimiter(1, 100);
+
+        final long startNanos = System.nanoTime();
+        // The first op is free, the next 20 should be spaced 10ms apart
+        for (int i = 0; i < 21; i++) {
+            ioLimiter.throttle("vol1");
+        }
+        final Duration duration = Duration.ofNanos(System.nanoTime() - startNanos);
+
+        assertThat(duration)
+                .isGreaterThanOrEqualTo(Duration.ofMillis(190));
+        assertThat(ioLimiter.getThrottledDuration())
+                .isGreaterThan(Duration.ZERO);
+    }
+
+    @Test
+    void testThrottle_unlimited() throws InterruptedException {
+        final FsVolumeIoLimiter ioLimiter = new FsVolumeIoLimiter(1, 0);
+
+        for (int i = 0; i < 1_000; i++) {
+            ioLimiter.throttle("vol1");
+        }
+        assertThat(ioLimiter.getThrottledDuration())
+                .isEqualTo(Duration.ZERO);
+    }
+}
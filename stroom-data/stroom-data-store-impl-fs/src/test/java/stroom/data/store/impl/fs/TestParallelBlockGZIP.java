@@ -0,0 +1,185 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.data.store.impl.fs;
+
+import stroom.data.store.api.SegmentOutputStream;
+import stroom.util.io.StreamUtil;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TestParallelBlockGZIP {
+
+    @TempDir
+    Path tempDir;
+
+    private ExecutorService executorService;
+
+    @BeforeEach
+    void setup() {
+        executorService = Executors.newFixedThreadPool(3);
+    }
+
+    @AfterEach
+    void after() {
+        executorService.shutdownNow();
+    }
+
+    @ParameterizedTest
+    @EnumSource(BlockCodec.class)
+    void testWriteAndRead(final BlockCodec codec) throws IOException {
+        final Path serialFile = tempDir.resolve("serial.bgz");
+        final Path parallelFile = tempDir.resolve("parallel.bgz");
+        final byte[] data = createData();
+        try (final BlockGZIPOutputFile outputStream = new BlockGZIPOutputFile(serialFile, 1000, codec)) {
+            outputStream.write(data);
+        }
+        try (final BlockGZIPOutputFile outputStream = new BlockGZIPOutputFile(
+                parallelFile, 1000, codec, executorService, 3)) {
+            // Write in odd sized chunks so that writes span blocks.
+            for (int i = 0; i < data.length; i += 777) {
+                outputStream.write(data, i, Math.min(777, data.length - i));
+            }
+            assertThat(outputStream.getPosition()).isEqualTo(data.length);
+        }
+
+        // Both files must be readable by both readers.
+        for (final Path file : new Path[]{serialFile, parallelFile}) {
+            try (final BlockGZIPInputFile inputStream = new BlockGZIPInputFile(file)) {
+                assertThat(inputStream.getCodec()).isEqualTo(codec);
+                assertThat(inputStream.readAllBytes()).isEqualTo(data);
+            }
+            try (final ParallelBlockGZIPInputFile inputStream = new ParallelBlockGZIPInputFile(
+                    file, executorService, 3)) {
+                assertThat(inputStream.getCodec()).isEqualTo(codec);
+                assertThat(inputStream.getSize()).isEqualTo(data.length);
+                assertThat(inputStream.readAllBytes()).isEqualTo(data);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(BlockCodec.class)
+    void testSameOutputAsSerial(final BlockCodec codec) throws IOException {
+        final Path serialFile = tempDir.resolve("serial.bgz");
+        final Path parallelFile = tempDir.resolve("parallel.bgz");
+        final byte[] data = createData();
+        try (final BlockGZIPOutputFile outputStream = new BlockGZIPOutputFile(serialFile, 1000, codec)) {
+            outputStream.write(data);
+        }
+        try (final BlockGZIPOutputFile outputStream = new BlockGZIPOutputFile(
+                parallelFile, 1000, codec, executorService, 3)) {
+            outputStream.write(data);
+        }
+
+        assertThat(Files.readAllBytes(parallelFile)).isEqualTo(Files.readAllBytes(serialFile));
+    }
+
+    @Test
+    void testEmpty() throws IOException {
+        final Path file = tempDir.resolve("empty.bgz");
+        try (final BlockGZIPOutputFile ignored = new BlockGZIPOutputFile(
+                file, 1000, BlockCodec.GZIP, executorService, 3)) {
+            // Nothing to write.
+        }
+        try (final ParallelBlockGZIPInputFile inputStream = new ParallelBlockGZIPInputFile(
+                file, executorService, 3)) {
+            assertThat(inputStream.getSize()).isZero();
+            assertThat(inputStream.read()).isEqualTo(-1);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(BlockCodec.class)
+    void testSeeking(final BlockCodec codec) throws IOException {
+        final Path file = tempDir.resolve("test.bgz");
+        final byte[] data = createData();
+        try (final BlockGZIPOutputFile outputStream = new BlockGZIPOutputFile(
+                file, 1000, codec, executorService, 3)) {
+            outputStream.write(data);
+        }
+
+        try (final ParallelBlockGZIPInputFile inputStream = new ParallelBlockGZIPInputFile(
+                file, executorService, 3)) {
+            // Forward across several blocks.
+            inputStream.seek(5_500);
+            assertThat(inputStream.read()).isEqualTo(data[5_500] & 0xFF);
+            // Back to an earlier block.
+            inputStream.seek(1_234);
+            assertThat(inputStream.read()).isEqualTo(data[1_234] & 0xFF);
+            // Within the same block.
+            inputStream.seek(1_900);
+            assertThat(inputStream.read()).isEqualTo(data[1_900] & 0xFF);
+            // The rest of the stream from here.
+            final byte[] rest = inputStream.readAllBytes();
+            assertThat(rest.length).isEqualTo(data.length - 1_901);
+            assertThat(rest[0]).isEqualTo(data[1_901]);
+            // Seeking to the end is allowed but not beyond it.
+            inputStream.seek(data.length);
+            assertThat(inputStream.read()).isEqualTo(-1);
+            assertThatThrownBy(() -> inputStream.seek(data.length + 1))
+                    .isInstanceOf(IOException.class)
+                    .hasMessage("Seek past EOF");
+        }
+    }
+
+    @Test
+    void testSegments() throws IOException {
+        final Path dat = tempDir.resolve("test.dat");
+        final Path idx = tempDir.resolve("test.idx");
+        try (final SegmentOutputStream outputStream = new RASegmentOutputStream(
+                new BlockGZIPOutputFile(dat, 1000, BlockCodec.GZIP, executorService, 2),
+                () -> new BlockGZIPOutputFile(idx, 1000, BlockCodec.GZIP, executorService, 2))) {
+            for (int i = 0; i < 1_000; i++) {
+                if (i > 0) {
+                    outputStream.addSegment();
+                }
+                outputStream.write(("LINE " + i + "\n").getBytes(StreamUtil.DEFAULT_CHARSET));
+            }
+        }
+
+        try (final RASegmentInputStream inputStream = new RASegmentInputStream(
+                new ParallelBlockGZIPInputFile(dat, executorService, 2),
+                new ParallelBlockGZIPInputFile(idx, executorService, 2))) {
+            assertThat(inputStream.count()).isEqualTo(1_000);
+            inputStream.include(742);
+            assertThat(new String(inputStream.readAllBytes(), StreamUtil.DEFAULT_CHARSET)).isEqualTo("LINE 742\n");
+        }
+    }
+
+    private byte[] createData() {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1_000; i++) {
+            sb.append("<record>").append(i).append(",user").append(i % 7).append("</record>\n");
+        }
+        return sb.toString().getBytes(StreamUtil.DEFAULT_CHARSET);
+    }
+}
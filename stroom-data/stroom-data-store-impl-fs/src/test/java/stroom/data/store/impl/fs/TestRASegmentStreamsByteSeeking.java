@@ -100,4 +100,57 @@ class TestRASegmentStreamsByteSeeking {
         assertThat(StreamUtil.streamToString(is)).isEqualTo("LINE ONE\nLINE");
         is.close();
     }
+
+    @Test
+    void testByteSeekingWithSegmentIndex(@TempDir final Path tempDir) throws IOException {
+        try (final SegmentOutputStream os = new RASegmentOutputStream(
+                new BlockGZIPOutputFile(tempDir.resolve("test.dat")),
+                () -> new BlockGZIPOutputFile(tempDir.resolve("test.idx")))) {
+
+            os.write("LINE ONE\n".getBytes(StreamUtil.DEFAULT_CHARSET));
+            os.addSegment();
+            os.write("LINE TWO\n".getBytes(StreamUtil.DEFAULT_CHARSET));
+            os.addSegment();
+            os.write("LINE THREE\n".getBytes(StreamUtil.DEFAULT_CHARSET));
+            os.addSegment();
+            os.write("LINE FOUR\n".getBytes(StreamUtil.DEFAULT_CHARSET));
+
+            os.flush();
+        }
+
+        final SegmentIndex segmentIndex;
+        try (final BlockGZIPInputFile indexInputStream = new BlockGZIPInputFile(tempDir.resolve("test.idx"))) {
+            segmentIndex = SegmentIndex.read(indexInputStream, indexInputStream.getSize());
+        }
+        assertThat(segmentIndex.size()).isEqualTo(3);
+
+        RASegmentInputStream is = new RASegmentInputStream(
+                new BlockGZIPInputFile(tempDir.resolve("test.dat")),
+                segmentIndex);
+
+        assertThat(is.count()).isEqualTo(4);
+
+        assertThat(is.byteOffset(0)).isEqualTo(0);
+        assertThat(is.byteOffset(1)).isEqualTo(9);
+        assertThat(is.byteOffset(2)).isEqualTo(18);
+        assertThat(is.byteOffset(3)).isEqualTo(29);
+
+        assertThat(is.segmentAtByteOffset(0)).isEqualTo(0);
+        assertThat(is.segmentAtByteOffset(9)).isEqualTo(1);
+        assertThat(is.segmentAtByteOffset(28)).isEqualTo(2);
+        assertThat(is.segmentAtByteOffset(39)).isEqualTo(3);
+        assertThat(is.segmentAtByteOffset(40)).isEqualTo(-1);
+
+        is.include(1);
+        assertThat(StreamUtil.streamToString(is)).isEqualTo("LINE TWO\n");
+        is.close();
+
+        is = new RASegmentInputStream(new BlockGZIPInputFile(tempDir.resolve("test.dat")),
+                segmentIndex, 5, 39);
+
+        is.include(0);
+        is.include(2);
+        assertThat(StreamUtil.streamToString(is)).isEqualTo("ONE\nLINE THREE\n");
+        is.close();
+    }
 }
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.data.store.impl.fs;
+
+import stroom.data.shared.StreamTypeNames;
+import stroom.data.store.api.InputStreamProvider;
+import stroom.data.store.api.SegmentInputStream;
+import stroom.meta.shared.Meta;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestS3ZipSource {
+
+    private static final int BLOCK_SIZE = 4096;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testReadStored() throws IOException {
+        testRead(ZipEntry.STORED);
+    }
+
+    @Test
+    void testReadDeflated() throws IOException {
+        testRead(ZipEntry.DEFLATED);
+    }
+
+    private void testRead(final int method) throws IOException {
+        final byte[] data = createData();
+        final Path zip = createZip(method, data);
+        final S3BlockCache blockCache = new S3BlockCache(() -> Long.MAX_VALUE);
+
+        // Closing the source closes the reader.
+        final S3ZipSource source = createSource(new LocalRangeReader(zip), blockCache);
+        assertThat(source.count()).isOne();
+        assertThat(source.count(StreamTypeNames.META)).isOne();
+
+        final InputStreamProvider inputStreamProvider = source.get(0);
+        assertThat(inputStreamProvider.getChildTypes()).containsExactly(StreamTypeNames.META);
+        try (final SegmentInputStream inputStream = inputStreamProvider.get()) {
+            assertThat(inputStream.readAllBytes()).isEqualTo(data);
+        }
+        try (final SegmentInputStream inputStream = inputStreamProvider.get(StreamTypeNames.META)) {
+            assertThat(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("meta");
+        }
+        source.close();
+    }
+
+    @Test
+    void testSeek() throws IOException {
+        final byte[] data = createData();
+        for (final int method : new int[]{ZipEntry.STORED, ZipEntry.DEFLATED}) {
+            final Path zip = createZip(method, data);
+            final S3BlockCache blockCache = new S3BlockCache(() -> Long.MAX_VALUE);
+            final CachedRangeChannel channel =
+                    new CachedRangeChannel(new LocalRangeReader(zip), blockCache, BLOCK_SIZE);
+            try (final ZipFile zipFile = ZipFile.builder()
+                    .setSeekableByteChannel(channel)
+                    .get()) {
+                final ZipArchiveEntry entry = zipFile.getEntry("001.dat");
+                try (final ZipEntryInputStream inputStream = new ZipEntryInputStream(zipFile, entry, channel)) {
+                    assertThat(inputStream.getSize()).isEqualTo(data.length);
+
+                    inputStream.seek(50_000);
+                    assertThat(inputStream.readNBytes(100)).isEqualTo(slice(data, 50_000, 100));
+
+                    // Seek backwards.
+                    inputStream.seek(10);
+                    assertThat(inputStream.readNBytes(100)).isEqualTo(slice(data, 10, 100));
+                    assertThat(inputStream.getPosition()).isEqualTo(110);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testOnlyNeededRangesAreRead() throws IOException {
+        final byte[] data = createData();
+        final Path zip = createZip(ZipEntry.STORED, data);
+        final S3BlockCache blockCache = new S3BlockCache(() -> Long.MAX_VALUE);
+
+        final LocalRangeReader reader = new LocalRangeReader(zip);
+        final S3ZipSource source = createSource(reader, blockCache);
+        try (final SegmentInputStream inputStream = source.get(0).get(StreamTypeNames.META)) {
+            assertThat(inputStream.readAllBytes()).hasSize(4);
+        }
+        source.close();
+
+        // We should only have read the central directory and the blocks for the meta entry.
+        assertThat(reader.requests.get()).isPositive();
+        assertThat(reader.bytesRead.get()).isLessThan(data.length / 4);
+
+        // Reading the same object again should be served from the cache.
+        final LocalRangeReader reader2 = new LocalRangeReader(zip);
+        final S3ZipSource source2 = createSource(reader2, blockCache);
+        try (final SegmentInputStream inputStream = source2.get(0).get(StreamTypeNames.META)) {
+            assertThat(inputStream.readAllBytes()).hasSize(4);
+        }
+        source2.close();
+        assertThat(reader2.requests.get()).isZero();
+    }
+
+    @Test
+    void testCacheIsBounded() throws IOException {
+        final byte[] data = createData();
+        final Path zip = createZip(ZipEntry.STORED, data);
+        final long maxBytes = BLOCK_SIZE * 4;
+        final S3BlockCache blockCache = new S3BlockCache(() -> maxBytes);
+
+        try (final LocalRangeReader reader = new LocalRangeReader(zip)) {
+            for (int i = 0; i < 20; i++) {
+                blockCache.getBlock(reader, i, BLOCK_SIZE);
+                assertThat(blockCache.getTotalBytes()).isLessThanOrEqualTo(maxBytes);
+            }
+        }
+    }
+
+    private S3ZipSource createSource(final ByteRangeReader reader, final S3BlockCache blockCache) {
+        return S3ZipSource.create(reader, blockCache, BLOCK_SIZE, "test", Meta.builder().build());
+    }
+
+    private byte[] createData() {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; sb.length() < 200_000; i++) {
+            sb.append("<Event>").append(i).append("</Event>\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] slice(final byte[] bytes, final int offset, final int length) {
+        final byte[] slice = new byte[length];
+        System.arraycopy(bytes, offset, slice, 0, length);
+        return slice;
+    }
+
+    private Path createZip(final int method, final byte[] data) throws IOException {
+        final Path zip = tempDir.resolve("test_" + method + ".zip");
+        try (final ZipArchiveOutputStream zipOutputStream = new ZipArchiveOutputStream(zip)) {
+            putEntry(zipOutputStream, method, "001.dat", data);
+            putEntry(zipOutputStream, method, "001.meta", "meta".getBytes(StandardCharsets.UTF_8));
+        }
+        return zip;
+    }
+
+    private void putEntry(final ZipArchiveOutputStream zipOutputStream,
+                          final int method,
+                          final String name,
+                          final byte[] bytes) throws IOException {
+        final ZipArchiveEntry entry = new ZipArchiveEntry(name);
+        entry.setMethod(method);
+        zipOutputStream.putArchiveEntry(entry);
+        zipOutputStream.write(bytes);
+        zipOutputStream.closeArchiveEntry();
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    /**
+     * Stands in for S3 by serving ranges of a local file.
+     */
+    private static class LocalRangeReader implements ByteRangeReader {
+
+        private final Path file;
+        private final FileChannel fileChannel;
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong bytesRead = new AtomicLong();
+
+        private LocalRangeReader(final Path file) throws IOException {
+            this.file = file;
+            this.fileChannel = FileChannel.open(file, StandardOpenOption.READ);
+        }
+
+        @Override
+        public String getId() {
+            return file.toString();
+        }
+
+        @Override
+        public long getSize() throws IOException {
+            return fileChannel.size();
+        }
+
+        @Override
+        public void readFully(final long position,
+                              final byte[] buffer,
+                              final int offset,
+                              final int length) throws IOException {
+            requests.incrementAndGet();
+            bytesRead.addAndGet(length);
+            final ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, offset, length);
+            long pos = position;
+            while (byteBuffer.hasRemaining()) {
+                final int read = fileChannel.read(byteBuffer, pos);
+                if (read < 0) {
+                    throw new IOException("Unexpected end of file");
+                }
+                pos += read;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            fileChannel.close();
+        }
+    }
+}
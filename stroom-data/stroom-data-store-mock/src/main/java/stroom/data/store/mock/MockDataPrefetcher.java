@@ -0,0 +1,44 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.data.store.mock;
+
+import stroom.data.store.api.DataPrefetcher;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+public class MockDataPrefetcher implements DataPrefetcher {
+
+    @Override
+    public void prefetch(final Collection<Long> metaIds) {
+    }
+
+    @Override
+    public void claim(final long metaId) {
+    }
+
+    @Override
+    public void cancel(final Collection<Long> metaIds) {
+    }
+
+    @Override
+    public Map<String, Object> getStatistics() {
+        return Collections.emptyMap();
+    }
+}
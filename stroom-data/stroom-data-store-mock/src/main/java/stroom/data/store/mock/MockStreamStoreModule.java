@@ -17,6 +17,7 @@
 package stroom.data.store.mock;
 
 import stroom.data.store.api.AttributeMapFactory;
+import stroom.data.store.api.DataPrefetcher;
 import stroom.data.store.api.DataService;
 import stroom.data.store.api.FsVolumeGroupService;
 import stroom.data.store.api.Store;
@@ -32,6 +33,7 @@ public class MockStreamStoreModule extends AbstractModule {
         bind(AttributeMapFactory.class).to(MockStore.class);
         bind(Store.class).to(MockStore.class);
         bind(DataService.class).to(MockDataService.class);
+        bind(DataPrefetcher.class).to(MockDataPrefetcher.class);
         bind(FsVolumeGroupService.class).to(MockFsVolumeGroupService.class);
 
         GuiceUtil.buildMultiBinder(binder(), Clearable.class).addBinding(MockStore.class);
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.kafka.pipeline;
+
+import org.apache.kafka.clients.producer.Callback;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the messages a {@link StandardKafkaProducer} has sent asynchronously so that we can limit how many are
+ * awaiting acknowledgement from the broker, wait for them all at the end of processing and report any that failed.
+ * <p>
+ * Callbacks are run on the Kafka producer's IO thread so failures are only collected here and are reported by the
+ * pipeline thread.
+ */
+class KafkaDeliveryTracker {
+
+    // Only keep the first few failures, the rest are just counted.
+    private static final int MAX_STORED_FAILURES = 100;
+
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final Queue<Exception> failures = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param maxInFlight The maximum number of messages that can be awaiting acknowledgement before
+     *                    {@link #beforeSend()} blocks. Zero or less means no limit.
+     */
+    KafkaDeliveryTracker(final int maxInFlight) {
+        this.maxInFlight = maxInFlight > 0
+                ? maxInFlight
+                : Integer.MAX_VALUE;
+        this.inFlight = new Semaphore(this.maxInFlight);
+    }
+
+    /**
+     * Wait until another message can be sent.
+     *
+     * @return The callback that must be passed to the send, or called directly if the send fails.
+     */
+    Callback beforeSend() throws InterruptedException {
+        inFlight.acquire();
+        sentCount.incrementAndGet();
+        return (metadata, exception) -> {
+            try {
+                if (exception != null) {
+                    if (failedCount.incrementAndGet() <= MAX_STORED_FAILURES) {
+                        failures.add(exception);
+                    }
+                }
+            } finally {
+                inFlight.release();
+            }
+        };
+    }
+
+    /**
+     * Wait until every message sent has been acknowledged or has failed.
+     */
+    void awaitAll() throws InterruptedException {
+        inFlight.acquire(maxInFlight);
+        inFlight.release(maxInFlight);
+    }
+
+    long getSentCount() {
+        return sentCount.get();
+    }
+
+    long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * @return The failures stored so far, each failure is only returned once.
+     */
+    List<Exception> drainFailures() {
+        final List<Exception> list = new ArrayList<>();
+        Exception exception;
+        while ((exception = failures.poll()) != null) {
+            list.add(exception);
+        }
+        return list;
+    }
+}
@@ -33,13 +33,14 @@ import stroom.svg.shared.SvgImage;
 import stroom.util.CharBuffer;
 import stroom.util.logging.LambdaLogger;
 import stroom.util.logging.LambdaLoggerFactory;
+import stroom.util.logging.LogUtil;
 import stroom.util.shared.Severity;
 import stroom.util.xml.XMLUtil;
 
 import jakarta.inject.Inject;
+import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerRecord;
-import org.apache.kafka.clients.producer.RecordMetadata;
 import org.apache.kafka.common.KafkaException;
 import org.apache.kafka.common.header.Headers;
 import org.xml.sax.Attributes;
@@ -50,13 +51,9 @@ import java.io.ByteArrayOutputStream;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.format.DateTimeParseException;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Queue;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
 import javax.xml.transform.ErrorListener;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
@@ -95,7 +92,6 @@ class StandardKafkaProducer extends AbstractXMLFilter {
     private final ErrorReceiverProxy errorReceiverProxy;
     private final LocationFactoryProxy locationFactory;
     private final KafkaProducerFactory stroomKafkaProducerFactory;
-    private final Queue<Future<RecordMetadata>> kafkaMetaFutures;
     private final CharBuffer content = new CharBuffer();
 
     private Locator locator = null;
@@ -104,6 +100,8 @@ class StandardKafkaProducer extends AbstractXMLFilter {
     private KafkaProducer<String, byte[]> kafkaProducer = null;
     private KafkaMessageState state = null;
     private boolean flushOnSend = true;
+    private int maxInFlightMessages = 1000;
+    private KafkaDeliveryTracker deliveryTracker = null;
 
     private TransformerHandler xmlValueHandler;
     private ByteArrayOutputStream outputStream;
@@ -117,7 +115,6 @@ class StandardKafkaProducer extends AbstractXMLFilter {
         this.errorReceiverProxy = errorReceiverProxy;
         this.locationFactory = locationFactory;
         this.stroomKafkaProducerFactory = stroomKafkaProducerFactory;
-        this.kafkaMetaFutures = new ArrayDeque<>();
     }
 
     /**
@@ -138,6 +135,8 @@ class StandardKafkaProducer extends AbstractXMLFilter {
     public void startProcessing() {
 
         try {
+            deliveryTracker = new KafkaDeliveryTracker(maxInFlightMessages);
+
             if (configRef == null) {
                 log(Severity.FATAL_ERROR, "KafkaConfig has not been set", null);
                 throw LoggedException.create("KafkaConfig has not been set");
@@ -159,40 +158,56 @@ class StandardKafkaProducer extends AbstractXMLFilter {
 
     @Override
     public void endProcessing() {
-        if (flushOnSend) {
-            // Ensure all msgs buffered by kafka has been sent. As the producer is
-            // shared this means waiting for other msgs from other streams however the
-            // buffer is likely small so should not be a major issue.
-            LOGGER.logDurationIfDebugEnabled(
-                    () -> kafkaProducer.flush(),
-                    "KafkaProducer flush");
-
-            // If flushOnSend was set we will have futures in the queue
-            // so call get on each one to ensure they have all completed.
-            // Not certain that we need to check the futures after the flush as I think
-            // the flush will block till everything has sent.
-            LOGGER.logDurationIfDebugEnabled(
-                    () -> {
-                        Future<RecordMetadata> future;
-                        while ((future = kafkaMetaFutures.poll()) != null) {
+        try {
+            if (kafkaProducer != null && flushOnSend) {
+                // Ensure all msgs buffered by kafka has been sent. As the producer is
+                // shared this means waiting for other msgs from other streams however the
+                // buffer is likely small so should not be a major issue.
+                LOGGER.logDurationIfDebugEnabled(
+                        () -> kafkaProducer.flush(),
+                        "KafkaProducer flush");
+            }
+
+            if (deliveryTracker != null) {
+                // Whether we flushed or not, make sure the callbacks for all of our messages have completed so
+                // we know about every failure. Without a flush this waits for the producer to send its batches.
+                LOGGER.logDurationIfDebugEnabled(
+                        () -> {
                             try {
-                                future.get();
+                                deliveryTracker.awaitAll();
                             } catch (final InterruptedException e) {
                                 // Continue to interrupt this thread.
                                 Thread.currentThread().interrupt();
 
                                 throw ProcessException.create("Thread interrupted");
-                            } catch (final ExecutionException e) {
-                                log(Severity.ERROR, "Error sending message to Kafka", e);
                             }
-                        }
-                    },
-                    "Wait for futures to complete");
+                        },
+                        "Wait for sends to complete");
+            }
+
+            reconcileDeliveryFailures();
+        } finally {
+            // Vital this happens or we leak resources
+            stroomKafkaProducerFactory.returnSharedKafkaProducer(sharedKafkaProducer);
+            super.endProcessing();
         }
+    }
+
+    /**
+     * Report any messages that the broker failed to accept and fail the task if there were any.
+     */
+    private void reconcileDeliveryFailures() {
+        if (deliveryTracker != null && deliveryTracker.getFailedCount() > 0) {
+            for (final Exception e : deliveryTracker.drainFailures()) {
+                log(Severity.ERROR, "Error sending message to Kafka", e);
+            }
 
-        // Vital this happens or we leak resources
-        stroomKafkaProducerFactory.returnSharedKafkaProducer(sharedKafkaProducer);
-        super.endProcessing();
+            final String message = LogUtil.message("Failed to send {} of {} messages to Kafka",
+                    deliveryTracker.getFailedCount(),
+                    deliveryTracker.getSentCount());
+            log(Severity.FATAL_ERROR, message, null);
+            throw LoggedException.create(message);
+        }
     }
 
     private static Long createTimestamp(final String isoFormat) {
@@ -371,10 +386,23 @@ class StandardKafkaProducer extends AbstractXMLFilter {
                         state.headerVals.get(i).getBytes(StandardCharsets.UTF_8));
             }
 //            logState(state);
-            final Future<RecordMetadata> sendFuture = kafkaProducer.send(record);
-            if (flushOnSend) {
-                //keep hold of the future so we can wait for it at the end of processing
-                kafkaMetaFutures.add(sendFuture);
+            // Send asynchronously so the Kafka producer can batch messages, but limit the number of messages
+            // awaiting acknowledgement.
+            final Callback callback;
+            try {
+                callback = deliveryTracker.beforeSend();
+            } catch (final InterruptedException e) {
+                // Continue to interrupt this thread.
+                Thread.currentThread().interrupt();
+
+                throw ProcessException.create("Thread interrupted");
+            }
+
+            try {
+                kafkaProducer.send(record, callback);
+            } catch (final RuntimeException e) {
+                // Some failures are thrown rather than passed to the callback so record them the same way.
+                callback.onCompletion(null, e);
             }
         }
     }
@@ -411,14 +439,27 @@ class StandardKafkaProducer extends AbstractXMLFilter {
 
     @SuppressWarnings("unused")
     @PipelineProperty(
-            description = "At the end of the stream, wait for acknowledgement from the Kafka broker for all " +
-                          "the messages sent. This ensures errors are caught in the pipeline process.",
+            description = "At the end of the stream, flush the messages buffered by the Kafka producer rather " +
+                          "than waiting for them to be sent in their own time. Acknowledgement of all the messages " +
+                          "sent is waited for either way so that errors are caught in the pipeline process.",
             defaultValue = "true",
             displayPriority = 2)
     public void setFlushOnSend(final boolean flushOnSend) {
         this.flushOnSend = flushOnSend;
     }
 
+    @SuppressWarnings("unused")
+    @PipelineProperty(
+            description = "The maximum number of messages that can be awaiting acknowledgement from the Kafka " +
+                          "broker before sending more blocks. Messages are sent asynchronously and are batched " +
+                          "and compressed according to the 'linger.ms', 'batch.size' and 'compression.type' " +
+                          "properties of the Kafka configuration. Set to 0 for no limit.",
+            defaultValue = "1000",
+            displayPriority = 3)
+    public void setMaxInFlightMessages(final int maxInFlightMessages) {
+        this.maxInFlightMessages = maxInFlightMessages;
+    }
+
     private void log(final Severity severity, final String message, final Exception e) {
         errorReceiverProxy.log(severity, locationFactory.create(locator), getElementId(), message, e);
         switch (severity) {
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.kafka.pipeline;
+
+import stroom.docref.DocRef;
+import stroom.kafka.api.KafkaProducerFactory;
+import stroom.kafka.api.SharedKafkaProducer;
+import stroom.kafka.shared.KafkaConfigDoc;
+import stroom.pipeline.LocationFactoryProxy;
+import stroom.pipeline.errorhandler.ErrorReceiverProxy;
+import stroom.pipeline.errorhandler.LoggedException;
+import stroom.pipeline.errorhandler.LoggingErrorReceiver;
+import stroom.util.shared.ElementId;
+import stroom.util.shared.Severity;
+
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@ExtendWith(MockitoExtension.class)
+class TestStandardKafkaProducer {
+
+    private static final String TOPIC = "test-topic";
+    private static final DocRef CONFIG_REF = new DocRef(KafkaConfigDoc.TYPE, "test-uuid", "test-config");
+
+    @Mock
+    private KafkaProducerFactory kafkaProducerFactory;
+    @Mock
+    private SharedKafkaProducer sharedKafkaProducer;
+
+    private final LoggingErrorReceiver errorReceiver = new LoggingErrorReceiver();
+
+    @Test
+    void testSendsAllRecords() throws SAXException {
+        final MockProducer<String, byte[]> mockProducer = createMockProducer(true);
+        final StandardKafkaProducer producer = createProducer(mockProducer, 2);
+
+        producer.startProcessing();
+        sendRecords(producer, 10);
+        producer.endProcessing();
+
+        assertThat(mockProducer.history())
+                .hasSize(10)
+                .allSatisfy(record -> assertThat(record.topic()).isEqualTo(TOPIC));
+        assertThat(new String(mockProducer.history().get(9).value(), StandardCharsets.UTF_8))
+                .isEqualTo("value9");
+        assertThat(errorReceiver.getTotal(Severity.ERROR)).isZero();
+        Mockito.verify(kafkaProducerFactory).returnSharedKafkaProducer(sharedKafkaProducer);
+    }
+
+    @Test
+    void testFailedSendsFailTask() throws SAXException {
+        final MockProducer<String, byte[]> mockProducer = createMockProducer(false);
+        final StandardKafkaProducer producer = createProducer(mockProducer, 0);
+
+        producer.startProcessing();
+        sendRecords(producer, 3);
+
+        // Acknowledge one message and fail the other two.
+        mockProducer.completeNext();
+        mockProducer.errorNext(new RuntimeException("Broker unavailable"));
+        mockProducer.errorNext(new RuntimeException("Broker unavailable"));
+
+        assertThatThrownBy(producer::endProcessing)
+                .isInstanceOf(LoggedException.class)
+                .hasMessageContaining("Failed to send 2 of 3 messages");
+        assertThat(errorReceiver.getTotal(Severity.ERROR)).isEqualTo(2);
+        assertThat(errorReceiver.getTotal(Severity.FATAL_ERROR)).isEqualTo(1);
+
+        // The shared producer must still be returned.
+        Mockito.verify(kafkaProducerFactory).returnSharedKafkaProducer(sharedKafkaProducer);
+    }
+
+    @Test
+    void testInFlightLimit() throws Exception {
+        final MockProducer<String, byte[]> mockProducer = createMockProducer(false);
+        final StandardKafkaProducer producer = createProducer(mockProducer, 2);
+
+        producer.startProcessing();
+        sendRecords(producer, 2);
+
+        // The third send must wait until one of the first two has been acknowledged.
+        final CountDownLatch sent = new CountDownLatch(1);
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            final Future<?> future = executorService.submit(() -> {
+                sendRecord(producer, 2);
+                sent.countDown();
+                return null;
+            });
+
+            assertThat(sent.await(200, TimeUnit.MILLISECONDS)).isFalse();
+            assertThat(mockProducer.history()).hasSize(2);
+
+            mockProducer.completeNext();
+            future.get(5, TimeUnit.SECONDS);
+            assertThat(mockProducer.history()).hasSize(3);
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        mockProducer.completeNext();
+        mockProducer.completeNext();
+        producer.endProcessing();
+        assertThat(errorReceiver.getTotal(Severity.ERROR)).isZero();
+    }
+
+    private MockProducer<String, byte[]> createMockProducer(final boolean autoComplete) {
+        return new MockProducer<>(autoComplete, new StringSerializer(), new ByteArraySerializer());
+    }
+
+    @SuppressWarnings("unchecked")
+    private StandardKafkaProducer createProducer(final MockProducer<String, byte[]> mockProducer,
+                                                 final int maxInFlightMessages) {
+        // The shared producer API exposes KafkaProducer so delegate the calls we use to the mock producer.
+        final KafkaProducer<String, byte[]> kafkaProducer = Mockito.mock(KafkaProducer.class);
+        Mockito.when(kafkaProducer.send(Mockito.any(), Mockito.any()))
+                .thenAnswer(invocation -> mockProducer.send(
+                        invocation.<ProducerRecord<String, byte[]>>getArgument(0),
+                        invocation.<Callback>getArgument(1)));
+        Mockito.lenient()
+                .doAnswer(invocation -> {
+                    mockProducer.flush();
+                    return null;
+                })
+                .when(kafkaProducer)
+                .flush();
+
+        Mockito.when(sharedKafkaProducer.getKafkaProducer()).thenReturn(Optional.of(kafkaProducer));
+        Mockito.when(kafkaProducerFactory.getSharedProducer(CONFIG_REF)).thenReturn(sharedKafkaProducer);
+
+        final StandardKafkaProducer producer = new StandardKafkaProducer(
+                new ErrorReceiverProxy(errorReceiver),
+                new LocationFactoryProxy(),
+                kafkaProducerFactory);
+        producer.setElementId(new ElementId("kafkaProducer"));
+        producer.setKafkaConfig(CONFIG_REF);
+        producer.setMaxInFlightMessages(maxInFlightMessages);
+        return producer;
+    }
+
+    private void sendRecords(final StandardKafkaProducer producer, final int count) throws SAXException {
+        for (int i = 0; i < count; i++) {
+            sendRecord(producer, i);
+        }
+    }
+
+    private void sendRecord(final StandardKafkaProducer producer, final int index) throws SAXException {
+        final AttributesImpl attributes = new AttributesImpl();
+        attributes.addAttribute("", "topic", "topic", "CDATA", TOPIC);
+        producer.startElement("", "kafkaRecord", "kafkaRecord", attributes);
+        element(producer, "key", "key" + index);
+        element(producer, "value", "value" + index);
+        producer.endElement("", "kafkaRecord", "kafkaRecord");
+    }
+
+    private void element(final StandardKafkaProducer producer,
+                         final String name,
+                         final String text) throws SAXException {
+        producer.startElement("", name, name, new AttributesImpl());
+        producer.characters(text.toCharArray(), 0, text.length());
+        producer.endElement("", name, name);
+    }
+}
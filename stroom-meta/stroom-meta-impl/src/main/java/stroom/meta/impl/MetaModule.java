@@ -67,7 +67,12 @@ public class MetaModule extends AbstractModule {
                         .name("Attribute Value Data Retention")
                         .description("Delete data attribute values older than system property " +
                                      "stroom.data.meta.metaValue.deleteAge")
-                        .frequencySchedule("1d"));
+                        .frequencySchedule("1d"))
+                .bindJobTo(MetaPartitionMaintenance.class, builder -> builder
+                        .name("Meta Partition Maintenance")
+                        .description("Create and drop the create time partitions of the meta tables when " +
+                                     "stroom.data.meta.partitioning.enabled is true")
+                        .frequencySchedule("1h"));
     }
 
     @Override
@@ -98,4 +103,12 @@ public class MetaModule extends AbstractModule {
             super(metaValueService::deleteOldValues);
         }
     }
+
+    private static class MetaPartitionMaintenance extends RunnableWrapper {
+
+        @Inject
+        MetaPartitionMaintenance(final MetaPartitionManager metaPartitionManager) {
+            super(metaPartitionManager::maintain);
+        }
+    }
 }
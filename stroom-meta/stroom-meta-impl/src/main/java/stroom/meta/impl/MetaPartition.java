@@ -0,0 +1,32 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.meta.impl;
+
+/**
+ * A single range partition of one of the meta tables.
+ *
+ * @param name       The name of the partition.
+ * @param lessThanMs The exclusive upper bound of the create times held in the partition,
+ *                   {@link Long#MAX_VALUE} for the catch-all partition.
+ */
+public record MetaPartition(String name, long lessThanMs) {
+
+    public boolean isCatchAll() {
+        return lessThanMs == Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.meta.impl;
+
+import stroom.util.shared.AbstractConfig;
+import stroom.util.shared.IsStroomConfig;
+import stroom.util.time.StroomDuration;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import io.dropwizard.validation.ValidationMethod;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.Duration;
+import java.util.Objects;
+
+@JsonPropertyOrder(alphabetic = true)
+public class MetaPartitionConfig extends AbstractConfig implements IsStroomConfig {
+
+    private static final boolean DEFAULT_ENABLED = false;
+    private static final StroomDuration DEFAULT_PARTITION_PERIOD = StroomDuration.ofDays(7);
+    private static final int DEFAULT_FUTURE_PARTITION_COUNT = 4;
+    private static final boolean DEFAULT_DROP_EXPIRED_PARTITIONS = true;
+
+    private final boolean enabled;
+    private final StroomDuration partitionPeriod;
+    private final int futurePartitionCount;
+    private final boolean dropExpiredPartitions;
+
+    public MetaPartitionConfig() {
+        enabled = DEFAULT_ENABLED;
+        partitionPeriod = DEFAULT_PARTITION_PERIOD;
+        futurePartitionCount = DEFAULT_FUTURE_PARTITION_COUNT;
+        dropExpiredPartitions = DEFAULT_DROP_EXPIRED_PARTITIONS;
+    }
+
+    @JsonCreator
+    public MetaPartitionConfig(@JsonProperty("enabled") final Boolean enabled,
+                               @JsonProperty("partitionPeriod") final StroomDuration partitionPeriod,
+                               @JsonProperty("futurePartitionCount") final Integer futurePartitionCount,
+                               @JsonProperty("dropExpiredPartitions") final Boolean dropExpiredPartitions) {
+        this.enabled = Objects.requireNonNullElse(enabled, DEFAULT_ENABLED);
+        this.partitionPeriod = Objects.requireNonNullElse(partitionPeriod, DEFAULT_PARTITION_PERIOD);
+        this.futurePartitionCount = Objects.requireNonNullElse(futurePartitionCount, DEFAULT_FUTURE_PARTITION_COUNT);
+        this.dropExpiredPartitions = Objects.requireNonNullElse(dropExpiredPartitions,
+                DEFAULT_DROP_EXPIRED_PARTITIONS);
+    }
+
+    @JsonPropertyDescription(
+            "If true the 'meta' and 'meta_val' tables will be range partitioned on create time by the " +
+            "'Meta Partition Maintenance' job. Partitioning allows queries and data retention with create time " +
+            "bounds to only read the partitions they need and allows expired data to be removed by dropping " +
+            "whole partitions. The first run of the job after enabling this converts the existing tables, which " +
+            "drops the foreign keys on 'meta' and rebuilds both tables so can take a long time on large " +
+            "tables. Once enabled it is not possible to revert to un-partitioned tables by changing this property.")
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @NotNull
+    @JsonPropertyDescription(
+            "The span of create time covered by each partition, which must be a whole number of days. " +
+            "Changing this only affects partitions created after the change. " +
+            "In ISO-8601 duration format, e.g. 'P7D'.")
+    public StroomDuration getPartitionPeriod() {
+        return partitionPeriod;
+    }
+
+    @Min(1)
+    @JsonPropertyDescription("The number of partitions to create ahead of the current time.")
+    public int getFuturePartitionCount() {
+        return futurePartitionCount;
+    }
+
+    @JsonPropertyDescription(
+            "If true, partitions of 'meta_val' older than 'stroom.data.meta.metaValue.deleteAge' and partitions " +
+            "of 'meta' that are in the past and no longer contain any rows (because data retention and physical " +
+            "deletion have removed them) will be dropped.")
+    public boolean isDropExpiredPartitions() {
+        return dropExpiredPartitions;
+    }
+
+    @SuppressWarnings("unused") // Used by jakarta.validation
+    @JsonIgnore
+    @ValidationMethod(message = "The 'partitionPeriod' property must be a whole number of days.")
+    public boolean isValidPartitionPeriod() {
+        if (partitionPeriod == null) {
+            return true;
+        }
+        final Duration duration = partitionPeriod.getDuration();
+        return duration.compareTo(Duration.ofDays(1)) >= 0
+               && duration.toMillis() % Duration.ofDays(1).toMillis() == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "MetaPartitionConfig{" +
+               "enabled=" + enabled +
+               ", partitionPeriod=" + partitionPeriod +
+               ", futurePartitionCount=" + futurePartitionCount +
+               ", dropExpiredPartitions=" + dropExpiredPartitions +
+               '}';
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.meta.impl;
+
+import java.util.List;
+
+public interface MetaPartitionDao {
+
+    /**
+     * @return The partitions of the table in ascending order, or an empty list if the table is not
+     * partitioned.
+     */
+    List<MetaPartition> getPartitions(PartitionedTable table);
+
+    /**
+     * Convert an un-partitioned table into one range partitioned on create time. A catch-all partition
+     * is added after the supplied partitions.
+     */
+    void partitionTable(PartitionedTable table, List<MetaPartition> partitions);
+
+    /**
+     * Split the empty catch-all partition to add the supplied partitions.
+     */
+    void addPartitions(PartitionedTable table, List<MetaPartition> partitions);
+
+    boolean isPartitionEmpty(PartitionedTable table, String partitionName);
+
+    void dropPartitions(PartitionedTable table, List<String> partitionNames);
+
+
+    // --------------------------------------------------------------------------------
+
+
+    enum PartitionedTable {
+        META("meta"),
+        META_VAL("meta_val");
+
+        private final String tableName;
+
+        PartitionedTable(final String tableName) {
+            this.tableName = tableName;
+        }
+
+        public String getTableName() {
+            return tableName;
+        }
+    }
+}
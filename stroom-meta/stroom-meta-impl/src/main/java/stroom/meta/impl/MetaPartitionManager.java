@@ -0,0 +1,195 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.meta.impl;
+
+import stroom.cluster.lock.api.ClusterLockService;
+import stroom.meta.impl.MetaPartitionDao.PartitionedTable;
+import stroom.util.logging.LambdaLogger;
+import stroom.util.logging.LambdaLoggerFactory;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+import jakarta.inject.Singleton;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maintains the create time range partitions of the meta and meta_val tables when partitioning is
+ * enabled. Each run converts any table that is not yet partitioned, keeps a number of empty partitions
+ * ahead of the current time and drops partitions that no longer hold any data we need.
+ * <p>
+ * meta_val partitions are dropped once all their rows are older than the meta value delete age, which
+ * replaces the row by row deletes for those rows. meta partitions are only dropped once they are empty,
+ * i.e. once data retention and physical deletion have removed all of their streams, as dropping rows
+ * from meta would orphan the stream files.
+ */
+@Singleton
+public class MetaPartitionManager {
+
+    private static final LambdaLogger LOGGER = LambdaLoggerFactory.getLogger(MetaPartitionManager.class);
+
+    private static final String LOCK_NAME = "MetaPartitionManager";
+    static final String HISTORY_PARTITION_NAME = "p_history";
+    private static final DateTimeFormatter PARTITION_NAME_FORMATTER = DateTimeFormatter
+            .ofPattern("'p'yyyyMMdd")
+            .withZone(ZoneOffset.UTC);
+
+    private final MetaPartitionDao metaPartitionDao;
+    private final Provider<MetaPartitionConfig> metaPartitionConfigProvider;
+    private final Provider<MetaValueConfig> metaValueConfigProvider;
+    private final ClusterLockService clusterLockService;
+
+    @Inject
+    MetaPartitionManager(final MetaPartitionDao metaPartitionDao,
+                         final Provider<MetaPartitionConfig> metaPartitionConfigProvider,
+                         final Provider<MetaValueConfig> metaValueConfigProvider,
+                         final ClusterLockService clusterLockService) {
+        this.metaPartitionDao = metaPartitionDao;
+        this.metaPartitionConfigProvider = metaPartitionConfigProvider;
+        this.metaValueConfigProvider = metaValueConfigProvider;
+        this.clusterLockService = clusterLockService;
+    }
+
+    public void maintain() {
+        if (!metaPartitionConfigProvider.get().isEnabled()) {
+            LOGGER.debug("Meta partitioning is not enabled");
+            return;
+        }
+        // Partition DDL must only be run by one node at a time.
+        clusterLockService.tryLock(LOCK_NAME, () -> maintain(Instant.now()));
+    }
+
+    void maintain(final Instant now) {
+        final MetaPartitionConfig config = metaPartitionConfigProvider.get();
+        final long periodMs = config.getPartitionPeriod().toMillis();
+        final long metaValDeleteAgeMs = metaValueConfigProvider.get().getDeleteAge().toMillis();
+
+        for (final PartitionedTable table : PartitionedTable.values()) {
+            List<MetaPartition> partitions = metaPartitionDao.getPartitions(table);
+            if (partitions.isEmpty()) {
+                LOGGER.info("Partitioning table '{}', this may take some time", table.getTableName());
+                metaPartitionDao.partitionTable(table, planInitialPartitions(now, periodMs,
+                        config.getFuturePartitionCount()));
+                partitions = metaPartitionDao.getPartitions(table);
+            }
+
+            final List<MetaPartition> newPartitions = planNewPartitions(partitions, now, periodMs,
+                    config.getFuturePartitionCount());
+            if (!newPartitions.isEmpty()) {
+                LOGGER.info("Adding partitions {} to table '{}'", newPartitions, table.getTableName());
+                metaPartitionDao.addPartitions(table, newPartitions);
+            }
+
+            if (config.isDropExpiredPartitions()) {
+                final long dropBeforeMs = table == PartitionedTable.META_VAL
+                        ? now.toEpochMilli() - metaValDeleteAgeMs
+                        : now.toEpochMilli();
+                final List<String> partitionsToDrop = planExpiredPartitions(partitions, dropBeforeMs)
+                        .stream()
+                        .filter(partition -> table == PartitionedTable.META_VAL
+                                             || metaPartitionDao.isPartitionEmpty(table, partition.name()))
+                        .map(MetaPartition::name)
+                        .toList();
+                if (!partitionsToDrop.isEmpty()) {
+                    LOGGER.info("Dropping partitions {} from table '{}'", partitionsToDrop, table.getTableName());
+                    metaPartitionDao.dropPartitions(table, partitionsToDrop);
+                }
+            }
+        }
+    }
+
+    /**
+     * A single partition for all existing data followed by the partition for the current period and
+     * the future partitions.
+     */
+    static List<MetaPartition> planInitialPartitions(final Instant now,
+                                                     final long periodMs,
+                                                     final int futurePartitionCount) {
+        final long startMs = now.truncatedTo(ChronoUnit.DAYS).toEpochMilli();
+        final List<MetaPartition> partitions = new ArrayList<>();
+        partitions.add(new MetaPartition(HISTORY_PARTITION_NAME, startMs));
+        partitions.addAll(planPartitions(startMs, startMs + (periodMs * (futurePartitionCount + 1)), periodMs));
+        return partitions;
+    }
+
+    /**
+     * The partitions needed so that there are at least the future partition count number of periods
+     * after now that are not in the catch-all partition.
+     */
+    static List<MetaPartition> planNewPartitions(final List<MetaPartition> partitions,
+                                                 final Instant now,
+                                                 final long periodMs,
+                                                 final int futurePartitionCount) {
+        final long lastLessThanMs = partitions.stream()
+                .filter(partition -> !partition.isCatchAll())
+                .mapToLong(MetaPartition::lessThanMs)
+                .max()
+                .orElseThrow(() -> new IllegalStateException("No partitions found"));
+        final List<MetaPartition> newPartitions = new ArrayList<>();
+        long startMs = lastLessThanMs;
+
+        // If we haven't run for a while then cover the gap up to today with one partition rather
+        // than many small ones.
+        final long todayMs = now.truncatedTo(ChronoUnit.DAYS).toEpochMilli();
+        if (startMs < todayMs - periodMs) {
+            newPartitions.add(new MetaPartition(createPartitionName(startMs), todayMs));
+            startMs = todayMs;
+        }
+
+        final long targetMs = now.toEpochMilli() + (periodMs * futurePartitionCount);
+        newPartitions.addAll(planPartitions(startMs, targetMs, periodMs));
+        return newPartitions;
+    }
+
+    /**
+     * Partitions whose data is all before the supplied time, excluding the most recent regular
+     * partition as we always need at least one.
+     */
+    static List<MetaPartition> planExpiredPartitions(final List<MetaPartition> partitions,
+                                                     final long dropBeforeMs) {
+        final List<MetaPartition> regularPartitions = partitions.stream()
+                .filter(partition -> !partition.isCatchAll())
+                .toList();
+        return regularPartitions.stream()
+                .limit(Math.max(0, regularPartitions.size() - 1))
+                .filter(partition -> partition.lessThanMs() <= dropBeforeMs)
+                .toList();
+    }
+
+    private static List<MetaPartition> planPartitions(final long fromMs,
+                                                      final long toMs,
+                                                      final long periodMs) {
+        final List<MetaPartition> partitions = new ArrayList<>();
+        long startMs = fromMs;
+        while (startMs < toMs) {
+            final long endMs = startMs + periodMs;
+            partitions.add(new MetaPartition(createPartitionName(startMs), endMs));
+            startMs = endMs;
+        }
+        return partitions;
+    }
+
+    private static String createPartitionName(final long startMs) {
+        return PARTITION_NAME_FORMATTER.format(Instant.ofEpochMilli(startMs));
+    }
+}
@@ -63,6 +63,7 @@ public class MetaServiceConfig extends AbstractConfig implements IsStroomConfig,
     private final Set<String> rawMetaTypes;
     private final Set<String> dataFormats;
     private final int metaStatusUpdateBatchSize;
+    private final MetaPartitionConfig partitionConfig;
 
     public MetaServiceConfig() {
         dbConfig = new MetaServiceDbConfig();
@@ -85,6 +86,7 @@ public class MetaServiceConfig extends AbstractConfig implements IsStroomConfig,
                 StreamTypeNames.ALL_HARD_CODED_RAW_STREAM_TYPE_NAMES);
         dataFormats = CollectionUtil.asUnmodifiabledConsistentOrderSet(DataFormatNames.ALL_HARD_CODED_FORMAT_NAMES);
         metaStatusUpdateBatchSize = DEFAULT_META_STATUS_UPDATE_BATCH_SIZE;
+        partitionConfig = new MetaPartitionConfig();
     }
 
     @SuppressWarnings("unused")
@@ -97,7 +99,8 @@ public class MetaServiceConfig extends AbstractConfig implements IsStroomConfig,
                              @JsonProperty("metaTypes") final Set<String> metaTypes,
                              @JsonProperty("rawMetaTypes") final Set<String> rawMetaTypes,
                              @JsonProperty("dataFormats") final Set<String> dataFormats,
-                             @JsonProperty("metaStatusUpdateBatchSize") final Integer metaStatusUpdateBatchSize) {
+                             @JsonProperty("metaStatusUpdateBatchSize") final Integer metaStatusUpdateBatchSize,
+                             @JsonProperty("partitioning") final MetaPartitionConfig partitionConfig) {
         this.dbConfig = dbConfig;
         this.metaValueConfig = metaValueConfig;
         this.metaFeedCache = metaFeedCache;
@@ -108,6 +111,7 @@ public class MetaServiceConfig extends AbstractConfig implements IsStroomConfig,
         this.dataFormats = dataFormats;
         this.metaStatusUpdateBatchSize =
                 Objects.requireNonNullElse(metaStatusUpdateBatchSize, DEFAULT_META_STATUS_UPDATE_BATCH_SIZE);
+        this.partitionConfig = Objects.requireNonNullElseGet(partitionConfig, MetaPartitionConfig::new);
     }
 
     @Override
@@ -121,6 +125,11 @@ public class MetaServiceConfig extends AbstractConfig implements IsStroomConfig,
         return metaValueConfig;
     }
 
+    @JsonProperty("partitioning")
+    public MetaPartitionConfig getPartitionConfig() {
+        return partitionConfig;
+    }
+
     public CacheConfig getMetaFeedCache() {
         return metaFeedCache;
     }
@@ -220,7 +229,8 @@ public class MetaServiceConfig extends AbstractConfig implements IsStroomConfig,
                 metaTypes,
                 rawMetaTypes,
                 dataFormats,
-                metaStatusUpdateBatchSize);
+                metaStatusUpdateBatchSize,
+                partitionConfig);
     }
 
     public MetaServiceConfig withMetaStatusUpdateBatchSize(
@@ -235,7 +245,8 @@ public class MetaServiceConfig extends AbstractConfig implements IsStroomConfig,
                 metaTypes,
                 rawMetaTypes,
                 dataFormats,
-                metaStatusUpdateBatchSize);
+                metaStatusUpdateBatchSize,
+                partitionConfig);
     }
 
     @Override
@@ -250,6 +261,7 @@ public class MetaServiceConfig extends AbstractConfig implements IsStroomConfig,
                ", rawMetaTypes=" + rawMetaTypes +
                ", dataFormats=" + dataFormats +
                ", metaStatusUpdateBatchSize=" + metaStatusUpdateBatchSize +
+               ", partitionConfig=" + partitionConfig +
                '}';
     }
 
@@ -24,6 +24,7 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyDescription;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 
 import java.util.Objects;
@@ -34,6 +35,7 @@ public class MetaValueConfig extends AbstractConfig implements IsStroomConfig {
     private static final int DEFAULT_DELETE_BATCH_SIZE = 500;
     private static final int DEFAULT_FLUSH_BATCH_SIZE = 500;
     private static final boolean DEFAULT_ADD_ASYNC = true;
+    private static final int DEFAULT_MAX_BUFFER_SIZE = 100_000;
 
     @NotNull
     @JsonProperty
@@ -47,32 +49,44 @@ public class MetaValueConfig extends AbstractConfig implements IsStroomConfig {
 
     @JsonProperty
     @JsonPropertyDescription("The number of stream attributes to queue before flushing to the database. " +
+            "Each flush writes this many attributes with a single multi-row insert. " +
             "Only applicable if property 'addAsync' is true.")
     private final int flushBatchSize;
 
     @JsonProperty
-    @JsonPropertyDescription("If true, stream attributes will be queued in memory until the queue " +
-            "reaches 'flushBatchSize'. If false, stream attributes will be written to the database " +
-            "immediately and synchronously.")
+    @JsonPropertyDescription("If true, stream attributes will be queued in memory and written to the " +
+            "database by a background thread once the queue reaches 'flushBatchSize'. If false, stream " +
+            "attributes will be written to the database immediately and synchronously.")
     // TODO 01/12/2021 AT: Make final
     private boolean addAsync;
 
+    @Min(1)
+    @JsonProperty
+    @JsonPropertyDescription("The maximum number of stream attributes to hold in memory waiting to be " +
+            "flushed to the database. Once reached, threads adding stream attributes will write queued " +
+            "attributes to the database themselves until the queue is below this size, slowing them down " +
+            "to the rate the database can accept. Only applicable if property 'addAsync' is true.")
+    private final int maxBufferSize;
+
     public MetaValueConfig() {
         deleteAge = StroomDuration.ofDays(30);
         deleteBatchSize = DEFAULT_DELETE_BATCH_SIZE;
         flushBatchSize = DEFAULT_FLUSH_BATCH_SIZE;
         addAsync = DEFAULT_ADD_ASYNC;
+        maxBufferSize = DEFAULT_MAX_BUFFER_SIZE;
     }
 
     @JsonCreator
     public MetaValueConfig(@JsonProperty("deleteAge") final StroomDuration deleteAge,
                            @JsonProperty("deleteBatchSize") final Integer deleteBatchSize,
                            @JsonProperty("flushBatchSize") final Integer flushBatchSize,
-                           @JsonProperty("addAsync") final Boolean addAsync) {
+                           @JsonProperty("addAsync") final Boolean addAsync,
+                           @JsonProperty("maxBufferSize") final Integer maxBufferSize) {
         this.deleteAge = deleteAge;
         this.deleteBatchSize = Objects.requireNonNullElse(deleteBatchSize, DEFAULT_DELETE_BATCH_SIZE);
         this.flushBatchSize = Objects.requireNonNullElse(flushBatchSize, DEFAULT_FLUSH_BATCH_SIZE);
         this.addAsync = Objects.requireNonNullElse(addAsync, DEFAULT_ADD_ASYNC);
+        this.maxBufferSize = Objects.requireNonNullElse(maxBufferSize, DEFAULT_MAX_BUFFER_SIZE);
     }
 
     public StroomDuration getDeleteAge() {
@@ -91,13 +105,21 @@ public class MetaValueConfig extends AbstractConfig implements IsStroomConfig {
         return addAsync;
     }
 
+    public int getMaxBufferSize() {
+        return maxBufferSize;
+    }
+
     @Deprecated(forRemoval = true)
     public void setAddAsync(final boolean addAsync) {
         this.addAsync = addAsync;
     }
 
     public MetaValueConfig withAddAsync(final boolean addAsync) {
-        return new MetaValueConfig(deleteAge, deleteBatchSize, flushBatchSize, addAsync);
+        return new MetaValueConfig(deleteAge, deleteBatchSize, flushBatchSize, addAsync, maxBufferSize);
+    }
+
+    public MetaValueConfig withMaxBufferSize(final int maxBufferSize) {
+        return new MetaValueConfig(deleteAge, deleteBatchSize, flushBatchSize, addAsync, maxBufferSize);
     }
 
     @Override
@@ -107,6 +129,7 @@ public class MetaValueConfig extends AbstractConfig implements IsStroomConfig {
                 ", deleteBatchSize=" + deleteBatchSize +
                 ", flushBatchSize=" + flushBatchSize +
                 ", addAsync=" + addAsync +
+                ", maxBufferSize=" + maxBufferSize +
                 '}';
     }
 
@@ -122,11 +145,12 @@ public class MetaValueConfig extends AbstractConfig implements IsStroomConfig {
         return deleteBatchSize == that.deleteBatchSize &&
                 flushBatchSize == that.flushBatchSize &&
                 addAsync == that.addAsync &&
+                maxBufferSize == that.maxBufferSize &&
                 Objects.equals(deleteAge, that.deleteAge);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(deleteAge, deleteBatchSize, flushBatchSize, addAsync);
+        return Objects.hash(deleteAge, deleteBatchSize, flushBatchSize, addAsync, maxBufferSize);
     }
 }
@@ -66,6 +66,9 @@ import stroom.query.language.functions.ValLong;
 import stroom.query.language.functions.ValNull;
 import stroom.query.language.functions.ValString;
 import stroom.query.language.functions.ValuesConsumer;
+import stroom.task.api.ExecutorProvider;
+import stroom.task.api.ThreadPoolImpl;
+import stroom.task.shared.ThreadPool;
 import stroom.util.Period;
 import stroom.util.collections.BatchingIterator;
 import stroom.util.collections.CollectionUtil;
@@ -129,7 +132,11 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -158,6 +165,8 @@ public class MetaDaoImpl implements MetaDao {
 
     private static final int FIND_RECORD_LIMIT = 1000000;
 
+    private static final ThreadPool LOGICAL_DELETE_THREAD_POOL = new ThreadPoolImpl("Data Retention Logical Delete");
+
     static final stroom.meta.impl.db.jooq.tables.Meta META_M = META.as("m");
     static final MetaFeed META_FEED_F = META_FEED.as("f");
     static final MetaType META_TYPE_T = META_TYPE.as("t");
@@ -216,6 +225,7 @@ public class MetaDaoImpl implements MetaDao {
     private final ExpressionMapper expressionMapper;
     private final MetaExpressionMapper metaExpressionMapper;
     private final ValueMapper valueMapper;
+    private final ExecutorProvider executorProvider;
 
     @Inject
     MetaDaoImpl(final MetaDbConnProvider metaDbConnProvider,
@@ -227,7 +237,8 @@ public class MetaDaoImpl implements MetaDao {
                 final Provider<MetaServiceConfig> metaServiceConfigProvider,
                 final ExpressionMapperFactory expressionMapperFactory,
                 final DocFinder docFinder,
-                final TermHandlerFactory termHandlerFactory) {
+                final TermHandlerFactory termHandlerFactory,
+                final ExecutorProvider executorProvider) {
         this.metaDbConnProvider = metaDbConnProvider;
         this.feedDao = feedDao;
         this.metaTypeDao = metaTypeDao;
@@ -236,9 +247,13 @@ public class MetaDaoImpl implements MetaDao {
         this.dataRetentionConfigProvider = dataRetentionConfigProvider;
         this.metaServiceConfigProvider = metaServiceConfigProvider;
         this.docFinder = docFinder;
+        this.executorProvider = executorProvider;
 
         // Extended meta fields.
-        metaExpressionMapper = new MetaExpressionMapper(metaKeyDao, termHandlerFactory);
+        metaExpressionMapper = new MetaExpressionMapper(
+                metaKeyDao,
+                termHandlerFactory,
+                () -> metaServiceConfigProvider.get().getPartitionConfig().isEnabled());
         //Add term handlers
         metaExpressionMapper.map(MetaFields.REC_READ);
         metaExpressionMapper.map(MetaFields.REC_WRITE);
@@ -689,7 +704,7 @@ public class MetaDaoImpl implements MetaDao {
         final Set<Integer> usedValKeys = identifyExtendedAttributesFields(expression, new HashSet<>());
         if (NullSafe.hasItems(usedValKeys)) {
             // Add 1-* joins to meta_val if we need them.
-            table = metaExpressionMapper.addJoins(table, META_M.ID, usedValKeys);
+            table = metaExpressionMapper.addJoins(table, META_M.ID, META_M.CREATE_TIME, usedValKeys);
         }
 
         return table;
@@ -1000,93 +1015,98 @@ public class MetaDaoImpl implements MetaDao {
             conditions.add(META_M.CREATE_TIME.greaterOrEqual(period.getFrom().toEpochMilli()));
             conditions.add(META_M.CREATE_TIME.lessThan(period.getTo().toEpochMilli()));
 
-            int lastUpdateCount;
-            final AtomicInteger iteration = new AtomicInteger(1);
-            Duration totalSelectDuration = Duration.ZERO;
-            Duration totalUpdateDuration = Duration.ZERO;
-            Instant startTime;
-            Instant startTimeInc = period.getFrom();
             final int batchSize = dataRetentionConfig.getDeleteBatchSize();
+            final int threadCount = Math.max(1, dataRetentionConfig.getDeleteThreadCount());
 
             // The aim here is to ensure we lock up the meta table for as short a time
             // as possible. As we are updating by non-unique indexes it is likely we will
             // get next-key locks which may impact other writes.
             // At the cost of the whole retention delete taking longer we split the updates
             // up into smaller chunks to reduce the time meta is locked for. To do the chunking
-            // we query the table with the same conditions as the update to find a batch
-            // of n records and capture the min/max create_time for that batch.
-            // Then we update over that sub-period so we can just rang-scan the create_time or
-            // feed_id|create_time index.
-            do {
-                // Get a sub period of period
-
-                startTime = Instant.now();
-                final Optional<TimePeriod> optSubPeriod = getTimeSlice(
-                        startTimeInc, batchSize, conditions, rulesUsePipelineField);
-
-                totalSelectDuration = totalSelectDuration.plus(Duration.between(startTime,
-                        Instant.now().plusMillis(1)));
-
-                if (optSubPeriod.isEmpty()) {
-                    LOGGER.debug("logicalDelete() - No time slice found");
-                    break;
+            // we query the table (without locking) with the same conditions as the update to find
+            // the id of the nth matching record after the previous chunk. We then update that id range
+            // so each update is a bounded range scan of the primary key. The id ranges never overlap
+            // so the updates can run on parallel workers while we find the next range.
+            final Optional<IdRange> optPeriodIdRange = getIdRange(period);
+            if (optPeriodIdRange.isEmpty()) {
+                LOGGER.debug("logicalDelete() - No data in period {}", period);
+                return 0;
+            }
+            final IdRange periodIdRange = optPeriodIdRange.get();
+            LOGGER.debug("logicalDelete() - Period {} has id range {}", period, periodIdRange);
+
+            final Executor executor = threadCount > 1
+                    ? executorProvider.get(LOGICAL_DELETE_THREAD_POOL)
+                    : Runnable::run;
+            final Semaphore permits = new Semaphore(threadCount);
+            final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+            final LongAdder totalUpdateNanos = new LongAdder();
+            final AtomicInteger batchCount = new AtomicInteger();
+            Duration totalSelectDuration = Duration.ZERO;
+            long fromIdExc = periodIdRange.minId() - 1;
+
+            try {
+                while (!Thread.currentThread().isInterrupted() && failure.get() == null) {
+                    final Instant startTime = Instant.now();
+                    final Optional<Long> optToIdInc = getBatchEndId(
+                            fromIdExc, periodIdRange.maxId(), batchSize, conditions, rulesUsePipelineField);
+                    totalSelectDuration = totalSelectDuration.plus(Duration.between(startTime,
+                            Instant.now().plusMillis(1)));
+
+                    if (optToIdInc.isEmpty()) {
+                        LOGGER.debug("logicalDelete() - No more matching records after id {}", fromIdExc);
+                        break;
+                    }
+                    final IdRange batchIdRange = new IdRange(fromIdExc + 1, optToIdInc.get());
+                    final int batchNo = batchCount.incrementAndGet();
+                    LOGGER.debug("logicalDelete() - Batch {}, using id range {}", batchNo, batchIdRange);
+
+                    permits.acquire();
+                    try {
+                        executor.execute(() -> {
+                            try {
+                                final long updateStartNs = System.nanoTime();
+                                final int count = logicallyDeleteBatch(
+                                        batchIdRange, conditions, rulesUsePipelineField, statusIdDeleted);
+                                totalUpdateNanos.add(System.nanoTime() - updateStartNs);
+                                totalUpdateCount.addAndGet(count);
+                                LOGGER.debug("logicalDelete() - Batch {} logically deleted {} meta rows " +
+                                             "(total so far {})", batchNo, count, totalUpdateCount);
+                            } catch (final RuntimeException e) {
+                                failure.compareAndSet(null, e);
+                            } finally {
+                                permits.release();
+                            }
+                        });
+                    } catch (final RuntimeException e) {
+                        permits.release();
+                        throw e;
+                    }
+                    fromIdExc = batchIdRange.maxId();
                 }
-                final TimePeriod subPeriod = optSubPeriod.get();
-                LOGGER.debug("logicalDelete() - Iteration {}, using sub-period {}", iteration, subPeriod);
-
-                startTime = Instant.now();
-                lastUpdateCount = LOGGER.logDurationIfDebugEnabled(
-                        () -> JooqUtil.contextResult(metaDbConnProvider, context -> {
-
-                            // If any of the rules have a predicate on the Pipeline field then we need to
-                            // add the join to meta_processor
-                            final Table<?> tableClause = rulesUsePipelineField
-                                    ? META_M.leftOuterJoin(META_PROCESSOR_P)
-                                      .on(META_M.PROCESSOR_ID.eq(META_PROCESSOR_P.ID))
-                                    : META_M;
-
-                            // We might want to do this delete using a temp table like we do for
-                            // MetaDaoImpl#updateStatusWithTempTable. Only if locking other rows is
-                            // an issue.
-                            final UpdateConditionStep<?> query = context
-                                    .update(tableClause)
-                                    .set(META_M.STATUS, statusIdDeleted)
-                                    .set(META_M.STATUS_TIME, Instant.now().toEpochMilli())
-                                    .where(conditions)
-                                    .and(META_M.CREATE_TIME.greaterOrEqual(subPeriod.getFrom().toEpochMilli()))
-                                    .and(META_M.CREATE_TIME.lessThan(subPeriod.getTo().toEpochMilli()));
-
-                            LOGGER.debug("logicalDelete() - update:\n{}", query);
-
-                            return query.execute();
-                        }),
-                        cnt -> LogUtil.message(
-                                "Logically deleted {} meta records with approx. limit of {}. Iteration {}",
-                                cnt,
-                                batchSize,
-                                iteration));
-                totalUpdateDuration = totalUpdateDuration.plus(Duration.between(startTime,
-                        Instant.now().plusMillis(1)));
-
-                // Advance the start time
-                startTimeInc = subPeriod.getFrom();
-                totalUpdateCount.addAndGet(lastUpdateCount);
-                iteration.incrementAndGet();
-                LOGGER.debug("logicalDelete() - Logically deleted {} meta rows (total so far {})",
-                        lastUpdateCount,
-                        totalUpdateCount);
-
-            } while (lastUpdateCount != 0 && !Thread.currentThread().isInterrupted());
-
-            LOGGER.info("Logically deleted {} meta rows, batchSize {}, iterations {}, select avg {}, update avg {}",
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                // Wait for the in flight batches to complete.
+                permits.acquireUninterruptibly(threadCount);
+            }
+
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+
+            final int batches = batchCount.get();
+            LOGGER.info("Logically deleted {} meta rows, batchSize {}, threads {}, batches {}, " +
+                        "select avg {}, update avg {}",
                     totalUpdateCount.get(),
                     batchSize,
-                    iteration.decrementAndGet(),
-                    iteration.get() != 0
-                            ? totalSelectDuration.dividedBy(iteration.get())
+                    threadCount,
+                    batches,
+                    batches != 0
+                            ? totalSelectDuration.dividedBy(batches)
                             : Duration.ZERO,
-                    iteration.get() != 0
-                            ? totalUpdateDuration.dividedBy(iteration.get())
+                    batches != 0
+                            ? Duration.ofNanos(totalUpdateNanos.sum() / batches)
                             : Duration.ZERO);
 
             if (Thread.currentThread().isInterrupted()) {
@@ -1099,75 +1119,101 @@ public class MetaDaoImpl implements MetaDao {
         return totalUpdateCount.get();
     }
 
-    private Optional<TimePeriod> getTimeSlice(final Instant startTimeInc,
-                                              final int batchSize,
-                                              final List<Condition> conditions,
-                                              final boolean includesMetaProcessorTbl) {
-        LOGGER.debug("getTimeSlice() - startTimeInc: {}, batchSize: {}, includesMetaProcessorTbl: {}, conditions: \n{}",
-                startTimeInc, batchSize, includesMetaProcessorTbl, conditions);
-
-        final String createTimeCol = META_M.CREATE_TIME.getName();
-        final String minCreateTimeCol = "min_create_time";
-        final String maxCreateTimeCol = "max_create_time";
-
-        // For a given set of conditions (that may already contain some create_time bounds
-        // get the create_time range for a batch n records
-        final Optional<TimePeriod> timePeriod =
-                LOGGER.logDurationIfDebugEnabled(() -> JooqUtil
-                        .contextResult(metaDbConnProvider,
-                                context -> {
-                                    // If any of the rules have a predicate on the Pipeline field then we need to
-                                    // add the join to meta_processor
-                                    final Table<?> fromClause = includesMetaProcessorTbl
-                                            ? META_M.straightJoin(META_PROCESSOR_P)
-                                              .on(META_M.PROCESSOR_ID.eq(META_PROCESSOR_P.ID))
-                                            : META_M;
-
-                                    final Table<?> orderedFullSet = context
-                                            .select(META_M.CREATE_TIME)
-                                            .from(fromClause)
-                                            .where(conditions)
-                                            .and(META_M.CREATE_TIME.greaterOrEqual(startTimeInc.toEpochMilli()))
-                                            .orderBy(META_M.CREATE_TIME)
-                                            .asTable("orderedFullSet");
-
-                                    final Table<?> limitedSet = context
-                                            .select(orderedFullSet.fields())
-                                            .from(orderedFullSet)
-                                            .limit(batchSize)
-                                            .asTable("limitedSet");
-
-                                    final var query = context
-                                            .select(
-                                                    DSL.min(limitedSet.field(createTimeCol)).as(minCreateTimeCol),
-                                                    DSL.max(limitedSet.field(createTimeCol)).as(maxCreateTimeCol))
-                                            .from(limitedSet);
-
-                                    LOGGER.debug("getTimeSlice() - query:\n{}", query);
-
-                                    return query.fetchOne();
-                                })
-                        .map(record -> {
-                            final Object min = record.get(minCreateTimeCol);
-                            final Object max = record.get(maxCreateTimeCol);
-
-                            if (min == null || max == null) {
-                                return Optional.empty();
-                            } else {
-                                // Add one to make it exclusive
-                                return Optional.of(
-                                        TimePeriod.between((long) min, (long) max + 1));
-                            }
-                        }), () -> LogUtil.message(
-                        "getTimeSlice() - Selecting time slice starting at {}, with batch size {}",
-                        startTimeInc, batchSize));
-
-        LOGGER.debug("getTimeSlice() - Returning period {}", timePeriod);
+    /**
+     * @return The range of ids of all meta records created in the period.
+     */
+    private Optional<IdRange> getIdRange(final TimePeriod period) {
+        // Only uses the create_time index so is cheap compared to applying the rules
+        final Record2<Long, Long> record = JooqUtil.contextResult(metaDbConnProvider, context -> context
+                .select(DSL.min(META_M.ID), DSL.max(META_M.ID))
+                .from(META_M)
+                .where(META_M.CREATE_TIME.greaterOrEqual(period.getFrom().toEpochMilli()))
+                .and(META_M.CREATE_TIME.lessThan(period.getTo().toEpochMilli()))
+                .fetchOne());
+        if (record == null || record.value1() == null || record.value2() == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new IdRange(record.value1(), record.value2()));
+    }
 
-        // NOTE The number of records in the slice may differ from the desired batch size if you have
-        // multiple records on the boundary with the same create_time (unlikely with milli precision).
+    /**
+     * @return The id of the batchSize'th record matching the conditions with an id greater than
+     * fromIdExc and no greater than maxIdInc or the id of the last matching record if there are fewer.
+     * Empty if there are no matching records.
+     */
+    private Optional<Long> getBatchEndId(final long fromIdExc,
+                                         final long maxIdInc,
+                                         final int batchSize,
+                                         final List<Condition> conditions,
+                                         final boolean includesMetaProcessorTbl) {
+        LOGGER.debug("getBatchEndId() - fromIdExc: {}, maxIdInc: {}, batchSize: {}, " +
+                     "includesMetaProcessorTbl: {}, conditions: \n{}",
+                fromIdExc, maxIdInc, batchSize, includesMetaProcessorTbl, conditions);
+
+        final Optional<Long> batchEndId = LOGGER.logDurationIfDebugEnabled(() -> JooqUtil
+                .contextResult(metaDbConnProvider, context -> {
+                    // If any of the rules have a predicate on the Pipeline field then we need to
+                    // add the join to meta_processor
+                    final Table<?> fromClause = includesMetaProcessorTbl
+                            ? META_M.straightJoin(META_PROCESSOR_P)
+                              .on(META_M.PROCESSOR_ID.eq(META_PROCESSOR_P.ID))
+                            : META_M;
+
+                    final Table<?> limitedSet = context
+                            .select(META_M.ID)
+                            .from(fromClause)
+                            .where(conditions)
+                            .and(META_M.ID.greaterThan(fromIdExc))
+                            .and(META_M.ID.lessOrEqual(maxIdInc))
+                            .orderBy(META_M.ID)
+                            .limit(batchSize)
+                            .asTable("limitedSet");
+
+                    final var query = context
+                            .select(DSL.max(limitedSet.field(META_M.ID.getName(), Long.class)))
+                            .from(limitedSet);
+
+                    LOGGER.debug("getBatchEndId() - query:\n{}", query);
+
+                    return Optional.ofNullable(query.fetchOne())
+                            .map(Record1::value1);
+                }), () -> LogUtil.message(
+                "getBatchEndId() - Selecting batch end id after {}, with batch size {}",
+                fromIdExc, batchSize));
+
+        LOGGER.debug("getBatchEndId() - Returning {}", batchEndId);
+        return batchEndId;
+    }
 
-        return timePeriod;
+    private int logicallyDeleteBatch(final IdRange idRange,
+                                     final List<Condition> conditions,
+                                     final boolean rulesUsePipelineField,
+                                     final byte statusIdDeleted) {
+        return LOGGER.logDurationIfDebugEnabled(
+                () -> JooqUtil.contextResult(metaDbConnProvider, context -> {
+
+                    // If any of the rules have a predicate on the Pipeline field then we need to
+                    // add the join to meta_processor
+                    final Table<?> tableClause = rulesUsePipelineField
+                            ? META_M.leftOuterJoin(META_PROCESSOR_P)
+                              .on(META_M.PROCESSOR_ID.eq(META_PROCESSOR_P.ID))
+                            : META_M;
+
+                    // We might want to do this delete using a temp table like we do for
+                    // MetaDaoImpl#updateStatusWithTempTable. Only if locking other rows is
+                    // an issue.
+                    final UpdateConditionStep<?> query = context
+                            .update(tableClause)
+                            .set(META_M.STATUS, statusIdDeleted)
+                            .set(META_M.STATUS_TIME, Instant.now().toEpochMilli())
+                            .where(conditions)
+                            .and(META_M.ID.between(idRange.minId(), idRange.maxId()));
+
+                    LOGGER.debug("logicallyDeleteBatch() - update:\n{}", query);
+
+                    return query.execute();
+                }),
+                cnt -> LogUtil.message("Logically deleted {} meta records in id range {}", cnt, idRange));
     }
 
     private List<Condition> createRetentionDeleteConditions(final List<DataRetentionRuleAction> ruleActions) {
@@ -1271,6 +1317,7 @@ public class MetaDaoImpl implements MetaDao {
                                                 .leftOuterJoin(META_PROCESSOR_P)
                                                 .on(META_M.PROCESSOR_ID.eq(META_PROCESSOR_P.ID)),
                                         META_M.ID,
+                                        META_M.CREATE_TIME,
                                         usedValKeys)
                                 .where(conditions)
                                 .fetchOne())
@@ -1359,7 +1406,7 @@ public class MetaDaoImpl implements MetaDao {
             final Set<Integer> usedValKeys = identifyExtendedAttributesFields(
                     criteria.getExpression(),
                     new HashSet<>());
-            select = metaExpressionMapper.addJoins(select, META_M.ID, usedValKeys);
+            select = metaExpressionMapper.addJoins(select, META_M.ID, META_M.CREATE_TIME, usedValKeys);
 
             try (final Cursor<?> cursor = select
                     .where(conditions)
@@ -1538,6 +1585,7 @@ public class MetaDaoImpl implements MetaDao {
                                                     .leftOuterJoin(META_PROCESSOR_P)
                                                     .on(META_M.PROCESSOR_ID.eq(META_PROCESSOR_P.ID)),
                                             META_M.ID,
+                                            META_M.CREATE_TIME,
                                             usedValKeys)
                                     .where(conditions)
                                     .orderBy(orderFields)
@@ -1602,6 +1650,7 @@ public class MetaDaoImpl implements MetaDao {
                                                 .leftOuterJoin(PARENT_PROCESSOR).on(parent.PROCESSOR_ID
                                                         .eq(PARENT_PROCESSOR.ID))),
                                         META_M.ID,
+                                        META_M.CREATE_TIME,
                                         usedValKeys)
                                 .where(conditions)
                                 .and(parent.ID.isNotNull())
@@ -1654,6 +1703,7 @@ public class MetaDaoImpl implements MetaDao {
                                                 .leftOuterJoin(META_PROCESSOR_P)
                                                 .on(META_M.PROCESSOR_ID.eq(META_PROCESSOR_P.ID)),
                                         META_M.ID,
+                                        META_M.CREATE_TIME,
                                         usedValKeys)
                                 .where(conditions)
                                 .limit(offset, numberOfRows)
@@ -1776,6 +1826,7 @@ public class MetaDaoImpl implements MetaDao {
                                     Long>> sql = metaExpressionMapper.addJoins(
                                             baseQuery,
                                             META_M.ID,
+                                            META_M.CREATE_TIME,
                                             usedValKeys)
                                     .where(conditions)
                                     .and(parent.ID.isNotNull())
@@ -1892,7 +1943,7 @@ public class MetaDaoImpl implements MetaDao {
 
                             // If the criteria contain many terms that come from meta_val then we need to join
                             // to meta_val multiple times, each time with a new table alias
-                            select = metaExpressionMapper.addJoins(select, META_M.ID, usedValKeys);
+                            select = metaExpressionMapper.addJoins(select, META_M.ID, META_M.CREATE_TIME, usedValKeys);
 
                             return select
                                     .where(conditions)
@@ -2149,4 +2200,12 @@ public class MetaDaoImpl implements MetaDao {
             });
         }
     }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    private record IdRange(long minId, long maxId) {
+
+    }
 }
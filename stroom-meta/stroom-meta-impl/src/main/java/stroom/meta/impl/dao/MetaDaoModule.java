@@ -21,6 +21,7 @@ import stroom.lifecycle.api.LifecycleBinder;
 import stroom.meta.impl.MetaDao;
 import stroom.meta.impl.MetaFeedDao;
 import stroom.meta.impl.MetaKeyDao;
+import stroom.meta.impl.MetaPartitionDao;
 import stroom.meta.impl.MetaProcessorDao;
 import stroom.meta.impl.MetaRetentionTrackerDao;
 import stroom.meta.impl.MetaTypeDao;
@@ -47,6 +48,7 @@ public class MetaDaoModule extends AbstractModule {
         bind(MetaValueDao.class).to(MetaValueDaoImpl.class);
         bind(MetaDao.class).to(MetaDaoImpl.class);
         bind(MetaRetentionTrackerDao.class).to(MetaRetentionTrackerDaoImpl.class);
+        bind(MetaPartitionDao.class).to(MetaPartitionDaoImpl.class);
 
         GuiceUtil.buildMultiBinder(binder(), Clearable.class)
                 .addBinding(MetaValueDaoImpl.class)
@@ -33,6 +33,7 @@ import org.jooq.Table;
 
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.BooleanSupplier;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -43,12 +44,15 @@ class MetaExpressionMapper implements Function<ExpressionItem, Condition> {
     private final CommonExpressionMapper expressionMapper;
     private final MetaKeyDao metaKeyDao;
     private final TermHandlerFactory termHandlerFactory;
+    private final BooleanSupplier partitionedSupplier;
 
     MetaExpressionMapper(final MetaKeyDao metaKeyDao,
-                         final TermHandlerFactory termHandlerFactory) {
+                         final TermHandlerFactory termHandlerFactory,
+                         final BooleanSupplier partitionedSupplier) {
         expressionMapper = new CommonExpressionMapper();
         this.metaKeyDao = metaKeyDao;
         this.termHandlerFactory = termHandlerFactory;
+        this.partitionedSupplier = partitionedSupplier;
     }
 
     public void map(final QueryField dataSourceField) {
@@ -88,6 +92,9 @@ class MetaExpressionMapper implements Function<ExpressionItem, Condition> {
      * If the criteria contains many terms that come from meta_val then we need to join to meta_val
      * multiple times, each time with a new table alias.
      *
+     * If the meta tables are partitioned then the join also matches on create time (meta_val rows
+     * share the create time of their meta row) so that only the matching meta_val partition is read.
+     *
      * @param usedValKeys The list of meta_key IDs that feature in the criteria. One join will be
      *                    added for each.
      * @return The query with joins added
@@ -95,13 +102,15 @@ class MetaExpressionMapper implements Function<ExpressionItem, Condition> {
     public <T extends org.jooq.Record> SelectJoinStep<T> addJoins(
             SelectJoinStep<T> query,
             final Field<Long> metaIdField,
+            final Field<Long> createTimeField,
             final Set<Integer> usedValKeys) {
+        final boolean partitioned = partitionedSupplier.getAsBoolean();
 
         for (final Integer id : usedValKeys) {
             final MetaVal metaVal = getAliasedMetaValTable(id);
 
             query = query.leftOuterJoin(metaVal)
-                    .on(metaIdField.eq(createMetaIdField(id))); //Join on meta_val
+                    .on(createJoinCondition(id, metaIdField, createTimeField, partitioned)); //Join on meta_val
         }
         return query;
     }
@@ -110,6 +119,9 @@ class MetaExpressionMapper implements Function<ExpressionItem, Condition> {
      * If the criteria contains many terms that come from meta_val then we need to join to meta_val
      * multiple times, each time with a new table alias.
      *
+     * If the meta tables are partitioned then the join also matches on create time (meta_val rows
+     * share the create time of their meta row) so that only the matching meta_val partition is read.
+     *
      * @param usedValKeys The list of meta_key IDs that feature in the criteria. One join will be
      *                    added for each.
      * @return The query with joins added
@@ -117,17 +129,31 @@ class MetaExpressionMapper implements Function<ExpressionItem, Condition> {
     public Table<?> addJoins(
             Table<?> fromPart,
             final Field<Long> metaIdField,
+            final Field<Long> createTimeField,
             final Set<Integer> usedValKeys) {
+        final boolean partitioned = partitionedSupplier.getAsBoolean();
 
         for (final Integer id : usedValKeys) {
             final MetaVal metaVal = getAliasedMetaValTable(id);
 
             fromPart = fromPart.leftOuterJoin(metaVal)
-                    .on(metaIdField.eq(createMetaIdField(id))); //Join on meta_val
+                    .on(createJoinCondition(id, metaIdField, createTimeField, partitioned)); //Join on meta_val
         }
         return fromPart;
     }
 
+    private Condition createJoinCondition(final int valKeyId,
+                                          final Field<Long> metaIdField,
+                                          final Field<Long> createTimeField,
+                                          final boolean partitioned) {
+        final Condition condition = metaIdField.eq(createMetaIdField(valKeyId));
+        if (partitioned) {
+            return condition.and(createTimeField.eq(getAliasedMetaValTable(valKeyId)
+                    .field(MetaVal.META_VAL.CREATE_TIME)));
+        }
+        return condition;
+    }
+
     private MetaVal getAliasedMetaValTable(final int valKeyId) {
         return MetaVal.META_VAL
                 .as(META_ALIAS_PREFIX + valKeyId);
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.meta.impl.dao;
+
+import stroom.db.util.JooqUtil;
+import stroom.meta.impl.MetaPartition;
+import stroom.meta.impl.MetaPartitionDao;
+import stroom.meta.impl.db.MetaDbConnProvider;
+import stroom.util.logging.LambdaLogger;
+import stroom.util.logging.LambdaLoggerFactory;
+import stroom.util.logging.LogUtil;
+
+import jakarta.inject.Inject;
+import org.jooq.DSLContext;
+
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Manages the range partitions of the meta tables. MySQL has no DSL support for partition DDL so
+ * this uses plain SQL.
+ */
+class MetaPartitionDaoImpl implements MetaPartitionDao {
+
+    private static final LambdaLogger LOGGER = LambdaLoggerFactory.getLogger(MetaPartitionDaoImpl.class);
+
+    static final String CATCH_ALL_PARTITION_NAME = "p_future";
+
+    private static final Pattern VALID_PARTITION_NAME_PATTERN = Pattern.compile("^p_?[a-z0-9]+$");
+    private static final String MAX_VALUE = "MAXVALUE";
+
+    private final MetaDbConnProvider metaDbConnProvider;
+
+    @Inject
+    MetaPartitionDaoImpl(final MetaDbConnProvider metaDbConnProvider) {
+        this.metaDbConnProvider = metaDbConnProvider;
+    }
+
+    @Override
+    public List<MetaPartition> getPartitions(final PartitionedTable table) {
+        return JooqUtil.contextResult(metaDbConnProvider, context -> context
+                        .fetch("""
+                                        SELECT PARTITION_NAME, PARTITION_DESCRIPTION
+                                        FROM information_schema.PARTITIONS
+                                        WHERE TABLE_SCHEMA = DATABASE()
+                                        AND TABLE_NAME = ?
+                                        AND PARTITION_NAME IS NOT NULL
+                                        ORDER BY PARTITION_ORDINAL_POSITION""",
+                                table.getTableName()))
+                .map(record -> {
+                    final String name = record.get(0, String.class);
+                    final String description = record.get(1, String.class);
+                    final long lessThanMs = MAX_VALUE.equalsIgnoreCase(description)
+                            ? Long.MAX_VALUE
+                            : Long.parseLong(description);
+                    return new MetaPartition(name, lessThanMs);
+                });
+    }
+
+    @Override
+    public void partitionTable(final PartitionedTable table, final List<MetaPartition> partitions) {
+        final String tableName = table.getTableName();
+        JooqUtil.context(metaDbConnProvider, context -> {
+            // MySQL does not support foreign keys on partitioned tables or references to them.
+            final List<String> referencingTables = context
+                    .fetch("""
+                                    SELECT DISTINCT TABLE_NAME
+                                    FROM information_schema.REFERENTIAL_CONSTRAINTS
+                                    WHERE CONSTRAINT_SCHEMA = DATABASE()
+                                    AND REFERENCED_TABLE_NAME = ?""",
+                            tableName)
+                    .map(record -> record.get(0, String.class));
+            if (!referencingTables.isEmpty()) {
+                throw new RuntimeException(LogUtil.message(
+                        "Unable to partition table '{}' as it is referenced by foreign keys on {}",
+                        tableName, referencingTables));
+            }
+
+            // Every unique key must include the partitioning column, we only change the primary key.
+            final List<String> uniqueKeys = getConstraintNames(context, tableName, "UNIQUE");
+            if (!uniqueKeys.isEmpty()) {
+                throw new RuntimeException(LogUtil.message(
+                        "Unable to partition table '{}' as it has unique keys {}", tableName, uniqueKeys));
+            }
+
+            for (final String foreignKey : getConstraintNames(context, tableName, "FOREIGN KEY")) {
+                LOGGER.info("Dropping foreign key '{}' from table '{}'", foreignKey, tableName);
+                context.execute("ALTER TABLE " + tableName + " DROP FOREIGN KEY " + foreignKey);
+            }
+
+            LOGGER.info("Changing primary key of table '{}' to (id, create_time)", tableName);
+            context.execute("ALTER TABLE " + tableName + " DROP PRIMARY KEY, ADD PRIMARY KEY (id, create_time)");
+
+            final String sql = "ALTER TABLE " + tableName +
+                               " PARTITION BY RANGE (create_time) (" +
+                               createPartitionDefinitions(partitions) +
+                               ")";
+            LOGGER.info("Partitioning table '{}' with '{}'", tableName, sql);
+            context.execute(sql);
+        });
+    }
+
+    @Override
+    public void addPartitions(final PartitionedTable table, final List<MetaPartition> partitions) {
+        final String sql = "ALTER TABLE " + table.getTableName() +
+                           " REORGANIZE PARTITION " + CATCH_ALL_PARTITION_NAME +
+                           " INTO (" +
+                           createPartitionDefinitions(partitions) +
+                           ")";
+        LOGGER.debug("Adding partitions with '{}'", sql);
+        JooqUtil.context(metaDbConnProvider, context -> context.execute(sql));
+    }
+
+    @Override
+    public boolean isPartitionEmpty(final PartitionedTable table, final String partitionName) {
+        final String sql = "SELECT 1 FROM " + table.getTableName() +
+                           " PARTITION (" + validatePartitionName(partitionName) + ") LIMIT 1";
+        return JooqUtil.contextResult(metaDbConnProvider, context -> context.fetch(sql)).isEmpty();
+    }
+
+    @Override
+    public void dropPartitions(final PartitionedTable table, final List<String> partitionNames) {
+        if (partitionNames.isEmpty()) {
+            return;
+        }
+        final String sql = "ALTER TABLE " + table.getTableName() +
+                           " DROP PARTITION " +
+                           partitionNames.stream()
+                                   .map(MetaPartitionDaoImpl::validatePartitionName)
+                                   .collect(Collectors.joining(", "));
+        LOGGER.debug("Dropping partitions with '{}'", sql);
+        JooqUtil.context(metaDbConnProvider, context -> context.execute(sql));
+    }
+
+    private static List<String> getConstraintNames(final DSLContext context,
+                                                   final String tableName,
+                                                   final String constraintType) {
+        return context
+                .fetch("""
+                                SELECT CONSTRAINT_NAME
+                                FROM information_schema.TABLE_CONSTRAINTS
+                                WHERE TABLE_SCHEMA = DATABASE()
+                                AND TABLE_NAME = ?
+                                AND CONSTRAINT_TYPE = ?""",
+                        tableName,
+                        constraintType)
+                .map(record -> record.get(0, String.class));
+    }
+
+    private static String createPartitionDefinitions(final List<MetaPartition> partitions) {
+        final StringBuilder sb = new StringBuilder();
+        for (final MetaPartition partition : partitions) {
+            sb.append("PARTITION ")
+                    .append(validatePartitionName(partition.name()))
+                    .append(" VALUES LESS THAN (")
+                    .append(partition.lessThanMs())
+                    .append("), ");
+        }
+        sb.append("PARTITION ")
+                .append(CATCH_ALL_PARTITION_NAME)
+                .append(" VALUES LESS THAN MAXVALUE");
+        return sb.toString();
+    }
+
+    private static String validatePartitionName(final String partitionName) {
+        if (!VALID_PARTITION_NAME_PATTERN.matcher(partitionName).matches()) {
+            throw new IllegalArgumentException("Invalid partition name '" + partitionName + "'");
+        }
+        return partitionName;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.meta.impl.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A lock free buffer that many threads can append to. Items are added to one of several queues
+ * chosen by the adding thread so that threads rarely contend on the same queue. Items added together
+ * are kept together but there is no ordering between items added by different threads.
+ */
+class StripedBuffer<T> {
+
+    private final List<Queue<T>> stripes;
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicInteger nextDrainStripe = new AtomicInteger();
+
+    StripedBuffer(final int stripeCount) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("stripeCount must be at least 1");
+        }
+        stripes = new ArrayList<>(stripeCount);
+        for (int i = 0; i < stripeCount; i++) {
+            stripes.add(new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    /**
+     * @return The size of the buffer after the items have been added.
+     */
+    int addAll(final Collection<T> items) {
+        if (items.isEmpty()) {
+            return size.get();
+        }
+        final int index = (int) (Thread.currentThread().threadId() % stripes.size());
+        stripes.get(index).addAll(items);
+        return size.addAndGet(items.size());
+    }
+
+    /**
+     * Remove up to maxItems from the buffer.
+     */
+    List<T> drain(final int maxItems) {
+        final List<T> items = new ArrayList<>(Math.min(maxItems, Math.max(0, size.get())));
+        // Start at a different stripe each time so that all stripes are drained fairly.
+        final int start = Math.floorMod(nextDrainStripe.getAndIncrement(), stripes.size());
+        for (int i = 0; i < stripes.size() && items.size() < maxItems; i++) {
+            final Queue<T> stripe = stripes.get((start + i) % stripes.size());
+            T item;
+            while (items.size() < maxItems && (item = stripe.poll()) != null) {
+                items.add(item);
+            }
+        }
+        size.addAndGet(-items.size());
+        return items;
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    void clear() {
+        drain(Integer.MAX_VALUE);
+    }
+}
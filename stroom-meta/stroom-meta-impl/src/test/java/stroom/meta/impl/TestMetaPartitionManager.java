@@ -0,0 +1,101 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.meta.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestMetaPartitionManager {
+
+    private static final long DAY_MS = Duration.ofDays(1).toMillis();
+    private static final Instant NOW = Instant.parse("2024-03-10T13:45:00Z");
+    private static final long TODAY_MS = Instant.parse("2024-03-10T00:00:00Z").toEpochMilli();
+    private static final MetaPartition CATCH_ALL = new MetaPartition("p_future", Long.MAX_VALUE);
+
+    @Test
+    void testPlanInitialPartitions() {
+        final List<MetaPartition> partitions = MetaPartitionManager.planInitialPartitions(NOW, DAY_MS, 2);
+
+        assertThat(partitions).containsExactly(
+                new MetaPartition(MetaPartitionManager.HISTORY_PARTITION_NAME, TODAY_MS),
+                new MetaPartition("p20240310", TODAY_MS + DAY_MS),
+                new MetaPartition("p20240311", TODAY_MS + (2 * DAY_MS)),
+                new MetaPartition("p20240312", TODAY_MS + (3 * DAY_MS)));
+
+        // Nothing more is needed straight after creating the initial partitions.
+        assertThat(MetaPartitionManager.planNewPartitions(withCatchAll(partitions), NOW, DAY_MS, 2))
+                .isEmpty();
+    }
+
+    @Test
+    void testPlanNewPartitions() {
+        final List<MetaPartition> partitions = List.of(
+                new MetaPartition("p20240309", TODAY_MS),
+                new MetaPartition("p20240310", TODAY_MS + DAY_MS),
+                CATCH_ALL);
+
+        assertThat(MetaPartitionManager.planNewPartitions(partitions, NOW, DAY_MS, 2))
+                .containsExactly(
+                        new MetaPartition("p20240311", TODAY_MS + (2 * DAY_MS)),
+                        new MetaPartition("p20240312", TODAY_MS + (3 * DAY_MS)));
+    }
+
+    @Test
+    void testPlanNewPartitions_gap() {
+        // Not run for a while so the gap is covered by one partition.
+        final List<MetaPartition> partitions = List.of(
+                new MetaPartition("p20240301", TODAY_MS - (8 * DAY_MS)),
+                CATCH_ALL);
+
+        assertThat(MetaPartitionManager.planNewPartitions(partitions, NOW, DAY_MS, 1))
+                .containsExactly(
+                        new MetaPartition("p20240302", TODAY_MS),
+                        new MetaPartition("p20240310", TODAY_MS + DAY_MS),
+                        new MetaPartition("p20240311", TODAY_MS + (2 * DAY_MS)));
+    }
+
+    @Test
+    void testPlanExpiredPartitions() {
+        final List<MetaPartition> partitions = List.of(
+                new MetaPartition(MetaPartitionManager.HISTORY_PARTITION_NAME, TODAY_MS - (2 * DAY_MS)),
+                new MetaPartition("p20240308", TODAY_MS - DAY_MS),
+                new MetaPartition("p20240309", TODAY_MS),
+                new MetaPartition("p20240310", TODAY_MS + DAY_MS),
+                CATCH_ALL);
+
+        assertThat(MetaPartitionManager.planExpiredPartitions(partitions, TODAY_MS - DAY_MS))
+                .extracting(MetaPartition::name)
+                .containsExactly(MetaPartitionManager.HISTORY_PARTITION_NAME, "p20240308");
+
+        // The last regular partition is never dropped.
+        assertThat(MetaPartitionManager.planExpiredPartitions(partitions, Long.MAX_VALUE - 1))
+                .extracting(MetaPartition::name)
+                .doesNotContain("p20240310", "p_future");
+    }
+
+    private List<MetaPartition> withCatchAll(final List<MetaPartition> partitions) {
+        return Stream.concat(partitions.stream(), Stream.of(CATCH_ALL))
+                .toList();
+    }
+}
@@ -550,6 +550,15 @@ class TestMetaServiceImpl {
 
     @Test
     void testRetentionDelete_volumeTest() {
+        doRetentionDeleteVolumeTest(1);
+    }
+
+    @Test
+    void testRetentionDelete_volumeTest_parallel() {
+        doRetentionDeleteVolumeTest(4);
+    }
+
+    private void doRetentionDeleteVolumeTest(final int deleteThreadCount) {
 
         LOGGER.info("Loading data");
 
@@ -618,7 +627,9 @@ class TestMetaServiceImpl {
 
         // Use a batch size smaller than the expected number of deletes to ensure we exercise
         // batching
-        dataRetentionConfig = dataRetentionConfig.withDeleteBatchSize(Math.max(1, (expectedRowsDeleted / 2) - 10));
+        dataRetentionConfig = dataRetentionConfig
+                .withDeleteBatchSize(Math.max(1, (expectedRowsDeleted / 2) - 10))
+                .withDeleteThreadCount(deleteThreadCount);
 //        dataRetentionConfig.setDeleteBatchSize(7);
 
         LOGGER.info("Doing data retention delete for period {}, batch size {}",
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.meta.impl.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestStripedBuffer {
+
+    @Test
+    void testAddAndDrain() {
+        final StripedBuffer<Integer> buffer = new StripedBuffer<>(4);
+        assertThat(buffer.addAll(List.of(1, 2, 3))).isEqualTo(3);
+        assertThat(buffer.addAll(List.of())).isEqualTo(3);
+        assertThat(buffer.addAll(List.of(4, 5))).isEqualTo(5);
+
+        assertThat(buffer.drain(2)).hasSize(2);
+        assertThat(buffer.size()).isEqualTo(3);
+        assertThat(buffer.drain(10)).hasSize(3);
+        assertThat(buffer.size()).isZero();
+        assertThat(buffer.drain(10)).isEmpty();
+    }
+
+    @Test
+    void testConcurrentAdd() {
+        final int threads = 8;
+        final int perThread = 10_000;
+        final StripedBuffer<Integer> buffer = new StripedBuffer<>(3);
+        final List<Integer> drained = new ArrayList<>();
+
+        try (final ExecutorService executorService = Executors.newFixedThreadPool(threads)) {
+            final CompletableFuture<?>[] futures = IntStream.range(0, threads)
+                    .mapToObj(thread -> CompletableFuture.runAsync(() -> {
+                        for (int i = 0; i < perThread; i++) {
+                            buffer.addAll(List.of((thread * perThread) + i));
+                        }
+                    }, executorService))
+                    .toArray(CompletableFuture[]::new);
+
+            // Drain while the adds are in progress.
+            while (!CompletableFuture.allOf(futures).isDone()) {
+                drained.addAll(buffer.drain(100));
+            }
+        }
+        drained.addAll(buffer.drain(Integer.MAX_VALUE));
+
+        final Set<Integer> unique = new HashSet<>(drained);
+        assertThat(drained).hasSize(threads * perThread);
+        assertThat(unique).hasSize(threads * perThread);
+        assertThat(buffer.size()).isZero();
+    }
+}
@@ -28,8 +28,11 @@ import stroom.util.xml.ParserConfig;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
+import java.util.Objects;
+
 
 @JsonPropertyOrder(alphabetic = true)
 public class PipelineConfig extends AbstractConfig implements IsStroomConfig {
@@ -42,6 +45,7 @@ public class PipelineConfig extends AbstractConfig implements IsStroomConfig {
     private final CacheConfig httpClientCache;
     private final CacheConfig pipelineDataCache;
     private final CacheConfig documentPermissionCache;
+    private final boolean profileElements;
 
     public PipelineConfig() {
         appenderConfig = new AppenderConfig();
@@ -64,6 +68,7 @@ public class PipelineConfig extends AbstractConfig implements IsStroomConfig {
                 .maximumSize(1000L)
                 .expireAfterWrite(StroomDuration.ofSeconds(30))
                 .build();
+        profileElements = false;
     }
 
     @SuppressWarnings("unused")
@@ -75,7 +80,8 @@ public class PipelineConfig extends AbstractConfig implements IsStroomConfig {
                           @JsonProperty("xslt") final XsltConfig xsltConfig,
                           @JsonProperty("httpClientCache") final CacheConfig httpClientCache,
                           @JsonProperty("pipelineDataCache") final CacheConfig pipelineDataCache,
-                          @JsonProperty("documentPermissionCache") final CacheConfig documentPermissionCache) {
+                          @JsonProperty("documentPermissionCache") final CacheConfig documentPermissionCache,
+                          @JsonProperty("profileElements") final Boolean profileElements) {
         this.appenderConfig = appenderConfig;
         this.parserConfig = parserConfig;
         this.referenceDataConfig = referenceDataConfig;
@@ -84,6 +90,7 @@ public class PipelineConfig extends AbstractConfig implements IsStroomConfig {
         this.httpClientCache = httpClientCache;
         this.pipelineDataCache = pipelineDataCache;
         this.documentPermissionCache = documentPermissionCache;
+        this.profileElements = Objects.requireNonNullElse(profileElements, false);
     }
 
     @JsonProperty("appender")
@@ -122,4 +129,27 @@ public class PipelineConfig extends AbstractConfig implements IsStroomConfig {
     public CacheConfig getDocumentPermissionCache() {
         return documentPermissionCache;
     }
+
+    @JsonProperty
+    @JsonPropertyDescription("If true then the time spent and the bytes allocated by each XML filter and each Stroom " +
+                             "XSLT function are recorded for every pipeline that is not being stepped. The totals " +
+                             "are available per pipeline from the system info API as collapsed stacks suitable " +
+                             "for rendering as a flame graph. Profiling adds a cost to every SAX event so should " +
+                             "only be enabled while diagnosing slow pipelines.")
+    public boolean isProfileElements() {
+        return profileElements;
+    }
+
+    public PipelineConfig withProfileElements(final boolean profileElements) {
+        return new PipelineConfig(
+                appenderConfig,
+                parserConfig,
+                referenceDataConfig,
+                xmlSchemaConfig,
+                xsltConfig,
+                httpClientCache,
+                pipelineDataCache,
+                documentPermissionCache,
+                profileElements);
+    }
 }
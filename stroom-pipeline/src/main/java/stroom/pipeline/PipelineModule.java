@@ -24,13 +24,16 @@ import stroom.event.logging.api.ObjectInfoProviderBinder;
 import stroom.job.api.ScheduledJobsBinder;
 import stroom.lifecycle.api.LifecycleBinder;
 import stroom.pipeline.destination.RollingDestinations;
+import stroom.pipeline.filter.SchemaValidationMetrics;
 import stroom.pipeline.shared.PipelineDoc;
 import stroom.pipeline.textconverter.TextConverterModule;
 import stroom.pipeline.xmlschema.XmlSchemaModule;
 import stroom.pipeline.xslt.XsltModule;
 import stroom.util.RunnableWrapper;
 import stroom.util.guice.GuiceUtil;
+import stroom.util.guice.HasSystemInfoBinder;
 import stroom.util.guice.RestResourcesBinder;
+import stroom.util.shared.Clearable;
 
 import com.google.inject.AbstractModule;
 import jakarta.inject.Inject;
@@ -69,6 +72,13 @@ public class PipelineModule extends AbstractModule {
 
         LifecycleBinder.create(binder())
                 .bindShutdownTaskTo(RollingDestinationsForceRoll.class);
+
+        GuiceUtil.buildMultiBinder(binder(), Clearable.class)
+                .addBinding(SchemaValidationMetrics.class);
+
+        HasSystemInfoBinder.create(binder())
+                .bind(RollingDestinations.class)
+                .bind(SchemaValidationMetrics.class);
     }
 
     private static class PipelineDestinationRoll extends RunnableWrapper {
@@ -19,16 +19,29 @@ package stroom.pipeline.cache;
 public class PoolItem<V> {
     private final PoolKey key;
     private final V value;
+    private final boolean shared;
 
     public PoolItem(final PoolKey key, final V value) {
+        this(key, value, false);
+    }
+
+    PoolItem(final PoolKey key, final V value, final boolean shared) {
         this.key = key;
         this.value = value;
+        this.shared = shared;
     }
 
     PoolKey getKey() {
         return key;
     }
 
+    /**
+     * @return True if this item is used by every borrower at once rather than borrowed exclusively from a pool.
+     */
+    boolean isShared() {
+        return shared;
+    }
+
     public V getValue() {
         return value;
     }
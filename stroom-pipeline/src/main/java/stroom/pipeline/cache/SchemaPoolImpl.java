@@ -17,6 +17,7 @@
 package stroom.pipeline.cache;
 
 import stroom.cache.api.CacheManager;
+import stroom.cache.api.LoadingStroomCache;
 import stroom.pipeline.filter.XmlSchemaConfig;
 import stroom.pipeline.xmlschema.FindXMLSchemaCriteria;
 import stroom.pipeline.xmlschema.XmlSchemaCache;
@@ -46,6 +47,9 @@ class SchemaPoolImpl extends AbstractPoolCache<SchemaKey, StoredSchema>
 
     private final SchemaLoader schemaLoader;
     private final SecurityContext securityContext;
+    private final Provider<XmlSchemaConfig> xmlSchemaConfigProvider;
+    // Compiled schemas are immutable and thread safe so a single instance for each key can be used by every pipeline.
+    private final LoadingStroomCache<SchemaKey, PoolItem<StoredSchema>> sharedCache;
 
     @Inject
     SchemaPoolImpl(final CacheManager cacheManager,
@@ -56,17 +60,35 @@ class SchemaPoolImpl extends AbstractPoolCache<SchemaKey, StoredSchema>
         super(cacheManager, "Schema Pool", () -> xmlSchemaConfigProvider.get().getCacheConfig());
         this.schemaLoader = schemaLoader;
         this.securityContext = securityContext;
+        this.xmlSchemaConfigProvider = xmlSchemaConfigProvider;
+        sharedCache = cacheManager.createLoadingCache(
+                "Shared Schema Cache",
+                () -> xmlSchemaConfigProvider.get().getCacheConfig(),
+                key -> new PoolItem<>(new PoolKey<>(key), internalCreateValue(key), true));
         xmlSchemaCache.addClearHandler(this::clear);
     }
 
     @Override
     public PoolItem<StoredSchema> borrowObject(final SchemaKey key, final boolean usePool) {
+        if (usePool && xmlSchemaConfigProvider.get().isShareCompiledSchemas()) {
+            return sharedCache.get(key);
+        }
         return internalBorrowObject(key, usePool);
     }
 
     @Override
     public void returnObject(final PoolItem<StoredSchema> poolItem, final boolean usePool) {
-        internalReturnObject(poolItem, usePool);
+        // Shared items are never borrowed exclusively so there is nothing to give back. They are marked when they
+        // are created as they may have been evicted from the shared cache by the time they are returned.
+        if (!poolItem.isShared()) {
+            internalReturnObject(poolItem, usePool);
+        }
+    }
+
+    @Override
+    public void clear() {
+        sharedCache.clear();
+        super.clear();
     }
 
     @Override
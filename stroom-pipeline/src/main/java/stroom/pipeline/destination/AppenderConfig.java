@@ -23,6 +23,7 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyDescription;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import jakarta.validation.constraints.Min;
 
 import java.util.Objects;
 
@@ -31,16 +32,22 @@ import java.util.Objects;
 public class AppenderConfig extends AbstractConfig implements IsStroomConfig {
 
     private static final int DEFAULT_MAX_ACTIVE_DESTINATIONS = 100;
+    private static final int DEFAULT_ASYNC_WRITE_QUEUE_CAPACITY = 0;
 
     private final int maxActiveDestinations;
+    private final int asyncWriteQueueCapacity;
 
     public AppenderConfig() {
         maxActiveDestinations = DEFAULT_MAX_ACTIVE_DESTINATIONS;
+        asyncWriteQueueCapacity = DEFAULT_ASYNC_WRITE_QUEUE_CAPACITY;
     }
 
     @JsonCreator
-    public AppenderConfig(@JsonProperty("maxActiveDestinations") final Integer maxActiveDestinations) {
+    public AppenderConfig(@JsonProperty("maxActiveDestinations") final Integer maxActiveDestinations,
+                          @JsonProperty("asyncWriteQueueCapacity") final Integer asyncWriteQueueCapacity) {
         this.maxActiveDestinations = Objects.requireNonNullElse(maxActiveDestinations, DEFAULT_MAX_ACTIVE_DESTINATIONS);
+        this.asyncWriteQueueCapacity = Objects.requireNonNullElse(asyncWriteQueueCapacity,
+                DEFAULT_ASYNC_WRITE_QUEUE_CAPACITY);
     }
 
     @JsonPropertyDescription("The maximum number active destinations that Stroom will allow rolling appenders to be " +
@@ -49,10 +56,22 @@ public class AppenderConfig extends AbstractConfig implements IsStroomConfig {
         return maxActiveDestinations;
     }
 
+    @Min(0)
+    @JsonPropertyDescription("The maximum number of records that can be waiting to be written to each rolling " +
+            "destination. If greater than 0, pipelines hand completed records to a background writer for the " +
+            "destination rather than waiting for exclusive access to it, and destinations are rolled in the " +
+            "background. Pipelines will wait for space if the queue for a destination is full. Errors writing " +
+            "queued records are logged rather than reported to the pipeline. Set to 0 to write records directly " +
+            "from the pipeline.")
+    public int getAsyncWriteQueueCapacity() {
+        return asyncWriteQueueCapacity;
+    }
+
     @Override
     public String toString() {
         return "AppenderConfig{" +
                 "maxActiveDestinations=" + maxActiveDestinations +
+                ", asyncWriteQueueCapacity=" + asyncWriteQueueCapacity +
                 '}';
     }
 }
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.pipeline.destination;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Records waiting to be written to a {@link RollingDestination} by a background writer.
+ * <p>
+ * The queue also counts the pipelines that are currently writing a record for the destination so that a destination
+ * is only rolled once it has been retired and every record written for it has been drained.
+ */
+class DestinationWriteQueue {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition idle = lock.newCondition();
+    private final ArrayDeque<QueuedRecord> records = new ArrayDeque<>();
+
+    private int borrows;
+    private long queuedBytes;
+    private boolean draining;
+    private boolean retired;
+
+    /**
+     * Register a pipeline that is about to write a record for the destination.
+     *
+     * @return False if the destination has been retired and must not be used.
+     */
+    boolean tryBorrow() {
+        lock.lock();
+        try {
+            if (retired) {
+                return false;
+            }
+            borrows++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Add a record to the queue, waiting for space if the queue is full.
+     *
+     * @return True if the caller needs to start a writer to drain the queue.
+     */
+    boolean put(final QueuedRecord record, final int capacity) throws InterruptedException {
+        lock.lock();
+        try {
+            try {
+                while (records.size() >= Math.max(1, capacity)) {
+                    notFull.await();
+                }
+            } finally {
+                // We are no longer writing whatever happens.
+                borrows--;
+                idle.signalAll();
+            }
+
+            records.add(record);
+            queuedBytes += record.bytes().length;
+
+            if (draining) {
+                return false;
+            }
+            draining = true;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Release a borrow without queueing a record.
+     */
+    void release() {
+        lock.lock();
+        try {
+            borrows--;
+            idle.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Take the next records to write. If there are none then the writer must stop as the next record added will start
+     * a new one.
+     */
+    List<QueuedRecord> takeBatch(final int max) {
+        lock.lock();
+        try {
+            if (records.isEmpty()) {
+                draining = false;
+                idle.signalAll();
+                return Collections.emptyList();
+            }
+
+            final List<QueuedRecord> batch = new ArrayList<>(Math.min(max, records.size()));
+            while (batch.size() < max && !records.isEmpty()) {
+                final QueuedRecord record = records.poll();
+                queuedBytes -= record.bytes().length;
+                batch.add(record);
+            }
+            notFull.signalAll();
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stop any more pipelines from borrowing the destination.
+     *
+     * @return True if this call retired the destination, false if it had already been retired.
+     */
+    boolean retire() {
+        lock.lock();
+        try {
+            if (retired) {
+                return false;
+            }
+            retired = true;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait until nobody is writing a record for the destination and every queued record has been written.
+     */
+    void awaitIdle() throws InterruptedException {
+        lock.lock();
+        try {
+            while (borrows > 0 || draining || !records.isEmpty()) {
+                idle.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return records.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long getQueuedBytes() {
+        lock.lock();
+        try {
+            return queuedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    record QueuedRecord(byte[] header, byte[] footer, byte[] bytes) {
+
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.pipeline.destination;
+
+import stroom.pipeline.destination.DestinationWriteQueue.QueuedRecord;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+
+/**
+ * The destination given to a pipeline when records are written asynchronously. The record is buffered in memory and
+ * handed to the write queue of the underlying {@link RollingDestination} when the destination is returned.
+ */
+class QueuedDestination implements Destination {
+
+    private final RollingDestination rollingDestination;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private byte[] header;
+    private byte[] footer;
+
+    QueuedDestination(final RollingDestination rollingDestination) {
+        this.rollingDestination = rollingDestination;
+    }
+
+    RollingDestination getRollingDestination() {
+        return rollingDestination;
+    }
+
+    @Override
+    public OutputStream getOutputStream() {
+        return getOutputStream(null, null);
+    }
+
+    @Override
+    public OutputStream getOutputStream(final byte[] header, final byte[] footer) {
+        this.header = header;
+        this.footer = footer;
+        return buffer;
+    }
+
+    QueuedRecord toRecord() {
+        return new QueuedRecord(header, footer, buffer.toByteArray());
+    }
+
+    @Override
+    public String toString() {
+        return rollingDestination.toString();
+    }
+}
@@ -46,6 +46,7 @@ public abstract class RollingDestination implements Destination {
     private volatile Instant lastFlushTime;
 
     private final ReentrantLock lock = new ReentrantLock();
+    private final DestinationWriteQueue writeQueue = new DestinationWriteQueue();
 
     private volatile boolean rolled;
 
@@ -85,6 +86,10 @@ public abstract class RollingDestination implements Destination {
         lock.unlock();
     }
 
+    DestinationWriteQueue getWriteQueue() {
+        return writeQueue;
+    }
+
     protected final Object getKey() {
         return key;
     }
@@ -161,6 +166,33 @@ public abstract class RollingDestination implements Destination {
         return rolled;
     }
 
+    /**
+     * Used when records are written asynchronously to find out if this destination should be retired and rolled in
+     * the background.
+     *
+     * @return True if this destination has already been rolled or is due to be rolled.
+     */
+    boolean isRollDue(final Instant currentTime) {
+        return rolled || shouldRoll(currentTime);
+    }
+
+    /**
+     * Flush this destination if it hasn't been flushed for a while, without rolling it.
+     */
+    void flushIfDue(final Instant currentTime) throws IOException {
+        if (!rolled && shouldFlush(currentTime)) {
+            flush();
+        }
+    }
+
+    /**
+     * Child classes that can't exist at the same time as their replacement, e.g. because they write to the same
+     * file, must return true so that a replacement isn't created until this destination has finished rolling.
+     */
+    protected boolean isRollRequiredBeforeReplacement() {
+        return false;
+    }
+
     private boolean shouldFlush(final Instant currentTime) {
         final Instant lastFlushTime = this.lastFlushTime;
         this.lastFlushTime = currentTime;
@@ -168,8 +200,9 @@ public abstract class RollingDestination implements Destination {
     }
 
     private boolean shouldRoll(final Instant currentTime) {
+        // Include any records that are queued to be written so that we don't overshoot the roll size.
         return (oldestAllowed != null && currentTime.isAfter(oldestAllowed)) ||
-                output.getCurrentOutputSize() > rollSize;
+                output.getCurrentOutputSize() + writeQueue.getQueuedBytes() > rollSize;
     }
 
     protected final void roll() throws IOException {
@@ -16,9 +16,16 @@
 
 package stroom.pipeline.destination;
 
+import stroom.pipeline.destination.DestinationWriteQueue.QueuedRecord;
 import stroom.pipeline.errorhandler.ProcessException;
 import stroom.security.api.SecurityContext;
+import stroom.task.api.ExecutorProvider;
 import stroom.task.api.TaskContextFactory;
+import stroom.task.api.ThreadPoolImpl;
+import stroom.task.shared.ThreadPool;
+import stroom.util.concurrent.UncheckedInterruptedException;
+import stroom.util.sysinfo.HasSystemInfo;
+import stroom.util.sysinfo.SystemInfoResult;
 
 import jakarta.inject.Inject;
 import jakarta.inject.Provider;
@@ -27,34 +34,74 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Manages the rolling destinations that pipelines write to.
+ * <p>
+ * By default a pipeline has exclusive use of a destination while it writes a record and rolls the destination itself
+ * if it is due. If {@link AppenderConfig#getAsyncWriteQueueCapacity()} is greater than 0 then pipelines instead
+ * buffer each record and hand it to a queue for the destination which is drained by a background writer. Destinations
+ * that are due to roll are retired and rolled in the background once all of their queued records are written.
+ */
 @Singleton
-public class RollingDestinations {
+public class RollingDestinations implements HasSystemInfo {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RollingDestinations.class);
 
     private static final int MAX_TRY_COUNT = 1000;
+    private static final int MAX_WRITE_BATCH = 100;
+    private static final long PENDING_ROLL_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(1);
+    private static final ThreadPool WRITER_THREAD_POOL = new ThreadPoolImpl("Rolling Destination Writer#");
+    private static final ThreadPool ROLL_THREAD_POOL = new ThreadPoolImpl("Rolling Destination Roll#");
 
     private static final ConcurrentHashMap<Object, RollingDestination> currentDestinations = new ConcurrentHashMap<>();
 
+    // Rolls that must finish before a new destination can be created for the same key.
+    private final ConcurrentHashMap<Object, CompletableFuture<Void>> pendingRolls = new ConcurrentHashMap<>();
+    private final Set<CompletableFuture<Void>> activeRolls = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder blockedWrites = new LongAdder();
+    private final LongAdder blockedNanos = new LongAdder();
+    private final LongAdder writeFailures = new LongAdder();
+    private final LongAdder rolls = new LongAdder();
+    private final LongAdder rollNanos = new LongAdder();
+    private final AtomicLong maxRollNanos = new AtomicLong();
+
     private final Provider<AppenderConfig> appenderConfigProvider;
     private final TaskContextFactory taskContextFactory;
     private final SecurityContext securityContext;
+    private final ExecutorProvider executorProvider;
 
     @Inject
     public RollingDestinations(final Provider<AppenderConfig> appenderConfigProvider,
                                final TaskContextFactory taskContextFactory,
-                               final SecurityContext securityContext) {
+                               final SecurityContext securityContext,
+                               final ExecutorProvider executorProvider) {
         this.appenderConfigProvider = appenderConfigProvider;
         this.taskContextFactory = taskContextFactory;
         this.securityContext = securityContext;
+        this.executorProvider = executorProvider;
     }
 
-    public RollingDestination borrow(final Object key,
-                                     final RollingDestinationFactory destinationFactory) throws IOException {
+    public Destination borrow(final Object key,
+                              final RollingDestinationFactory destinationFactory) throws IOException {
+        if (isAsync()) {
+            return borrowQueued(key, destinationFactory);
+        }
+
         // Get a destination for this key. Try and get an existing one or create
         // a new one if required.
         RollingDestination destination = null;
@@ -67,10 +114,40 @@ public class RollingDestinations {
         return destination;
     }
 
+    private boolean isAsync() {
+        return appenderConfigProvider.get().getAsyncWriteQueueCapacity() > 0;
+    }
+
     private RollingDestination getDestination(final Object key,
                                               final RollingDestinationFactory destinationFactory) throws IOException {
         // Try and get an existing destination for the key or create one if necessary.
-        final RollingDestination destination = currentDestinations.computeIfAbsent(key, k -> {
+        final RollingDestination destination = getOrCreateDestination(key, destinationFactory);
+        if (destination == null) {
+            return null;
+        }
+
+        // Try and roll the destination as there are some cases where a destination needs to be rolled
+        // immediately after creation.
+        return lockAndRoll(key, destination);
+    }
+
+    /**
+     * Get the current destination for the key, creating one if there isn't one. The destination is created by the
+     * calling pipeline as creating it may depend on the pipeline state.
+     *
+     * @return The destination or null if a new destination can't be created yet.
+     */
+    private RollingDestination getOrCreateDestination(final Object key,
+                                                      final RollingDestinationFactory destinationFactory) {
+        // Wait for any previous destination for this key to roll if the new one can't exist alongside it.
+        awaitPendingRoll(key);
+
+        return currentDestinations.computeIfAbsent(key, k -> {
+            // Another destination may have been retired since we waited.
+            if (pendingRolls.containsKey(key)) {
+                return null;
+            }
+
             try {
                 final int maxActiveDestinations = appenderConfigProvider.get().getMaxActiveDestinations();
 
@@ -87,10 +164,24 @@ public class RollingDestinations {
                 throw new UncheckedIOException(e);
             }
         });
+    }
 
-        // Try and roll the destination as there are some cases where a destination needs to be rolled
-        // immediately after creation.
-        return lockAndRoll(key, destination);
+    private void awaitPendingRoll(final Object key) {
+        final CompletableFuture<Void> pendingRoll = pendingRolls.get(key);
+        if (pendingRoll != null) {
+            try {
+                pendingRoll.get(PENDING_ROLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw UncheckedInterruptedException.create(e);
+            } catch (final ExecutionException e) {
+                LOGGER.debug(e.getMessage(), e);
+            } catch (final TimeoutException e) {
+                // Fail the pipeline rather than hold it up indefinitely behind a roll that is stuck.
+                throw ProcessException.create("Timed out waiting for the previous destination for '" + key +
+                                              "' to roll");
+            }
+        }
     }
 
     /**
@@ -113,6 +204,7 @@ public class RollingDestinations {
         dest.lock();
 
         boolean rolled = true;
+        final long startNanos = System.nanoTime();
         try {
             // Try and roll the destination.
             rolled = dest.tryFlushAndRoll(false, Instant.now());
@@ -120,6 +212,7 @@ public class RollingDestinations {
         } finally {
             // If we rolled the destination then remove it and unlock it.
             if (rolled) {
+                recordRoll(startNanos);
                 removeDestination(key, dest);
                 dest.unlock();
                 dest = null;
@@ -129,8 +222,171 @@ public class RollingDestinations {
         return dest;
     }
 
-    public void returnDestination(final RollingDestination destination) {
-        destination.unlock();
+    private Destination borrowQueued(final Object key,
+                                     final RollingDestinationFactory destinationFactory) {
+        final Instant currentTime = Instant.now();
+
+        // Try a number of times to get a destination.
+        for (int i = 0; i < MAX_TRY_COUNT; i++) {
+            final RollingDestination destination = getOrCreateDestination(key, destinationFactory);
+            if (destination != null) {
+                if (destination.isRollDue(currentTime)) {
+                    retire(key, destination);
+                } else if (destination.getWriteQueue().tryBorrow()) {
+                    return new QueuedDestination(destination);
+                }
+            }
+        }
+
+        return null;
+    }
+
+    public void returnDestination(final Destination destination) {
+        if (destination instanceof final QueuedDestination queuedDestination) {
+            enqueue(queuedDestination);
+        } else {
+            ((RollingDestination) destination).unlock();
+        }
+    }
+
+    private void enqueue(final QueuedDestination queuedDestination) {
+        final RollingDestination destination = queuedDestination.getRollingDestination();
+        final DestinationWriteQueue writeQueue = destination.getWriteQueue();
+        final boolean full;
+        final long startNanos;
+        final boolean startWriter;
+        boolean borrowed = true;
+        try {
+            final QueuedRecord record = queuedDestination.toRecord();
+            final int capacity = appenderConfigProvider.get().getAsyncWriteQueueCapacity();
+
+            full = writeQueue.size() >= capacity;
+            startNanos = System.nanoTime();
+            // Put ends the borrow whatever happens.
+            borrowed = false;
+            startWriter = writeQueue.put(record, capacity);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw UncheckedInterruptedException.create(e);
+        } finally {
+            if (borrowed) {
+                // We failed before queueing the record so release the borrow or the destination can't be rolled.
+                writeQueue.release();
+            }
+        }
+        if (full) {
+            blockedWrites.increment();
+            blockedNanos.add(System.nanoTime() - startNanos);
+        }
+
+        if (startWriter) {
+            try {
+                executorProvider.get(WRITER_THREAD_POOL).execute(() -> drain(destination));
+            } catch (final RejectedExecutionException e) {
+                // Write the records ourselves rather than leave them stranded.
+                LOGGER.debug(e.getMessage(), e);
+                drain(destination);
+            }
+        }
+    }
+
+    /**
+     * Write queued records to the destination until the queue is empty.
+     */
+    private void drain(final RollingDestination destination) {
+        securityContext.asProcessingUser(() -> {
+            final DestinationWriteQueue writeQueue = destination.getWriteQueue();
+            List<QueuedRecord> batch = writeQueue.takeBatch(MAX_WRITE_BATCH);
+            while (!batch.isEmpty()) {
+                write(destination, batch);
+                batch = writeQueue.takeBatch(MAX_WRITE_BATCH);
+            }
+        });
+    }
+
+    private void write(final RollingDestination destination, final List<QueuedRecord> batch) {
+        destination.lock();
+        try {
+            for (final QueuedRecord record : batch) {
+                try {
+                    final OutputStream outputStream = destination.getOutputStream(record.header(), record.footer());
+                    if (outputStream == null) {
+                        throw new IOException("Destination has already been rolled");
+                    }
+                    outputStream.write(record.bytes());
+                } catch (final IOException | RuntimeException e) {
+                    writeFailures.increment();
+                    LOGGER.error("Error writing record to '{}': {}", destination, e.getMessage(), e);
+                }
+            }
+        } finally {
+            destination.unlock();
+        }
+    }
+
+    /**
+     * Stop pipelines using this destination and roll it in the background once every record written for it has
+     * been drained.
+     */
+    private void retire(final Object key, final RollingDestination destination) {
+        // Only the first caller to retire the destination rolls it.
+        if (!destination.getWriteQueue().retire()) {
+            return;
+        }
+
+        // Register the roll before we remove the destination so that nobody can create a replacement that would
+        // clash with it.
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        activeRolls.add(future);
+        if (destination.isRollRequiredBeforeReplacement()) {
+            pendingRolls.put(key, future);
+        }
+        removeDestination(key, destination);
+
+        final Runnable rollTask = () -> {
+            try {
+                rollRetired(destination);
+            } finally {
+                pendingRolls.remove(key, future);
+                activeRolls.remove(future);
+                future.complete(null);
+            }
+        };
+        try {
+            executorProvider.get(ROLL_THREAD_POOL).execute(rollTask);
+        } catch (final RejectedExecutionException e) {
+            LOGGER.debug(e.getMessage(), e);
+            rollTask.run();
+        }
+    }
+
+    private void rollRetired(final RollingDestination destination) {
+        securityContext.asProcessingUser(() -> {
+            try {
+                destination.getWriteQueue().awaitIdle();
+
+                final long startNanos = System.nanoTime();
+                destination.lock();
+                try {
+                    destination.tryFlushAndRoll(true, Instant.now());
+                } finally {
+                    destination.unlock();
+                    recordRoll(startNanos);
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LOGGER.error("Interrupted waiting to roll '{}'", destination, e);
+            } catch (final IOException | RuntimeException e) {
+                LOGGER.error(e.getMessage(), e);
+            }
+        });
+    }
+
+    private void recordRoll(final long startNanos) {
+        final long elapsed = System.nanoTime() - startNanos;
+        rolls.increment();
+        rollNanos.add(elapsed);
+        maxRollNanos.accumulateAndGet(elapsed, Math::max);
     }
 
     private void removeDestination(final Object key, final RollingDestination destination) {
@@ -156,49 +412,109 @@ public class RollingDestinations {
         LOGGER.debug("rollAll()");
 
         final Instant currentTime = Instant.now();
-        currentDestinations.forEach(1, (key, destination) -> {
-            // We have to do this here as foreach runs multiple threads so each thread needs to run as proc user
-            securityContext.asProcessingUser(() -> {
-                // Try and lock this destination as we can't flush or roll it if
-                // another thread has the lock.
-                boolean rolled = false;
-                if (destination.tryLock()) {
-                    try {
-                        try {
-                            rolled = destination.tryFlushAndRoll(force, currentTime);
-                        } catch (final IOException | RuntimeException e) {
-                            rolled = true;
-                            LOGGER.error(e.getMessage(), e);
-                        }
-
-                        if (rolled) {
-                            removeDestination(key, destination);
-                        }
-
-                    } finally {
-                        destination.unlock();
+        if (isAsync()) {
+            rollAllQueued(force, currentTime);
+        } else {
+            currentDestinations.forEach(1, (key, destination) -> {
+                // We have to do this here as foreach runs multiple threads so each thread needs to run as proc user
+                securityContext.asProcessingUser(() -> {
+                    // Try and lock this destination as we can't flush or roll it if
+                    // another thread has the lock.
+                    boolean rolled = false;
+                    if (destination.tryLock()) {
+                        rolled = tryFlushAndRoll(key, destination, force, currentTime);
                     }
-                }
 
-                if (force && !rolled) {
-                    destination.lock();
-                    try {
-                        try {
-                            rolled = destination.tryFlushAndRoll(force, currentTime);
-                        } catch (final IOException | RuntimeException e) {
-                            rolled = true;
-                            LOGGER.error(e.getMessage(), e);
-                        }
-
-                        if (rolled) {
-                            removeDestination(key, destination);
-                        }
-
-                    } finally {
-                        destination.unlock();
+                    if (force && !rolled) {
+                        destination.lock();
+                        tryFlushAndRoll(key, destination, force, currentTime);
                     }
-                }
+                });
             });
+        }
+
+        if (force) {
+            // Make sure background rolls have finished before we return.
+            CompletableFuture.allOf(activeRolls.toArray(new CompletableFuture[0])).join();
+        }
+    }
+
+    /**
+     * Flush and roll a destination that the current thread has locked, releasing the lock afterwards.
+     *
+     * @return True if the destination was rolled.
+     */
+    private boolean tryFlushAndRoll(final Object key,
+                                    final RollingDestination destination,
+                                    final boolean force,
+                                    final Instant currentTime) {
+        boolean rolled;
+        final long startNanos = System.nanoTime();
+        try {
+            try {
+                rolled = destination.tryFlushAndRoll(force, currentTime);
+            } catch (final IOException | RuntimeException e) {
+                rolled = true;
+                LOGGER.error(e.getMessage(), e);
+            }
+
+            if (rolled) {
+                recordRoll(startNanos);
+                removeDestination(key, destination);
+            }
+
+        } finally {
+            destination.unlock();
+        }
+        return rolled;
+    }
+
+    private void rollAllQueued(final boolean force, final Instant currentTime) {
+        currentDestinations.forEach((key, destination) -> {
+            if (force || destination.isRollDue(currentTime)) {
+                retire(key, destination);
+            } else if (destination.tryLock()) {
+                // Flush the destination if it is idle, it will be flushed next time otherwise.
+                try {
+                    destination.flushIfDue(currentTime);
+                } catch (final IOException | RuntimeException e) {
+                    LOGGER.error(e.getMessage(), e);
+                } finally {
+                    destination.unlock();
+                }
+            }
         });
     }
+
+    @Override
+    public SystemInfoResult getSystemInfo() {
+        int queuedRecords = 0;
+        long queuedBytes = 0;
+        int maxQueueDepth = 0;
+        for (final RollingDestination destination : currentDestinations.values()) {
+            final DestinationWriteQueue writeQueue = destination.getWriteQueue();
+            final int size = writeQueue.size();
+            queuedRecords += size;
+            queuedBytes += writeQueue.getQueuedBytes();
+            maxQueueDepth = Math.max(maxQueueDepth, size);
+        }
+
+        final long rollCount = rolls.sum();
+        return SystemInfoResult.builder(this)
+                .addDetail("asyncWriteQueueCapacity", appenderConfigProvider.get().getAsyncWriteQueueCapacity())
+                .addDetail("activeDestinations", currentDestinations.size())
+                .addDetail("queuedRecords", queuedRecords)
+                .addDetail("queuedBytes", queuedBytes)
+                .addDetail("maxQueueDepth", maxQueueDepth)
+                .addDetail("blockedWrites", blockedWrites.sum())
+                .addDetail("totalBlockedMs", TimeUnit.NANOSECONDS.toMillis(blockedNanos.sum()))
+                .addDetail("writeFailures", writeFailures.sum())
+                .addDetail("pendingRolls", activeRolls.size())
+                .addDetail("rolls", rollCount)
+                .addDetail("averageRollMs", rollCount > 0
+                        ? rollNanos.sum() / rollCount / 1_000_000.0
+                        : 0)
+                .addDetail("maxRollMs", TimeUnit.NANOSECONDS.toMillis(maxRollNanos.get()))
+                .build();
+    }
 }
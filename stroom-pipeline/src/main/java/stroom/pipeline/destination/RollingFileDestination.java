@@ -110,6 +110,12 @@ public class RollingFileDestination extends RollingDestination {
         }
     }
 
+    @Override
+    protected boolean isRollRequiredBeforeReplacement() {
+        // The replacement would write to the same file.
+        return true;
+    }
+
     private OutputStream createInnerOutputStream() {
         try {
             final OutputStream fileOutputStream = Files.newOutputStream(
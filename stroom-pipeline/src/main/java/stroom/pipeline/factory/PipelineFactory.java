@@ -20,6 +20,7 @@ import stroom.docref.DocRef;
 import stroom.pipeline.SupportsCodeInjection;
 import stroom.pipeline.destination.DestinationProvider;
 import stroom.pipeline.errorhandler.ErrorReceiverProxy;
+import stroom.pipeline.factory.PipelineTemplate.ElementTemplate;
 import stroom.pipeline.filter.SAXEventRecorder;
 import stroom.pipeline.filter.SAXRecordDetector;
 import stroom.pipeline.filter.SplitFilter;
@@ -40,6 +41,7 @@ import stroom.pipeline.shared.data.PipelineReference;
 import stroom.pipeline.shared.stepping.PipelineStepRequest;
 import stroom.pipeline.shared.stepping.SteppingFilterSettings;
 import stroom.pipeline.source.SourceElement;
+import stroom.pipeline.state.PipelineHolder;
 import stroom.pipeline.stepping.ElementMonitor;
 import stroom.pipeline.stepping.Recorder;
 import stroom.pipeline.stepping.SteppingController;
@@ -71,16 +73,25 @@ public class PipelineFactory {
     private final ElementFactory elementFactory;
     private final ProcessorFactory processorFactory;
     private final ErrorReceiverProxy errorReceiverProxy;
+    private final PipelineTemplateCache pipelineTemplateCache;
+    private final PipelineProfiles pipelineProfiles;
+    private final PipelineHolder pipelineHolder;
 
     @Inject
     public PipelineFactory(final ElementRegistryFactory pipelineElementRegistryFactory,
                            final ElementFactory elementFactory,
                            final ProcessorFactory processorFactory,
-                           final ErrorReceiverProxy errorReceiverProxy) {
+                           final ErrorReceiverProxy errorReceiverProxy,
+                           final PipelineTemplateCache pipelineTemplateCache,
+                           final PipelineProfiles pipelineProfiles,
+                           final PipelineHolder pipelineHolder) {
         this.pipelineElementRegistryFactory = pipelineElementRegistryFactory;
         this.elementFactory = elementFactory;
         this.processorFactory = processorFactory;
         this.errorReceiverProxy = errorReceiverProxy;
+        this.pipelineTemplateCache = pipelineTemplateCache;
+        this.pipelineProfiles = pipelineProfiles;
+        this.pipelineHolder = pipelineHolder;
 
         if (processorFactory == null) {
             throw new NullPointerException("processorFactory is null");
@@ -100,58 +111,40 @@ public class PipelineFactory {
                            final SteppingController controller) {
         final ElementRegistry pipelineElementRegistry = pipelineElementRegistryFactory.get();
 
-        // If we are stepping then we don't want to use the cache.
         // Create an instance of each element.
         final Map<String, Element> elementInstances = new HashMap<>();
         final Map<Element, PipelineElementType> elementTypeMap = new HashMap<>();
-        final Map<String, Set<String>> linkSets = new HashMap<>();
-
-        for (final PipelineElement element : pipelineData.getAddedElements()) {
-            LOGGER.debug("create() - loading element {}", element);
-
-            final Class<Element> elementClass = pipelineElementRegistry.getElementClass(element.getType());
-
-            if (elementClass == null) {
-                throw new PipelineFactoryException("Unable to load elementClass for type " + element.getType());
-            }
-
-            final Element elementInstance = elementFactory.getElementInstance(elementClass);
-
-            if (elementInstance == null) {
-                throw new PipelineFactoryException("Unable to load elementInstance for class " + elementClass);
+        final Map<String, Set<String>> linkSets;
+
+        if (controller == null) {
+            // Reuse the element classes, property values and links that were resolved the first time this pipeline
+            // was used.
+            final PipelineTemplate template = pipelineTemplateCache.get(pipelineElementRegistry, pipelineData);
+            for (final ElementTemplate elementTemplate : template.getElements()) {
+                final PipelineElement element = elementTemplate.getElement();
+                LOGGER.debug("create() - loading element {}", element);
+
+                final Element elementInstance = createElementInstance(element,
+                        elementTemplate.getElementClass(),
+                        terminator);
+                elementTemplate.configure(elementInstance);
+
+                // Store the instance.
+                elementInstances.put(element.getId(), elementInstance);
+                elementTypeMap.put(elementInstance, elementTemplate.getElementType());
             }
+            linkSets = template.getLinkSets();
 
-            // Set the id on the pipeline element for use in tracing
-            // errors, intercepting input/output etc.
-            elementInstance.setElementId(element.getElementId());
-
-            // Set an object to provide quick processing termination if needed.
-            elementInstance.setTerminator(terminator);
-
-            // Set the properties on this instance.
-            setProperties(pipelineElementRegistry,
-                    element.getId(),
-                    element.getType(),
-                    elementInstance,
+        } else {
+            // If we are stepping then we don't want to use the cache.
+            linkSets = new HashMap<>();
+            createSteppingElements(pipelineElementRegistry,
                     pipelineData,
-                    controller);
-
-            // Set the pipeline references on this instance.
-            setPipelineReferences(pipelineElementRegistry, element.getId(), element.getType(), elementInstance,
-                    pipelineData);
-
-            // Store the instance.
-            elementInstances.put(element.getId(), elementInstance);
-            elementTypeMap.put(elementInstance, pipelineElementRegistry.getElementType(element.getType()));
-
-            // Record links.
-            final Set<String> linkSet = new HashSet<>();
-            linkSets.put(element.getId(), linkSet);
-            for (final PipelineLink link : pipelineData.getAddedLinks()) {
-                if (link.getFrom().equals(element.getId())) {
-                    linkSet.add(link.getTo());
-                }
-            }
+                    terminator,
+                    controller,
+                    elementInstances,
+                    elementTypeMap,
+                    linkSets);
         }
 
         // Get the source element.
@@ -168,11 +161,24 @@ public class PipelineFactory {
             controllerSplitDepth = Math.max(controllerSplitDepth, 1);
         }
 
+        // Profile the elements if required, we never profile when stepping.
+        final PipelineProfiler profiler = controller == null && pipelineProfiles.isEnabled()
+                ? new PipelineProfiler(sourceElement.getElementId().getId())
+                : null;
+        if (profiler != null) {
+            elementInstances.values().forEach(element -> {
+                if (element instanceof final SupportsProfiling supportsProfiling) {
+                    supportsProfiling.setProfiler(profiler);
+                }
+            });
+        }
+
         // Link the instances.
         link(elementInstances,
                 elementTypeMap,
                 linkSets,
                 controller,
+                profiler,
                 sourceElement,
                 sourceElement.getElementId(),
                 controllerSplitDepth);
@@ -195,7 +201,72 @@ public class PipelineFactory {
             controller.getRecordDetector().setController(controller);
         }
 
-        return new PipelineImpl(processorFactory, elementInstances, root, controller != null);
+        return new PipelineImpl(processorFactory, elementInstances, root, controller != null, profiler,
+                () -> pipelineProfiles.record(pipelineHolder.getPipeline(), profiler));
+    }
+
+    private void createSteppingElements(final ElementRegistry pipelineElementRegistry,
+                                        final PipelineData pipelineData,
+                                        final Terminator terminator,
+                                        final SteppingController controller,
+                                        final Map<String, Element> elementInstances,
+                                        final Map<Element, PipelineElementType> elementTypeMap,
+                                        final Map<String, Set<String>> linkSets) {
+        for (final PipelineElement element : pipelineData.getAddedElements()) {
+            LOGGER.debug("create() - loading element {}", element);
+
+            final Class<Element> elementClass = pipelineElementRegistry.getElementClass(element.getType());
+
+            if (elementClass == null) {
+                throw new PipelineFactoryException("Unable to load elementClass for type " + element.getType());
+            }
+
+            final Element elementInstance = createElementInstance(element, elementClass, terminator);
+
+            // Set the properties on this instance.
+            setProperties(pipelineElementRegistry,
+                    element.getId(),
+                    element.getType(),
+                    elementInstance,
+                    pipelineData,
+                    controller);
+
+            // Set the pipeline references on this instance.
+            setPipelineReferences(pipelineElementRegistry, element.getId(), element.getType(), elementInstance,
+                    pipelineData);
+
+            // Store the instance.
+            elementInstances.put(element.getId(), elementInstance);
+            elementTypeMap.put(elementInstance, pipelineElementRegistry.getElementType(element.getType()));
+
+            // Record links.
+            final Set<String> linkSet = new HashSet<>();
+            linkSets.put(element.getId(), linkSet);
+            for (final PipelineLink link : pipelineData.getAddedLinks()) {
+                if (link.getFrom().equals(element.getId())) {
+                    linkSet.add(link.getTo());
+                }
+            }
+        }
+    }
+
+    private Element createElementInstance(final PipelineElement element,
+                                          final Class<Element> elementClass,
+                                          final Terminator terminator) {
+        final Element elementInstance = elementFactory.getElementInstance(elementClass);
+
+        if (elementInstance == null) {
+            throw new PipelineFactoryException("Unable to load elementInstance for class " + elementClass);
+        }
+
+        // Set the id on the pipeline element for use in tracing
+        // errors, intercepting input/output etc.
+        elementInstance.setElementId(element.getElementId());
+
+        // Set an object to provide quick processing termination if needed.
+        elementInstance.setTerminator(terminator);
+
+        return elementInstance;
     }
 
     /**
@@ -234,40 +305,19 @@ public class PipelineFactory {
                 // Allow this method to be invoked.
                 method.setAccessible(true);
 
-                Object obj = null;
-                if (value != null) {
-                    final Class<?> paramType = method.getParameterTypes()[0];
-                    if (boolean.class.isAssignableFrom(paramType) || Boolean.class.isAssignableFrom(paramType)) {
-                        obj = value.getBoolean();
-                    } else if (int.class.isAssignableFrom(paramType) || Integer.class.isAssignableFrom(paramType)) {
-                        obj = value.getInteger();
-                    } else if (long.class.isAssignableFrom(paramType) || Long.class.isAssignableFrom(paramType)) {
-                        obj = value.getLong();
-                    } else if (String.class.isAssignableFrom(paramType)) {
-                        obj = value.getString();
-                    } else if (DocRef.class.isAssignableFrom(paramType)) {
-                        // Load an entity by id.
-                        final DocRef docRef = value.getEntity();
-                        if (docRef != null) {
-                            obj = docRef;
-
-                            // Modify properties of element instance if we are
-                            // stepping and have code to insert.
-                            if (controller != null) {
-                                final PipelineStepRequest request = controller.getRequest();
-                                if (request.getCode() != null && !request.getCode().isEmpty()) {
-                                    final String code = request.getCode().get(id);
-                                    if (code != null) {
-                                        if (elementInstance instanceof
-                                                final SupportsCodeInjection supportsCodeInjection) {
-                                            supportsCodeInjection.setInjectedCode(code);
-                                        }
-                                    }
-                                }
+                final Object obj = PipelineTemplate.convertValue(method, value);
+
+                // Modify properties of element instance if we are
+                // stepping and have code to insert.
+                if (obj instanceof DocRef && controller != null) {
+                    final PipelineStepRequest request = controller.getRequest();
+                    if (request.getCode() != null && !request.getCode().isEmpty()) {
+                        final String code = request.getCode().get(id);
+                        if (code != null) {
+                            if (elementInstance instanceof final SupportsCodeInjection supportsCodeInjection) {
+                                supportsCodeInjection.setInjectedCode(code);
                             }
                         }
-                    } else {
-                        throw new PipelineFactoryException("Unknown param type: " + paramType);
                     }
                 }
 
@@ -325,6 +375,7 @@ public class PipelineFactory {
                       final Map<Element, PipelineElementType> elementTypeMap,
                       final Map<String, Set<String>> linkSets,
                       final SteppingController controller,
+                      final PipelineProfiler profiler,
                       final Element parentElement,
                       final ElementId parentElementId,
                       final int controllerSplitDepth) {
@@ -362,6 +413,9 @@ public class PipelineFactory {
                     fragment = insertRecordDetector(elementType, fragment, true, controller);
                     fragment = insertRecordDetector(elementType, fragment, false, controller);
                 }
+            } else if (profiler != null && childElement instanceof final XMLFilter filter) {
+                // Record the time spent in this filter, downstream filters will be its child frames.
+                fragment = new Fragment(new ProfilingFilter(profiler, filter), childElement);
             }
 
             // Continue to link the children of this child.
@@ -369,6 +423,7 @@ public class PipelineFactory {
                     elementTypeMap,
                     linkSets,
                     controller,
+                    profiler,
                     fragment.getOut(),
                     elementId,
                     controllerSplitDepth);
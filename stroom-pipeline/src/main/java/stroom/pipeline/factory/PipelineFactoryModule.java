@@ -17,6 +17,7 @@
 package stroom.pipeline.factory;
 
 import stroom.util.guice.GuiceUtil;
+import stroom.util.guice.HasSystemInfoBinder;
 import stroom.util.shared.Clearable;
 
 import com.google.inject.AbstractModule;
@@ -31,6 +32,13 @@ public class PipelineFactoryModule extends AbstractModule {
         bind(PipelineStackLoader.class).to(PipelineStackLoaderImpl.class);
         bind(ProcessorFactory.class).to(ProcessorFactoryImpl.class);
 
-        GuiceUtil.buildMultiBinder(binder(), Clearable.class).addBinding(PipelineDataCacheImpl.class);
+        GuiceUtil.buildMultiBinder(binder(), Clearable.class)
+                .addBinding(PipelineDataCacheImpl.class)
+                .addBinding(PipelineTemplateCache.class)
+                .addBinding(PipelineProfiles.class);
+
+        HasSystemInfoBinder.create(binder())
+                .bind(PipelineTemplateCache.class)
+                .bind(PipelineProfiles.class);
     }
 }
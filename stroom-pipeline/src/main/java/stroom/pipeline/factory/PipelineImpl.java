@@ -31,16 +31,25 @@ public class PipelineImpl implements Pipeline {
     private final Map<String, Element> elementInstances;
     private final TakesInput rootElement;
     private final boolean stepping;
+    private final PipelineProfiler profiler;
+    private final Runnable profileRecorder;
 
     private boolean externallyStartedProcessing;
     private boolean externallyStartedStream;
 
+    /**
+     * @param profiler        The profiler recording the time spent in each element or null if we are not profiling.
+     * @param profileRecorder Records the profile of this pipeline each time processing ends, only used when profiling.
+     */
     public PipelineImpl(final ProcessorFactory processorFactory, final Map<String, Element> elementInstances,
-                        final TakesInput rootElement, final boolean stepping) {
+                        final TakesInput rootElement, final boolean stepping,
+                        final PipelineProfiler profiler, final Runnable profileRecorder) {
         this.processorFactory = processorFactory;
         this.elementInstances = elementInstances;
         this.rootElement = rootElement;
         this.stepping = stepping;
+        this.profiler = profiler;
+        this.profileRecorder = profileRecorder;
     }
 
     @Override
@@ -72,7 +81,13 @@ public class PipelineImpl implements Pipeline {
     }
 
     private void internalEndProcessing() {
-        rootElement.endProcessing();
+        try {
+            rootElement.endProcessing();
+        } finally {
+            if (profiler != null) {
+                profileRecorder.run();
+            }
+        }
     }
 
     private void internalStartStream() {
@@ -126,7 +141,17 @@ public class PipelineImpl implements Pipeline {
                             "that require piped IO to process them");
                 }
 
-                processor.process();
+                if (profiler != null) {
+                    // Time everything that isn't done by a profiled filter against the root frame.
+                    profiler.enterRoot();
+                    try {
+                        processor.process();
+                    } finally {
+                        profiler.exit();
+                    }
+                } else {
+                    processor.process();
+                }
 
             } finally {
                 if (!externallyStartedStream) {
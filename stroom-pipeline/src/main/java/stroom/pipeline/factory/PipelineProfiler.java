@@ -0,0 +1,205 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.pipeline.factory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Records the time spent and the bytes allocated in each profiled frame of a single pipeline instance.
+ * <p>
+ * Frames are entered and exited by the {@link ProfilingFilter} wrapped around each XML filter and by the Stroom XSLT
+ * functions, so nested frames form a stack such as {@code Source;myXslt;stroom:lookup}. For each distinct stack we
+ * keep the self time and self allocation, i.e. the totals minus those of any child frames, which is exactly what a
+ * collapsed stack file for a flame graph needs. Each thread has its own stack so forked pipelines and parallel
+ * transforms can be profiled, with frames entered on a thread that has no open frame becoming children of the root.
+ */
+public class PipelineProfiler {
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = getAllocationThreadMXBean();
+
+    private final Frame root;
+    private final ThreadLocal<CallStack> callStacks = ThreadLocal.withInitial(CallStack::new);
+
+    public PipelineProfiler(final String rootName) {
+        this.root = new Frame(rootName, rootName);
+    }
+
+    /**
+     * Open a frame with the supplied name as a child of the current frame on this thread.
+     */
+    public void enter(final String name) {
+        final CallStack callStack = callStacks.get();
+        final Frame parent = callStack.depth == 0
+                ? root
+                : callStack.frames[callStack.depth - 1];
+        callStack.push(parent.getChild(name), System.nanoTime(), allocatedBytes());
+    }
+
+    /**
+     * Close the frame most recently opened on this thread.
+     */
+    public void exit() {
+        final long nanos = System.nanoTime();
+        final long bytes = allocatedBytes();
+        final CallStack callStack = callStacks.get();
+        if (callStack.depth > 0) {
+            callStack.pop(nanos, bytes);
+        }
+    }
+
+    /**
+     * Time and count the root frame itself, e.g. the parsing done by the source and parser elements before XML
+     * reaches any of the profiled filters.
+     */
+    public void enterRoot() {
+        final CallStack callStack = callStacks.get();
+        if (callStack.depth == 0) {
+            callStack.push(root, System.nanoTime(), allocatedBytes());
+        } else {
+            // Keep enter and exit calls balanced.
+            enter(root.name);
+        }
+    }
+
+    /**
+     * Supply the totals of every frame that has been exited since the last call to the consumer and reset them, so
+     * that totals are never reported twice if a pipeline is used for more than one round of processing.
+     */
+    public void drain(final Consumer<FrameTotals> consumer) {
+        root.drain(consumer);
+    }
+
+    private static long allocatedBytes() {
+        if (THREAD_MX_BEAN == null) {
+            return 0;
+        }
+        return THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+    }
+
+    private static com.sun.management.ThreadMXBean getAllocationThreadMXBean() {
+        try {
+            final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+            if (threadMXBean instanceof final com.sun.management.ThreadMXBean allocationThreadMXBean &&
+                allocationThreadMXBean.isThreadAllocatedMemorySupported() &&
+                allocationThreadMXBean.isThreadAllocatedMemoryEnabled()) {
+                return allocationThreadMXBean;
+            }
+        } catch (final RuntimeException | LinkageError e) {
+            // Allocation tracking is not available on this JVM so we will only record time.
+        }
+        return null;
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    public record FrameTotals(String stack, long calls, long selfNanos, long selfBytes) {
+
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    private static class Frame {
+
+        private final String name;
+        private final String stack;
+        private final Map<String, Frame> children = new ConcurrentHashMap<>();
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder selfNanos = new LongAdder();
+        private final LongAdder selfBytes = new LongAdder();
+
+        private Frame(final String name, final String stack) {
+            this.name = name;
+            this.stack = stack;
+        }
+
+        private Frame getChild(final String name) {
+            final Frame child = children.get(name);
+            if (child != null) {
+                return child;
+            }
+            return children.computeIfAbsent(name, k -> new Frame(k, stack + ";" + k));
+        }
+
+        private void record(final long selfNanos, final long selfBytes) {
+            this.calls.increment();
+            this.selfNanos.add(selfNanos);
+            this.selfBytes.add(selfBytes);
+        }
+
+        private void drain(final Consumer<FrameTotals> consumer) {
+            final long callCount = calls.sumThenReset();
+            if (callCount > 0) {
+                consumer.accept(new FrameTotals(stack, callCount, selfNanos.sumThenReset(), selfBytes.sumThenReset()));
+            }
+            children.values().forEach(child -> child.drain(consumer));
+        }
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    private static class CallStack {
+
+        private Frame[] frames = new Frame[16];
+        private long[] startNanos = new long[16];
+        private long[] startBytes = new long[16];
+        private long[] childNanos = new long[16];
+        private long[] childBytes = new long[16];
+        private int depth;
+
+        void push(final Frame frame, final long nanos, final long bytes) {
+            if (depth == frames.length) {
+                final int length = depth * 2;
+                frames = Arrays.copyOf(frames, length);
+                startNanos = Arrays.copyOf(startNanos, length);
+                startBytes = Arrays.copyOf(startBytes, length);
+                childNanos = Arrays.copyOf(childNanos, length);
+                childBytes = Arrays.copyOf(childBytes, length);
+            }
+            frames[depth] = frame;
+            startNanos[depth] = nanos;
+            startBytes[depth] = bytes;
+            childNanos[depth] = 0;
+            childBytes[depth] = 0;
+            depth++;
+        }
+
+        void pop(final long nanos, final long bytes) {
+            depth--;
+            final long totalNanos = nanos - startNanos[depth];
+            final long totalBytes = bytes - startBytes[depth];
+            frames[depth].record(totalNanos - childNanos[depth], totalBytes - childBytes[depth]);
+            frames[depth] = null;
+            if (depth > 0) {
+                childNanos[depth - 1] += totalNanos;
+                childBytes[depth - 1] += totalBytes;
+            }
+        }
+    }
+}
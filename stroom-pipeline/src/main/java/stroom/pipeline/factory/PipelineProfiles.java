@@ -0,0 +1,235 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.pipeline.factory;
+
+import stroom.docref.DocRef;
+import stroom.pipeline.PipelineConfig;
+import stroom.pipeline.factory.PipelineProfiler.FrameTotals;
+import stroom.util.shared.Clearable;
+import stroom.util.sysinfo.HasSystemInfo;
+import stroom.util.sysinfo.SystemInfoResult;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+import jakarta.inject.Singleton;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregates the {@link PipelineProfiler} totals of every profiled pipeline run by pipeline document and exposes
+ * them through system info. Profiling is enabled with {@link PipelineConfig#isProfileElements()}.
+ * <p>
+ * With no parameters the system info lists the profiled pipelines. Given a pipeline name or UUID it returns the
+ * lines of a collapsed stack file, e.g. {@code Source;translation;stroom:lookup 1234}, that can be saved and fed
+ * straight into flame graph tools. The values are self time in microseconds or, with {@code type=allocation}, self
+ * allocation in bytes.
+ */
+@Singleton
+public class PipelineProfiles implements Clearable, HasSystemInfo {
+
+    private static final String PARAM_NAME_PIPELINE = "pipeline";
+    private static final String PARAM_NAME_TYPE = "type";
+    private static final String TYPE_TIME = "time";
+    private static final String TYPE_ALLOCATION = "allocation";
+    private static final String UNKNOWN_PIPELINE_UUID = "unknown";
+
+    private final Provider<PipelineConfig> pipelineConfigProvider;
+    private final Map<String, PipelineProfile> profiles = new ConcurrentHashMap<>();
+
+    @Inject
+    public PipelineProfiles(final Provider<PipelineConfig> pipelineConfigProvider) {
+        this.pipelineConfigProvider = pipelineConfigProvider;
+    }
+
+    public boolean isEnabled() {
+        return pipelineConfigProvider.get().isProfileElements();
+    }
+
+    /**
+     * Add the totals recorded by a profiler since it was last recorded to the totals for the pipeline.
+     */
+    public void record(final DocRef pipelineRef, final PipelineProfiler profiler) {
+        final String uuid = pipelineRef != null && pipelineRef.getUuid() != null
+                ? pipelineRef.getUuid()
+                : UNKNOWN_PIPELINE_UUID;
+        final PipelineProfile profile = profiles.computeIfAbsent(uuid, k -> new PipelineProfile(pipelineRef));
+        profile.runs.increment();
+        profiler.drain(profile::add);
+    }
+
+    @Override
+    public void clear() {
+        profiles.clear();
+    }
+
+    @Override
+    public SystemInfoResult getSystemInfo(final Map<String, String> params) {
+        final String pipeline = params.get(PARAM_NAME_PIPELINE);
+        if (pipeline != null) {
+            final String type = Objects.requireNonNullElse(params.get(PARAM_NAME_TYPE), TYPE_TIME);
+            if (!TYPE_TIME.equals(type) && !TYPE_ALLOCATION.equals(type)) {
+                throw new IllegalArgumentException("Unknown type '" + type + "', expected '" + TYPE_TIME +
+                                                   "' or '" + TYPE_ALLOCATION + "'");
+            }
+
+            final PipelineProfile profile = findProfile(pipeline);
+            if (profile == null) {
+                throw new IllegalArgumentException("No profile found for pipeline '" + pipeline + "'");
+            }
+
+            return SystemInfoResult.builder(this)
+                    .description("Collapsed stacks for pipeline '" + profile.getName() + "'")
+                    .addDetail("pipeline", profile.getName())
+                    .addDetail("uuid", profile.uuid)
+                    .addDetail("runs", profile.runs.sum())
+                    .addDetail("type", type)
+                    .addDetail("collapsedStacks", profile.getCollapsedStacks(TYPE_ALLOCATION.equals(type)))
+                    .build();
+        }
+
+        final List<Map<String, Object>> pipelines = profiles.values()
+                .stream()
+                .sorted(Comparator.comparing(PipelineProfile::getName))
+                .map(PipelineProfile::getSummary)
+                .toList();
+        return SystemInfoResult.builder(this)
+                .description("List of profiled pipelines")
+                .addDetail("enabled", isEnabled())
+                .addDetail("pipelines", pipelines)
+                .build();
+    }
+
+    @Override
+    public SystemInfoResult getSystemInfo() {
+        return getSystemInfo(Collections.emptyMap());
+    }
+
+    @Override
+    public List<ParamInfo> getParamInfo() {
+        return List.of(
+                ParamInfo.optionalParam(PARAM_NAME_PIPELINE,
+                        "The name or UUID of the pipeline to get collapsed stacks for. " +
+                        "If not supplied a list of profiled pipelines will be returned."),
+                ParamInfo.optionalParam(PARAM_NAME_TYPE,
+                        "Either '" + TYPE_TIME + "' for self time in microseconds or '" + TYPE_ALLOCATION +
+                        "' for self allocation in bytes, default is '" + TYPE_TIME + "'."));
+    }
+
+    @Override
+    public List<NamedParamCombination> getNamedParamCombinations() {
+        return profiles.values()
+                .stream()
+                .map(profile -> new NamedParamCombination(PARAM_NAME_PIPELINE, profile.uuid))
+                .toList();
+    }
+
+    private PipelineProfile findProfile(final String pipeline) {
+        final PipelineProfile profile = profiles.get(pipeline);
+        if (profile != null) {
+            return profile;
+        }
+        return profiles.values()
+                .stream()
+                .filter(p -> pipeline.equals(p.getName()))
+                .findFirst()
+                .orElse(null);
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    private static class PipelineProfile {
+
+        private final String uuid;
+        private final String name;
+        private final LongAdder runs = new LongAdder();
+        private final Map<String, StackTotals> stacks = new ConcurrentHashMap<>();
+
+        private PipelineProfile(final DocRef pipelineRef) {
+            this.uuid = pipelineRef != null && pipelineRef.getUuid() != null
+                    ? pipelineRef.getUuid()
+                    : UNKNOWN_PIPELINE_UUID;
+            this.name = pipelineRef != null && pipelineRef.getName() != null
+                    ? pipelineRef.getName()
+                    : uuid;
+        }
+
+        private String getName() {
+            return name;
+        }
+
+        private void add(final FrameTotals frameTotals) {
+            final StackTotals totals = stacks.computeIfAbsent(frameTotals.stack(), k -> new StackTotals());
+            totals.calls.add(frameTotals.calls());
+            totals.selfNanos.add(frameTotals.selfNanos());
+            totals.selfBytes.add(frameTotals.selfBytes());
+        }
+
+        private List<String> getCollapsedStacks(final boolean allocation) {
+            return stacks.entrySet()
+                    .stream()
+                    .sorted(Map.Entry.comparingByKey())
+                    .map(entry -> {
+                        final StackTotals totals = entry.getValue();
+                        final long value = allocation
+                                ? totals.selfBytes.sum()
+                                : totals.selfNanos.sum() / 1_000;
+                        return entry.getKey() + " " + Math.max(0, value);
+                    })
+                    .toList();
+        }
+
+        private Map<String, Object> getSummary() {
+            long calls = 0;
+            long nanos = 0;
+            long bytes = 0;
+            for (final StackTotals totals : stacks.values()) {
+                calls += totals.calls.sum();
+                nanos += totals.selfNanos.sum();
+                bytes += totals.selfBytes.sum();
+            }
+            final Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("name", name);
+            summary.put("uuid", uuid);
+            summary.put("runs", runs.sum());
+            summary.put("calls", calls);
+            summary.put("totalMs", nanos / 1_000_000);
+            summary.put("totalAllocatedBytes", bytes);
+            return summary;
+        }
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    private static class StackTotals {
+
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder selfNanos = new LongAdder();
+        private final LongAdder selfBytes = new LongAdder();
+    }
+}
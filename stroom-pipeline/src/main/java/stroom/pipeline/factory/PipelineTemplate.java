@@ -0,0 +1,209 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.pipeline.factory;
+
+import stroom.docref.DocRef;
+import stroom.pipeline.shared.data.PipelineData;
+import stroom.pipeline.shared.data.PipelineElement;
+import stroom.pipeline.shared.data.PipelineElementType;
+import stroom.pipeline.shared.data.PipelineLink;
+import stroom.pipeline.shared.data.PipelineProperty;
+import stroom.pipeline.shared.data.PipelinePropertyValue;
+import stroom.pipeline.shared.data.PipelineReference;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Everything about building a pipeline that does not depend on the task it is built for, i.e. the element classes,
+ * the setter and converted value for every property and pipeline reference, and the links between elements.
+ * <p>
+ * Resolving these means scanning all properties, references and links for every element so we do it once per
+ * pipeline structure and then only need to create and configure element instances for each task.
+ */
+class PipelineTemplate {
+
+    private final List<ElementTemplate> elements;
+    private final Map<String, Set<String>> linkSets;
+
+    private PipelineTemplate(final List<ElementTemplate> elements,
+                             final Map<String, Set<String>> linkSets) {
+        this.elements = elements;
+        this.linkSets = linkSets;
+    }
+
+    static PipelineTemplate create(final ElementRegistry pipelineElementRegistry,
+                                   final PipelineData pipelineData) {
+        // Group properties, references and links by the element they belong to.
+        final Map<String, List<PipelineProperty>> propertyMap = new HashMap<>();
+        for (final PipelineProperty property : pipelineData.getAddedProperties()) {
+            propertyMap.computeIfAbsent(property.getElement(), k -> new ArrayList<>()).add(property);
+        }
+        final Map<String, List<PipelineReference>> referenceMap = new HashMap<>();
+        for (final PipelineReference reference : pipelineData.getAddedPipelineReferences()) {
+            referenceMap.computeIfAbsent(reference.getElement(), k -> new ArrayList<>()).add(reference);
+        }
+        final Map<String, Set<String>> linkMap = new HashMap<>();
+        for (final PipelineLink link : pipelineData.getAddedLinks()) {
+            linkMap.computeIfAbsent(link.getFrom(), k -> new HashSet<>()).add(link.getTo());
+        }
+
+        final List<ElementTemplate> elements = new ArrayList<>();
+        final Map<String, Set<String>> linkSets = new HashMap<>();
+        for (final PipelineElement element : pipelineData.getAddedElements()) {
+            final Class<Element> elementClass = pipelineElementRegistry.getElementClass(element.getType());
+            if (elementClass == null) {
+                throw new PipelineFactoryException("Unable to load elementClass for type " + element.getType());
+            }
+
+            final List<Setter> setters = new ArrayList<>();
+            for (final PipelineProperty property : propertyMap.getOrDefault(element.getId(), List.of())) {
+                // Some methods might be removed so ignore them if they don't exist.
+                final Method method = pipelineElementRegistry.getMethod(element.getType(), property.getName());
+                if (method != null) {
+                    setters.add(new Setter(method, convertValue(method, property.getValue())));
+                }
+            }
+            for (final PipelineReference reference : referenceMap.getOrDefault(element.getId(), List.of())) {
+                final Method method = pipelineElementRegistry.getMethod(element.getType(), reference.getName());
+                if (method != null) {
+                    setters.add(new Setter(method, reference));
+                }
+            }
+
+            elements.add(new ElementTemplate(element,
+                    elementClass,
+                    pipelineElementRegistry.getElementType(element.getType()),
+                    List.copyOf(setters)));
+            linkSets.put(element.getId(),
+                    Collections.unmodifiableSet(linkMap.getOrDefault(element.getId(), new HashSet<>())));
+        }
+
+        return new PipelineTemplate(List.copyOf(elements), Collections.unmodifiableMap(linkSets));
+    }
+
+    /**
+     * Convert a property value into the type expected by the property setter.
+     */
+    static Object convertValue(final Method method, final PipelinePropertyValue value) {
+        if (value == null) {
+            return null;
+        }
+
+        final Class<?> paramType = method.getParameterTypes()[0];
+        if (boolean.class.isAssignableFrom(paramType) || Boolean.class.isAssignableFrom(paramType)) {
+            return value.getBoolean();
+        } else if (int.class.isAssignableFrom(paramType) || Integer.class.isAssignableFrom(paramType)) {
+            return value.getInteger();
+        } else if (long.class.isAssignableFrom(paramType) || Long.class.isAssignableFrom(paramType)) {
+            return value.getLong();
+        } else if (String.class.isAssignableFrom(paramType)) {
+            return value.getString();
+        } else if (DocRef.class.isAssignableFrom(paramType)) {
+            return value.getEntity();
+        }
+        throw new PipelineFactoryException("Unknown param type: " + paramType);
+    }
+
+    List<ElementTemplate> getElements() {
+        return elements;
+    }
+
+    Map<String, Set<String>> getLinkSets() {
+        return linkSets;
+    }
+
+    int getElementCount() {
+        return elements.size();
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    static class ElementTemplate {
+
+        private final PipelineElement element;
+        private final Class<Element> elementClass;
+        private final PipelineElementType elementType;
+        private final List<Setter> setters;
+
+        private ElementTemplate(final PipelineElement element,
+                                final Class<Element> elementClass,
+                                final PipelineElementType elementType,
+                                final List<Setter> setters) {
+            this.element = element;
+            this.elementClass = elementClass;
+            this.elementType = elementType;
+            this.setters = setters;
+        }
+
+        PipelineElement getElement() {
+            return element;
+        }
+
+        Class<Element> getElementClass() {
+            return elementClass;
+        }
+
+        PipelineElementType getElementType() {
+            return elementType;
+        }
+
+        /**
+         * Set the properties and pipeline references on a newly created element instance.
+         */
+        void configure(final Element elementInstance) {
+            for (final Setter setter : setters) {
+                setter.apply(elementInstance);
+            }
+        }
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    private static class Setter {
+
+        private final Method method;
+        private final Object value;
+
+        private Setter(final Method method, final Object value) {
+            // Allow this method to be invoked.
+            method.setAccessible(true);
+            this.method = method;
+            this.value = value;
+        }
+
+        void apply(final Object elementInstance) {
+            try {
+                method.invoke(elementInstance, value);
+            } catch (final InvocationTargetException | IllegalAccessException e) {
+                throw new PipelineFactoryException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.pipeline.factory;
+
+import stroom.pipeline.shared.data.PipelineData;
+import stroom.util.shared.Clearable;
+import stroom.util.sysinfo.HasSystemInfo;
+import stroom.util.sysinfo.SystemInfoResult;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.inject.Singleton;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Holds a {@link PipelineTemplate} for each pipeline structure so that the elements of a pipeline only need to be
+ * resolved the first time a task uses it.
+ * <p>
+ * The {@link PipelineData} instances returned by {@link PipelineDataCache} are shared by every task using the same
+ * version of a pipeline so we key on the instances themselves, by identity, and hold them weakly. The content based
+ * equals and hashCode of {@link PipelineData} would be expensive for a large pipeline. When a pipeline changes its
+ * cached data is replaced and the old template becomes unreachable.
+ */
+@Singleton
+public class PipelineTemplateCache implements Clearable, HasSystemInfo {
+
+    // Weak keys are compared by identity.
+    private final Cache<PipelineData, PipelineTemplate> cache = Caffeine.newBuilder()
+            .weakKeys()
+            .build();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    PipelineTemplate get(final ElementRegistry pipelineElementRegistry,
+                         final PipelineData pipelineData) {
+        PipelineTemplate template = cache.getIfPresent(pipelineData);
+        if (template != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            // Concurrent misses for the same pipeline may each build a template, the last one put wins.
+            template = PipelineTemplate.create(pipelineElementRegistry, pipelineData);
+            cache.put(pipelineData, template);
+        }
+        return template;
+    }
+
+    @Override
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public SystemInfoResult getSystemInfo() {
+        final long hitCount = hits.sum();
+        final long missCount = misses.sum();
+        final long total = hitCount + missCount;
+        return SystemInfoResult.builder(this)
+                .addDetail("templates", cache.estimatedSize())
+                .addDetail("hits", hitCount)
+                .addDetail("misses", missCount)
+                .addDetail("hitRate", total > 0
+                        ? (double) hitCount / total
+                        : 0D)
+                .build();
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.pipeline.factory;
+
+import stroom.pipeline.filter.XMLFilter;
+import stroom.task.api.Terminator;
+import stroom.util.shared.ElementId;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+
+import java.util.List;
+
+/**
+ * Inserted in front of an XML filter when profiling so that the time spent and bytes allocated by the filter, and
+ * by all of the filters downstream of it, are recorded by the {@link PipelineProfiler}.
+ */
+class ProfilingFilter implements XMLFilter {
+
+    private final PipelineProfiler profiler;
+    private final XMLFilter filter;
+    private final String name;
+
+    ProfilingFilter(final PipelineProfiler profiler, final XMLFilter filter) {
+        this.profiler = profiler;
+        this.filter = filter;
+        this.name = filter.getElementId().getId();
+    }
+
+    @Override
+    public void startProcessing() {
+        profiler.enter(name);
+        try {
+            filter.startProcessing();
+        } finally {
+            profiler.exit();
+        }
+    }
+
+    @Override
+    public void endProcessing() {
+        profiler.enter(name);
+        try {
+            filter.endProcessing();
+        } finally {
+            profiler.exit();
+        }
+    }
+
+    @Override
+    public void startStream() {
+        profiler.enter(name);
+        try {
+            filter.startStream();
+        } finally {
+            profiler.exit();
+        }
+    }
+
+    @Override
+    public void endStream() {
+        profiler.enter(name);
+        try {
+            filter.endStream();
+        } finally {
+            profiler.exit();
+        }
+    }
+
+    @Override
+    public List<Processor> createProcessors() {
+        return filter.createProcessors();
+    }
+
+    @Override
+    public void setTerminator(final Terminator terminator) {
+        filter.setTerminator(terminator);
+    }
+
+    @Override
+    public ElementId getElementId() {
+        return filter.getElementId();
+    }
+
+    @Override
+    public void setElementId(final ElementId elementId) {
+        filter.setElementId(elementId);
+    }
+
+    @Override
+    public void setDocumentLocator(final Locator locator) {
+        filter.setDocumentLocator(locator);
+    }
+
+    @Override
+    public void startDocument() throws SAXException {
+        profiler.enter(name);
+        try {
+            filter.startDocument();
+        } finally {
+            profiler.exit();
+        }
+    }
+
+    @Override
+    public void endDocument() throws SAXException {
+        profiler.enter(name);
+        try {
+            filter.endDocument();
+        } finally {
+            profiler.exit();
+        }
+    }
+
+    @Override
+    public void startPrefixMapping(final String prefix, final String uri) throws SAXException {
+        profiler.enter(name);
+        try {
+            filter.startPrefixMapping(prefix, uri);
+        } finally {
+            profiler.exit();
+        }
+    }
+
+    @Override
+    public void endPrefixMapping(final String prefix) throws SAXException {
+        profiler.enter(name);
+        try {
+            filter.endPrefixMapping(prefix);
+        } finally {
+            profiler.exit();
+        }
+    }
+
+    @Override
+    public void startElement(final String uri,
+                             final String localName,
+                             final String qName,
+                             final Attributes atts) throws SAXException {
+        profiler.enter(name);
+        try {
+            filter.startElement(uri, localName, qName, atts);
+        } finally {
+            profiler.exit();
+        }
+    }
+
+    @Override
+    public void endElement(final String uri, final String localName, final String qName) throws SAXException {
+        profiler.enter(name);
+        try {
+            filter.endElement(uri, localName, qName);
+        } finally {
+            profiler.exit();
+        }
+    }
+
+    @Override
+    public void characters(final char[] ch, final int start, final int length) throws SAXException {
+        profiler.enter(name);
+        try {
+            filter.characters(ch, start, length);
+        } finally {
+            profiler.exit();
+        }
+    }
+
+    @Override
+    public void ignorableWhitespace(final char[] ch, final int start, final int length) throws SAXException {
+        profiler.enter(name);
+        try {
+            filter.ignorableWhitespace(ch, start, length);
+        } finally {
+            profiler.exit();
+        }
+    }
+
+    @Override
+    public void processingInstruction(final String target, final String data) throws SAXException {
+        profiler.enter(name);
+        try {
+            filter.processingInstruction(target, data);
+        } finally {
+            profiler.exit();
+        }
+    }
+
+    @Override
+    public void skippedEntity(final String name) throws SAXException {
+        profiler.enter(this.name);
+        try {
+            filter.skippedEntity(name);
+        } finally {
+            profiler.exit();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ProfilingFilter{" +
+               "filter=" + filter +
+               '}';
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.pipeline.factory;
+
+/**
+ * An element that records work of its own, e.g. Stroom XSLT function calls, against the profiler of the pipeline
+ * it belongs to. The profiler is given to each element directly as more than one pipeline can be created in the same
+ * pipeline scope.
+ */
+public interface SupportsProfiling {
+
+    /**
+     * Only called if the pipeline is being profiled.
+     */
+    void setProfiler(PipelineProfiler profiler);
+}
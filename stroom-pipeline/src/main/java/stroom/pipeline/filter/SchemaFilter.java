@@ -25,6 +25,7 @@ import stroom.pipeline.errorhandler.ErrorHandlerAdaptor;
 import stroom.pipeline.errorhandler.ErrorReceiverProxy;
 import stroom.pipeline.errorhandler.LoggedException;
 import stroom.pipeline.state.PipelineContext;
+import stroom.pipeline.state.PipelineHolder;
 import stroom.pipeline.xmlschema.FindXMLSchemaCriteria;
 import stroom.pipeline.xmlschema.XmlSchemaCache;
 import stroom.pipeline.xmlschema.XmlSchemaCache.SchemaSet;
@@ -66,6 +67,8 @@ public class SchemaFilter extends AbstractXMLFilter implements Locator {
     private final ErrorReceiverProxy errorReceiverProxy;
     private final LocationFactoryProxy locationFactory;
     private final PipelineContext pipelineContext;
+    private final PipelineHolder pipelineHolder;
+    private final SchemaValidationMetrics schemaValidationMetrics;
 
     private final Map<String, String> prefixes = new TreeMap<>();
     private final CharBuffer sb = new CharBuffer(10);
@@ -83,18 +86,31 @@ public class SchemaFilter extends AbstractXMLFilter implements Locator {
     private boolean schemaValidation = true;
     private boolean useOriginalLocator;
     private Locator locator;
+    private int validationSamplePercent = 100;
+    private int sampleAccumulator;
+    private boolean validateDocument = true;
+    // Counted here and added to the shared metrics at the end of processing.
+    private boolean timeValidation;
+    private long validatedRecords;
+    private long skippedRecords;
+    private long timedRecords;
+    private long validationNanos;
 
     @Inject
     public SchemaFilter(final SchemaPool schemaPool,
                         final XmlSchemaCache xmlSchemaCache,
                         final ErrorReceiverProxy errorReceiverProxy,
                         final LocationFactoryProxy locationFactory,
-                        final PipelineContext pipelineContext) {
+                        final PipelineContext pipelineContext,
+                        final PipelineHolder pipelineHolder,
+                        final SchemaValidationMetrics schemaValidationMetrics) {
         this.schemaPool = schemaPool;
         this.xmlSchemaCache = xmlSchemaCache;
         this.errorReceiverProxy = errorReceiverProxy;
         this.locationFactory = locationFactory;
         this.pipelineContext = pipelineContext;
+        this.pipelineHolder = pipelineHolder;
+        this.schemaValidationMetrics = schemaValidationMetrics;
     }
 
     /**
@@ -128,6 +144,13 @@ public class SchemaFilter extends AbstractXMLFilter implements Locator {
             schemaLocations = null;
             prefixes.clear();
             validator = null;
+            sampleAccumulator = 0;
+            validateDocument = true;
+            timeValidation = schemaValidationMetrics.isTimingEnabled();
+            validatedRecords = 0;
+            skippedRecords = 0;
+            timedRecords = 0;
+            validationNanos = 0;
         } finally {
             super.startProcessing();
         }
@@ -136,6 +159,8 @@ public class SchemaFilter extends AbstractXMLFilter implements Locator {
     @Override
     public void endProcessing() {
         try {
+            schemaValidationMetrics.record(
+                    pipelineHolder.getPipeline(), validatedRecords, skippedRecords, timedRecords, validationNanos);
             // Return the current schema to the pool if we have one.
             returnCurrentSchema();
         } finally {
@@ -179,8 +204,14 @@ public class SchemaFilter extends AbstractXMLFilter implements Locator {
     @Override
     public void startDocument() throws SAXException {
         try {
-            if (validator != null) {
+            // The first document is always validated as it is the one that finds the schema and reports any
+            // problems with the schema locations.
+            validateDocument = validator == null || sampleDocument();
+
+            if (isValidating()) {
+                final long startTime = startTiming();
                 validator.startDocument();
+                endTiming(startTime);
             }
         } catch (final RuntimeException e) {
             unexpectedError("startDocument()", e);
@@ -198,8 +229,16 @@ public class SchemaFilter extends AbstractXMLFilter implements Locator {
     @Override
     public void endDocument() throws SAXException {
         try {
-            if (validator != null) {
+            if (isValidating()) {
+                final long startTime = startTiming();
                 validator.endDocument();
+                endTiming(startTime);
+                validatedRecords++;
+                if (timeValidation) {
+                    timedRecords++;
+                }
+            } else if (validator != null) {
+                skippedRecords++;
             }
         } catch (final RuntimeException e) {
             unexpectedError("endDocument()", e);
@@ -222,8 +261,10 @@ public class SchemaFilter extends AbstractXMLFilter implements Locator {
         try {
             prefixes.put(prefix, uri);
 
-            if (validator != null) {
+            if (isValidating()) {
+                final long startTime = startTiming();
                 validator.startPrefixMapping(prefix, uri);
+                endTiming(startTime);
             }
         } catch (final RuntimeException e) {
             unexpectedError("startPrefixMapping()", e);
@@ -244,8 +285,10 @@ public class SchemaFilter extends AbstractXMLFilter implements Locator {
         try {
             prefixes.remove(prefix);
 
-            if (validator != null) {
+            if (isValidating()) {
+                final long startTime = startTiming();
                 validator.endPrefixMapping(prefix);
+                endTiming(startTime);
             }
         } catch (final RuntimeException e) {
             unexpectedError("endPrefixMapping()", e);
@@ -286,8 +329,10 @@ public class SchemaFilter extends AbstractXMLFilter implements Locator {
 
             storeSchemaLocations(uri, atts);
 
-            if (validator != null) {
+            if (isValidating()) {
+                final long startTime = startTiming();
                 validator.startElement(uri, localName, qName, atts);
+                endTiming(startTime);
             }
         } catch (final RuntimeException e) {
             unexpectedError("startElement()", e);
@@ -330,8 +375,10 @@ public class SchemaFilter extends AbstractXMLFilter implements Locator {
             }
             inStartElement = false;
 
-            if (validator != null) {
+            if (isValidating()) {
+                final long startTime = startTiming();
                 validator.endElement(uri, localName, qName);
+                endTiming(startTime);
             }
         } catch (final RuntimeException e) {
             unexpectedError("endElement()", e);
@@ -354,8 +401,10 @@ public class SchemaFilter extends AbstractXMLFilter implements Locator {
     public void characters(final char[] ch, final int start, final int length) throws SAXException {
         try {
             colNo += length;
-            if (validator != null) {
+            if (isValidating()) {
+                final long startTime = startTiming();
                 validator.characters(ch, start, length);
+                endTiming(startTime);
             }
         } catch (final RuntimeException e) {
             unexpectedError("characters()", e);
@@ -364,6 +413,39 @@ public class SchemaFilter extends AbstractXMLFilter implements Locator {
         }
     }
 
+    /**
+     * Decide whether to validate the next document so that the configured percentage of documents is validated,
+     * evenly spread through the stream. Everything is validated when stepping.
+     */
+    private boolean sampleDocument() {
+        if (validationSamplePercent >= 100 || pipelineContext.isStepping()) {
+            return true;
+        }
+
+        sampleAccumulator += Math.max(validationSamplePercent, 0);
+        if (sampleAccumulator >= 100) {
+            sampleAccumulator -= 100;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean isValidating() {
+        return validator != null && validateDocument;
+    }
+
+    private long startTiming() {
+        return timeValidation
+                ? System.nanoTime()
+                : 0;
+    }
+
+    private void endTiming(final long startTime) {
+        if (timeValidation) {
+            validationNanos += System.nanoTime() - startTime;
+        }
+    }
+
     private void storeSchemaLocations(final String uri, final Attributes atts) throws SAXException {
         if (schemaValidation && schemaLocations == null && xmlSchemaCache != null) {
             schemaLocations = new TreeMap<>();
@@ -704,4 +786,8 @@ public class SchemaFilter extends AbstractXMLFilter implements Locator {
     public void setSchemaConstraint(final FindXMLSchemaCriteria schemaConstraint) {
         this.schemaConstraint = schemaConstraint;
     }
+
+    public void setValidationSamplePercent(final int validationSamplePercent) {
+        this.validationSamplePercent = validationSamplePercent;
+    }
 }
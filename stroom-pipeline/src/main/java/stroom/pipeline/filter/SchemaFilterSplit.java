@@ -52,6 +52,7 @@ public class SchemaFilterSplit extends AbstractXMLFilter {
     private final FindXMLSchemaCriteria schemaConstraint = new FindXMLSchemaCriteria();
     private String schemaLanguage = XMLConstants.W3C_XML_SCHEMA_NS_URI;
     private boolean schemaValidation = true;
+    private int validationSamplePercent = 100;
     private boolean addedSchemaFilter;
 
 
@@ -69,6 +70,7 @@ public class SchemaFilterSplit extends AbstractXMLFilter {
         schemaFilter.setSchemaLanguage(schemaLanguage);
         schemaFilter.setSchemaValidation(schemaValidation);
         schemaFilter.setSchemaConstraint(schemaConstraint);
+        schemaFilter.setValidationSamplePercent(validationSamplePercent);
 
         // Wrap the schema filter in a split filter so that it errors on all top
         // level elements.
@@ -116,6 +118,16 @@ public class SchemaFilterSplit extends AbstractXMLFilter {
         this.schemaValidation = schemaValidation;
     }
 
+    @PipelineProperty(
+            description = "The percentage of records to validate. Lower values reduce the cost of validating data " +
+                    "from trusted sources by only validating a sample of records, evenly spread through each " +
+                    "stream. The first record is always validated and all records are validated when stepping.",
+            defaultValue = "100",
+            displayPriority = 6)
+    public void setValidationSamplePercent(final int validationSamplePercent) {
+        this.validationSamplePercent = validationSamplePercent;
+    }
+
     @PipelineProperty(
             description = "Limits the schemas that can be used to validate data to those with a matching " +
                     "schema group name.",
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.pipeline.filter;
+
+import stroom.docref.DocRef;
+import stroom.pipeline.PipelineConfig;
+import stroom.util.shared.Clearable;
+import stroom.util.sysinfo.HasSystemInfo;
+import stroom.util.sysinfo.SystemInfoResult;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+import jakarta.inject.Singleton;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Records, for each pipeline, how many documents, i.e. records when validating split output, {@link SchemaFilter}
+ * has validated or skipped due to sampling. Each filter counts its own records and adds them here when processing
+ * ends so there is no contention per record.
+ * <p>
+ * Timing the validator adds a cost to every SAX event so validation time is only recorded while pipelines are being
+ * profiled, see {@link PipelineConfig#isProfileElements()}. The average is over the records that were timed.
+ */
+@Singleton
+public class SchemaValidationMetrics implements Clearable, HasSystemInfo {
+
+    private static final String UNKNOWN_PIPELINE_UUID = "unknown";
+
+    private final Provider<PipelineConfig> pipelineConfigProvider;
+    private final Map<String, PipelineMetrics> pipelineMetrics = new ConcurrentHashMap<>();
+
+    @Inject
+    public SchemaValidationMetrics(final Provider<PipelineConfig> pipelineConfigProvider) {
+        this.pipelineConfigProvider = pipelineConfigProvider;
+    }
+
+    boolean isTimingEnabled() {
+        return pipelineConfigProvider.get().isProfileElements();
+    }
+
+    void record(final DocRef pipelineRef,
+                final long validatedRecords,
+                final long skippedRecords,
+                final long timedRecords,
+                final long validationNanos) {
+        if (validatedRecords > 0 || skippedRecords > 0) {
+            final String uuid = pipelineRef != null && pipelineRef.getUuid() != null
+                    ? pipelineRef.getUuid()
+                    : UNKNOWN_PIPELINE_UUID;
+            final PipelineMetrics metrics = pipelineMetrics.computeIfAbsent(uuid, k ->
+                    new PipelineMetrics(uuid, pipelineRef != null && pipelineRef.getName() != null
+                            ? pipelineRef.getName()
+                            : uuid));
+            metrics.validatedRecords.add(validatedRecords);
+            metrics.skippedRecords.add(skippedRecords);
+            metrics.timedRecords.add(timedRecords);
+            metrics.validationNanos.add(validationNanos);
+        }
+    }
+
+    @Override
+    public void clear() {
+        pipelineMetrics.clear();
+    }
+
+    @Override
+    public SystemInfoResult getSystemInfo() {
+        final PipelineMetrics totals = new PipelineMetrics(null, null);
+        for (final PipelineMetrics metrics : pipelineMetrics.values()) {
+            totals.validatedRecords.add(metrics.validatedRecords.sum());
+            totals.skippedRecords.add(metrics.skippedRecords.sum());
+            totals.timedRecords.add(metrics.timedRecords.sum());
+            totals.validationNanos.add(metrics.validationNanos.sum());
+        }
+
+        final List<Map<String, Object>> pipelines = pipelineMetrics.values()
+                .stream()
+                .sorted(Comparator.comparing(metrics -> metrics.name))
+                .map(PipelineMetrics::toMap)
+                .toList();
+
+        final SystemInfoResult.Builder builder = SystemInfoResult.builder(this)
+                .addDetail("timingEnabled", isTimingEnabled());
+        totals.addTo(builder::addDetail);
+        return builder
+                .addDetail("pipelines", pipelines)
+                .build();
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    private static class PipelineMetrics {
+
+        private final String uuid;
+        private final String name;
+        private final LongAdder validatedRecords = new LongAdder();
+        private final LongAdder skippedRecords = new LongAdder();
+        private final LongAdder timedRecords = new LongAdder();
+        private final LongAdder validationNanos = new LongAdder();
+
+        private PipelineMetrics(final String uuid, final String name) {
+            this.uuid = uuid;
+            this.name = name;
+        }
+
+        private void addTo(final BiConsumer<String, Object> consumer) {
+            final long timed = timedRecords.sum();
+            final long nanos = validationNanos.sum();
+            consumer.accept("validatedRecords", validatedRecords.sum());
+            consumer.accept("skippedRecords", skippedRecords.sum());
+            consumer.accept("timedRecords", timed);
+            consumer.accept("totalValidationMs", TimeUnit.NANOSECONDS.toMillis(nanos));
+            consumer.accept("averageValidationMicrosPerRecord", timed > 0
+                    ? nanos / timed / 1_000.0
+                    : 0D);
+        }
+
+        private Map<String, Object> toMap() {
+            final Map<String, Object> map = new LinkedHashMap<>();
+            map.put("name", name);
+            map.put("uuid", uuid);
+            addTo(map::put);
+            return map;
+        }
+    }
+}
@@ -26,22 +26,28 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyDescription;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
+import java.util.Objects;
+
 
 @JsonPropertyOrder(alphabetic = true)
 public class XmlSchemaConfig extends AbstractConfig implements IsStroomConfig {
 
     private final CacheConfig cacheConfig;
+    private final boolean shareCompiledSchemas;
 
     public XmlSchemaConfig() {
         cacheConfig = CacheConfig.builder()
                 .maximumSize(1000L)
                 .expireAfterAccess(StroomDuration.ofMinutes(10))
                 .build();
+        shareCompiledSchemas = true;
     }
 
     @JsonCreator
-    public XmlSchemaConfig(@JsonProperty("cache") final CacheConfig cacheConfig) {
+    public XmlSchemaConfig(@JsonProperty("cache") final CacheConfig cacheConfig,
+                           @JsonProperty("shareCompiledSchemas") final Boolean shareCompiledSchemas) {
         this.cacheConfig = cacheConfig;
+        this.shareCompiledSchemas = Objects.requireNonNullElse(shareCompiledSchemas, true);
     }
 
     @JsonProperty("cache")
@@ -50,10 +56,20 @@ public class XmlSchemaConfig extends AbstractConfig implements IsStroomConfig {
         return cacheConfig;
     }
 
+    @JsonProperty
+    @JsonPropertyDescription("If true then a compiled schema is shared by all pipelines validating against the same " +
+                             "set of schemas, as compiled schemas are thread safe. If false then each pipeline " +
+                             "borrows its own compiled schema from the pool, so concurrent pipelines compile their " +
+                             "own copies.")
+    public boolean isShareCompiledSchemas() {
+        return shareCompiledSchemas;
+    }
+
     @Override
     public String toString() {
         return "XmlSchemaConfig{" +
                 "cacheConfig=" + cacheConfig +
+                ", shareCompiledSchemas=" + shareCompiledSchemas +
                 '}';
     }
 }
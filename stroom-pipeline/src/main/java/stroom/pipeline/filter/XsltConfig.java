@@ -25,6 +25,8 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyDescription;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
 
 import java.util.Objects;
 
@@ -33,9 +35,25 @@ import java.util.Objects;
 public class XsltConfig extends AbstractConfig implements IsStroomConfig {
 
     private static final int DEFAULT_MAX_ELEMENTS = 1000000;
+    private static final int DEFAULT_HOST_LOOKUP_CACHE_SIZE = 10_000;
+    private static final StroomDuration DEFAULT_HOST_LOOKUP_SUCCESS_TTL = StroomDuration.ofHours(1);
+    private static final StroomDuration DEFAULT_HOST_LOOKUP_FAILURE_TTL = StroomDuration.ofMinutes(5);
+    private static final StroomDuration DEFAULT_HOST_LOOKUP_TIMEOUT = StroomDuration.ofSeconds(2);
+    private static final int DEFAULT_HTTP_MAX_CONCURRENT_REQUESTS_PER_HOST = 20;
+    private static final double DEFAULT_HTTP_MAX_REQUESTS_PER_SECOND_PER_HOST = 0;
+    private static final int DEFAULT_HTTP_RESPONSE_CACHE_SIZE = 1000;
+    private static final StroomDuration DEFAULT_HTTP_RESPONSE_CACHE_TTL = StroomDuration.ZERO;
 
     private final CacheConfig cacheConfig;
     private final int maxElements;
+    private final int hostLookupCacheSize;
+    private final StroomDuration hostLookupSuccessTtl;
+    private final StroomDuration hostLookupFailureTtl;
+    private final StroomDuration hostLookupTimeout;
+    private final int httpMaxConcurrentRequestsPerHost;
+    private final double httpMaxRequestsPerSecondPerHost;
+    private final int httpResponseCacheSize;
+    private final StroomDuration httpResponseCacheTtl;
 
     public XsltConfig() {
         cacheConfig = CacheConfig.builder()
@@ -43,14 +61,41 @@ public class XsltConfig extends AbstractConfig implements IsStroomConfig {
                 .expireAfterAccess(StroomDuration.ofMinutes(10))
                 .build();
         maxElements = DEFAULT_MAX_ELEMENTS;
+        hostLookupCacheSize = DEFAULT_HOST_LOOKUP_CACHE_SIZE;
+        hostLookupSuccessTtl = DEFAULT_HOST_LOOKUP_SUCCESS_TTL;
+        hostLookupFailureTtl = DEFAULT_HOST_LOOKUP_FAILURE_TTL;
+        hostLookupTimeout = DEFAULT_HOST_LOOKUP_TIMEOUT;
+        httpMaxConcurrentRequestsPerHost = DEFAULT_HTTP_MAX_CONCURRENT_REQUESTS_PER_HOST;
+        httpMaxRequestsPerSecondPerHost = DEFAULT_HTTP_MAX_REQUESTS_PER_SECOND_PER_HOST;
+        httpResponseCacheSize = DEFAULT_HTTP_RESPONSE_CACHE_SIZE;
+        httpResponseCacheTtl = DEFAULT_HTTP_RESPONSE_CACHE_TTL;
     }
 
     @SuppressWarnings("unused")
     @JsonCreator
     public XsltConfig(@JsonProperty("cache") final CacheConfig cacheConfig,
-                      @JsonProperty("maxElements") final Integer maxElements) {
+                      @JsonProperty("maxElements") final Integer maxElements,
+                      @JsonProperty("hostLookupCacheSize") final Integer hostLookupCacheSize,
+                      @JsonProperty("hostLookupSuccessTtl") final StroomDuration hostLookupSuccessTtl,
+                      @JsonProperty("hostLookupFailureTtl") final StroomDuration hostLookupFailureTtl,
+                      @JsonProperty("hostLookupTimeout") final StroomDuration hostLookupTimeout,
+                      @JsonProperty("httpMaxConcurrentRequestsPerHost") final Integer httpMaxConcurrentRequestsPerHost,
+                      @JsonProperty("httpMaxRequestsPerSecondPerHost") final Double httpMaxRequestsPerSecondPerHost,
+                      @JsonProperty("httpResponseCacheSize") final Integer httpResponseCacheSize,
+                      @JsonProperty("httpResponseCacheTtl") final StroomDuration httpResponseCacheTtl) {
         this.cacheConfig = cacheConfig;
         this.maxElements = Objects.requireNonNullElse(maxElements, DEFAULT_MAX_ELEMENTS);
+        this.hostLookupCacheSize = Objects.requireNonNullElse(hostLookupCacheSize, DEFAULT_HOST_LOOKUP_CACHE_SIZE);
+        this.hostLookupSuccessTtl = Objects.requireNonNullElse(hostLookupSuccessTtl, DEFAULT_HOST_LOOKUP_SUCCESS_TTL);
+        this.hostLookupFailureTtl = Objects.requireNonNullElse(hostLookupFailureTtl, DEFAULT_HOST_LOOKUP_FAILURE_TTL);
+        this.hostLookupTimeout = Objects.requireNonNullElse(hostLookupTimeout, DEFAULT_HOST_LOOKUP_TIMEOUT);
+        this.httpMaxConcurrentRequestsPerHost = Objects.requireNonNullElse(
+                httpMaxConcurrentRequestsPerHost, DEFAULT_HTTP_MAX_CONCURRENT_REQUESTS_PER_HOST);
+        this.httpMaxRequestsPerSecondPerHost = Objects.requireNonNullElse(
+                httpMaxRequestsPerSecondPerHost, DEFAULT_HTTP_MAX_REQUESTS_PER_SECOND_PER_HOST);
+        this.httpResponseCacheSize = Objects.requireNonNullElse(httpResponseCacheSize,
+                DEFAULT_HTTP_RESPONSE_CACHE_SIZE);
+        this.httpResponseCacheTtl = Objects.requireNonNullElse(httpResponseCacheTtl, DEFAULT_HTTP_RESPONSE_CACHE_TTL);
     }
 
     @JsonProperty("cache")
@@ -66,11 +111,75 @@ public class XsltConfig extends AbstractConfig implements IsStroomConfig {
         return maxElements;
     }
 
+    @Min(0)
+    @JsonPropertyDescription("The maximum number of results the host-name and host-address XSLT functions will " +
+            "cache. Set to 0 to disable caching.")
+    public int getHostLookupCacheSize() {
+        return hostLookupCacheSize;
+    }
+
+    @NotNull
+    @JsonPropertyDescription("How long the host-name and host-address XSLT functions will cache a successful " +
+            "lookup for. Cached values are refreshed in the background shortly before they expire.")
+    public StroomDuration getHostLookupSuccessTtl() {
+        return hostLookupSuccessTtl;
+    }
+
+    @NotNull
+    @JsonPropertyDescription("How long the host-name and host-address XSLT functions will cache a failed lookup for.")
+    public StroomDuration getHostLookupFailureTtl() {
+        return hostLookupFailureTtl;
+    }
+
+    @NotNull
+    @JsonPropertyDescription("The maximum time the host-name and host-address XSLT functions will wait for a " +
+            "lookup before giving up. A lookup that times out carries on in the background and its result is " +
+            "cached for later calls.")
+    public StroomDuration getHostLookupTimeout() {
+        return hostLookupTimeout;
+    }
+
+    @Min(1)
+    @JsonPropertyDescription("The maximum number of requests the http-call and fetch-json XSLT functions will make " +
+            "to a single host at the same time across all pipelines on this node.")
+    public int getHttpMaxConcurrentRequestsPerHost() {
+        return httpMaxConcurrentRequestsPerHost;
+    }
+
+    @Min(0)
+    @JsonPropertyDescription("The maximum rate of requests per second the http-call and fetch-json XSLT functions " +
+            "will make to a single host across all pipelines on this node. Set to 0 for no limit.")
+    public double getHttpMaxRequestsPerSecondPerHost() {
+        return httpMaxRequestsPerSecondPerHost;
+    }
+
+    @Min(0)
+    @JsonPropertyDescription("The maximum number of responses the http-call and fetch-json XSLT functions will " +
+            "cache.")
+    public int getHttpResponseCacheSize() {
+        return httpResponseCacheSize;
+    }
+
+    @NotNull
+    @JsonPropertyDescription("How long the http-call and fetch-json XSLT functions will cache successful responses " +
+            "for. Responses are cached by URL, headers and request body. Set to zero to disable caching.")
+    public StroomDuration getHttpResponseCacheTtl() {
+        return httpResponseCacheTtl;
+    }
+
     @Override
     public String toString() {
         return "XsltConfig{" +
                 "cacheConfig=" + cacheConfig +
                 ", maxElements=" + maxElements +
+                ", hostLookupCacheSize=" + hostLookupCacheSize +
+                ", hostLookupSuccessTtl=" + hostLookupSuccessTtl +
+                ", hostLookupFailureTtl=" + hostLookupFailureTtl +
+                ", hostLookupTimeout=" + hostLookupTimeout +
+                ", httpMaxConcurrentRequestsPerHost=" + httpMaxConcurrentRequestsPerHost +
+                ", httpMaxRequestsPerSecondPerHost=" + httpMaxRequestsPerSecondPerHost +
+                ", httpResponseCacheSize=" + httpResponseCacheSize +
+                ", httpResponseCacheTtl=" + httpResponseCacheTtl +
                 '}';
     }
 }
@@ -31,21 +31,33 @@ import stroom.pipeline.errorhandler.LoggedException;
 import stroom.pipeline.errorhandler.ProcessException;
 import stroom.pipeline.errorhandler.StoredErrorReceiver;
 import stroom.pipeline.factory.ConfigurableElement;
+import stroom.pipeline.factory.PipelineProfiler;
 import stroom.pipeline.factory.PipelineProperty;
 import stroom.pipeline.factory.PipelinePropertyDocRef;
+import stroom.pipeline.factory.SupportsProfiling;
 import stroom.pipeline.shared.XsltDoc;
 import stroom.pipeline.shared.data.PipelineElementType;
 import stroom.pipeline.shared.data.PipelineElementType.Category;
 import stroom.pipeline.shared.data.PipelineReference;
 import stroom.pipeline.state.FeedHolder;
+import stroom.pipeline.state.LocationHolder;
+import stroom.pipeline.state.LocationHolder.LocationCursor;
 import stroom.pipeline.state.PipelineContext;
 import stroom.pipeline.state.PipelineHolder;
+import stroom.pipeline.xml.event.EventList;
+import stroom.pipeline.xml.event.simple.SimpleEventListBuilder;
 import stroom.pipeline.xslt.XsltStore;
 import stroom.svg.shared.SvgImage;
+import stroom.task.api.ExecutorProvider;
+import stroom.task.api.TaskContextFactory;
+import stroom.task.api.ThreadPoolImpl;
+import stroom.task.shared.ThreadPool;
 import stroom.util.CharBuffer;
 import stroom.util.io.PathCreator;
 import stroom.util.logging.LambdaLogger;
 import stroom.util.logging.LambdaLoggerFactory;
+import stroom.util.pipeline.scope.PipelineScope;
+import stroom.util.shared.ElementId;
 import stroom.util.shared.ErrorType;
 import stroom.util.shared.Location;
 import stroom.util.shared.NullSafe;
@@ -61,12 +73,19 @@ import net.sf.saxon.s9api.XdmNode;
 import net.sf.saxon.s9api.XdmNodeKind;
 import net.sf.saxon.s9api.XsltExecutable;
 import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
 import org.xml.sax.Locator;
 import org.xml.sax.SAXException;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 import javax.xml.transform.ErrorListener;
 import javax.xml.transform.SourceLocator;
 import javax.xml.transform.TransformerException;
@@ -92,9 +111,10 @@ import javax.xml.transform.sax.TransformerHandler;
                 PipelineElementType.ROLE_MUTATOR,
                 PipelineElementType.ROLE_HAS_CODE},
         icon = SvgImage.PIPELINE_XSLT)
-public class XsltFilter extends AbstractXMLFilter implements SupportsCodeInjection {
+public class XsltFilter extends AbstractXMLFilter implements SupportsCodeInjection, SupportsProfiling {
 
     private static final LambdaLogger LOGGER = LambdaLoggerFactory.getLogger(XsltFilter.class);
+    private static final ThreadPool WORKER_THREAD_POOL = new ThreadPoolImpl("XSLT Filter Worker#");
 
     private final XsltPool xsltPool;
     private final ErrorReceiverProxy errorReceiverProxy;
@@ -105,6 +125,10 @@ public class XsltFilter extends AbstractXMLFilter implements SupportsCodeInjecti
     private final Provider<FeedHolder> feedHolder;
     private final Provider<PipelineHolder> pipelineHolder;
     private final PipelineDocFinder<XsltDoc> pipelineDocFinder;
+    private final ExecutorProvider executorProvider;
+    private final TaskContextFactory taskContextFactory;
+    private final PipelineScope pipelineScope;
+    private final LocationHolder locationHolder;
 
     private ErrorListener errorListener;
 
@@ -119,7 +143,7 @@ public class XsltFilter extends AbstractXMLFilter implements SupportsCodeInjecti
     private PoolItem<StoredXsltExecutable> poolItem;
     private XsltExecutable xsltExecutable;
     private TemplatesImpl cachedTemplates;
-    private TransformerHandler handler;
+    private ContentHandler handler;
     private Locator locator;
     private boolean xsltRequired = false;
     private boolean passThrough = true;
@@ -129,6 +153,15 @@ public class XsltFilter extends AbstractXMLFilter implements SupportsCodeInjecti
 
     private int elementCount;
     private int maxElementCount;
+    private PipelineProfiler profiler;
+
+    // Only used when transforming split documents in parallel.
+    private int parallelism = 1;
+    private List<XsltWorker> workers;
+    private BlockingQueue<XsltWorker> idleWorkers;
+    private final Deque<CompletableFuture<TransformedDocument>> transformedDocuments = new ArrayDeque<>();
+    private SimpleEventListBuilder documentBuilder;
+    private final ReplayLocator replayLocator = new ReplayLocator();
 
     @Inject
     public XsltFilter(final XsltPool xsltPool,
@@ -140,7 +173,11 @@ public class XsltFilter extends AbstractXMLFilter implements SupportsCodeInjecti
                       final PathCreator pathCreator,
                       final Provider<FeedHolder> feedHolder,
                       final Provider<PipelineHolder> pipelineHolder,
-                      final DocFinder docFinder) {
+                      final DocFinder docFinder,
+                      final ExecutorProvider executorProvider,
+                      final TaskContextFactory taskContextFactory,
+                      final PipelineScope pipelineScope,
+                      final LocationHolder locationHolder) {
         this.xsltPool = xsltPool;
         this.errorReceiverProxy = errorReceiverProxy;
         this.xsltStore = xsltStore;
@@ -149,6 +186,10 @@ public class XsltFilter extends AbstractXMLFilter implements SupportsCodeInjecti
         this.pipelineContext = pipelineContext;
         this.feedHolder = feedHolder;
         this.pipelineHolder = pipelineHolder;
+        this.executorProvider = executorProvider;
+        this.taskContextFactory = taskContextFactory;
+        this.pipelineScope = pipelineScope;
+        this.locationHolder = locationHolder;
 
         this.pipelineDocFinder = new PipelineDocFinder<>(XsltDoc.TYPE, pathCreator, docFinder);
     }
@@ -180,6 +221,13 @@ public class XsltFilter extends AbstractXMLFilter implements SupportsCodeInjecti
                     poolItem = xsltPool.borrowConfiguredTemplate(xslt, errorReceiver,
                             locationFactory, pipelineReferences, usePool);
                     final StoredXsltExecutable storedXsltExecutable = poolItem.getValue();
+                    if (storedXsltExecutable.getFunctionLibrary() != null) {
+                        // XSLT in this pipeline may be transformed in parallel, calling the Stroom functions that
+                        // share the pipeline state from other threads, so every call in the pipeline takes one lock.
+                        storedXsltExecutable.getFunctionLibrary().setCallLock(pipelineContext);
+                        // Time the Stroom function calls if the pipeline is being profiled.
+                        storedXsltExecutable.getFunctionLibrary().setProfiler(profiler);
+                    }
                     // Get the errors.
                     final StoredErrorReceiver storedErrors = storedXsltExecutable.getErrorReceiver();
                     // Get the XSLT executable.
@@ -205,6 +253,10 @@ public class XsltFilter extends AbstractXMLFilter implements SupportsCodeInjecti
 
                     // Cache the TemplatesImpl so we don't recreate it per document.
                     cachedTemplates = new TemplatesImpl(xsltExecutable);
+
+                    if (parallelism > 1 && !pipelineContext.isStepping()) {
+                        startWorkers(xslt);
+                    }
                 }
             }
 
@@ -224,9 +276,42 @@ public class XsltFilter extends AbstractXMLFilter implements SupportsCodeInjecti
         }
     }
 
+    private void startWorkers(final XsltDoc xslt) {
+        workers = new ArrayList<>(parallelism);
+        idleWorkers = new LinkedBlockingQueue<>();
+        for (int i = 0; i < parallelism; i++) {
+            final XsltWorker worker = new XsltWorker();
+            workers.add(worker);
+            worker.start(xslt);
+            idleWorkers.add(worker);
+        }
+    }
+
+    @Override
+    public void endStream() {
+        try {
+            // All documents must be passed on before the stream ends as the pipeline state they depend on, e.g.
+            // the current meta, is about to change.
+            passOnTransformedDocuments(true);
+        } catch (final SAXException e) {
+            throw ProcessException.wrap(e);
+        } finally {
+            super.endStream();
+        }
+    }
+
     @Override
     public void endProcessing() {
         try {
+            if (workers != null) {
+                // Documents may still be in flight if processing failed, let them finish before the compiled XSLT
+                // they are using is returned to the pool.
+                transformedDocuments.forEach(future -> future.exceptionally(e -> null).join());
+                transformedDocuments.clear();
+                workers.forEach(XsltWorker::end);
+                workers = null;
+                idleWorkers = null;
+            }
             if (poolItem != null) {
                 xsltPool.returnObject(poolItem, usePool);
                 poolItem = null;
@@ -246,7 +331,14 @@ public class XsltFilter extends AbstractXMLFilter implements SupportsCodeInjecti
     public void setDocumentLocator(final Locator locator) {
         if (this.locator == null) {
             this.locator = locator;
-            super.setDocumentLocator(locator);
+            if (workers != null) {
+                // Transformed documents are passed on after the parser has moved on so give the following filters
+                // the location of the document as it was when it was transformed.
+                replayLocator.setDelegate(locator);
+                super.setDocumentLocator(replayLocator);
+            } else {
+                super.setDocumentLocator(locator);
+            }
         }
     }
 
@@ -258,7 +350,13 @@ public class XsltFilter extends AbstractXMLFilter implements SupportsCodeInjecti
     @Override
     public void startDocument() throws SAXException {
         try {
-            if (xsltExecutable != null) {
+            if (workers != null) {
+                // Record the document so that it can be transformed by a worker.
+                documentBuilder = new SimpleEventListBuilder();
+                documentBuilder.startDocument();
+                handler = documentBuilder;
+
+            } else if (xsltExecutable != null) {
                 // Make sure the executable points at the local error handler.
                 final Configuration configuration = xsltExecutable.getUnderlyingCompiledStylesheet().getConfiguration();
                 configuration.setErrorListener(errorListener);
@@ -267,14 +365,15 @@ public class XsltFilter extends AbstractXMLFilter implements SupportsCodeInjecti
                 // Create a handler to receive all SAX events.
                 final TransformerImpl transformer = (TransformerImpl) cachedTemplates.newTransformer();
                 transformer.setErrorListener(errorListener);
-                configureMessageListener(transformer);
+                configureMessageListener(transformer, errorReceiverProxy);
 
-                handler = transformer.newTransformerHandler();
-                handler.setResult(new SAXResult(getFilter()));
+                final TransformerHandler transformerHandler = transformer.newTransformerHandler();
+                transformerHandler.setResult(new SAXResult(getFilter()));
                 if (locator != null) {
-                    handler.setDocumentLocator(locator);
+                    transformerHandler.setDocumentLocator(locator);
                 }
-                handler.startDocument();
+                transformerHandler.startDocument();
+                handler = transformerHandler;
 
             } else if (passThrough) {
                 super.startDocument();
@@ -302,7 +401,16 @@ public class XsltFilter extends AbstractXMLFilter implements SupportsCodeInjecti
      */
     @Override
     public void endDocument() throws SAXException {
-        if (handler != null) {
+        if (documentBuilder != null) {
+            try {
+                documentBuilder.endDocument();
+                transformInParallel(documentBuilder.getEventList());
+            } finally {
+                documentBuilder = null;
+                handler = null;
+                elementCount = 0;
+            }
+        } else if (handler != null) {
             try {
                 handler.endDocument();
             } catch (final Throwable e) {
@@ -333,13 +441,76 @@ public class XsltFilter extends AbstractXMLFilter implements SupportsCodeInjecti
         }
     }
 
-    private void configureMessageListener(final TransformerImpl transformer) {
+    /**
+     * Hand a recorded document to the next free worker to transform. If all workers are busy then wait for the
+     * oldest document to be transformed and pass it on.
+     */
+    private void transformInParallel(final EventList document) throws SAXException {
+        // Capture where we are now as the parser will have moved on by the time the output is passed on.
+        final int lineNo = NullSafe.getOrElse(locator, Locator::getLineNumber, -1);
+        final int colNo = NullSafe.getOrElse(locator, Locator::getColumnNumber, -1);
+        final LocationCursor workerLocations = locationHolder.detachLocations();
+        final LocationCursor replayLocations = NullSafe.get(workerLocations, LocationCursor::copy);
+
+        XsltWorker worker = idleWorkers.poll();
+        while (worker == null) {
+            passOn(transformedDocuments.removeFirst().join());
+            worker = idleWorkers.poll();
+        }
+
+        final XsltWorker xsltWorker = worker;
+        final Supplier<TransformedDocument> scopedSupplier = pipelineScope.inCurrentScope(() ->
+                xsltWorker.transform(document, workerLocations, lineNo, colNo, replayLocations));
+        final Supplier<TransformedDocument> supplier = taskContextFactory.childContextResult(
+                taskContextFactory.current(),
+                "XSLT Filter Worker",
+                taskContext -> scopedSupplier.get());
+        transformedDocuments.addLast(
+                CompletableFuture.supplyAsync(supplier, executorProvider.get(WORKER_THREAD_POOL)));
+
+        passOnTransformedDocuments(false);
+    }
+
+    /**
+     * Pass on transformed documents in the order they were received.
+     *
+     * @param wait If true wait for all documents to be transformed, otherwise only pass on those that are ready.
+     */
+    private void passOnTransformedDocuments(final boolean wait) throws SAXException {
+        while (!transformedDocuments.isEmpty() && (wait || transformedDocuments.peekFirst().isDone())) {
+            passOn(transformedDocuments.removeFirst().join());
+        }
+    }
+
+    private void passOn(final TransformedDocument document) throws SAXException {
+        replayLocator.setLocation(document.lineNo(), document.colNo());
+        if (document.locations() != null) {
+            // Let any following XSLT see the record locations of this document.
+            locationHolder.attachCursor(document.locations());
+        }
+        try {
+            document.errors().replay(errorReceiverProxy);
+            document.output().fire(getFilter());
+
+            if (document.fatalError() != null) {
+                // The transform failed part way through so close the document as we would when not in parallel.
+                super.endDocument();
+                throw LoggedException.wrap(document.fatalError());
+            }
+        } finally {
+            locationHolder.detachCursor();
+            replayLocator.clearLocation();
+        }
+    }
+
+    private void configureMessageListener(final TransformerImpl transformer, final ErrorReceiver errorReceiver) {
         try {
             NullSafe.consume(
                     transformer,
                     TransformerImpl::getUnderlyingXsltTransformer,
                     xsltTransformer ->
-                            xsltTransformer.setMessageListener(this::onXsltMessage));
+                            xsltTransformer.setMessageListener((content, terminate, locator) ->
+                                    onXsltMessage(errorReceiver, content, terminate, locator)));
         } catch (final Exception e) {
             // Just log and swallow as the message listener is not critical
             LOGGER.error("Error configuring XSLT message listener: " + e.getMessage(), e);
@@ -358,7 +529,10 @@ public class XsltFilter extends AbstractXMLFilter implements SupportsCodeInjecti
      * <pre>{@code <xsl:message><info>my message</info></xsl:message>}</pre>
      * Setting {@code terminate} trumps any severity set.
      */
-    private void onXsltMessage(final XdmNode content, final boolean terminate, final SourceLocator locator) {
+    private void onXsltMessage(final ErrorReceiver errorReceiver,
+                               final XdmNode content,
+                               final boolean terminate,
+                               final SourceLocator locator) {
 
         boolean foundMsg = false;
         String msg = "";
@@ -405,7 +579,7 @@ public class XsltFilter extends AbstractXMLFilter implements SupportsCodeInjecti
             msg = "NO MESSAGE";
         }
 
-        errorReceiverProxy.log(
+        errorReceiver.log(
                 severity,
                 locationFactory.create(locator),
                 getElementId(),
@@ -663,6 +837,16 @@ public class XsltFilter extends AbstractXMLFilter implements SupportsCodeInjecti
         pipelineReferences.add(pipelineReference);
     }
 
+    @PipelineProperty(
+            description = "Advanced: The number of split documents to transform at the same time. Documents are " +
+                          "still passed on in their original order. Only use a value greater than 1 if the XSLT " +
+                          "does not depend on the order documents are transformed in. Ignored when stepping.",
+            defaultValue = "1",
+            displayPriority = 6)
+    public void setParallelism(final int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
     @PipelineProperty(
             description = "Advanced: Choose whether or not you want to use cached XSLT templates to improve " +
                           "performance.",
@@ -677,6 +861,16 @@ public class XsltFilter extends AbstractXMLFilter implements SupportsCodeInjecti
         this.injectedCode = injectedCode;
     }
 
+    @Override
+    public void setProfiler(final PipelineProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    // Used for testing.
+    public boolean isTransformingInParallel() {
+        return workers != null;
+    }
+
     public XsltDoc loadXsltDoc() {
         final DocRef docRef = findDoc(
                 getFeedName(),
@@ -730,4 +924,176 @@ public class XsltFilter extends AbstractXMLFilter implements SupportsCodeInjecti
                 errorConsumer,
                 suppressXSLTNotFoundWarnings);
     }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    /**
+     * Transforms recorded documents on a worker thread using its own compiled XSLT from the pool. Output and errors
+     * are buffered so that they can be passed on in document order on the pipeline thread.
+     */
+    private class XsltWorker implements ErrorReceiver {
+
+        private PoolItem<StoredXsltExecutable> workerPoolItem;
+        private TemplatesImpl templates;
+        private ErrorListener workerErrorListener;
+        private StoredErrorReceiver documentErrors;
+
+        void start(final XsltDoc xslt) {
+            workerPoolItem = xsltPool.borrowConfiguredTemplate(
+                    xslt,
+                    new ErrorReceiverIdDecorator(getElementId(), this),
+                    locationFactory,
+                    pipelineReferences,
+                    usePool);
+            final StoredXsltExecutable storedXsltExecutable = workerPoolItem.getValue();
+            final XsltExecutable executable = storedXsltExecutable.getXsltExecutable();
+            if (executable == null) {
+                throw ProcessException.create("Unable to get compiled XSLT for parallel transformation");
+            }
+            if (storedXsltExecutable.getFunctionLibrary() != null) {
+                // The same lock as every other Stroom function call in the pipeline.
+                storedXsltExecutable.getFunctionLibrary().setCallLock(pipelineContext);
+                storedXsltExecutable.getFunctionLibrary().setProfiler(profiler);
+            }
+
+            workerErrorListener = new ErrorListenerAdaptor(getElementId(), locationFactory, this);
+            executable.getUnderlyingCompiledStylesheet().getConfiguration().setErrorListener(workerErrorListener);
+            templates = new TemplatesImpl(executable);
+        }
+
+        TransformedDocument transform(final EventList document,
+                                      final LocationCursor locations,
+                                      final int lineNo,
+                                      final int colNo,
+                                      final LocationCursor replayLocations) {
+            final StoredErrorReceiver errors = new StoredErrorReceiver();
+            final SimpleEventListBuilder output = new SimpleEventListBuilder() {
+                @Override
+                public void setDocumentLocator(final Locator locator) {
+                    // Following filters keep the replay locator.
+                }
+            };
+            Throwable fatalError = null;
+
+            documentErrors = errors;
+            if (locations != null) {
+                locationHolder.attachCursor(locations);
+            }
+            try {
+                final TransformerImpl transformer = (TransformerImpl) templates.newTransformer();
+                transformer.setErrorListener(workerErrorListener);
+                configureMessageListener(transformer, this);
+
+                final TransformerHandler transformerHandler = transformer.newTransformerHandler();
+                transformerHandler.setResult(new SAXResult(output));
+                document.fire(transformerHandler);
+            } catch (final Throwable e) {
+                fatalError = unwrapException(e);
+                errors.log(Severity.FATAL_ERROR,
+                        getLocation(fatalError),
+                        getElementId(),
+                        fatalError.toString(),
+                        fatalError);
+            } finally {
+                locationHolder.detachCursor();
+                documentErrors = null;
+                idleWorkers.add(this);
+            }
+
+            return new TransformedDocument(output.getEventList(), errors, fatalError, lineNo, colNo, replayLocations);
+        }
+
+        void end() {
+            if (workerPoolItem != null) {
+                xsltPool.returnObject(workerPoolItem, usePool);
+                workerPoolItem = null;
+            }
+        }
+
+        @Override
+        public void log(final Severity severity,
+                        final Location location,
+                        final ElementId elementId,
+                        final String message,
+                        final ErrorType errorType,
+                        final Throwable e) {
+            final StoredErrorReceiver errors = documentErrors;
+            if (errors != null) {
+                errors.log(severity, location, elementId, message, errorType, e);
+            } else {
+                errorReceiverProxy.log(severity, location, elementId, message, errorType, e);
+            }
+        }
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    private record TransformedDocument(EventList output,
+                                       StoredErrorReceiver errors,
+                                       Throwable fatalError,
+                                       int lineNo,
+                                       int colNo,
+                                       LocationCursor locations) {
+
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    /**
+     * A locator that reports a fixed location while transformed documents are passed on and otherwise reports the
+     * location of the parser.
+     */
+    private static class ReplayLocator implements Locator {
+
+        private Locator delegate;
+        private boolean fixed;
+        private int lineNo;
+        private int colNo;
+
+        void setDelegate(final Locator delegate) {
+            this.delegate = delegate;
+        }
+
+        void setLocation(final int lineNo, final int colNo) {
+            this.fixed = true;
+            this.lineNo = lineNo;
+            this.colNo = colNo;
+        }
+
+        void clearLocation() {
+            this.fixed = false;
+        }
+
+        @Override
+        public String getPublicId() {
+            return NullSafe.get(delegate, Locator::getPublicId);
+        }
+
+        @Override
+        public String getSystemId() {
+            return NullSafe.get(delegate, Locator::getSystemId);
+        }
+
+        @Override
+        public int getLineNumber() {
+            if (fixed) {
+                return lineNo;
+            }
+            return NullSafe.getOrElse(delegate, Locator::getLineNumber, -1);
+        }
+
+        @Override
+        public int getColumnNumber() {
+            if (fixed) {
+                return colNo;
+            }
+            return NullSafe.getOrElse(delegate, Locator::getColumnNumber, -1);
+        }
+    }
 }
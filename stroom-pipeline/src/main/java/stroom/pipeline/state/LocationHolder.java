@@ -54,6 +54,9 @@ public class LocationHolder implements Holder {
     private boolean hasMarkedStartLocation;
     private boolean isFirstRecord = true;
     private boolean isFragmentXml = false;
+    // Lets a thread that is transforming a record batch away from the pipeline thread see the locations of that
+    // batch rather than whatever the pipeline thread has got to.
+    private final ThreadLocal<LocationCursor> attachedCursor = new ThreadLocal<>();
 
     @Inject
     public LocationHolder(final MetaHolder metaHolder) {
@@ -71,6 +74,12 @@ public class LocationHolder implements Holder {
     }
 
     public void move(final FunctionType functionType) {
+        final LocationCursor cursor = attachedCursor.get();
+        if (cursor != null) {
+            cursor.move(functionType);
+            return;
+        }
+
         if (this.functionType == null) {
             this.functionType = functionType;
         }
@@ -85,9 +94,44 @@ public class LocationHolder implements Holder {
     }
 
     public SourceLocation getCurrentLocation() {
+        final LocationCursor cursor = attachedCursor.get();
+        if (cursor != null) {
+            return cursor.currentLocation;
+        }
         return currentLocation;
     }
 
+    /**
+     * Take the record locations that have been stored since the last time locations were consumed or detached so
+     * that they can be consumed elsewhere, e.g. by a transform running on another thread.
+     *
+     * @return A cursor over the detached locations.
+     */
+    public LocationCursor detachLocations() {
+        final LocationCursor cursor = new LocationCursor(
+                locations != null
+                        ? new ArrayList<>(locations)
+                        : null,
+                currentLocation,
+                functionType);
+        if (locations != null) {
+            locations.clear();
+        }
+        return cursor;
+    }
+
+    /**
+     * Make location functions called on the current thread use the supplied cursor until {@link #detachCursor()}
+     * is called.
+     */
+    public void attachCursor(final LocationCursor cursor) {
+        attachedCursor.set(cursor);
+    }
+
+    public void detachCursor() {
+        attachedCursor.remove();
+    }
+
     public void reset() {
         LOGGER.trace("Reset() called");
         recordIndex = -1;
@@ -232,6 +276,59 @@ public class LocationHolder implements Holder {
         this.storeLocations = storeLocations;
     }
 
+
+
+    // --------------------------------------------------------------------------------
+
+
+    /**
+     * An independent position within a set of detached record locations.
+     */
+    public static class LocationCursor {
+
+        private final List<SourceLocation> locations;
+        private SourceLocation currentLocation;
+        private FunctionType functionType;
+
+        private LocationCursor(final List<SourceLocation> locations,
+                               final SourceLocation currentLocation,
+                               final FunctionType functionType) {
+            this.locations = locations;
+            this.currentLocation = currentLocation;
+            this.functionType = functionType;
+        }
+
+        private void move(final FunctionType functionType) {
+            if (this.functionType == null) {
+                this.functionType = functionType;
+            }
+
+            if (this.functionType == functionType && locations != null) {
+                if (!locations.isEmpty()) {
+                    currentLocation = locations.removeFirst();
+                } else {
+                    currentLocation = null;
+                }
+            }
+        }
+
+        /**
+         * @return A new cursor over the same locations, starting from the beginning.
+         */
+        public LocationCursor copy() {
+            return new LocationCursor(
+                    locations != null
+                            ? new ArrayList<>(locations)
+                            : null,
+                    currentLocation,
+                    functionType);
+        }
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
     public enum FunctionType {
         LOCATION,
         RECORD_NO,
@@ -17,7 +17,6 @@
 package stroom.pipeline.writer;
 
 import stroom.pipeline.destination.Destination;
-import stroom.pipeline.destination.RollingDestination;
 import stroom.pipeline.destination.RollingDestinationFactory;
 import stroom.pipeline.destination.RollingDestinations;
 import stroom.pipeline.errorhandler.ProcessException;
@@ -68,7 +67,7 @@ public abstract class AbstractRollingAppender extends AbstractDestinationProvide
 
     @Override
     public void returnDestination(final Destination destination) {
-        destinations.returnDestination((RollingDestination) destination);
+        destinations.returnDestination(destination);
     }
 
     private void validateSettings() {
@@ -31,6 +31,7 @@ import stroom.util.io.MultiOutputStream;
 import stroom.util.io.NullOutputStream;
 import stroom.util.io.OutputStreamWrapper;
 import stroom.util.io.StreamUtil;
+import stroom.util.io.Utf8Writer;
 import stroom.util.shared.ErrorType;
 import stroom.util.shared.Severity;
 
@@ -38,6 +39,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.Writer;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -52,7 +54,7 @@ public abstract class AbstractWriter extends AbstractXMLFilter implements Target
     private final Map<Destination, DestinationProvider> borrowedDestinations = new HashMap<>();
     private final OutputStreamWrapper outputStream = new OutputStreamWrapper();
 
-    private EncodingWriter writer;
+    private Writer writer;
     private String encoding;
 
     AbstractWriter() {
@@ -90,7 +92,12 @@ public abstract class AbstractWriter extends AbstractXMLFilter implements Target
                 }
             }
 
-            writer = new EncodingWriter(outputStream, charset);
+            // Most output is UTF-8 so encode it directly rather than through a charset encoder.
+            if (StandardCharsets.UTF_8.equals(charset)) {
+                writer = new Utf8Writer(outputStream);
+            } else {
+                writer = new EncodingWriter(outputStream, charset);
+            }
         }
 
         return writer;
@@ -90,7 +90,7 @@ public class CharBufferWriter extends Writer {
      */
     @Override
     public void write(final String str, final int off, final int len) {
-        sb.append(str.substring(off, off + len));
+        sb.append(str, off, len);
     }
 
     /**
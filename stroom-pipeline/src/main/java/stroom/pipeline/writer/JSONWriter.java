@@ -27,17 +27,21 @@ import stroom.pipeline.xml.converter.json.JSONParser;
 import stroom.svg.shared.SvgImage;
 import stroom.util.CharBuffer;
 import stroom.util.io.IgnoreCloseWriter;
+import stroom.util.io.WrappedOutputStream;
 import stroom.util.json.JsonUtil;
 
 import jakarta.inject.Inject;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
+import tools.jackson.core.JsonEncoding;
 import tools.jackson.core.JsonGenerator;
 import tools.jackson.core.io.SerializedString;
 import tools.jackson.core.json.JsonFactory;
 import tools.jackson.databind.json.JsonMapper;
 
+import java.io.OutputStream;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayDeque;
 import java.util.Deque;
 
@@ -88,8 +92,15 @@ public class JSONWriter extends AbstractWriter {
                     .rootValueSeparator(rootValueSeparator)
                     .build();
 
-            final Writer writer = new IgnoreCloseWriter(getWriter());
-            jsonGenerator = jsonFactory.createGenerator(writer);
+            if (StandardCharsets.UTF_8.equals(getCharset())) {
+                // Let the generator encode straight to bytes using its own escaping tables rather than writing
+                // chars that we then have to encode.
+                jsonGenerator = jsonFactory.createGenerator(new GeneratorOutputStream(getOutputStream()),
+                        JsonEncoding.UTF8);
+            } else {
+                final Writer writer = new IgnoreCloseWriter(getWriter());
+                jsonGenerator = jsonFactory.createGenerator(writer);
+            }
         } catch (final RuntimeException e) {
             fatal(e);
             throw LoggedException.wrap(e);
@@ -332,4 +343,29 @@ public class JSONWriter extends AbstractWriter {
     public void setEncoding(final String encoding) {
         super.setEncoding(encoding);
     }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    /**
+     * The generator flushes and closes its target but, as with the writer used for other encodings, we don't want
+     * either passed on to the borrowed destinations.
+     */
+    private static class GeneratorOutputStream extends WrappedOutputStream {
+
+        GeneratorOutputStream(final OutputStream outputStream) {
+            super(outputStream);
+        }
+
+        @Override
+        public void flush() {
+            // Ignore flushes to the output stream.
+        }
+
+        @Override
+        public void close() {
+            // Ignore calls to close the stream.
+        }
+    }
 }
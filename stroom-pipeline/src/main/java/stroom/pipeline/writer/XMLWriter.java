@@ -59,7 +59,6 @@ import org.xml.sax.Locator;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.AttributesImpl;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.util.List;
 import java.util.Properties;
@@ -116,7 +115,6 @@ public class XMLWriter extends AbstractWriter implements XMLFilter {
     private byte[] footer;
 
     private CharBufferWriter stringWriter;
-    private BufferedWriter bufferedWriter;
 
     private boolean startedDocument;
 
@@ -182,8 +180,8 @@ public class XMLWriter extends AbstractWriter implements XMLFilter {
                 }
             }
 
+            // The serialiser writes straight into our char buffer which we later encode directly to the output.
             stringWriter = new CharBufferWriter();
-            bufferedWriter = new BufferedWriter(stringWriter);
 
             final ErrorListener errorListener = new ErrorListenerAdaptor(getElementId(), locationFactory,
                     getErrorReceiver());
@@ -193,7 +191,7 @@ public class XMLWriter extends AbstractWriter implements XMLFilter {
             if (outputProperties != null) {
                 th.getTransformer().setOutputProperties(outputProperties);
             }
-            th.setResult(new StreamResult(bufferedWriter));
+            th.setResult(new StreamResult(stringWriter));
             handler = th;
             startedDocument = false;
 
@@ -248,20 +246,15 @@ public class XMLWriter extends AbstractWriter implements XMLFilter {
         //if (LOGGER.isTraceEnabled()) {
         //    LOGGER.trace("startDocument called, buffer [%s]", truncateAndStripWhitespace(getBuffer()));
         //}
-        try {
-            //clear out the buffer in case we have a lone processing instruction from a previous empty split
-            //as the sax processor will write a processing instruction whenever startDocument is called, potentially
-            //leading to many of them if we have lots of empty splits before this
-            bufferedWriter.flush();
-            stringWriter.getBuffer().setLength(0);
-        } catch (final IOException e) {
-            throw new SAXException(e);
-        } finally {
-            if (!startedDocument) {
-                startedDocument = true;
-                handler.startDocument();
-                super.startDocument();
-            }
+        //clear out the buffer in case we have a lone processing instruction from a previous empty split
+        //as the sax processor will write a processing instruction whenever startDocument is called, potentially
+        //leading to many of them if we have lots of empty splits before this
+        stringWriter.getBuffer().clear();
+
+        if (!startedDocument) {
+            startedDocument = true;
+            handler.startDocument();
+            super.startDocument();
         }
 
     }
@@ -343,7 +336,6 @@ public class XMLWriter extends AbstractWriter implements XMLFilter {
             }
 
             if (depth == 1) {
-                bufferedWriter.flush();
                 final CharBuffer cb = stringWriter.getBuffer();
 
                 if (!doneElement) {
@@ -379,7 +371,8 @@ public class XMLWriter extends AbstractWriter implements XMLFilter {
                         }
                     }
                 }
-                cb.setLength(0);
+                // Clear rather than set the length to 0 so that the start of the buffer is reset after trimming.
+                cb.clear();
             }
 
             // Increase the element depth.
@@ -387,8 +380,6 @@ public class XMLWriter extends AbstractWriter implements XMLFilter {
 
             handler.startElement(uri, localName, qName, atts);
 
-        } catch (final IOException e) {
-            throw new SAXException(e);
         } finally {
             super.startElement(uri, localName, qName, atts);
         }
@@ -419,7 +410,6 @@ public class XMLWriter extends AbstractWriter implements XMLFilter {
 
         try {
             if (depth <= 1) {
-                bufferedWriter.flush();
                 final CharBuffer cb = stringWriter.getBuffer();
 
                 // If depth = 1 then we have finished an event.
@@ -439,23 +429,21 @@ public class XMLWriter extends AbstractWriter implements XMLFilter {
                             cb.append('\n');
                         }
 
-                        final String body = cb.toString();
-
                         borrowDestinations(header, footer);
 
                         //if (LOGGER.isTraceEnabled()) {
                         //    LOGGER.trace(String.format("Writing %s chars [%s] to destinations",
-                        //            body.length(),
-                        //            truncateAndStripWhitespace(body)));
+                        //            cb.length(),
+                        //            truncateAndStripWhitespace(cb.toString())));
                         //}
-                        getWriter().write(body);
+                        cb.writeTo(getWriter());
                         returnDestinations();
                     }
                 } else {
                     doneElement = false;
                 }
 
-                cb.setLength(0);
+                cb.clear();
             }
         } catch (final IOException e) {
             throw new SAXException(e);
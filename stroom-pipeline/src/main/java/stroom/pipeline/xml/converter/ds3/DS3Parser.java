@@ -592,8 +592,8 @@ public class DS3Parser extends AbstractParser {
             final Data data = (Data) node;
 
             // Output name and value if required.
-            final String name = normaliseBuffer(data.lookupName(parentMatchCount));
-            final String value = normaliseBuffer(data.lookupValue(parentMatchCount));
+            final String name = data.getNormalisedName(parentMatchCount);
+            final String value = data.getNormalisedValue(parentMatchCount);
 
             // Start the record if we aren't already in one.
             startRecord();
@@ -619,18 +619,6 @@ public class DS3Parser extends AbstractParser {
         }
     }
 
-    private String normaliseBuffer(final Buffer buffer) {
-        Buffer buf = buffer;
-        if (buf != null) {
-            buf = buf.trim();
-            if (buf.length() > 0) {
-                return buf.toString();
-            }
-        }
-
-        return null;
-    }
-
     private void startDocument() throws SAXException {
         getContentHandler().startDocument();
         getContentHandler().startPrefixMapping(EMPTY_STRING, NAMESPACE);
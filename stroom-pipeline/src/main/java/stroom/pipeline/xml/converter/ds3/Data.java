@@ -25,6 +25,9 @@ public class Data extends StoreNode {
 
     private Ref name;
     private Ref value;
+    // The normalised name and value if they are constant so we don't create new strings for every record.
+    private String constantName;
+    private String constantValue;
 
     public Data(final VarMap varMap, final DataFactory factory) {
         super(varMap, factory);
@@ -36,6 +39,12 @@ public class Data extends StoreNode {
         // Link this item.
         name = factory.getRefName().createRef(varMap, this);
         value = factory.getRefValue().createRef(varMap, this);
+        constantName = name.isConstant()
+                ? normalise(name.lookup(0))
+                : null;
+        constantValue = value.isConstant()
+                ? normalise(value.lookup(0))
+                : null;
 
         // Link children.
         super.link(varMap);
@@ -49,6 +58,38 @@ public class Data extends StoreNode {
         return value.lookup(matchCount);
     }
 
+    /**
+     * @return The trimmed name to output or null if there is no name.
+     */
+    public String getNormalisedName(final int matchCount) {
+        if (name.isConstant()) {
+            return constantName;
+        }
+        return normalise(name.lookup(matchCount));
+    }
+
+    /**
+     * @return The trimmed value to output or null if there is no value.
+     */
+    public String getNormalisedValue(final int matchCount) {
+        if (value.isConstant()) {
+            return constantValue;
+        }
+        return normalise(value.lookup(matchCount));
+    }
+
+    private static String normalise(final Buffer buffer) {
+        Buffer buf = buffer;
+        if (buf != null) {
+            buf = buf.trim();
+            if (buf.length() > 0) {
+                return buf.toString();
+            }
+        }
+
+        return null;
+    }
+
     @Override
     public NodeType getNodeType() {
         return NodeType.DATA;
@@ -25,6 +25,9 @@ public class DataAttributes implements Attributes {
     private static final String[] NAME_ONLY = {"name"};
     private static final String[] VALUE_ONLY = {"value"};
     private static final String[] NONE = new String[0];
+    // Attributes are only valid for the duration of the startElement call so we can reuse the arrays.
+    private final String[] nameValueAtts = new String[2];
+    private final String[] singleAtts = new String[1];
     private Type type;
     private String[] names;
     private String[] atts;
@@ -33,18 +36,18 @@ public class DataAttributes implements Attributes {
         if (name != null && value != null) {
             type = Type.NAME_VALUE;
             names = NAME_VALUE;
-            atts = new String[2];
+            atts = nameValueAtts;
             atts[0] = name;
             atts[1] = value;
         } else if (name != null) {
             type = Type.NAME_ONLY;
             names = NAME_ONLY;
-            atts = new String[1];
+            atts = singleAtts;
             atts[0] = name;
         } else if (value != null) {
             type = Type.VALUE_ONLY;
             names = VALUE_ONLY;
-            atts = new String[1];
+            atts = singleAtts;
             atts[0] = value;
         } else {
             type = Type.NONE;
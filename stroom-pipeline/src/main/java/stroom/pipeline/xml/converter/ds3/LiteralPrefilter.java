@@ -0,0 +1,168 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.pipeline.xml.converter.ds3;
+
+import java.util.regex.Pattern;
+
+/**
+ * A cheap check that can rule out a regex match without running the regex. If a pattern has to start with some
+ * literal text then there can't be a match unless the input contains that text, or starts with it if the pattern is
+ * anchored to the start of the input.
+ */
+final class LiteralPrefilter {
+
+    private static final int UNSUPPORTED_FLAGS = Pattern.CASE_INSENSITIVE | Pattern.COMMENTS | Pattern.CANON_EQ;
+    private static final String META_CHARS = "\\[](){}.*+?^$|";
+
+    private final char[] literal;
+    private final boolean anchored;
+
+    private LiteralPrefilter(final String literal, final boolean anchored) {
+        this.literal = literal.toCharArray();
+        this.anchored = anchored;
+    }
+
+    /**
+     * @return A prefilter for the pattern or null if the pattern doesn't have to start with any literal text.
+     */
+    static LiteralPrefilter create(final String pattern, final int flags) {
+        if (pattern == null || pattern.isEmpty() || (flags & UNSUPPORTED_FLAGS) != 0) {
+            return null;
+        }
+        if ((flags & Pattern.LITERAL) != 0) {
+            return new LiteralPrefilter(pattern, false);
+        }
+        if (!canPrefilter(pattern)) {
+            return null;
+        }
+
+        int pos = 0;
+        boolean anchored = false;
+        if (pattern.charAt(0) == '^') {
+            // In multiline mode ^ can match after any line terminator.
+            anchored = (flags & Pattern.MULTILINE) == 0;
+            pos++;
+        }
+
+        final StringBuilder sb = new StringBuilder();
+        while (pos < pattern.length()) {
+            final char c = pattern.charAt(pos);
+            final char literalChar;
+            if (c == '\\') {
+                // Only escaped punctuation is literal, e.g. `\.`, everything else is a character class, back
+                // reference, quote etc.
+                if (pos + 1 >= pattern.length() || Character.isLetterOrDigit(pattern.charAt(pos + 1))) {
+                    break;
+                }
+                literalChar = pattern.charAt(pos + 1);
+                pos += 2;
+            } else if (META_CHARS.indexOf(c) != -1) {
+                break;
+            } else {
+                literalChar = c;
+                pos++;
+            }
+
+            if (pos < pattern.length()) {
+                final char next = pattern.charAt(pos);
+                if (next == '?' || next == '*' || next == '{') {
+                    // The last char is optional or repeated an unknown number of times so stop before it.
+                    break;
+                }
+                sb.append(literalChar);
+                if (next == '+') {
+                    // The last char must appear at least once but we don't know what follows it.
+                    break;
+                }
+            } else {
+                sb.append(literalChar);
+            }
+        }
+
+        if (sb.isEmpty()) {
+            return null;
+        }
+        return new LiteralPrefilter(sb.toString(), anchored);
+    }
+
+    /**
+     * @return False if the pattern has a top level alternation, in which case the literal prefix is only one of
+     * the options, or a quoted section that we don't attempt to parse.
+     */
+    private static boolean canPrefilter(final String pattern) {
+        int groupDepth = 0;
+        int classDepth = 0;
+        for (int i = 0; i < pattern.length(); i++) {
+            final char c = pattern.charAt(i);
+            if (c == '\\') {
+                if (i + 1 < pattern.length() && pattern.charAt(i + 1) == 'Q') {
+                    return false;
+                }
+                i++;
+            } else if (c == '[') {
+                classDepth++;
+            } else if (c == ']' && classDepth > 0) {
+                classDepth--;
+            } else if (classDepth == 0) {
+                if (c == '(') {
+                    groupDepth++;
+                } else if (c == ')') {
+                    groupDepth--;
+                } else if (c == '|' && groupDepth == 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return False if the input can't possibly match the pattern.
+     */
+    boolean mightMatch(final CharSequence input) {
+        if (input.length() < literal.length) {
+            return false;
+        }
+        final int last = anchored
+                ? 0
+                : input.length() - literal.length;
+        for (int start = 0; start <= last; start++) {
+            if (regionMatches(input, start)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean regionMatches(final CharSequence input, final int start) {
+        for (int i = 0; i < literal.length; i++) {
+            if (input.charAt(start + i) != literal[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    String getLiteral() {
+        return new String(literal);
+    }
+
+    boolean isAnchored() {
+        return anchored;
+    }
+}
@@ -31,7 +31,9 @@ public class Regex extends Expression implements ExecutionProfiler, Match {
     private static final Logger LOGGER = LoggerFactory.getLogger(Regex.class);
 
     private final Pattern pattern;
+    private final LiteralPrefilter prefilter;
     private Matcher matcher;
+    private CharSequence input;
 
     private long totalExecutionTime = 0;
     private long totalExecutionCount = 0;
@@ -40,17 +42,28 @@ public class Regex extends Expression implements ExecutionProfiler, Match {
     Regex(final VarMap varMap, final RegexFactory factory) {
         super(varMap, factory);
         pattern = factory.getPattern();
+        prefilter = factory.getPrefilter();
     }
 
     @Override
     public void setInput(final CharSequence cs) {
         if (LOGGER.isDebugEnabled()) {
             final long startTime = System.currentTimeMillis();
-            matcher = pattern.matcher(cs);
+            resetMatcher(cs);
             totalExecutionTime += System.currentTimeMillis() - startTime;
         } else {
+            resetMatcher(cs);
+        }
+    }
+
+    private void resetMatcher(final CharSequence cs) {
+        // Reuse the matcher rather than creating a new one for every input.
+        if (matcher == null) {
             matcher = pattern.matcher(cs);
+        } else {
+            matcher.reset(cs);
         }
+        input = cs;
     }
 
     @Override
@@ -144,6 +157,10 @@ public class Regex extends Expression implements ExecutionProfiler, Match {
     }
 
     private boolean findNextMatch() {
+        // Avoid running the regex if the input can't contain a match.
+        if (prefilter != null && !prefilter.mightMatch(input)) {
+            return false;
+        }
         try {
             return matcher.find(0);
         } catch (final StackOverflowError soe) {
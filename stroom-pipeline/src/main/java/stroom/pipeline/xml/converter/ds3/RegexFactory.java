@@ -27,6 +27,7 @@ import java.util.regex.Pattern;
 public class RegexFactory extends ExpressionFactory {
 
     private final Pattern pattern;
+    private final LiteralPrefilter prefilter;
 
     public RegexFactory(final NodeFactory parent, final String id, final String pattern) {
         this(parent, id, 0, -1, null, -1, pattern, 0);
@@ -40,6 +41,7 @@ public class RegexFactory extends ExpressionFactory {
         } else {
             this.pattern = null;
         }
+        this.prefilter = LiteralPrefilter.create(pattern, flags);
 
         final StringBuilder sb = new StringBuilder();
         if (pattern != null) {
@@ -101,6 +103,10 @@ public class RegexFactory extends ExpressionFactory {
         return pattern;
     }
 
+    LiteralPrefilter getPrefilter() {
+        return prefilter;
+    }
+
     @Override
     public Regex newInstance(final VarMap varMap) {
         return new Regex(varMap, this);
@@ -30,18 +30,23 @@ public class CompositeRef implements Ref {
 
     @Override
     public Buffer lookup(final int matchCount) {
-        char[] chars = null;
-        for (final Ref ref : refs) {
-            final Buffer part = ref.lookup(matchCount);
+        // Look up all the parts first so we can copy them into a single array of the right size.
+        final Buffer[] parts = new Buffer[refs.size()];
+        int length = 0;
+        for (int i = 0; i < parts.length; i++) {
+            final Buffer part = refs.get(i).lookup(matchCount);
             if (part != null) {
-                final char[] arr = part.toCharArray();
-                if (chars == null) {
-                    chars = arr;
-                } else {
-                    final char[] tmp = new char[chars.length + arr.length];
-                    System.arraycopy(chars, 0, tmp, 0, chars.length);
-                    System.arraycopy(arr, 0, tmp, chars.length, arr.length);
-                    chars = tmp;
+                parts[i] = part;
+                length += part.length();
+            }
+        }
+
+        final char[] chars = new char[length];
+        int pos = 0;
+        for (final Buffer part : parts) {
+            if (part != null) {
+                for (int i = 0; i < part.length(); i++) {
+                    chars[pos++] = part.charAt(i);
                 }
             }
         }
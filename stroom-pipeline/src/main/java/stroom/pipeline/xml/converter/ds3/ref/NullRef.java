@@ -22,4 +22,9 @@ public class NullRef implements Ref {
     public Buffer lookup(final int matchCount) {
         return null;
     }
+
+    @Override
+    public boolean isConstant() {
+        return true;
+    }
 }
@@ -20,4 +20,11 @@ import stroom.pipeline.xml.converter.ds3.Buffer;
 
 public interface Ref {
     Buffer lookup(int matchCount);
+
+    /**
+     * @return True if this reference always returns the same value so the value can be resolved once and reused.
+     */
+    default boolean isConstant() {
+        return false;
+    }
 }
@@ -32,6 +32,11 @@ public class TextRef implements Ref {
         return text;
     }
 
+    @Override
+    public boolean isConstant() {
+        return true;
+    }
+
     @Override
     public String toString() {
         return factory.toString();
@@ -30,16 +30,17 @@ import stroom.util.logging.LogUtil;
 import stroom.util.shared.NullSafe;
 import stroom.util.time.StroomDuration;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class CommonHttpClient {
 
     private static final LambdaLogger LOGGER = LambdaLoggerFactory.getLogger(CommonHttpClient.class);
 
     private final HttpClientProviderCache httpClientProviderCache;
-    private final Map<String, HttpClientConfiguration> configCache = new HashMap<>();
+    // Shared by all pipelines on the node so parsed configs are reused rather than parsed for every pipeline.
+    private final Map<String, HttpClientConfiguration> configCache = new ConcurrentHashMap<>();
 
     CommonHttpClient(final HttpClientProviderCache httpClientProviderCache) {
         this.httpClientProviderCache = httpClientProviderCache;
@@ -16,6 +16,8 @@
 
 package stroom.pipeline.xsltfunctions;
 
+import stroom.pipeline.xsltfunctions.HostResolver.InetHostResolver;
+import stroom.util.guice.HasSystemInfoBinder;
 import stroom.util.pipeline.scope.PipelineScoped;
 
 import jakarta.inject.Inject;
@@ -29,6 +31,10 @@ public class CommonXsltFunctionModule extends AbstractXsltFunctionModule {
     @Override
     protected void configure() {
         bind(TaskScopeMap.class).in(PipelineScoped.class);
+        bind(HostResolver.class).to(InetHostResolver.class);
+        HasSystemInfoBinder.create(binder())
+                .bind(HostLookupService.class)
+                .bind(XsltHttpService.class);
         super.configure();
     }
 
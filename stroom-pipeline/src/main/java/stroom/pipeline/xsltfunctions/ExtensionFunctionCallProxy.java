@@ -16,6 +16,8 @@
 
 package stroom.pipeline.xsltfunctions;
 
+import stroom.pipeline.factory.PipelineProfiler;
+
 import net.sf.saxon.expr.XPathContext;
 import net.sf.saxon.lib.ExtensionFunctionCall;
 import net.sf.saxon.om.Sequence;
@@ -23,18 +25,49 @@ import net.sf.saxon.trans.XPathException;
 
 class ExtensionFunctionCallProxy extends ExtensionFunctionCall {
     private final String functionName;
+    private final String profileName;
     private transient StroomExtensionFunctionCall functionCall;
+    private transient Object callLock;
+    private transient PipelineProfiler profiler;
 
     ExtensionFunctionCallProxy(final String functionName) {
         this.functionName = functionName;
+        this.profileName = "stroom:" + functionName;
     }
 
     @Override
     public Sequence call(final XPathContext context, final Sequence[] arguments) throws XPathException {
+        final PipelineProfiler profiler = this.profiler;
+        if (profiler != null) {
+            profiler.enter(profileName);
+            try {
+                return lockAndCall(context, arguments);
+            } finally {
+                profiler.exit();
+            }
+        }
+        return lockAndCall(context, arguments);
+    }
+
+    private Sequence lockAndCall(final XPathContext context, final Sequence[] arguments) throws XPathException {
+        final Object lock = callLock;
+        if (lock != null) {
+            synchronized (lock) {
+                return functionCall.call(functionName, context, arguments);
+            }
+        }
         return functionCall.call(functionName, context, arguments);
     }
 
     void setFunctionCall(final StroomExtensionFunctionCall functionCall) {
         this.functionCall = functionCall;
     }
+
+    void setCallLock(final Object callLock) {
+        this.callLock = callLock;
+    }
+
+    void setProfiler(final PipelineProfiler profiler) {
+        this.profiler = profiler;
+    }
 }
@@ -16,8 +16,7 @@
 
 package stroom.pipeline.xsltfunctions;
 
-import stroom.util.jersey.HttpClientProvider;
-import stroom.util.jersey.HttpClientProviderCache;
+import stroom.pipeline.xsltfunctions.XsltHttpService.HttpResponseData;
 import stroom.util.logging.LambdaLogger;
 import stroom.util.logging.LambdaLoggerFactory;
 import stroom.util.shared.Severity;
@@ -28,24 +27,20 @@ import net.sf.saxon.om.EmptyAtomicSequence;
 import net.sf.saxon.om.Item;
 import net.sf.saxon.om.Sequence;
 import net.sf.saxon.trans.XPathException;
-import org.apache.hc.client5.http.classic.HttpClient;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
 import org.xml.sax.SAXException;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
 import java.util.Optional;
 
 class FetchJson extends StroomExtensionFunctionCall {
 
     private static final LambdaLogger LOGGER = LambdaLoggerFactory.getLogger(FetchJson.class);
 
-    private final CommonHttpClient commonHttpClient;
+    private final XsltHttpService xsltHttpService;
 
     @Inject
-    FetchJson(final HttpClientProviderCache httpClientProviderCache) {
-        commonHttpClient = new CommonHttpClient(httpClientProviderCache);
+    FetchJson(final XsltHttpService xsltHttpService) {
+        this.xsltHttpService = xsltHttpService;
     }
 
     @Override
@@ -60,37 +55,27 @@ class FetchJson extends StroomExtensionFunctionCall {
             log(context, Severity.WARNING, "No URL specified for HTTP call", null);
 
         } else {
-            try (final HttpClientProvider httpClientProvider = commonHttpClient.createClientProvider(clientConfigStr)) {
-                final HttpClient httpClient = httpClientProvider.get();
-                final HttpGet httpGet = new HttpGet(url);
-                sequence = httpClient.execute(httpGet, response -> {
-                    try {
-                        switch (response.getCode()) {
-                            case 200: { // OK
-                                try (final BufferedReader in = new BufferedReader(new InputStreamReader(
-                                        response.getEntity().getContent()))) {
-                                    final String json = in.lines().reduce("", String::concat);
-                                    final Sequence<?> s = JsonToXml.jsonToXml(context, json);
-                                    LOGGER.trace(String.format("Found Data %s: %s", url, json));
-                                    return s;
-                                }
-                            }
-                            case 404: // NOT_FOUND
-                                // this is an expected failure condition
-                                break;
-                            default:
-                                throw new RuntimeException("Could not make request to Annotations Service: " +
-                                                           response.getCode());
-                        }
-                    } catch (final SAXException | IOException e) {
-                        throw new RuntimeException("Could not make request to Annotations Service: " +
-                                                   e.getLocalizedMessage());
+            try {
+                final HttpResponseData response = xsltHttpService.execute(clientConfigStr, new HttpGet(url), null);
+                switch (response.code()) {
+                    case 200: { // OK
+                        final String json = response.body() != null
+                                ? response.body()
+                                : "";
+                        sequence = JsonToXml.jsonToXml(context, json);
+                        LOGGER.trace(() -> String.format("Found Data %s: %s", url, json));
+                        break;
                     }
-
-                    return EmptyAtomicSequence.getInstance();
-                });
-
-            } catch (final IOException | RuntimeException e) {
+                    case 404: // NOT_FOUND
+                        // this is an expected failure condition
+                        break;
+                    default:
+                        throw new RuntimeException("Could not make request to Annotations Service: " +
+                                                   response.code());
+                }
+            } catch (final SAXException e) {
+                LOGGER.warn(() -> "Could not make request to Annotations Service: " + e.getLocalizedMessage());
+            } catch (final RuntimeException e) {
                 LOGGER.warn(() -> "Could not make request to Annotations Service: " + e.getLocalizedMessage());
             }
         }
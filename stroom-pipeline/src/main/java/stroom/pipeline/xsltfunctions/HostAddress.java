@@ -16,19 +16,26 @@
 
 package stroom.pipeline.xsltfunctions;
 
+import jakarta.inject.Inject;
 import net.sf.saxon.expr.XPathContext;
 import net.sf.saxon.om.EmptyAtomicSequence;
 import net.sf.saxon.om.Sequence;
 import net.sf.saxon.trans.XPathException;
 import net.sf.saxon.value.StringValue;
 
-import java.net.InetAddress;
 import java.net.UnknownHostException;
 
 class HostAddress extends StroomExtensionFunctionCall {
 
     public static final String FUNCTION_NAME = "host-address";
 
+    private final HostLookupService hostLookupService;
+
+    @Inject
+    HostAddress(final HostLookupService hostLookupService) {
+        this.hostLookupService = hostLookupService;
+    }
+
     @Override
     protected Sequence call(final String functionName, final XPathContext context, final Sequence[] arguments) {
         String result = null;
@@ -38,8 +45,7 @@ class HostAddress extends StroomExtensionFunctionCall {
 
         try {
             final String hostName = getSafeString(functionName, context, arguments, 0);
-            final InetAddress addr = InetAddress.getByName(hostName);
-            result = addr.getHostAddress();
+            result = hostLookupService.getHostAddress(hostName);
         } catch (final XPathException | UnknownHostException | RuntimeException e) {
             if (!ignoreWarnings) {
                 final StringBuilder sb = new StringBuilder();
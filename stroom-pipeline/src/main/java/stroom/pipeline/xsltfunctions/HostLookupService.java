@@ -0,0 +1,315 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.pipeline.xsltfunctions;
+
+import stroom.pipeline.filter.XsltConfig;
+import stroom.task.api.ExecutorProvider;
+import stroom.task.api.ThreadPoolImpl;
+import stroom.task.shared.ThreadPool;
+import stroom.util.concurrent.UncheckedInterruptedException;
+import stroom.util.logging.LambdaLogger;
+import stroom.util.logging.LambdaLoggerFactory;
+import stroom.util.logging.LogUtil;
+import stroom.util.sysinfo.HasSystemInfo;
+import stroom.util.sysinfo.SystemInfoResult;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+import jakarta.inject.Singleton;
+
+import java.net.UnknownHostException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Resolves host names and addresses for the host-name and host-address XSLT functions without letting a slow
+ * resolver stall the pipeline.
+ * <p>
+ * Lookups run on a separate thread pool and callers only wait for the configured timeout. Successful and failed
+ * lookups are cached for their own TTLs. A lookup that times out is left to complete and its result is cached for
+ * the next caller. Successful results that are used again near the end of their TTL are refreshed in the background
+ * so values seen earlier in a stream don't have to be resolved again in the pipeline.
+ */
+@Singleton
+public class HostLookupService implements HasSystemInfo {
+
+    private static final LambdaLogger LOGGER = LambdaLoggerFactory.getLogger(HostLookupService.class);
+    private static final ThreadPool THREAD_POOL = new ThreadPoolImpl("Host Lookup#", Thread.MIN_PRIORITY);
+    // Refresh successful lookups that are used once this fraction of their TTL has passed.
+    private static final double REFRESH_AFTER_TTL_FRACTION = 0.8;
+
+    private final HostResolver hostResolver;
+    private final Provider<XsltConfig> xsltConfigProvider;
+    private final Supplier<Executor> executorSupplier;
+    private final LongSupplier currentTimeMs;
+
+    private final Map<LookupKey, CachedLookup> cache = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder resolveCount = new LongAdder();
+    private final LongAdder resolveFailures = new LongAdder();
+    private final LongAdder resolveNanos = new LongAdder();
+
+    @Inject
+    HostLookupService(final HostResolver hostResolver,
+                      final Provider<XsltConfig> xsltConfigProvider,
+                      final ExecutorProvider executorProvider) {
+        this(hostResolver, xsltConfigProvider, () -> executorProvider.get(THREAD_POOL), System::currentTimeMillis);
+    }
+
+    HostLookupService(final HostResolver hostResolver,
+                      final Provider<XsltConfig> xsltConfigProvider,
+                      final Supplier<Executor> executorSupplier,
+                      final LongSupplier currentTimeMs) {
+        this.hostResolver = hostResolver;
+        this.xsltConfigProvider = xsltConfigProvider;
+        this.executorSupplier = executorSupplier;
+        this.currentTimeMs = currentTimeMs;
+    }
+
+    /**
+     * @return The host name for the supplied IP address.
+     * @throws UnknownHostException If the address can't be resolved or the lookup times out.
+     */
+    public String getHostName(final String address) throws UnknownHostException {
+        return lookup(new LookupKey(LookupType.HOST_NAME, address));
+    }
+
+    /**
+     * @return The IP address for the supplied host name.
+     * @throws UnknownHostException If the host name can't be resolved or the lookup times out.
+     */
+    public String getHostAddress(final String hostName) throws UnknownHostException {
+        return lookup(new LookupKey(LookupType.HOST_ADDRESS, hostName));
+    }
+
+    private String lookup(final LookupKey key) throws UnknownHostException {
+        final XsltConfig xsltConfig = xsltConfigProvider.get();
+        final long now = currentTimeMs.getAsLong();
+
+        final CachedLookup cachedLookup;
+        if (xsltConfig.getHostLookupCacheSize() <= 0) {
+            misses.increment();
+            cachedLookup = startLookup(key, xsltConfig);
+        } else {
+            final boolean[] miss = new boolean[1];
+            cachedLookup = cache.compute(key, (k, existing) -> {
+                if (existing == null || existing.isExpired(now)) {
+                    miss[0] = true;
+                    return startLookup(k, xsltConfig);
+                }
+                return existing;
+            });
+
+            if (miss[0]) {
+                misses.increment();
+                evictIfFull(xsltConfig.getHostLookupCacheSize(), now);
+            } else {
+                hits.increment();
+                if (cachedLookup.shouldRefresh(now)) {
+                    refresh(key, cachedLookup, xsltConfig);
+                }
+            }
+        }
+
+        return await(key, cachedLookup, xsltConfig);
+    }
+
+    private CachedLookup startLookup(final LookupKey key, final XsltConfig xsltConfig) {
+        final CachedLookup cachedLookup = new CachedLookup();
+        cachedLookup.future = CompletableFuture
+                .supplyAsync(() -> resolve(key), executorSupplier.get())
+                .whenComplete((resolution, throwable) ->
+                        cachedLookup.onComplete(resolution, xsltConfig, currentTimeMs.getAsLong()));
+        return cachedLookup;
+    }
+
+    private void refresh(final LookupKey key, final CachedLookup cachedLookup, final XsltConfig xsltConfig) {
+        if (cachedLookup.refreshing.compareAndSet(false, true)) {
+            refreshes.increment();
+            final CachedLookup refreshed = startLookup(key, xsltConfig);
+            refreshed.future.thenRun(() -> {
+                // Only replace the old value if the refresh worked, otherwise keep using it until it expires.
+                if (refreshed.isSuccess()) {
+                    cache.replace(key, cachedLookup, refreshed);
+                }
+            });
+        }
+    }
+
+    private Resolution resolve(final LookupKey key) {
+        final long startNanos = System.nanoTime();
+        try {
+            final String value = switch (key.type()) {
+                case HOST_NAME -> hostResolver.getHostName(key.value());
+                case HOST_ADDRESS -> hostResolver.getHostAddress(key.value());
+            };
+            return new Resolution(value, null);
+        } catch (final UnknownHostException | RuntimeException e) {
+            LOGGER.debug(() -> LogUtil.message("Failed to resolve {}", key), e);
+            resolveFailures.increment();
+            return new Resolution(null, e.getMessage() != null
+                    ? e.getMessage()
+                    : e.toString());
+        } finally {
+            resolveCount.increment();
+            resolveNanos.add(System.nanoTime() - startNanos);
+        }
+    }
+
+    private String await(final LookupKey key,
+                         final CachedLookup cachedLookup,
+                         final XsltConfig xsltConfig) throws UnknownHostException {
+        final Resolution resolution;
+        try {
+            resolution = cachedLookup.future.get(xsltConfig.getHostLookupTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (final TimeoutException e) {
+            timeouts.increment();
+            throw new UnknownHostException(LogUtil.message("Timed out after {} resolving '{}'",
+                    xsltConfig.getHostLookupTimeout(), key.value()));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw UncheckedInterruptedException.create(e);
+        } catch (final ExecutionException e) {
+            throw new RuntimeException(e.getCause().getMessage(), e.getCause());
+        }
+
+        if (resolution.error() != null) {
+            throw new UnknownHostException(resolution.error());
+        }
+        return resolution.value();
+    }
+
+    private void evictIfFull(final int maxSize, final long now) {
+        if (cache.size() > maxSize && evicting.compareAndSet(false, true)) {
+            try {
+                cache.values().removeIf(cachedLookup -> cachedLookup.isExpired(now));
+
+                // If everything is still live then drop some entries to make room rather than evicting on every
+                // miss.
+                final int target = (int) (maxSize * 0.9);
+                final Iterator<CachedLookup> iterator = cache.values().iterator();
+                while (cache.size() > target && iterator.hasNext()) {
+                    iterator.next();
+                    iterator.remove();
+                }
+            } finally {
+                evicting.set(false);
+            }
+        }
+    }
+
+    @Override
+    public SystemInfoResult getSystemInfo() {
+        final long hitCount = hits.sum();
+        final long missCount = misses.sum();
+        final long total = hitCount + missCount;
+        final long resolves = resolveCount.sum();
+        return SystemInfoResult.builder(this)
+                .addDetail("cacheSize", cache.size())
+                .addDetail("hits", hitCount)
+                .addDetail("misses", missCount)
+                .addDetail("hitRate", total > 0
+                        ? (double) hitCount / total
+                        : 0)
+                .addDetail("timeouts", timeouts.sum())
+                .addDetail("refreshes", refreshes.sum())
+                .addDetail("resolves", resolves)
+                .addDetail("resolveFailures", resolveFailures.sum())
+                .addDetail("averageResolveMs", resolves > 0
+                        ? resolveNanos.sum() / resolves / 1_000_000.0
+                        : 0)
+                .build();
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    private enum LookupType {
+        HOST_NAME,
+        HOST_ADDRESS
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    private record LookupKey(LookupType type, String value) {
+
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    private record Resolution(String value, String error) {
+
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    private static class CachedLookup {
+
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private volatile CompletableFuture<Resolution> future;
+        // Lookups in progress never expire so that callers share them.
+        private volatile long expiryTimeMs = Long.MAX_VALUE;
+        private volatile long refreshTimeMs = Long.MAX_VALUE;
+        private volatile boolean success;
+
+        void onComplete(final Resolution resolution, final XsltConfig xsltConfig, final long now) {
+            if (resolution != null && resolution.error() == null) {
+                final long ttlMs = xsltConfig.getHostLookupSuccessTtl().toMillis();
+                success = true;
+                refreshTimeMs = now + (long) (ttlMs * REFRESH_AFTER_TTL_FRACTION);
+                expiryTimeMs = now + ttlMs;
+            } else {
+                expiryTimeMs = now + xsltConfig.getHostLookupFailureTtl().toMillis();
+            }
+        }
+
+        boolean isExpired(final long now) {
+            return now >= expiryTimeMs;
+        }
+
+        boolean shouldRefresh(final long now) {
+            return success && now >= refreshTimeMs;
+        }
+
+        boolean isSuccess() {
+            return success;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.pipeline.xsltfunctions;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Resolves host names and addresses for {@link HostLookupService}. Tests can supply their own implementation
+ * rather than relying on the system resolver.
+ */
+public interface HostResolver {
+
+    /**
+     * @return The host name for the supplied IP address.
+     */
+    String getHostName(String address) throws UnknownHostException;
+
+    /**
+     * @return The IP address for the supplied host name.
+     */
+    String getHostAddress(String hostName) throws UnknownHostException;
+
+
+    // --------------------------------------------------------------------------------
+
+
+    class InetHostResolver implements HostResolver {
+
+        @Override
+        public String getHostName(final String address) throws UnknownHostException {
+            return InetAddress.getByName(address).getHostName();
+        }
+
+        @Override
+        public String getHostAddress(final String hostName) throws UnknownHostException {
+            return InetAddress.getByName(hostName).getHostAddress();
+        }
+    }
+}
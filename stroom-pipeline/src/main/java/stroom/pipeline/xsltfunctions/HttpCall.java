@@ -16,10 +16,8 @@
 
 package stroom.pipeline.xsltfunctions;
 
-import stroom.pipeline.errorhandler.ProcessException;
-import stroom.util.io.StreamUtil;
-import stroom.util.jersey.HttpClientProvider;
-import stroom.util.jersey.HttpClientProviderCache;
+import stroom.pipeline.xsltfunctions.XsltHttpService.HttpHeader;
+import stroom.pipeline.xsltfunctions.XsltHttpService.HttpResponseData;
 import stroom.util.logging.LambdaLogger;
 import stroom.util.logging.LambdaLoggerFactory;
 import stroom.util.logging.LogUtil;
@@ -36,19 +34,12 @@ import net.sf.saxon.om.Item;
 import net.sf.saxon.om.Sequence;
 import net.sf.saxon.trans.XPathException;
 import net.sf.saxon.tree.tiny.TinyBuilder;
-import org.apache.hc.client5.http.classic.HttpClient;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
-import org.apache.hc.core5.http.ClassicHttpResponse;
 import org.apache.hc.core5.http.ContentType;
-import org.apache.hc.core5.http.Header;
-import org.apache.hc.core5.http.HttpEntity;
-import org.apache.hc.core5.http.io.HttpClientResponseHandler;
 import org.apache.hc.core5.http.io.entity.StringEntity;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.AttributesImpl;
 
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.Optional;
 
 class HttpCall extends StroomExtensionFunctionCall {
@@ -61,11 +52,11 @@ class HttpCall extends StroomExtensionFunctionCall {
     private static final String HEADER_DELIMITER = "\n";
     private static final String HEADER_KV_DELIMITER = ":";
 
-    private final CommonHttpClient commonHttpClient;
+    private final XsltHttpService xsltHttpService;
 
     @Inject
-    HttpCall(final HttpClientProviderCache httpClientProviderCache) {
-        commonHttpClient = new CommonHttpClient(httpClientProviderCache);
+    HttpCall(final XsltHttpService xsltHttpService) {
+        this.xsltHttpService = xsltHttpService;
     }
 
     @Override
@@ -83,10 +74,10 @@ class HttpCall extends StroomExtensionFunctionCall {
             log(context, Severity.WARNING, "No URL specified for HTTP call", null);
 
         } else {
-            try (final HttpClientProvider httpClientProvider = commonHttpClient.createClientProvider(clientConfigStr)) {
-                final HttpClient httpClient = httpClientProvider.get();
-                sequence = execute(url, headers, mediaType, data, httpClient, response ->
-                        createSequence(context, response));
+            try {
+                final HttpPost httpPost = createRequest(url, headers, mediaType, data);
+                final HttpResponseData response = xsltHttpService.execute(clientConfigStr, httpPost, data);
+                sequence = createSequence(context, response);
 
             } catch (final Exception e) {
                 final String msg = buildErrorMessage(e);
@@ -114,12 +105,10 @@ class HttpCall extends StroomExtensionFunctionCall {
                 "Error calling XSLT function {}(): {}", FUNCTION_NAME, cleanedErrorMsg);
     }
 
-    <T> T execute(final String url,
-                  final String headers,
-                  final String mediaType,
-                  final String data,
-                  final HttpClient httpClient,
-                  final HttpClientResponseHandler<T> responseHandler) {
+    static HttpPost createRequest(final String url,
+                                  final String headers,
+                                  final String mediaType,
+                                  final String data) {
         LOGGER.debug(() -> "Creating request builder");
         final HttpPost httpPost = new HttpPost(url);
 
@@ -140,15 +129,10 @@ class HttpCall extends StroomExtensionFunctionCall {
             }
         }
 
-        try {
-            return httpClient.execute(httpPost, responseHandler);
-        } catch (final IOException e) {
-            throw ProcessException.create(LogUtil.message(
-                    "Error sending request to \"{}\": {}", url, e.getMessage()), e);
-        }
+        return httpPost;
     }
 
-    private Sequence createSequence(final XPathContext context, final ClassicHttpResponse response) {
+    private Sequence createSequence(final XPathContext context, final HttpResponseData response) {
         try {
             final Configuration configuration = context.getConfiguration();
             final PipelineConfiguration pipe = configuration.makePipelineConfiguration();
@@ -160,33 +144,23 @@ class HttpCall extends StroomExtensionFunctionCall {
 
             contentHandler.startDocument();
             startElement(contentHandler, "response");
-            data(contentHandler, "successful", String.valueOf(response.getCode() == 200));
-            data(contentHandler, "code", String.valueOf(response.getCode()));
-            data(contentHandler, "message", response.getReasonPhrase());
+            data(contentHandler, "successful", String.valueOf(response.code() == 200));
+            data(contentHandler, "code", String.valueOf(response.code()));
+            data(contentHandler, "message", response.reasonPhrase());
 
             // Write headers.
-            if (response.getHeaders() != null && response.getHeaders().length > 0) {
+            if (!response.headers().isEmpty()) {
                 startElement(contentHandler, "headers");
-                for (final Header header : response.getHeaders()) {
+                for (final HttpHeader header : response.headers()) {
                     startElement(contentHandler, "header");
-                    data(contentHandler, "key", header.getName());
-                    data(contentHandler, "value", header.getValue());
+                    data(contentHandler, "key", header.name());
+                    data(contentHandler, "value", header.value());
                     endElement(contentHandler, "header");
                 }
                 endElement(contentHandler, "headers");
             }
 
-            try {
-                final HttpEntity entity = response.getEntity();
-                if (entity != null) {
-                    try (final InputStream inputStream = entity.getContent()) {
-                        final String string = StreamUtil.streamToString(inputStream);
-                        data(contentHandler, "body", string);
-                    }
-                }
-            } catch (final NullPointerException | IOException e) {
-                LOGGER.debug(e::getMessage, e);
-            }
+            data(contentHandler, "body", response.body());
 
             endElement(contentHandler, "response");
             contentHandler.endDocument();
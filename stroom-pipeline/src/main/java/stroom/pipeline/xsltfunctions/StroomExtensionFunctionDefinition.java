@@ -18,6 +18,7 @@ package stroom.pipeline.xsltfunctions;
 
 import stroom.pipeline.LocationFactory;
 import stroom.pipeline.errorhandler.ErrorReceiver;
+import stroom.pipeline.factory.PipelineProfiler;
 import stroom.pipeline.shared.data.PipelineReference;
 import stroom.pipeline.xml.NamespaceConstants;
 
@@ -100,9 +101,23 @@ class StroomExtensionFunctionDefinition<T extends StroomExtensionFunctionCall> e
         }
     }
 
+    void setCallLock(final Object callLock) {
+        if (proxy != null) {
+            proxy.setCallLock(callLock);
+        }
+    }
+
+    void setProfiler(final PipelineProfiler profiler) {
+        if (proxy != null) {
+            proxy.setProfiler(profiler);
+        }
+    }
+
     void reset() {
         if (proxy != null) {
             proxy.setFunctionCall(null);
+            proxy.setCallLock(null);
+            proxy.setProfiler(null);
         }
     }
 }
@@ -18,6 +18,7 @@ package stroom.pipeline.xsltfunctions;
 
 import stroom.pipeline.LocationFactory;
 import stroom.pipeline.errorhandler.ErrorReceiver;
+import stroom.pipeline.factory.PipelineProfiler;
 import stroom.pipeline.shared.data.PipelineReference;
 
 import jakarta.inject.Inject;
@@ -45,6 +46,22 @@ public class StroomXsltFunctionLibrary {
         functionDefinitions.forEach(def -> def.configure(errorReceiver, locationFactory, pipelineReferences));
     }
 
+    /**
+     * Make all calls to the Stroom functions synchronise on the supplied lock. The same pipeline scoped function
+     * state may be used by transforms running on more than one thread so every transform in a pipeline must use the
+     * same lock.
+     */
+    public void setCallLock(final Object callLock) {
+        functionDefinitions.forEach(def -> def.setCallLock(callLock));
+    }
+
+    /**
+     * Record the time spent in each call to the Stroom functions with the supplied profiler.
+     */
+    public void setProfiler(final PipelineProfiler profiler) {
+        functionDefinitions.forEach(def -> def.setProfiler(profiler));
+    }
+
     public void reset() {
         functionDefinitions.forEach(StroomExtensionFunctionDefinition::reset);
     }
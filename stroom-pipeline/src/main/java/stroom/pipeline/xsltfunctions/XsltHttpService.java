@@ -0,0 +1,396 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.pipeline.xsltfunctions;
+
+import stroom.pipeline.errorhandler.ProcessException;
+import stroom.pipeline.filter.XsltConfig;
+import stroom.util.concurrent.RatePacer;
+import stroom.util.concurrent.UncheckedInterruptedException;
+import stroom.util.io.StreamUtil;
+import stroom.util.jersey.HttpClientProvider;
+import stroom.util.jersey.HttpClientProviderCache;
+import stroom.util.logging.LambdaLogger;
+import stroom.util.logging.LambdaLoggerFactory;
+import stroom.util.logging.LogUtil;
+import stroom.util.sysinfo.HasSystemInfo;
+import stroom.util.sysinfo.SystemInfoResult;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+import jakarta.inject.Singleton;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.HttpEntity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Makes HTTP requests for the http-call and fetch-json XSLT functions on behalf of all pipelines on the node.
+ * <p>
+ * Clients, and therefore their per route connection pools, are shared through the {@link HttpClientProviderCache}.
+ * On top of that this service limits the number and rate of requests to each host, shares the result of identical
+ * requests that are in flight at the same time and, if enabled, caches successful responses.
+ * <p>
+ * POST requests are only shared between callers and cached when response caching is enabled as without it we
+ * can't assume that repeating a request gives the same result.
+ */
+@Singleton
+public class XsltHttpService implements HasSystemInfo {
+
+    private static final LambdaLogger LOGGER = LambdaLoggerFactory.getLogger(XsltHttpService.class);
+
+    private final CommonHttpClient commonHttpClient;
+    private final Provider<XsltConfig> xsltConfigProvider;
+    private final LongSupplier currentTimeMs;
+
+    private final Map<RequestKey, CachedResponse> responseCache = new ConcurrentHashMap<>();
+    private final Map<RequestKey, CompletableFuture<HttpResponseData>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, HostLimiter> hostLimiters = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder requestNanos = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder sharedRequests = new LongAdder();
+    private final LongAdder throttledRequests = new LongAdder();
+    private final LongAdder throttleNanos = new LongAdder();
+
+    @Inject
+    XsltHttpService(final HttpClientProviderCache httpClientProviderCache,
+                    final Provider<XsltConfig> xsltConfigProvider) {
+        this(new CommonHttpClient(httpClientProviderCache), xsltConfigProvider, System::currentTimeMillis);
+    }
+
+    XsltHttpService(final CommonHttpClient commonHttpClient,
+                    final Provider<XsltConfig> xsltConfigProvider,
+                    final LongSupplier currentTimeMs) {
+        this.commonHttpClient = commonHttpClient;
+        this.xsltConfigProvider = xsltConfigProvider;
+        this.currentTimeMs = currentTimeMs;
+    }
+
+    /**
+     * Execute a request using a client created from the supplied client config.
+     *
+     * @param clientConfigStr The JSON client config, may be blank.
+     * @param request         The request to send.
+     * @param body            The body of the request if it has one. This is used to identify identical requests.
+     * @return The response with its body read into memory.
+     */
+    public HttpResponseData execute(final String clientConfigStr,
+                                    final ClassicHttpRequest request,
+                                    final String body) {
+        final XsltConfig xsltConfig = xsltConfigProvider.get();
+        final boolean cacheEnabled = xsltConfig.getHttpResponseCacheSize() > 0
+                                     && !xsltConfig.getHttpResponseCacheTtl().isZero();
+        final boolean shareable = cacheEnabled || "GET".equalsIgnoreCase(request.getMethod());
+        if (!shareable) {
+            return send(clientConfigStr, request, xsltConfig);
+        }
+
+        final RequestKey key = RequestKey.create(clientConfigStr, request, body);
+        if (cacheEnabled) {
+            final CachedResponse cachedResponse = responseCache.get(key);
+            if (cachedResponse != null && currentTimeMs.getAsLong() < cachedResponse.expiryTimeMs()) {
+                cacheHits.increment();
+                return cachedResponse.response();
+            }
+        }
+
+        // If the same request is already being made then wait for its response.
+        final CompletableFuture<HttpResponseData> future = new CompletableFuture<>();
+        final CompletableFuture<HttpResponseData> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            sharedRequests.increment();
+            try {
+                return existing.join();
+            } catch (final CompletionException e) {
+                if (e.getCause() instanceof final RuntimeException runtimeException) {
+                    throw runtimeException;
+                } else if (e.getCause() instanceof final Error error) {
+                    throw error;
+                }
+                throw e;
+            }
+        }
+
+        try {
+            final HttpResponseData response = send(clientConfigStr, request, xsltConfig);
+            if (cacheEnabled && response.code() >= 200 && response.code() < 300) {
+                final long expiryTimeMs = currentTimeMs.getAsLong() + xsltConfig.getHttpResponseCacheTtl().toMillis();
+                responseCache.put(key, new CachedResponse(response, expiryTimeMs));
+                evictIfFull(xsltConfig.getHttpResponseCacheSize());
+            }
+            future.complete(response);
+            return response;
+        } catch (final Throwable e) {
+            // Always complete the future, even for errors, so that callers sharing this request don't wait forever.
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private HttpResponseData send(final String clientConfigStr,
+                                  final ClassicHttpRequest request,
+                                  final XsltConfig xsltConfig) {
+        final HostLimiter hostLimiter = getHostLimiter(getHost(request), xsltConfig);
+        hostLimiter.acquire(xsltConfig.getHttpMaxRequestsPerSecondPerHost());
+        final long startNanos = System.nanoTime();
+        try (final HttpClientProvider httpClientProvider = commonHttpClient.createClientProvider(clientConfigStr)) {
+            return httpClientProvider.get().execute(request, XsltHttpService::readResponse);
+        } catch (final IOException e) {
+            failures.increment();
+            throw ProcessException.create(LogUtil.message(
+                    "Error sending request to \"{}\": {}", request.getRequestUri(), e.getMessage()), e);
+        } catch (final RuntimeException e) {
+            failures.increment();
+            throw e;
+        } finally {
+            requests.increment();
+            requestNanos.add(System.nanoTime() - startNanos);
+            hostLimiter.release();
+        }
+    }
+
+    private static HttpResponseData readResponse(final ClassicHttpResponse response) {
+        final List<HttpHeader> headers = response.getHeaders() != null
+                ? Arrays.stream(response.getHeaders())
+                .map(header -> new HttpHeader(header.getName(), header.getValue()))
+                .toList()
+                : List.of();
+
+        String body = null;
+        try {
+            final HttpEntity entity = response.getEntity();
+            if (entity != null) {
+                try (final InputStream inputStream = entity.getContent()) {
+                    body = StreamUtil.streamToString(inputStream);
+                }
+            }
+        } catch (final NullPointerException | IOException e) {
+            LOGGER.debug(e::getMessage, e);
+        }
+
+        return new HttpResponseData(response.getCode(), response.getReasonPhrase(), headers, body);
+    }
+
+    private String getHost(final ClassicHttpRequest request) {
+        try {
+            final URI uri = request.getUri();
+            return uri.getHost() != null
+                    ? uri.getHost() + ":" + uri.getPort()
+                    : "";
+        } catch (final URISyntaxException e) {
+            return "";
+        }
+    }
+
+    private HostLimiter getHostLimiter(final String host, final XsltConfig xsltConfig) {
+        final int maxConcurrent = xsltConfig.getHttpMaxConcurrentRequestsPerHost();
+        return hostLimiters.compute(host, (k, existing) -> {
+            // Replace the limiter if the config has changed. Requests using the old one will release it.
+            if (existing == null || existing.maxConcurrent != maxConcurrent) {
+                return new HostLimiter(maxConcurrent);
+            }
+            return existing;
+        });
+    }
+
+    private void evictIfFull(final int maxSize) {
+        if (responseCache.size() > maxSize && evicting.compareAndSet(false, true)) {
+            try {
+                final long now = currentTimeMs.getAsLong();
+                responseCache.values().removeIf(cachedResponse -> now >= cachedResponse.expiryTimeMs());
+
+                // If everything is still live then drop the entries closest to expiry.
+                if (responseCache.size() > maxSize) {
+                    final int target = (int) (maxSize * 0.9);
+                    final List<Map.Entry<RequestKey, CachedResponse>> entries = new ArrayList<>(
+                            responseCache.entrySet());
+                    entries.sort(Comparator.comparingLong(entry -> entry.getValue().expiryTimeMs()));
+                    final Iterator<Map.Entry<RequestKey, CachedResponse>> iterator = entries.iterator();
+                    while (responseCache.size() > target && iterator.hasNext()) {
+                        final Map.Entry<RequestKey, CachedResponse> entry = iterator.next();
+                        responseCache.remove(entry.getKey(), entry.getValue());
+                    }
+                }
+            } finally {
+                evicting.set(false);
+            }
+        }
+    }
+
+    @Override
+    public SystemInfoResult getSystemInfo() {
+        final long requestCount = requests.sum();
+        return SystemInfoResult.builder(this)
+                .addDetail("requests", requestCount)
+                .addDetail("failures", failures.sum())
+                .addDetail("averageRequestMs", requestCount > 0
+                        ? requestNanos.sum() / requestCount / 1_000_000.0
+                        : 0)
+                .addDetail("responseCacheHits", cacheHits.sum())
+                .addDetail("responseCacheSize", responseCache.size())
+                .addDetail("sharedRequests", sharedRequests.sum())
+                .addDetail("inFlightRequests", inFlight.size())
+                .addDetail("throttledRequests", throttledRequests.sum())
+                .addDetail("totalThrottleWaitMs", TimeUnit.NANOSECONDS.toMillis(throttleNanos.sum()))
+                .addDetail("activeRequestsByHost", hostLimiters.entrySet()
+                        .stream()
+                        .filter(entry -> entry.getValue().getActive() > 0)
+                        .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().getActive())))
+                .build();
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    public record HttpHeader(String name, String value) {
+
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    /**
+     * A response with its body read into memory so that it can be shared and cached.
+     */
+    public record HttpResponseData(int code, String reasonPhrase, List<HttpHeader> headers, String body) {
+
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    private record CachedResponse(HttpResponseData response, long expiryTimeMs) {
+
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    private record RequestKey(String method, String uri, String headers, String bodyHash, String clientConfigHash) {
+
+        static RequestKey create(final String clientConfigStr, final ClassicHttpRequest request, final String body) {
+            final String headers = request.getHeaders() != null
+                    ? Arrays.stream(request.getHeaders())
+                    .map(header -> header.getName() + ":" + header.getValue())
+                    .sorted()
+                    .collect(Collectors.joining("\n"))
+                    : "";
+            return new RequestKey(
+                    request.getMethod(),
+                    request.getRequestUri(),
+                    headers,
+                    hash(body),
+                    hash(clientConfigStr));
+        }
+
+        private static String hash(final String value) {
+            if (value == null || value.isEmpty()) {
+                return "";
+            }
+            try {
+                final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+            } catch (final NoSuchAlgorithmException e) {
+                throw new RuntimeException(e.getMessage(), e);
+            }
+        }
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    private class HostLimiter {
+
+        private final int maxConcurrent;
+        private final Semaphore semaphore;
+        private final RatePacer ratePacer = new RatePacer();
+
+        private HostLimiter(final int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+            this.semaphore = new Semaphore(Math.max(1, maxConcurrent));
+        }
+
+        void acquire(final double maxPerSecond) {
+            boolean acquired = false;
+            try {
+                boolean throttled = false;
+                final long startNanos = System.nanoTime();
+                if (!semaphore.tryAcquire()) {
+                    throttled = true;
+                    semaphore.acquire();
+                }
+                acquired = true;
+
+                if (ratePacer.pace(RatePacer.intervalNanos(maxPerSecond)) > 0) {
+                    throttled = true;
+                }
+
+                if (throttled) {
+                    throttledRequests.increment();
+                    throttleNanos.add(System.nanoTime() - startNanos);
+                }
+            } catch (final InterruptedException e) {
+                if (acquired) {
+                    semaphore.release();
+                }
+                Thread.currentThread().interrupt();
+                throw UncheckedInterruptedException.create(e);
+            }
+        }
+
+        void release() {
+            semaphore.release();
+        }
+
+        int getActive() {
+            return Math.max(1, maxConcurrent) - semaphore.availablePermits();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.pipeline.cache;
+
+import stroom.cache.impl.CacheManagerImpl;
+import stroom.pipeline.filter.XmlSchemaConfig;
+import stroom.pipeline.xmlschema.FindXMLSchemaCriteria;
+import stroom.pipeline.xmlschema.XmlSchemaCache;
+import stroom.security.mock.MockSecurityContext;
+import stroom.util.cache.CacheConfig;
+import stroom.util.shared.PropertyPath;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.xml.XMLConstants;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class TestSchemaPoolImpl {
+
+    private static final String SHARED_CACHE_NAME = "Shared Schema Cache";
+
+    @Mock
+    private XmlSchemaCache xmlSchemaCache;
+
+    private final CacheManagerImpl cacheManager = new CacheManagerImpl();
+    private final AtomicInteger loadCount = new AtomicInteger();
+    private final SchemaKey key = new SchemaKey(
+            XMLConstants.W3C_XML_SCHEMA_NS_URI, "data", new FindXMLSchemaCriteria());
+
+    @AfterEach
+    void tearDown() {
+        cacheManager.close();
+    }
+
+    @Test
+    void testSharedItemForEveryBorrower() {
+        final SchemaPoolImpl schemaPool = createSchemaPool(true);
+
+        final PoolItem<StoredSchema> poolItem1 = schemaPool.borrowObject(key, true);
+        final PoolItem<StoredSchema> poolItem2 = schemaPool.borrowObject(key, true);
+
+        assertThat(poolItem1.isShared()).isTrue();
+        assertThat(poolItem2).isSameAs(poolItem1);
+        assertThat(loadCount).hasValue(1);
+
+        schemaPool.returnObject(poolItem1, true);
+        schemaPool.returnObject(poolItem2, true);
+
+        // Still shared after being returned.
+        assertThat(schemaPool.borrowObject(key, true)).isSameAs(poolItem1);
+        assertThat(loadCount).hasValue(1);
+    }
+
+    @Test
+    void testSharedItemNotReturnedToExclusivePool() {
+        final SchemaPoolImpl schemaPool = createSchemaPool(true);
+
+        final PoolItem<StoredSchema> poolItem = schemaPool.borrowObject(key, true);
+        schemaPool.returnObject(poolItem, true);
+
+        assertThat(schemaPool.size()).isZero();
+        assertThat(schemaPool.getKeys()).isEmpty();
+    }
+
+    @Test
+    void testSharedItemNotReturnedToExclusivePoolAfterClear() {
+        final SchemaPoolImpl schemaPool = createSchemaPool(true);
+
+        final PoolItem<StoredSchema> poolItem = schemaPool.borrowObject(key, true);
+        schemaPool.clear();
+        schemaPool.returnObject(poolItem, true);
+
+        assertThat(schemaPool.size()).isZero();
+        assertThat(schemaPool.getKeys()).isEmpty();
+
+        // The next borrower gets a newly compiled shared schema.
+        final PoolItem<StoredSchema> poolItem2 = schemaPool.borrowObject(key, true);
+        assertThat(poolItem2).isNotSameAs(poolItem);
+        assertThat(poolItem2.isShared()).isTrue();
+        assertThat(loadCount).hasValue(2);
+    }
+
+    @Test
+    void testSharedItemNotReturnedToExclusivePoolAfterEviction() {
+        final SchemaPoolImpl schemaPool = createSchemaPool(true);
+
+        final PoolItem<StoredSchema> poolItem = schemaPool.borrowObject(key, true);
+        cacheManager.getLoadingCache(SHARED_CACHE_NAME).invalidate(key);
+        schemaPool.returnObject(poolItem, true);
+
+        assertThat(schemaPool.size()).isZero();
+        assertThat(schemaPool.getKeys()).isEmpty();
+    }
+
+    @Test
+    void testExclusivePoolingWhenNotShared() {
+        final SchemaPoolImpl schemaPool = createSchemaPool(false);
+
+        final PoolItem<StoredSchema> poolItem1 = schemaPool.borrowObject(key, true);
+        final PoolItem<StoredSchema> poolItem2 = schemaPool.borrowObject(key, true);
+
+        // Each borrower has its own schema.
+        assertThat(poolItem1.isShared()).isFalse();
+        assertThat(poolItem2).isNotSameAs(poolItem1);
+        assertThat(poolItem2.getValue()).isNotSameAs(poolItem1.getValue());
+        assertThat(loadCount).hasValue(2);
+
+        schemaPool.returnObject(poolItem1, true);
+        schemaPool.returnObject(poolItem2, true);
+        assertThat(schemaPool.getKeys()).containsExactly(key);
+
+        // Returned items are reused rather than compiled again.
+        final PoolItem<StoredSchema> poolItem3 = schemaPool.borrowObject(key, true);
+        assertThat(poolItem3).isIn(poolItem1, poolItem2);
+        assertThat(loadCount).hasValue(2);
+    }
+
+    private SchemaPoolImpl createSchemaPool(final boolean shareCompiledSchemas) {
+        final CacheConfig cacheConfig = CacheConfig.builder()
+                .maximumSize(100L)
+                .build();
+        cacheConfig.setBasePath(PropertyPath.fromParts("test", "schemaPool"));
+        final XmlSchemaConfig xmlSchemaConfig = new XmlSchemaConfig(cacheConfig, shareCompiledSchemas);
+        final SchemaLoader schemaLoader = (schemaLanguage, data, findXMLSchemaCriteria) -> {
+            loadCount.incrementAndGet();
+            return new StoredSchema(null, null);
+        };
+        return new SchemaPoolImpl(
+                cacheManager,
+                () -> xmlSchemaConfig,
+                schemaLoader,
+                xmlSchemaCache,
+                new MockSecurityContext());
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.pipeline.destination;
+
+import stroom.pipeline.destination.DestinationWriteQueue.QueuedRecord;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestDestinationWriteQueue {
+
+    @Test
+    void testOnlyFirstPutStartsWriter() throws InterruptedException {
+        final DestinationWriteQueue queue = new DestinationWriteQueue();
+        assertThat(queue.tryBorrow()).isTrue();
+        assertThat(queue.put(record("a"), 10)).isTrue();
+        assertThat(queue.tryBorrow()).isTrue();
+        assertThat(queue.put(record("bb"), 10)).isFalse();
+
+        assertThat(queue.size()).isEqualTo(2);
+        assertThat(queue.getQueuedBytes()).isEqualTo(3);
+
+        final List<QueuedRecord> batch = queue.takeBatch(10);
+        assertThat(batch).hasSize(2);
+        assertThat(queue.getQueuedBytes()).isZero();
+
+        // The writer stops when the queue is empty so the next put must start another.
+        assertThat(queue.takeBatch(10)).isEmpty();
+        assertThat(queue.tryBorrow()).isTrue();
+        assertThat(queue.put(record("c"), 10)).isTrue();
+    }
+
+    @Test
+    void testBackpressure() throws Exception {
+        final DestinationWriteQueue queue = new DestinationWriteQueue();
+        queue.tryBorrow();
+        queue.put(record("a"), 1);
+
+        queue.tryBorrow();
+        final CompletableFuture<Boolean> blocked = CompletableFuture.supplyAsync(() -> {
+            try {
+                return queue.put(record("b"), 1);
+            } catch (final InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        Thread.sleep(100);
+        assertThat(blocked).isNotDone();
+
+        assertThat(queue.takeBatch(1)).hasSize(1);
+        assertThat(blocked.get(5, TimeUnit.SECONDS)).isFalse();
+        assertThat(queue.size()).isEqualTo(1);
+    }
+
+    @Test
+    void testRetire() throws Exception {
+        final DestinationWriteQueue queue = new DestinationWriteQueue();
+        assertThat(queue.tryBorrow()).isTrue();
+
+        assertThat(queue.retire()).isTrue();
+        assertThat(queue.retire()).isFalse();
+        assertThat(queue.tryBorrow()).isFalse();
+
+        // Can't be idle until the existing borrower has queued its record and it has been written.
+        final CompletableFuture<Void> idle = CompletableFuture.runAsync(() -> {
+            try {
+                queue.awaitIdle();
+            } catch (final InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        Thread.sleep(100);
+        assertThat(idle).isNotDone();
+
+        queue.put(record("a"), 10);
+        Thread.sleep(100);
+        assertThat(idle).isNotDone();
+
+        assertThat(queue.takeBatch(10)).hasSize(1);
+        assertThat(queue.takeBatch(10)).isEmpty();
+        idle.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testReleaseWithoutPut() throws Exception {
+        final DestinationWriteQueue queue = new DestinationWriteQueue();
+        assertThat(queue.tryBorrow()).isTrue();
+        assertThat(queue.retire()).isTrue();
+
+        final CompletableFuture<Void> idle = CompletableFuture.runAsync(() -> {
+            try {
+                queue.awaitIdle();
+            } catch (final InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        Thread.sleep(100);
+        assertThat(idle).isNotDone();
+
+        // A borrower that fails before queueing its record must not keep the destination busy.
+        queue.release();
+        idle.get(5, TimeUnit.SECONDS);
+        assertThat(queue.size()).isZero();
+    }
+
+    private QueuedRecord record(final String data) {
+        return new QueuedRecord(null, null, data.getBytes());
+    }
+}
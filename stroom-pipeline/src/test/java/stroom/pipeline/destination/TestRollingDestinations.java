@@ -0,0 +1,200 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.pipeline.destination;
+
+import stroom.security.mock.MockSecurityContext;
+import stroom.task.api.ExecutorProvider;
+import stroom.task.api.SimpleTaskContextFactory;
+import stroom.task.shared.ThreadPool;
+import stroom.util.io.PathCreator;
+import stroom.util.io.SimplePathCreator;
+import stroom.util.scheduler.FrequencyTrigger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestRollingDestinations {
+
+    private static final String FILE_NAME = "current.dat";
+
+    @TempDir
+    Path tempDir;
+
+    // Destinations are held statically so each test needs its own key.
+    private final String key = UUID.randomUUID().toString();
+    private final Queue<Runnable> heldRolls = new ConcurrentLinkedQueue<>();
+
+    private ExecutorService executorService;
+    private volatile Executor rollExecutor;
+    private RollingDestinations rollingDestinations;
+
+    @BeforeEach
+    void setup() {
+        executorService = Executors.newCachedThreadPool();
+        rollExecutor = executorService;
+        final ExecutorProvider executorProvider = new ExecutorProvider() {
+            @Override
+            public Executor get(final ThreadPool threadPool) {
+                return threadPool.getName().startsWith("Rolling Destination Roll")
+                        ? command -> rollExecutor.execute(command)
+                        : executorService;
+            }
+
+            @Override
+            public Executor get() {
+                return executorService;
+            }
+        };
+        rollingDestinations = new RollingDestinations(
+                () -> new AppenderConfig(null, 100),
+                new SimpleTaskContextFactory(),
+                new MockSecurityContext(),
+                executorProvider);
+    }
+
+    @AfterEach
+    void after() {
+        rollExecutor = executorService;
+        heldRolls.forEach(Runnable::run);
+        rollingDestinations.forceRoll();
+        executorService.shutdownNow();
+    }
+
+    @Test
+    void testBorrowQueued() throws IOException {
+        final Destination destination = rollingDestinations.borrow(key, () -> createDestination(Instant.now()));
+        assertThat(destination).isInstanceOf(QueuedDestination.class);
+        destination.getOutputStream().write("test".getBytes(StandardCharsets.UTF_8));
+        rollingDestinations.returnDestination(destination);
+
+        // The record is written in the background and the retired destination rolled once it has been.
+        rollingDestinations.forceRoll();
+
+        final List<Path> rolledFiles = getRolledFiles();
+        assertThat(rolledFiles).hasSize(1);
+        assertThat(Files.readString(rolledFiles.getFirst())).isEqualTo("test");
+        assertThat(tempDir.resolve(FILE_NAME)).doesNotExist();
+        assertThat(rollingDestinations.getSystemInfo().getDetails().get("rolls")).isEqualTo(1L);
+    }
+
+    @Test
+    void testForceRollWaitsForBackgroundRolls() throws IOException {
+        rollExecutor = command -> executorService.execute(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            command.run();
+        });
+
+        final Destination destination = rollingDestinations.borrow(key, () -> createDestination(Instant.now()));
+        destination.getOutputStream().write("test".getBytes(StandardCharsets.UTF_8));
+        rollingDestinations.returnDestination(destination);
+        rollingDestinations.forceRoll();
+
+        assertThat(getRolledFiles()).hasSize(1);
+        assertThat(rollingDestinations.getSystemInfo().getDetails().get("pendingRolls")).isEqualTo(0);
+    }
+
+    @Test
+    void testReplacementWaitsForRetiredDestinationToRoll() throws Exception {
+        rollExecutor = heldRolls::add;
+
+        // The first destination is already due to roll so is retired as soon as it is borrowed.
+        final AtomicInteger created = new AtomicInteger();
+        final RollingDestinationFactory destinationFactory = () -> created.incrementAndGet() == 1
+                ? createDestination(Instant.now().minus(Duration.ofHours(2)))
+                : createDestination(Instant.now());
+
+        final Future<Destination> borrowed = executorService.submit(() ->
+                rollingDestinations.borrow(key, destinationFactory));
+        waitFor(() -> heldRolls.size() == 1);
+
+        // The replacement would write to the same file so can't be created until the old one has rolled.
+        Thread.sleep(100);
+        assertThat(borrowed.isDone()).isFalse();
+        assertThat(created.get()).isEqualTo(1);
+        assertThat(getRolledFiles()).isEmpty();
+
+        heldRolls.remove().run();
+
+        final Destination destination = borrowed.get(5, TimeUnit.SECONDS);
+        assertThat(destination).isInstanceOf(QueuedDestination.class);
+        assertThat(created.get()).isEqualTo(2);
+        assertThat(getRolledFiles()).hasSize(1);
+        rollingDestinations.returnDestination(destination);
+    }
+
+    private RollingFileDestination createDestination(final Instant creationTime) throws IOException {
+        final PathCreator pathCreator = new SimplePathCreator(() -> tempDir, () -> tempDir);
+        return new RollingFileDestination(
+                pathCreator,
+                key,
+                new FrequencyTrigger(Duration.ofHours(1).toMillis()),
+                null,
+                1_000_000,
+                creationTime,
+                FILE_NAME,
+                "${uuid}.rolled",
+                tempDir,
+                tempDir.resolve(FILE_NAME),
+                false,
+                null,
+                null);
+    }
+
+    private List<Path> getRolledFiles() throws IOException {
+        try (final Stream<Path> stream = Files.list(tempDir)) {
+            return stream
+                    .filter(path -> path.getFileName().toString().endsWith(".rolled"))
+                    .toList();
+        }
+    }
+
+    private void waitFor(final BooleanSupplier condition) throws InterruptedException {
+        final long endTime = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).isLessThan(endTime);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.pipeline.factory;
+
+import stroom.pipeline.PipelineConfig;
+import stroom.pipeline.errorhandler.ErrorReceiverProxy;
+import stroom.pipeline.reader.BOMRemovalFilterInputElement;
+import stroom.pipeline.reader.BadTextXMLFilterReaderElement;
+import stroom.pipeline.reader.InvalidCharFilterReaderElement;
+import stroom.pipeline.reader.InvalidXMLCharFilterReaderElement;
+import stroom.pipeline.reader.ReaderElement;
+import stroom.pipeline.shared.data.PipelineData;
+import stroom.pipeline.shared.data.PipelineDataBuilder;
+import stroom.pipeline.shared.data.PipelineElement;
+import stroom.pipeline.shared.data.PipelineProperty;
+import stroom.pipeline.shared.data.PipelinePropertyValue;
+import stroom.pipeline.source.SourceElement;
+import stroom.pipeline.state.PipelineHolder;
+import stroom.task.api.SimpleTaskContext;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Measures how many pipelines can be built per second for tasks that process small streams, where building the
+ * pipeline is a significant part of the cost of the task. Compares building every pipeline from scratch with
+ * building them from a cached {@link PipelineTemplate}.
+ */
+@Fork(value = 1, warmups = 1)
+@BenchmarkMode(Mode.Throughput)
+@Measurement(iterations = 3)
+public class PipelineFactoryBenchmark {
+
+    @Benchmark
+    public Pipeline uncachedTemplate(final Factory state) {
+        state.pipelineTemplateCache.clear();
+        return state.pipelineFactory.create(state.pipelineData, new SimpleTaskContext());
+    }
+
+    @Benchmark
+    public Pipeline cachedTemplate(final Factory state) {
+        return state.pipelineFactory.create(state.pipelineData, new SimpleTaskContext());
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    @State(Scope.Thread)
+    public static class Factory {
+
+        private static final Map<Class<?>, Supplier<Element>> ELEMENTS = Map.of(
+                SourceElement.class, SourceElement::new,
+                BOMRemovalFilterInputElement.class, BOMRemovalFilterInputElement::new,
+                ReaderElement.class, ReaderElement::new,
+                InvalidCharFilterReaderElement.class,
+                () -> new InvalidCharFilterReaderElement(new ErrorReceiverProxy()),
+                InvalidXMLCharFilterReaderElement.class,
+                () -> new InvalidXMLCharFilterReaderElement(new ErrorReceiverProxy()),
+                BadTextXMLFilterReaderElement.class,
+                () -> new BadTextXMLFilterReaderElement(new ErrorReceiverProxy()));
+
+        /**
+         * The number of reader elements chained after the source, each with its own properties.
+         */
+        @Param({"3", "12"})
+        private int chainLength;
+
+        private PipelineTemplateCache pipelineTemplateCache;
+        private PipelineFactory pipelineFactory;
+        private PipelineData pipelineData;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            final ElementRegistry elementRegistry = new ElementRegistry(List.copyOf(ELEMENTS.keySet()));
+            final ElementFactory elementFactory = new ElementFactory() {
+                @SuppressWarnings("unchecked")
+                @Override
+                public <T extends Element> T getElementInstance(final Class<T> elementClass) {
+                    return (T) ELEMENTS.get(elementClass).get();
+                }
+            };
+
+            pipelineTemplateCache = new PipelineTemplateCache();
+            pipelineFactory = new PipelineFactory(
+                    () -> elementRegistry,
+                    elementFactory,
+                    new SimpleProcessorFactory(),
+                    new ErrorReceiverProxy(),
+                    pipelineTemplateCache,
+                    new PipelineProfiles(PipelineConfig::new),
+                    new PipelineHolder());
+            pipelineData = createPipelineData();
+        }
+
+        private PipelineData createPipelineData() {
+            final PipelineDataBuilder builder = new PipelineDataBuilder();
+            builder.addElement(new PipelineElement("Source", "Source"));
+            builder.addElement(new PipelineElement("bomRemoval", "BOMRemovalFilterInput"));
+            builder.addElement(new PipelineElement("reader", "Reader"));
+            builder.addLink("Source", "bomRemoval");
+            builder.addLink("bomRemoval", "reader");
+
+            String previous = "reader";
+            for (int i = 0; i < chainLength; i++) {
+                final String invalidChar = "invalidChar" + i;
+                final String invalidXmlChar = "invalidXmlChar" + i;
+                final String badText = "badText" + i;
+
+                builder.addElement(new PipelineElement(invalidChar, "InvalidCharFilterReader"));
+                builder.addProperty(new PipelineProperty(
+                        invalidChar, "xmlVersion", new PipelinePropertyValue("1.1")));
+                builder.addProperty(new PipelineProperty(
+                        invalidChar, "warnOnRemoval", new PipelinePropertyValue(true)));
+
+                builder.addElement(new PipelineElement(invalidXmlChar, "InvalidXMLCharFilterReader"));
+                builder.addProperty(new PipelineProperty(
+                        invalidXmlChar, "xmlVersion", new PipelinePropertyValue("1.1")));
+                builder.addProperty(new PipelineProperty(
+                        invalidXmlChar, "warnOnReplacement", new PipelinePropertyValue(true)));
+
+                builder.addElement(new PipelineElement(badText, "BadTextXMLFilterReader"));
+                builder.addProperty(new PipelineProperty(
+                        badText, "tags", new PipelinePropertyValue("Data,Value")));
+
+                builder.addLink(previous, invalidChar);
+                builder.addLink(invalidChar, invalidXmlChar);
+                builder.addLink(invalidXmlChar, badText);
+                previous = badText;
+            }
+            return builder.build();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.pipeline.factory;
+
+import stroom.docref.DocRef;
+import stroom.pipeline.PipelineConfig;
+import stroom.pipeline.factory.PipelineProfiler.FrameTotals;
+import stroom.pipeline.shared.PipelineDoc;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestPipelineProfiler {
+
+    @Test
+    void testNestedFrames() {
+        final PipelineProfiler profiler = new PipelineProfiler("Source");
+        runPipeline(profiler);
+
+        final List<FrameTotals> frames = new ArrayList<>();
+        profiler.drain(frames::add);
+
+        assertThat(frames)
+                .extracting(FrameTotals::stack)
+                .containsExactlyInAnyOrder(
+                        "Source",
+                        "Source;translation",
+                        "Source;translation;stroom:lookup",
+                        "Source;translation;writer");
+        assertThat(frames)
+                .filteredOn(frame -> frame.stack().equals("Source;translation;stroom:lookup"))
+                .extracting(FrameTotals::calls)
+                .containsExactly(2L);
+        assertThat(frames)
+                .allSatisfy(frame -> assertThat(frame.selfNanos()).isGreaterThanOrEqualTo(0));
+
+        // Totals are only reported once.
+        final List<FrameTotals> drainedAgain = new ArrayList<>();
+        profiler.drain(drainedAgain::add);
+        assertThat(drainedAgain).isEmpty();
+    }
+
+    @Test
+    void testUnbalancedExitIsIgnored() {
+        final PipelineProfiler profiler = new PipelineProfiler("Source");
+        profiler.exit();
+
+        final List<FrameTotals> frames = new ArrayList<>();
+        profiler.drain(frames::add);
+        assertThat(frames).isEmpty();
+    }
+
+    @Test
+    void testCollapsedStacks() {
+        final PipelineProfiles pipelineProfiles = new PipelineProfiles(PipelineConfig::new);
+        final DocRef pipelineRef = new DocRef(PipelineDoc.TYPE, "test-uuid", "test-name");
+
+        final PipelineProfiler profiler = new PipelineProfiler("Source");
+        runPipeline(profiler);
+        pipelineProfiles.record(pipelineRef, profiler);
+        runPipeline(profiler);
+        pipelineProfiles.record(pipelineRef, profiler);
+
+        final Map<String, Object> details = pipelineProfiles
+                .getSystemInfo(Map.of("pipeline", "test-name", "type", "allocation"))
+                .getDetails();
+        assertThat(details)
+                .containsEntry("uuid", "test-uuid")
+                .containsEntry("runs", 2L);
+        @SuppressWarnings("unchecked")
+        final List<String> lines = (List<String>) details.get("collapsedStacks");
+        assertThat(lines)
+                .hasSize(4)
+                .allMatch(line -> line.matches("Source(;[^; ]+)* \\d+"));
+        assertThat(lines.get(0)).startsWith("Source ");
+    }
+
+    private void runPipeline(final PipelineProfiler profiler) {
+        profiler.enterRoot();
+        profiler.enter("translation");
+        profiler.enter("stroom:lookup");
+        profiler.exit();
+        profiler.enter("stroom:lookup");
+        profiler.exit();
+        profiler.enter("writer");
+        profiler.exit();
+        profiler.exit();
+        profiler.exit();
+    }
+}
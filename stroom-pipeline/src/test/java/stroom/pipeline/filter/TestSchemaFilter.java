@@ -0,0 +1,131 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.pipeline.filter;
+
+import stroom.pipeline.LocationFactoryProxy;
+import stroom.pipeline.PipelineConfig;
+import stroom.pipeline.errorhandler.ErrorReceiverProxy;
+import stroom.pipeline.errorhandler.LoggingErrorReceiver;
+import stroom.pipeline.util.ProcessorUtil;
+import stroom.pipeline.xml.converter.SchemaFilterFactory;
+import stroom.pipeline.xml.converter.ds3.DS3ParserFactory;
+import stroom.test.common.util.test.StroomUnitTest;
+import stroom.util.shared.ElementId;
+import stroom.util.shared.Severity;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestSchemaFilter extends StroomUnitTest {
+
+    private static final int RECORD_COUNT = 10;
+
+    private final SchemaFilterFactory schemaFilterFactory = new SchemaFilterFactory();
+
+    @Test
+    void testValidateAllRecords() {
+        final Result result = validate(100);
+
+        assertThat(result.metrics)
+                .containsEntry("validatedRecords", (long) RECORD_COUNT)
+                .containsEntry("skippedRecords", 0L)
+                // Validation is only timed when profiling.
+                .containsEntry("timedRecords", 0L);
+        assertThat(result.errors).isEqualTo(RECORD_COUNT * getErrorsPerRecord());
+    }
+
+    @Test
+    void testValidateSampledRecords() {
+        // The first record is always validated, then every other record.
+        final Result result = validate(50);
+
+        assertThat(result.metrics)
+                .containsEntry("validatedRecords", 5L)
+                .containsEntry("skippedRecords", 5L);
+        assertThat(result.errors).isEqualTo(5 * getErrorsPerRecord());
+    }
+
+    @Test
+    void testValidateFirstRecordOnly() {
+        final Result result = validate(0);
+
+        assertThat(result.metrics)
+                .containsEntry("validatedRecords", 1L)
+                .containsEntry("skippedRecords", (long) RECORD_COUNT - 1);
+        assertThat(result.errors).isGreaterThan(0);
+    }
+
+    private long getErrorsPerRecord() {
+        // Only the first record is validated when sampling nothing.
+        return validate(0).errors;
+    }
+
+    private Result validate(final int validationSamplePercent) {
+        final LoggingErrorReceiver errorReceiver = new LoggingErrorReceiver();
+        final ErrorReceiverProxy errorReceiverProxy = new ErrorReceiverProxy(errorReceiver);
+        final SchemaValidationMetrics schemaValidationMetrics = new SchemaValidationMetrics(PipelineConfig::new);
+
+        final SchemaFilter schemaFilter = schemaFilterFactory.getSchemaFilter(
+                DS3ParserFactory.NAMESPACE_URI,
+                errorReceiverProxy,
+                schemaValidationMetrics);
+        schemaFilter.setElementId(new ElementId("schemaFilter"));
+        schemaFilter.setValidationSamplePercent(validationSamplePercent);
+
+        // Validate each record separately as SchemaFilterSplit does.
+        final SplitFilter splitFilter = new SplitFilter();
+        splitFilter.setSplitCount(1);
+        splitFilter.setTarget(schemaFilter);
+
+        ProcessorUtil.processXml(
+                new ByteArrayInputStream(createInvalidRecords().getBytes(StandardCharsets.UTF_8)),
+                errorReceiverProxy,
+                splitFilter,
+                new LocationFactoryProxy());
+
+        return new Result(errorReceiver.getTotal(Severity.ERROR),
+                schemaValidationMetrics.getSystemInfo().getDetails());
+    }
+
+    private String createInvalidRecords() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.1\" encoding=\"UTF-8\"?>\n");
+        sb.append("<dataSplitter xmlns=\"");
+        sb.append(DS3ParserFactory.NAMESPACE_URI);
+        sb.append("\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:schemaLocation=\"");
+        sb.append(DS3ParserFactory.NAMESPACE_URI);
+        sb.append(" ");
+        sb.append(DS3ParserFactory.SYSTEM_ID);
+        sb.append("\" version=\"3.0\">\n");
+        // Every record is invalid so each validated record produces one error.
+        for (int i = 0; i < RECORD_COUNT; i++) {
+            sb.append("  <invalid/>\n");
+        }
+        sb.append("</dataSplitter>\n");
+        return sb.toString();
+    }
+
+    private record Result(long errors, Map<String, Object> metrics) {
+
+    }
+}
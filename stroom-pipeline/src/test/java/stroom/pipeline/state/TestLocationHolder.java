@@ -0,0 +1,84 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.pipeline.state;
+
+import stroom.meta.shared.Meta;
+import stroom.pipeline.state.LocationHolder.FunctionType;
+import stroom.pipeline.state.LocationHolder.LocationCursor;
+
+import org.junit.jupiter.api.Test;
+import org.xml.sax.helpers.LocatorImpl;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestLocationHolder {
+
+    @Test
+    void testDetachedLocations() throws Exception {
+        final MetaHolder metaHolder = new MetaHolder();
+        metaHolder.setMeta(Meta.builder().id(123L).build());
+        final LocationHolder locationHolder = new LocationHolder(metaHolder);
+        final LocatorImpl locator = new LocatorImpl();
+        locationHolder.setDocumentLocator(locator, 10);
+
+        storeRecord(locationHolder, locator, 2);
+        storeRecord(locationHolder, locator, 3);
+        final LocationCursor first = locationHolder.detachLocations();
+        final LocationCursor firstCopy = first.copy();
+
+        storeRecord(locationHolder, locator, 4);
+        final LocationCursor second = locationHolder.detachLocations();
+
+        // Consume the second batch on another thread while the pipeline thread has moved on.
+        final long secondRecord = CompletableFuture.supplyAsync(() -> {
+            locationHolder.attachCursor(second);
+            try {
+                locationHolder.move(FunctionType.RECORD_NO);
+                return locationHolder.getCurrentLocation().getRecordIndex();
+            } finally {
+                locationHolder.detachCursor();
+            }
+        }).get();
+        assertThat(secondRecord).isEqualTo(2);
+
+        locationHolder.attachCursor(first);
+        locationHolder.move(FunctionType.RECORD_NO);
+        assertThat(locationHolder.getCurrentLocation().getRecordIndex()).isEqualTo(0);
+        locationHolder.move(FunctionType.RECORD_NO);
+        assertThat(locationHolder.getCurrentLocation().getRecordIndex()).isEqualTo(1);
+        locationHolder.detachCursor();
+
+        // The copy is not affected by consuming the original.
+        locationHolder.attachCursor(firstCopy);
+        locationHolder.move(FunctionType.RECORD_NO);
+        assertThat(locationHolder.getCurrentLocation().getRecordIndex()).isEqualTo(0);
+        locationHolder.detachCursor();
+
+        // Nothing is left for the pipeline thread as it has all been detached.
+        locationHolder.move(FunctionType.RECORD_NO);
+        assertThat(locationHolder.getCurrentLocation()).isNull();
+    }
+
+    private void storeRecord(final LocationHolder locationHolder, final LocatorImpl locator, final int lineNo) {
+        locator.setLineNumber(lineNo);
+        locator.setColumnNumber(1);
+        locationHolder.storeLocation();
+    }
+}
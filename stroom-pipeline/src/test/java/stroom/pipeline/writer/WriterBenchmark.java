@@ -0,0 +1,164 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.pipeline.writer;
+
+import stroom.util.io.EncodingWriter;
+import stroom.util.io.IgnoreCloseWriter;
+import stroom.util.io.NullOutputStream;
+import stroom.util.io.Utf8Writer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import tools.jackson.core.JsonEncoding;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.json.JsonFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compares the old and new ways that {@link XMLWriter} and {@link JSONWriter} encode their output. Each operation
+ * writes roughly 1MiB of typical event output so the reported ops/s is roughly MB/s.
+ */
+@Fork(value = 1, warmups = 1)
+@BenchmarkMode(Mode.Throughput)
+@Measurement(iterations = 3)
+public class WriterBenchmark {
+
+    private static final int TARGET_BYTES = 1024 * 1024;
+
+    @Benchmark
+    public void xmlEncodingWriter(final Output state) throws IOException {
+        final Writer writer = new EncodingWriter(state.outputStream, StandardCharsets.UTF_8);
+        for (final String event : state.xmlEvents) {
+            writer.write(event);
+        }
+        writer.flush();
+    }
+
+    @Benchmark
+    public void xmlUtf8Writer(final Output state) throws IOException {
+        final Writer writer = new Utf8Writer(state.outputStream);
+        for (final String event : state.xmlEvents) {
+            writer.write(event);
+        }
+        writer.flush();
+    }
+
+    @Benchmark
+    public void jsonCharGenerator(final Output state) {
+        final Writer writer = new IgnoreCloseWriter(new EncodingWriter(state.outputStream, StandardCharsets.UTF_8));
+        try (final JsonGenerator generator = state.jsonFactory.createGenerator(writer)) {
+            writeJson(state, generator);
+        }
+    }
+
+    @Benchmark
+    public void jsonUtf8Generator(final Output state) {
+        try (final JsonGenerator generator = state.jsonFactory.createGenerator(state.outputStream,
+                JsonEncoding.UTF8)) {
+            writeJson(state, generator);
+        }
+    }
+
+    private void writeJson(final Output state, final JsonGenerator generator) {
+        for (int i = 0; i < state.jsonEvents; i++) {
+            generator.writeStartObject();
+            for (int j = 0; j < state.names.length; j++) {
+                generator.writeName(state.names[j]);
+                generator.writeString(state.values[j]);
+            }
+            generator.writeEndObject();
+            generator.writeRaw("\n");
+        }
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    @State(Scope.Thread)
+    public static class Output {
+
+        @Param({"ascii", "mixed"})
+        public String content;
+
+        private final OutputStream outputStream = new NullOutputStream();
+        private final JsonFactory jsonFactory = JsonFactory.builder().build();
+        private String[] xmlEvents;
+        private String[] names;
+        private String[] values;
+        private int jsonEvents;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            final String text = "ascii".equals(content)
+                    ? "User logged on to workstation"
+                    : "Utilisateur connecté à la station € 日本";
+            names = new String[]{"EventTime", "System", "Environment", "User", "Host", "Action", "Description"};
+            values = new String[]{
+                    "2024-01-01T00:00:00.000Z",
+                    "Example System",
+                    "OPS",
+                    "user1",
+                    "host1.example.com",
+                    "Logon",
+                    text};
+
+            final StringBuilder sb = new StringBuilder();
+            sb.append("<Event><EventTime><TimeCreated>");
+            sb.append(values[0]);
+            sb.append("</TimeCreated></EventTime><EventSource><System><Name>");
+            sb.append(values[1]);
+            sb.append("</Name><Environment>");
+            sb.append(values[2]);
+            sb.append("</Environment></System><Device><HostName>");
+            sb.append(values[4]);
+            sb.append("</HostName></Device><User><Id>");
+            sb.append(values[3]);
+            sb.append("</Id></User></EventSource><EventDetail><TypeId>");
+            sb.append(values[5]);
+            sb.append("</TypeId><Description>");
+            sb.append(values[6]);
+            sb.append("</Description></EventDetail></Event>\n");
+            final String event = sb.toString();
+
+            final int eventBytes = event.getBytes(StandardCharsets.UTF_8).length;
+            xmlEvents = new String[TARGET_BYTES / eventBytes];
+            for (int i = 0; i < xmlEvents.length; i++) {
+                xmlEvents[i] = event;
+            }
+
+            int jsonEventBytes = 3;
+            for (int i = 0; i < names.length; i++) {
+                jsonEventBytes += names[i].length() + values[i].getBytes(StandardCharsets.UTF_8).length + 6;
+            }
+            jsonEvents = TARGET_BYTES / jsonEventBytes;
+        }
+    }
+}
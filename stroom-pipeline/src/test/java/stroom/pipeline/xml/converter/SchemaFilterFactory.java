@@ -24,12 +24,15 @@ import stroom.docstore.impl.Serialiser2FactoryImpl;
 import stroom.docstore.impl.StoreFactoryImpl;
 import stroom.docstore.impl.memory.MemoryPersistence;
 import stroom.pipeline.LocationFactoryProxy;
+import stroom.pipeline.PipelineConfig;
 import stroom.pipeline.cache.MockSchemaPool;
 import stroom.pipeline.cache.SchemaLoaderImpl;
 import stroom.pipeline.cache.SchemaPool;
 import stroom.pipeline.errorhandler.ErrorReceiverProxy;
 import stroom.pipeline.filter.SchemaFilter;
+import stroom.pipeline.filter.SchemaValidationMetrics;
 import stroom.pipeline.state.PipelineContext;
+import stroom.pipeline.state.PipelineHolder;
 import stroom.pipeline.xml.converter.ds3.DS3ParserFactory;
 import stroom.pipeline.xmlschema.FindXMLSchemaCriteria;
 import stroom.pipeline.xmlschema.XmlSchemaCache;
@@ -79,12 +82,18 @@ public class SchemaFilterFactory {
     }
 
     public SchemaFilter getSchemaFilter(final String namespaceURI, final ErrorReceiverProxy errorReceiverProxy) {
+        return getSchemaFilter(namespaceURI, errorReceiverProxy, new SchemaValidationMetrics(PipelineConfig::new));
+    }
+
+    public SchemaFilter getSchemaFilter(final String namespaceURI,
+                                        final ErrorReceiverProxy errorReceiverProxy,
+                                        final SchemaValidationMetrics schemaValidationMetrics) {
         final SchemaPool schemaPool = new MockSchemaPool(schemaLoader);
         final FindXMLSchemaCriteria schemaConstraint = new FindXMLSchemaCriteria();
         schemaConstraint.setNamespaceURI(namespaceURI);
 
         final SchemaFilter schemaFilter = new SchemaFilter(schemaPool, xmlSchemaCache, errorReceiverProxy,
-                new LocationFactoryProxy(), new PipelineContext());
+                new LocationFactoryProxy(), new PipelineContext(), new PipelineHolder(), schemaValidationMetrics);
         schemaFilter.setSchemaConstraint(schemaConstraint);
         schemaFilter.setUseOriginalLocator(true);
 
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.pipeline.xml.converter.ds3;
+
+import stroom.pipeline.DefaultLocationFactory;
+import stroom.pipeline.LocationFactory;
+import stroom.pipeline.errorhandler.ErrorHandlerAdaptor;
+import stroom.pipeline.errorhandler.ErrorReceiverProxy;
+import stroom.pipeline.errorhandler.LoggingErrorReceiver;
+import stroom.pipeline.filter.SchemaFilter;
+import stroom.pipeline.xml.converter.SchemaFilterFactory;
+import stroom.test.common.StroomPipelineTestFileUtil;
+import stroom.util.shared.ElementId;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Measures the throughput of the data splitter using the configurations and input from {@link TestDS3}. The input
+ * for each test is repeated so that the time is dominated by splitting rather than parser setup.
+ */
+@Fork(value = 1, warmups = 1)
+@BenchmarkMode(Mode.Throughput)
+@Measurement(iterations = 3)
+public class DS3Benchmark {
+
+    @Benchmark
+    public void parse(final Splitter state, final Blackhole blackhole) throws Exception {
+        state.handler.blackhole = blackhole;
+        state.reader.parse(new InputSource(new StringReader(state.input)));
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    @State(Scope.Thread)
+    public static class Splitter {
+
+        @Param({
+                "001_csv_with_header",
+                "003_multiline_regex",
+                "004_simple_regex",
+                "006_single_line_delimited",
+                "007_regex_dotall",
+                "013_simple_regex_case_insens",
+                "019_single_line_split"})
+        public String stem;
+
+        @Param({"1000"})
+        public int repeats;
+
+        private XMLReader reader;
+        private String input;
+        private final ConsumingHandler handler = new ConsumingHandler();
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            final Path testDir = StroomPipelineTestFileUtil.getTestResourcesDir().resolve("TestDS3");
+            final String in = Files.readString(testDir.resolve(stem + ".in"));
+            // Files with a header can't just be repeated so only repeat the lines after the header.
+            final boolean hasHeader = stem.contains("with_header");
+            final int bodyStart = hasHeader
+                    ? in.indexOf('\n') + 1
+                    : 0;
+            final StringBuilder sb = new StringBuilder(in.substring(0, bodyStart));
+            final String body = in.endsWith("\n")
+                    ? in.substring(bodyStart)
+                    : in.substring(bodyStart) + "\n";
+            sb.append(body.repeat(repeats));
+            input = sb.toString();
+
+            final LoggingErrorReceiver errorReceiver = new LoggingErrorReceiver();
+            final SchemaFilter schemaFilter = new SchemaFilterFactory().getSchemaFilter(
+                    DS3ParserFactory.NAMESPACE_URI,
+                    new ErrorReceiverProxy(errorReceiver));
+            final DS3ParserFactory factory = new DS3ParserFactory(schemaFilter);
+            final LocationFactory locationFactory = new DefaultLocationFactory();
+            factory.configure(Files.newBufferedReader(testDir.resolve(stem + ".ds3.xml")),
+                    new ErrorHandlerAdaptor(new ElementId("DS3Parser"), locationFactory, errorReceiver));
+            if (!errorReceiver.isAllOk()) {
+                throw new IllegalStateException("Configuration of parser failed: " + errorReceiver.getMessage());
+            }
+
+            reader = factory.getParser();
+            reader.setErrorHandler(new ErrorHandlerAdaptor(
+                    new ElementId("DS3Parser"),
+                    locationFactory,
+                    errorReceiver));
+            reader.setContentHandler(handler);
+        }
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    private static class ConsumingHandler extends DefaultHandler {
+
+        private Blackhole blackhole;
+
+        @Override
+        public void startElement(final String uri,
+                                 final String localName,
+                                 final String qName,
+                                 final Attributes attributes) {
+            for (int i = 0; i < attributes.getLength(); i++) {
+                blackhole.consume(attributes.getValue(i));
+            }
+        }
+
+        @Override
+        public void characters(final char[] ch, final int start, final int length) {
+            blackhole.consume(length);
+        }
+    }
+}
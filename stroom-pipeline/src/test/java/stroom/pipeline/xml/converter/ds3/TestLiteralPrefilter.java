@@ -0,0 +1,80 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.pipeline.xml.converter.ds3;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestLiteralPrefilter {
+
+    @Test
+    void testLiteralPrefix() {
+        assertLiteral("abc[0-9]+", 0, "abc", false);
+        assertLiteral("^abc(.*)$", 0, "abc", true);
+        assertLiteral("^abc(.*)$", Pattern.MULTILINE, "abc", false);
+        assertLiteral("ab?c", 0, "a", false);
+        assertLiteral("abc+d", 0, "abc", false);
+        assertLiteral("a\\.b\\d", 0, "a.b", false);
+        assertLiteral("a.b", Pattern.LITERAL, "a.b", false);
+    }
+
+    @Test
+    void testNoPrefilter() {
+        assertThat(LiteralPrefilter.create("^([0-9]+) (.*)$", 0)).isNull();
+        assertThat(LiteralPrefilter.create("abc|def", 0)).isNull();
+        assertThat(LiteralPrefilter.create("a?bc", 0)).isNull();
+        assertThat(LiteralPrefilter.create("abc", Pattern.CASE_INSENSITIVE)).isNull();
+        assertThat(LiteralPrefilter.create("\\Qa|b\\E", 0)).isNull();
+        assertThat(LiteralPrefilter.create(null, 0)).isNull();
+    }
+
+    @Test
+    void testAlternationInGroupOrClass() {
+        assertLiteral("abc(d|e)", 0, "abc", false);
+        assertLiteral("abc[|]", 0, "abc", false);
+    }
+
+    @Test
+    void testMightMatch() {
+        final LiteralPrefilter unanchored = LiteralPrefilter.create("user=(.*)", 0);
+        assertThat(unanchored.mightMatch("id=1 user=bob")).isTrue();
+        assertThat(unanchored.mightMatch("id=1 usr=bob")).isFalse();
+        assertThat(unanchored.mightMatch("us")).isFalse();
+
+        final LiteralPrefilter anchored = LiteralPrefilter.create("^user=(.*)", 0);
+        assertThat(anchored.mightMatch("user=bob")).isTrue();
+        assertThat(anchored.mightMatch("id=1 user=bob")).isFalse();
+
+        // A reversed buffer is matched as it is presented to the regex.
+        final CharBuffer buffer = new CharBuffer("bob=resu".toCharArray(), 0, 8);
+        assertThat(unanchored.mightMatch(buffer.reverse())).isTrue();
+    }
+
+    private void assertLiteral(final String pattern,
+                               final int flags,
+                               final String expectedLiteral,
+                               final boolean expectedAnchored) {
+        final LiteralPrefilter prefilter = LiteralPrefilter.create(pattern, flags);
+        assertThat(prefilter).isNotNull();
+        assertThat(prefilter.getLiteral()).isEqualTo(expectedLiteral);
+        assertThat(prefilter.isAnchored()).isEqualTo(expectedAnchored);
+    }
+}
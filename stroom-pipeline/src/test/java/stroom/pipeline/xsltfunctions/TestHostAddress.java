@@ -16,6 +16,8 @@
 
 package stroom.pipeline.xsltfunctions;
 
+import stroom.pipeline.filter.XsltConfig;
+import stroom.pipeline.xsltfunctions.HostResolver.InetHostResolver;
 import stroom.util.shared.Severity;
 
 import net.sf.saxon.om.EmptyAtomicSequence;
@@ -38,7 +40,12 @@ class TestHostAddress extends AbstractXsltFunctionTest<HostAddress> {
 
     @BeforeEach
     void setUp() {
-        hostAddress = new HostAddress();
+        final HostLookupService hostLookupService = new HostLookupService(
+                new InetHostResolver(),
+                XsltConfig::new,
+                () -> Runnable::run,
+                System::currentTimeMillis);
+        hostAddress = new HostAddress(hostLookupService);
     }
 
     @Test
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.pipeline.xsltfunctions;
+
+import stroom.pipeline.filter.XsltConfig;
+import stroom.util.time.StroomDuration;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.UnknownHostException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TestHostLookupService {
+
+    private final AtomicLong time = new AtomicLong(1_000_000L);
+
+    @Test
+    void testCachesSuccess() throws Exception {
+        final StubResolver resolver = new StubResolver(Map.of("10.0.0.1", "host1"));
+        final HostLookupService service = createService(resolver, new XsltConfig());
+
+        assertThat(service.getHostName("10.0.0.1")).isEqualTo("host1");
+        assertThat(service.getHostName("10.0.0.1")).isEqualTo("host1");
+        assertThat(resolver.calls.get()).isEqualTo(1);
+
+        // After the TTL the value is resolved again.
+        time.addAndGet(StroomDuration.ofHours(2).toMillis());
+        assertThat(service.getHostName("10.0.0.1")).isEqualTo("host1");
+        assertThat(resolver.calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testCachesFailure() {
+        final StubResolver resolver = new StubResolver(Map.of());
+        final HostLookupService service = createService(resolver, new XsltConfig());
+
+        assertThatThrownBy(() -> service.getHostName("10.0.0.2"))
+                .isInstanceOf(UnknownHostException.class);
+        assertThatThrownBy(() -> service.getHostName("10.0.0.2"))
+                .isInstanceOf(UnknownHostException.class);
+        assertThat(resolver.calls.get()).isEqualTo(1);
+
+        // Failures expire sooner than successes.
+        time.addAndGet(StroomDuration.ofMinutes(6).toMillis());
+        assertThatThrownBy(() -> service.getHostName("10.0.0.2"))
+                .isInstanceOf(UnknownHostException.class);
+        assertThat(resolver.calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testRefreshesInBackground() throws Exception {
+        final StubResolver resolver = new StubResolver(new ConcurrentHashMap<>(Map.of("10.0.0.3", "host3")));
+        final HostLookupService service = createService(resolver, new XsltConfig());
+
+        assertThat(service.getHostName("10.0.0.3")).isEqualTo("host3");
+
+        // Near the end of the TTL the cached value is returned and a refresh is started.
+        resolver.hosts.put("10.0.0.3", "host3-new");
+        time.addAndGet(StroomDuration.ofMinutes(50).toMillis());
+        assertThat(service.getHostName("10.0.0.3")).isEqualTo("host3");
+        assertThat(service.getHostName("10.0.0.3")).isEqualTo("host3-new");
+        assertThat(resolver.calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testTimeout() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final StubResolver resolver = new StubResolver(Map.of("10.0.0.4", "host4")) {
+            @Override
+            public String getHostName(final String address) throws UnknownHostException {
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.getHostName(address);
+            }
+        };
+        final XsltConfig xsltConfig = new XsltConfig(
+                null,
+                null,
+                null,
+                null,
+                null,
+                StroomDuration.ofMillis(50),
+                null,
+                null,
+                null,
+                null);
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            final HostLookupService service = new HostLookupService(
+                    resolver,
+                    () -> xsltConfig,
+                    () -> executorService,
+                    time::get);
+
+            assertThatThrownBy(() -> service.getHostName("10.0.0.4"))
+                    .isInstanceOf(UnknownHostException.class)
+                    .hasMessageContaining("Timed out");
+
+            // The lookup carries on and the result is available to later callers.
+            release.countDown();
+            executorService.shutdown();
+            assertThat(executorService.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(service.getHostName("10.0.0.4")).isEqualTo("host4");
+            assertThat(resolver.calls.get()).isEqualTo(1);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    void testCacheSizeLimit() throws Exception {
+        final StubResolver resolver = new StubResolver(Map.of());
+        final XsltConfig xsltConfig = new XsltConfig(null, null, 10, null, null, null, null, null, null, null);
+        final HostLookupService service = createService(resolver, xsltConfig);
+
+        for (int i = 0; i < 100; i++) {
+            final String address = "10.0.1." + i;
+            assertThatThrownBy(() -> service.getHostAddress(address))
+                    .isInstanceOf(UnknownHostException.class);
+        }
+
+        assertThat((Integer) service.getSystemInfo().getDetails().get("cacheSize"))
+                .isLessThanOrEqualTo(10);
+    }
+
+    private HostLookupService createService(final HostResolver resolver, final XsltConfig xsltConfig) {
+        return new HostLookupService(resolver, () -> xsltConfig, () -> Runnable::run, time::get);
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    private static class StubResolver implements HostResolver {
+
+        private final Map<String, String> hosts;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private StubResolver(final Map<String, String> hosts) {
+            this.hosts = hosts;
+        }
+
+        @Override
+        public String getHostName(final String address) throws UnknownHostException {
+            return lookup(address);
+        }
+
+        @Override
+        public String getHostAddress(final String hostName) throws UnknownHostException {
+            return lookup(hostName);
+        }
+
+        private String lookup(final String value) throws UnknownHostException {
+            calls.incrementAndGet();
+            final String result = hosts.get(value);
+            if (result == null) {
+                throw new UnknownHostException(value);
+            }
+            return result;
+        }
+    }
+}
@@ -16,6 +16,8 @@
 
 package stroom.pipeline.xsltfunctions;
 
+import stroom.pipeline.filter.XsltConfig;
+import stroom.pipeline.xsltfunctions.HostResolver.InetHostResolver;
 import stroom.util.shared.Severity;
 
 import net.sf.saxon.om.EmptyAtomicSequence;
@@ -38,7 +40,12 @@ class TestHostName extends AbstractXsltFunctionTest<HostName> {
 
     @BeforeEach
     void setUp() {
-        hostName = new HostName();
+        final HostLookupService hostLookupService = new HostLookupService(
+                new InetHostResolver(),
+                XsltConfig::new,
+                () -> Runnable::run,
+                System::currentTimeMillis);
+        hostName = new HostName(hostLookupService);
     }
 
     @Test
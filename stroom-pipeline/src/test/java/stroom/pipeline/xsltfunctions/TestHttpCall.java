@@ -55,9 +55,8 @@ class TestHttpCall {
 
         final HttpClientFactory httpClientFactory =
                 new BasicHttpClientFactory(new HttpClientConfigConverter(pathCreator));
-        final HttpCall httpCall = new HttpCall(null);
         try (final CloseableHttpClient httpClient = httpClientFactory.get("test", httpClientConfiguration)) {
-            httpCall.execute("https://localhost:5443/", "", "", "", httpClient,
+            httpClient.execute(HttpCall.createRequest("https://localhost:5443/", "", "", ""),
                     response -> {
                         try (final InputStream inputStream = response.getEntity().getContent()) {
                             System.out.println(StreamUtil.streamToString(inputStream));
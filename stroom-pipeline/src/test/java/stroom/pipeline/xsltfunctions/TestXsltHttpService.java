@@ -0,0 +1,251 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.pipeline.xsltfunctions;
+
+import stroom.pipeline.filter.XsltConfig;
+import stroom.pipeline.xsltfunctions.XsltHttpService.HttpResponseData;
+import stroom.util.jersey.HttpClientProvider;
+import stroom.util.time.StroomDuration;
+
+import org.apache.hc.client5.http.classic.HttpClient;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.io.HttpClientResponseHandler;
+import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TestXsltHttpService {
+
+    private final AtomicLong time = new AtomicLong(1_000_000L);
+    private final AtomicInteger calls = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile boolean blockRequests;
+    private volatile Error requestError;
+
+    private ExecutorService executorService;
+
+    @BeforeEach
+    void setup() {
+        executorService = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void after() {
+        release.countDown();
+        executorService.shutdownNow();
+    }
+
+    @Test
+    void testIdenticalRequestsShared() throws Exception {
+        blockRequests = true;
+        final XsltHttpService service = createService(createConfig(null, null, null, null));
+
+        final Future<HttpResponseData> first = executorService.submit(() ->
+                service.execute(null, new HttpGet("http://host1:8080/a"), null));
+        waitFor(() -> calls.get() == 1);
+        final Future<HttpResponseData> second = executorService.submit(() ->
+                service.execute(null, new HttpGet("http://host1:8080/a"), null));
+        waitFor(() -> getDetail(service, "sharedRequests") == 1);
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS).body()).isEqualTo("http://host1:8080/a");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isSameAs(first.get());
+        assertThat(calls.get()).isEqualTo(1);
+
+        // Nothing is cached by default so the next request is sent again.
+        service.execute(null, new HttpGet("http://host1:8080/a"), null);
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testSharedRequestError() throws Exception {
+        blockRequests = true;
+        requestError = new Error("Test error");
+        final XsltHttpService service = createService(createConfig(null, null, null, null));
+
+        final Future<HttpResponseData> first = executorService.submit(() ->
+                service.execute(null, new HttpGet("http://host1:8080/a"), null));
+        waitFor(() -> calls.get() == 1);
+        final Future<HttpResponseData> second = executorService.submit(() ->
+                service.execute(null, new HttpGet("http://host1:8080/a"), null));
+        waitFor(() -> getDetail(service, "sharedRequests") == 1);
+        release.countDown();
+
+        // The caller sharing the request must get the error rather than waiting forever.
+        assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseReference(requestError);
+        assertThatThrownBy(() -> second.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseReference(requestError);
+        assertThat(getDetail(service, "inFlightRequests")).isZero();
+    }
+
+    @Test
+    void testResponseCacheTtl() {
+        final XsltHttpService service = createService(
+                createConfig(null, null, 10, StroomDuration.ofMinutes(1)));
+
+        service.execute(null, new HttpGet("http://host1:8080/a"), null);
+        service.execute(null, new HttpGet("http://host1:8080/a"), null);
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(getDetail(service, "responseCacheHits")).isEqualTo(1);
+
+        time.addAndGet(Duration.ofMinutes(2).toMillis());
+        service.execute(null, new HttpGet("http://host1:8080/a"), null);
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testResponseCacheEviction() {
+        final XsltHttpService service = createService(
+                createConfig(null, null, 2, StroomDuration.ofMinutes(1)));
+
+        for (final String path : new String[]{"a", "b", "c"}) {
+            service.execute(null, new HttpGet("http://host1:8080/" + path), null);
+            time.addAndGet(1_000);
+        }
+        assertThat(calls.get()).isEqualTo(3);
+
+        // Going over the limit drops the entries closest to expiry.
+        assertThat(getDetail(service, "responseCacheSize")).isEqualTo(1);
+        service.execute(null, new HttpGet("http://host1:8080/c"), null);
+        assertThat(calls.get()).isEqualTo(3);
+        service.execute(null, new HttpGet("http://host1:8080/a"), null);
+        assertThat(calls.get()).isEqualTo(4);
+    }
+
+    @Test
+    void testMaxConcurrentRequestsPerHost() throws Exception {
+        blockRequests = true;
+        final XsltHttpService service = createService(createConfig(1, null, null, null));
+
+        final Future<HttpResponseData> first = executorService.submit(() ->
+                service.execute(null, new HttpGet("http://host1:8080/a"), null));
+        waitFor(() -> calls.get() == 1);
+        final Future<HttpResponseData> second = executorService.submit(() ->
+                service.execute(null, new HttpGet("http://host1:8080/b"), null));
+        // Requests to other hosts are not held up.
+        final Future<HttpResponseData> otherHost = executorService.submit(() ->
+                service.execute(null, new HttpGet("http://host2:8080/a"), null));
+        waitFor(() -> calls.get() == 2);
+
+        Thread.sleep(100);
+        assertThat(calls.get()).isEqualTo(2);
+        assertThat(second.isDone()).isFalse();
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        otherHost.get(5, TimeUnit.SECONDS);
+        assertThat(calls.get()).isEqualTo(3);
+        assertThat(getDetail(service, "throttledRequests")).isEqualTo(1);
+    }
+
+    @Test
+    void testMaxRequestsPerSecondPerHost() {
+        final XsltHttpService service = createService(createConfig(null, 10D, null, null));
+
+        // The first request is not held up however long the JVM has been running.
+        final Instant start = Instant.now();
+        service.execute(null, new HttpGet("http://host1:8080/a"), null);
+        assertThat(getDetail(service, "throttledRequests")).isZero();
+
+        service.execute(null, new HttpGet("http://host1:8080/b"), null);
+        assertThat(getDetail(service, "throttledRequests")).isEqualTo(1);
+        assertThat(Duration.between(start, Instant.now())).isGreaterThanOrEqualTo(Duration.ofMillis(90));
+    }
+
+    private XsltHttpService createService(final XsltConfig xsltConfig) {
+        final HttpClient httpClient = Mockito.mock(HttpClient.class);
+        try {
+            Mockito.doAnswer(invocation -> {
+                calls.incrementAndGet();
+                if (blockRequests) {
+                    release.await();
+                }
+                if (requestError != null) {
+                    throw requestError;
+                }
+                final ClassicHttpRequest request = invocation.getArgument(0);
+                final HttpClientResponseHandler<?> handler = invocation.getArgument(1);
+                final BasicClassicHttpResponse response = new BasicClassicHttpResponse(200, "OK");
+                response.setEntity(new StringEntity(request.getUri().toString()));
+                return handler.handleResponse(response);
+            }).when(httpClient).execute(Mockito.any(ClassicHttpRequest.class),
+                    Mockito.any(HttpClientResponseHandler.class));
+        } catch (final Exception e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+
+        final HttpClientProvider httpClientProvider = Mockito.mock(HttpClientProvider.class);
+        Mockito.when(httpClientProvider.get()).thenReturn(httpClient);
+        final CommonHttpClient commonHttpClient = Mockito.mock(CommonHttpClient.class);
+        Mockito.when(commonHttpClient.createClientProvider(Mockito.any())).thenReturn(httpClientProvider);
+
+        return new XsltHttpService(commonHttpClient, () -> xsltConfig, time::get);
+    }
+
+    private XsltConfig createConfig(final Integer maxConcurrentRequestsPerHost,
+                                    final Double maxRequestsPerSecondPerHost,
+                                    final Integer responseCacheSize,
+                                    final StroomDuration responseCacheTtl) {
+        return new XsltConfig(
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                maxConcurrentRequestsPerHost,
+                maxRequestsPerSecondPerHost,
+                responseCacheSize,
+                responseCacheTtl);
+    }
+
+    private long getDetail(final XsltHttpService service, final String name) {
+        return ((Number) service.getSystemInfo().getDetails().get(name)).longValue();
+    }
+
+    private void waitFor(final BooleanSupplier condition) throws InterruptedException {
+        final long endTime = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).isLessThan(endTime);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -19,6 +19,7 @@ package stroom.processor.impl;
 import stroom.cluster.task.api.NodeNotFoundException;
 import stroom.cluster.task.api.NullClusterStateException;
 import stroom.cluster.task.api.TargetNodeSetFactory;
+import stroom.data.store.api.DataPrefetcher;
 import stroom.job.api.DistributedTask;
 import stroom.job.api.DistributedTaskFactory;
 import stroom.job.api.DistributedTaskFactoryDescription;
@@ -57,6 +58,7 @@ public class DataProcessorTaskFactory implements DistributedTaskFactory {
     private final ProcessorTaskResource processorTaskResource;
     private final NodeInfo nodeInfo;
     private final TaskContextFactory taskContextFactory;
+    private final DataPrefetcher dataPrefetcher;
     private RunnableFactory runnableFactory;
 
     @Inject
@@ -64,12 +66,14 @@ public class DataProcessorTaskFactory implements DistributedTaskFactory {
                              final ProcessorTaskResource processorTaskResource,
                              final Provider<DataProcessorTaskHandler> dataProcessorTaskHandlerProvider,
                              final NodeInfo nodeInfo,
-                             final TaskContextFactory taskContextFactory) {
+                             final TaskContextFactory taskContextFactory,
+                             final DataPrefetcher dataPrefetcher) {
         this.targetNodeSetFactory = targetNodeSetFactory;
         this.processorTaskResource = processorTaskResource;
         this.nodeInfo = nodeInfo;
         this.runnableFactory = new RunnableFactoryImpl(dataProcessorTaskHandlerProvider);
         this.taskContextFactory = taskContextFactory;
+        this.dataPrefetcher = dataPrefetcher;
     }
 
     @Override
@@ -87,6 +91,14 @@ public class DataProcessorTaskFactory implements DistributedTaskFactory {
                         "Received " +
                                 processorTaskList.getList().size() +
                                 " new tasks");
+
+                // Start warming the streams while the tasks wait for a processing thread.
+                dataPrefetcher.prefetch(processorTaskList
+                        .getList()
+                        .stream()
+                        .map(ProcessorTask::getMetaId)
+                        .collect(Collectors.toList()));
+
                 return processorTaskList
                         .getList()
                         .stream()
@@ -121,6 +133,11 @@ public class DataProcessorTaskFactory implements DistributedTaskFactory {
                 final ProcessorTaskList processorTaskList = new ProcessorTaskList(nodeInfo.getThisNodeName(),
                         processorTasks);
 
+                dataPrefetcher.cancel(processorTasks
+                        .stream()
+                        .map(ProcessorTask::getMetaId)
+                        .collect(Collectors.toList()));
+
                 return processorTaskResource
                         .abandonTasks(masterNode, processorTaskList);
             }
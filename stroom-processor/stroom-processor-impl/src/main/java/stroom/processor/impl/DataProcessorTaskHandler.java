@@ -16,6 +16,7 @@
 
 package stroom.processor.impl;
 
+import stroom.data.store.api.DataPrefetcher;
 import stroom.data.store.api.Source;
 import stroom.data.store.api.Store;
 import stroom.meta.api.MetaService;
@@ -56,6 +57,7 @@ public class DataProcessorTaskHandler {
     private final ProcessorFilterCache processorFilterCache;
     private final ProcessorTaskDao processorTaskDao;
     private final Store streamStore;
+    private final DataPrefetcher dataPrefetcher;
     private final MetaService metaService;
     private final NodeInfo nodeInfo;
     private final SecurityContext securityContext;
@@ -66,6 +68,7 @@ public class DataProcessorTaskHandler {
                              final ProcessorFilterCache processorFilterCache,
                              final ProcessorTaskDao processorTaskDao,
                              final Store streamStore,
+                             final DataPrefetcher dataPrefetcher,
                              final MetaService metaService,
                              final NodeInfo nodeInfo,
                              final SecurityContext securityContext,
@@ -74,6 +77,7 @@ public class DataProcessorTaskHandler {
         this.processorFilterCache = processorFilterCache;
         this.processorTaskDao = processorTaskDao;
         this.streamStore = streamStore;
+        this.dataPrefetcher = dataPrefetcher;
         this.metaService = metaService;
         this.nodeInfo = nodeInfo;
         this.securityContext = securityContext;
@@ -81,15 +85,21 @@ public class DataProcessorTaskHandler {
     }
 
     public ProcessorResult exec(final ProcessorTask task) {
-        // Perform processing as the filter owner.
-        final UserRef runAsUser = getFilterRunAs(task.getProcessorFilter());
-        return securityContext.asUserResult(runAsUser, () -> securityContext.useAsReadResult(() -> {
-            // Execute with a task context.
-            return taskContextFactory.contextResult(
-                    "Data Processor",
-                    TerminateHandlerFactory.NOOP_FACTORY,
-                    taskContext -> exec(taskContext, task)).get();
-        }));
+        try {
+            // Perform processing as the filter owner.
+            final UserRef runAsUser = getFilterRunAs(task.getProcessorFilter());
+            return securityContext.asUserResult(runAsUser, () -> securityContext.useAsReadResult(() -> {
+                // Execute with a task context.
+                return taskContextFactory.contextResult(
+                        "Data Processor",
+                        TerminateHandlerFactory.NOOP_FACTORY,
+                        taskContext -> exec(taskContext, task)).get();
+            }));
+        } finally {
+            // If we failed before claiming the stream then make sure the prefetcher gives back anything it holds
+            // for it. This does nothing if the stream has already been claimed.
+            dataPrefetcher.cancel(Collections.singleton(task.getMetaId()));
+        }
     }
 
     private UserRef getFilterRunAs(final ProcessorFilter filter) {
@@ -112,6 +122,9 @@ public class DataProcessorTaskHandler {
             LOGGER.trace("Executing processor task: {}", processorTask.getId());
         }
 
+        // Let the prefetcher know whether it got to this stream in time.
+        dataPrefetcher.claim(processorTask.getMetaId());
+
         // Open the stream source.
         try (final Source source = streamStore.openSource(processorTask.getMetaId())) {
             if (source == null) {
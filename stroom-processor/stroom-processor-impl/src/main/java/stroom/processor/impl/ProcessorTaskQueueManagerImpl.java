@@ -19,6 +19,7 @@ package stroom.processor.impl;
 import stroom.cluster.task.api.NodeNotFoundException;
 import stroom.cluster.task.api.NullClusterStateException;
 import stroom.cluster.task.api.TargetNodeSetFactory;
+import stroom.data.store.api.DataPrefetcher;
 import stroom.meta.api.MetaService;
 import stroom.node.api.NodeInfo;
 import stroom.processor.impl.ProcessorProfileCache.ProfileResult;
@@ -101,6 +102,7 @@ class ProcessorTaskQueueManagerImpl implements ProcessorTaskQueueManager, HasSys
     private final PrioritisedFilters prioritisedFilters;
     private final ProcessorProfileCache processorProfileCache;
     private final FilterFetchBackoff filterFetchBackoff;
+    private final DataPrefetcher dataPrefetcher;
 
     private final TaskStatusTraceLog taskStatusTraceLog = new TaskStatusTraceLog();
 
@@ -143,7 +145,8 @@ class ProcessorTaskQueueManagerImpl implements ProcessorTaskQueueManager, HasSys
                                   final TargetNodeSetFactory targetNodeSetFactory,
                                   final PrioritisedFilters prioritisedFilters,
                                   final ProcessorProfileCache processorProfileCache,
-                                  final FilterFetchBackoff filterFetchBackoff) {
+                                  final FilterFetchBackoff filterFetchBackoff,
+                                  final DataPrefetcher dataPrefetcher) {
         this.taskContextFactory = taskContextFactory;
         this.nodeInfo = nodeInfo;
         this.processorTaskDao = processorTaskDao;
@@ -155,6 +158,7 @@ class ProcessorTaskQueueManagerImpl implements ProcessorTaskQueueManager, HasSys
         this.prioritisedFilters = prioritisedFilters;
         this.processorProfileCache = processorProfileCache;
         this.filterFetchBackoff = filterFetchBackoff;
+        this.dataPrefetcher = dataPrefetcher;
 
         executor = executorProvider.get(THREAD_POOL);
     }
@@ -1158,6 +1162,7 @@ class ProcessorTaskQueueManagerImpl implements ProcessorTaskQueueManager, HasSys
                 .description("Processor task queue info")
                 .addDetail("filterQueues", queueInfo)
                 .addDetail("overallQueueSize", getTaskQueueSize())
+                .addDetail("streamPrefetch", dataPrefetcher.getStatistics())
                 .build();
     }
 
@@ -17,6 +17,7 @@
 package stroom.processor.impl;
 
 import stroom.cluster.task.api.TargetNodeSetFactory;
+import stroom.data.store.api.DataPrefetcher;
 import stroom.meta.api.MetaService;
 import stroom.node.api.NodeInfo;
 import stroom.processor.impl.ProcessorProfileCache.ProfileResult;
@@ -114,6 +115,8 @@ class TestProcessorTaskQueueManagerImpl {
     private ProcessorProfileCache processorProfileCache;
     @Mock
     private InternalStatisticsReceiver internalStatisticsReceiver;
+    @Mock
+    private DataPrefetcher dataPrefetcher;
 
     private ProcessorTaskQueueManagerImpl queueManager;
 
@@ -202,7 +205,8 @@ class TestProcessorTaskQueueManagerImpl {
                 targetNodeSetFactory,
                 prioritisedFilters,
                 processorProfileCache,
-                filterFetchBackoff);
+                filterFetchBackoff,
+                dataPrefetcher);
         queueManager.startup();
     }
 
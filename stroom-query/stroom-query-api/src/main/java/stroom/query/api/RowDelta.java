@@ -0,0 +1,127 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.query.api;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.Objects;
+
+@JsonPropertyOrder({"type", "groupKey", "index", "row"})
+@JsonInclude(Include.NON_NULL)
+@Schema(description = "A change to a single row of a table result since the last delta was delivered")
+public final class RowDelta {
+
+    @Schema(required = true)
+    @JsonProperty
+    private final Type type;
+
+    @Schema(description = "The group key of the row that has changed", required = true)
+    @JsonProperty
+    private final String groupKey;
+
+    @Schema(description = "The position of the row within the requested range, not set for deletes")
+    @JsonProperty
+    private final Integer index;
+
+    @Schema(description = "The new row content, not set for deletes")
+    @JsonProperty
+    private final Row row;
+
+    @JsonCreator
+    public RowDelta(@JsonProperty("type") final Type type,
+                    @JsonProperty("groupKey") final String groupKey,
+                    @JsonProperty("index") final Integer index,
+                    @JsonProperty("row") final Row row) {
+        this.type = type;
+        this.groupKey = groupKey;
+        this.index = index;
+        this.row = row;
+    }
+
+    public static RowDelta insert(final int index, final Row row) {
+        return new RowDelta(Type.INSERT, row.getGroupKey(), index, row);
+    }
+
+    public static RowDelta update(final int index, final Row row) {
+        return new RowDelta(Type.UPDATE, row.getGroupKey(), index, row);
+    }
+
+    public static RowDelta delete(final String groupKey) {
+        return new RowDelta(Type.DELETE, groupKey, null, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getGroupKey() {
+        return groupKey;
+    }
+
+    public Integer getIndex() {
+        return index;
+    }
+
+    public Row getRow() {
+        return row;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final RowDelta rowDelta = (RowDelta) o;
+        return type == rowDelta.type &&
+               Objects.equals(groupKey, rowDelta.groupKey) &&
+               Objects.equals(index, rowDelta.index) &&
+               Objects.equals(row, rowDelta.row);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, groupKey, index, row);
+    }
+
+    @Override
+    public String toString() {
+        return "RowDelta{" +
+               "type=" + type +
+               ", groupKey='" + groupKey + '\'' +
+               ", index=" + index +
+               ", row=" + row +
+               '}';
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    public enum Type {
+        INSERT,
+        UPDATE,
+        DELETE
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.query.api;
+
+import stroom.util.shared.ErrorMessage;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+import java.util.Objects;
+
+@JsonPropertyOrder({
+        "componentId",
+        "sequence",
+        "rowDeltas",
+        "resultRange",
+        "totalResults",
+        "complete",
+        "errorMessages"})
+@JsonInclude(Include.NON_NULL)
+@Schema(description = "The changes to a table result since the previous delta for the same component was delivered. " +
+                      "Applying every delta in sequence order to an empty table gives the current table result.")
+public final class TableResultDelta {
+
+    @Schema(required = true)
+    @JsonProperty
+    private final String componentId;
+
+    @JsonPropertyDescription("The position of this delta in the stream of deltas for the component, starting at 0")
+    @JsonProperty
+    private final long sequence;
+
+    @JsonProperty
+    private final List<RowDelta> rowDeltas;
+
+    @JsonProperty
+    private final OffsetRange resultRange;
+
+    @JsonPropertyDescription("The total number of results in this result set")
+    @JsonProperty
+    private final Long totalResults;
+
+    @JsonPropertyDescription("True if the search is complete and no further deltas will follow")
+    @JsonProperty
+    private final boolean complete;
+
+    @JsonProperty
+    private final List<ErrorMessage> errorMessages;
+
+    @JsonCreator
+    public TableResultDelta(@JsonProperty("componentId") final String componentId,
+                            @JsonProperty("sequence") final long sequence,
+                            @JsonProperty("rowDeltas") final List<RowDelta> rowDeltas,
+                            @JsonProperty("resultRange") final OffsetRange resultRange,
+                            @JsonProperty("totalResults") final Long totalResults,
+                            @JsonProperty("complete") final boolean complete,
+                            @JsonProperty("errorMessages") final List<ErrorMessage> errorMessages) {
+        this.componentId = componentId;
+        this.sequence = sequence;
+        this.rowDeltas = rowDeltas;
+        this.resultRange = resultRange;
+        this.totalResults = totalResults;
+        this.complete = complete;
+        this.errorMessages = errorMessages;
+    }
+
+    public String getComponentId() {
+        return componentId;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public List<RowDelta> getRowDeltas() {
+        return rowDeltas;
+    }
+
+    public OffsetRange getResultRange() {
+        return resultRange;
+    }
+
+    public Long getTotalResults() {
+        return totalResults;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public List<ErrorMessage> getErrorMessages() {
+        return errorMessages;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final TableResultDelta that = (TableResultDelta) o;
+        return sequence == that.sequence &&
+               complete == that.complete &&
+               Objects.equals(componentId, that.componentId) &&
+               Objects.equals(rowDeltas, that.rowDeltas) &&
+               Objects.equals(resultRange, that.resultRange) &&
+               Objects.equals(totalResults, that.totalResults) &&
+               Objects.equals(errorMessages, that.errorMessages);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(componentId, sequence, rowDeltas, resultRange, totalResults, complete, errorMessages);
+    }
+
+    @Override
+    public String toString() {
+        return "TableResultDelta{" +
+               "componentId='" + componentId + '\'' +
+               ", sequence=" + sequence +
+               ", rowDeltas=" + rowDeltas +
+               ", resultRange=" + resultRange +
+               ", totalResults=" + totalResults +
+               ", complete=" + complete +
+               ", errorMessages=" + errorMessages +
+               '}';
+    }
+}
@@ -28,6 +28,7 @@ import stroom.query.language.functions.ref.ValueReferenceIndex;
 import stroom.util.shared.NullSafe;
 
 import java.text.ParseException;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -39,15 +40,18 @@ public class CompiledColumns {
     private final CompiledColumn[] compiledColumns;
     private final FieldIndex fieldIndex;
     private final ValueReferenceIndex valueReferenceIndex;
+    private final BitSet[] columnValueReferences;
 
     private CompiledColumns(final List<Column> columns,
                             final CompiledColumn[] compiledColumns,
                             final FieldIndex fieldIndex,
-                            final ValueReferenceIndex valueReferenceIndex) {
+                            final ValueReferenceIndex valueReferenceIndex,
+                            final BitSet[] columnValueReferences) {
         this.columns = columns;
         this.compiledColumns = compiledColumns;
         this.fieldIndex = fieldIndex;
         this.valueReferenceIndex = valueReferenceIndex;
+        this.columnValueReferences = columnValueReferences;
     }
 
     public static CompiledColumns create(final ExpressionContext expressionContext,
@@ -62,11 +66,17 @@ public class CompiledColumns {
                                          final Map<String, String> paramMap) {
         final ValueReferenceIndex valueReferenceIndex = new ValueReferenceIndex();
         if (columns == null) {
-            return new CompiledColumns(Collections.emptyList(), new CompiledColumn[0], fieldIndex, valueReferenceIndex);
+            return new CompiledColumns(
+                    Collections.emptyList(),
+                    new CompiledColumn[0],
+                    fieldIndex,
+                    valueReferenceIndex,
+                    new BitSet[0]);
         }
 
         final ExpressionParser expressionParser = new ExpressionParser(new ParamFactory(new HashMap<>()));
         final CompiledColumn[] compiledFields = new CompiledColumn[columns.size()];
+        final BitSet[] columnValueReferences = new BitSet[columns.size()];
         int i = 0;
 
         for (final Column column : columns) {
@@ -78,6 +88,7 @@ public class CompiledColumns {
             Generator generator = Null.GEN;
             boolean hasAggregate = false;
             boolean requiresChildData = false;
+            BitSet valueReferences = new BitSet();
             if (!NullSafe.isBlankString(column.getExpression())) {
                 try {
                     final Expression expression = expressionParser.parse(
@@ -85,7 +96,8 @@ public class CompiledColumns {
                             fieldIndex,
                             column.getExpression());
                     expression.setStaticMappedValues(paramMap);
-                    expression.addValueReferences(valueReferenceIndex);
+                    valueReferences = valueReferenceIndex.recordReferences(() ->
+                            expression.addValueReferences(valueReferenceIndex));
                     generator = expression.createGenerator();
                     hasAggregate = expression.hasAggregate();
                     requiresChildData = expression.requiresChildData();
@@ -104,10 +116,12 @@ public class CompiledColumns {
 
             // Only include this field if it is used for display, grouping,
             // sorting.
-            compiledFields[i++] = compiledField;
+            compiledFields[i] = compiledField;
+            columnValueReferences[i] = valueReferences;
+            i++;
         }
 
-        return new CompiledColumns(columns, compiledFields, fieldIndex, valueReferenceIndex);
+        return new CompiledColumns(columns, compiledFields, fieldIndex, valueReferenceIndex, columnValueReferences);
     }
 
     public List<Column> getColumns() {
@@ -125,4 +139,18 @@ public class CompiledColumns {
     public ValueReferenceIndex getValueReferenceIndex() {
         return valueReferenceIndex;
     }
+
+    /**
+     * @param include The columns to get value references for.
+     * @return The indices of all value references needed to evaluate the included columns.
+     */
+    public BitSet getValueReferences(final boolean[] include) {
+        final BitSet bitSet = new BitSet();
+        for (int i = 0; i < columnValueReferences.length && i < include.length; i++) {
+            if (include[i]) {
+                bitSet.or(columnValueReferences[i]);
+            }
+        }
+        return bitSet;
+    }
 }
@@ -22,6 +22,7 @@ import stroom.query.language.functions.Val;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
@@ -88,6 +89,25 @@ public class CompiledSorter<E extends Item> implements Comparator<E>, Function<S
         return 0;
     }
 
+    /**
+     * @return True if the other sorter sorts by the same columns in the same order and direction as this one.
+     */
+    public boolean isEquivalent(final CompiledSorter<E> other) {
+        if (other == null || other.compiledSorts.size() != compiledSorts.size()) {
+            return false;
+        }
+        for (int i = 0; i < compiledSorts.size(); i++) {
+            final CompiledSort s1 = compiledSorts.get(i);
+            final CompiledSort s2 = other.compiledSorts.get(i);
+            if (s1.getFieldIndex() != s2.getFieldIndex() ||
+                s1.getOrder() != s2.getOrder() ||
+                !Objects.equals(s1.getDirection(), s2.getDirection())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public String toString() {
         return "CompiledSorter{" +
@@ -173,6 +173,11 @@ public final class CoprocessorsImpl implements Coprocessors, HasCompletionState
         return null;
     }
 
+    public void forEachDataStore(final BiConsumer<String, DataStore> consumer) {
+        componentIdCoprocessorMap.forEach((componentId, tableCoprocessor) ->
+                consumer.accept(componentId, tableCoprocessor.getData()));
+    }
+
     @Override
     public boolean isPresent() {
         return !coprocessorMap.isEmpty();
@@ -81,6 +81,14 @@ public interface DataStore extends ValuesConsumer {
 
     long getByteSize();
 
+    /**
+     * Get a count that changes whenever the data visible to {@link DataStore#fetch} may have changed. Callers can
+     * compare counts to avoid fetching results that cannot have changed since they last looked.
+     *
+     * @return The current change count.
+     */
+    long getChangeCount();
+
     KeyFactory getKeyFactory();
 
     DateTimeSettings getDateTimeSettings();
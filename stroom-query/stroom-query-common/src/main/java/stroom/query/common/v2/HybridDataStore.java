@@ -0,0 +1,326 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.query.common.v2;
+
+import stroom.query.api.Column;
+import stroom.query.api.DateTimeSettings;
+import stroom.query.api.OffsetRange;
+import stroom.query.api.TimeFilter;
+import stroom.query.language.functions.Val;
+import stroom.util.logging.LambdaLogger;
+import stroom.util.logging.LambdaLoggerFactory;
+import stroom.util.logging.LogUtil;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * A data store that starts out holding results on the heap in a {@link MapDataStore} and transparently promotes
+ * itself to an {@link LmdbDataStore} once the estimated heap used by the map store exceeds a configured budget.
+ * Small searches therefore avoid the cost of creating an LMDB environment while large searches are prevented from
+ * exhausting the heap.
+ * <p>
+ * The map store does not filter values itself so the table value filter is applied here until we promote, after
+ * which the LMDB store applies it.
+ */
+public class HybridDataStore implements DataStore {
+
+    private static final LambdaLogger LOGGER = LambdaLoggerFactory.getLogger(HybridDataStore.class);
+
+    // Checking the heap size estimate on every add is cheap but there is no need to do it that often.
+    private static final int SIZE_CHECK_FREQUENCY = 1_000;
+
+    private final String componentId;
+    private final Predicate<Val[]> valueFilter;
+    private final Supplier<LmdbDataStore> lmdbDataStoreSupplier;
+    private final long heapBudgetBytes;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final HybridCompletionState completionState = new HybridCompletionState();
+    private final AtomicLong addCount = new AtomicLong();
+
+    private volatile MapDataStore mapDataStore;
+    private volatile LmdbDataStore lmdbDataStore;
+    private volatile boolean cleared;
+
+    public HybridDataStore(final String componentId,
+                           final MapDataStore mapDataStore,
+                           final Predicate<Val[]> valueFilter,
+                           final Supplier<LmdbDataStore> lmdbDataStoreSupplier,
+                           final long heapBudgetBytes) {
+        this.componentId = componentId;
+        this.mapDataStore = mapDataStore;
+        this.valueFilter = valueFilter;
+        this.lmdbDataStoreSupplier = lmdbDataStoreSupplier;
+        this.heapBudgetBytes = heapBudgetBytes;
+    }
+
+    @Override
+    public void accept(final Val[] values) {
+        boolean checkSize = false;
+        lock.readLock().lock();
+        try {
+            final LmdbDataStore lmdbDataStore = this.lmdbDataStore;
+            if (lmdbDataStore != null) {
+                lmdbDataStore.accept(values);
+            } else if (!cleared && valueFilter.test(values)) {
+                mapDataStore.accept(values);
+                checkSize = addCount.incrementAndGet() % SIZE_CHECK_FREQUENCY == 0;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (checkSize) {
+            final MapDataStore mapDataStore = this.mapDataStore;
+            if (mapDataStore != null && mapDataStore.getByteSize() > heapBudgetBytes) {
+                promote();
+            }
+        }
+    }
+
+    /**
+     * Move everything held on the heap into a new LMDB store. All adds are blocked while the transfer takes place.
+     */
+    private void promote() {
+        lock.writeLock().lock();
+        try {
+            final MapDataStore mapDataStore = this.mapDataStore;
+            if (lmdbDataStore == null && mapDataStore != null && !cleared) {
+                LOGGER.debug(() -> LogUtil.message(
+                        "Promoting data store for component '{}' to LMDB, estimated heap size: {}",
+                        componentId,
+                        mapDataStore.getByteSize()));
+                final LmdbDataStore lmdbDataStore = lmdbDataStoreSupplier.get();
+                LOGGER.logDurationIfDebugEnabled(() ->
+                                lmdbDataStore.putAll(mapDataStore),
+                        () -> "Transferring heap data for component '" + componentId + "' to LMDB");
+                if (completionState.isSignalled()) {
+                    lmdbDataStore.getCompletionState().signalComplete();
+                }
+                this.lmdbDataStore = lmdbDataStore;
+                this.mapDataStore = null;
+                mapDataStore.clear();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return True if this store has moved its data from the heap to LMDB.
+     */
+    public boolean isPromoted() {
+        return lmdbDataStore != null;
+    }
+
+    private DataStore getDelegate() {
+        final LmdbDataStore lmdbDataStore = this.lmdbDataStore;
+        if (lmdbDataStore != null) {
+            return lmdbDataStore;
+        }
+        final MapDataStore mapDataStore = this.mapDataStore;
+        if (mapDataStore != null) {
+            return mapDataStore;
+        }
+        // We must have been promoted concurrently.
+        return this.lmdbDataStore;
+    }
+
+    @Override
+    public List<Column> getColumns() {
+        return getDelegate().getColumns();
+    }
+
+    @Override
+    public void fetch(final List<Column> columns,
+                      final OffsetRange range,
+                      final OpenGroups openGroups,
+                      final TimeFilter timeFilter,
+                      final ItemMapper mapper,
+                      final Consumer<Item> resultConsumer,
+                      final Consumer<Long> totalRowCountConsumer) {
+        lock.readLock().lock();
+        try {
+            getDelegate().fetch(
+                    columns,
+                    range,
+                    openGroups,
+                    timeFilter,
+                    mapper,
+                    resultConsumer,
+                    totalRowCountConsumer);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            cleared = true;
+            // Make sure anything waiting on completion is released.
+            completionState.signalComplete();
+            final MapDataStore mapDataStore = this.mapDataStore;
+            if (mapDataStore != null) {
+                mapDataStore.clear();
+            }
+            final LmdbDataStore lmdbDataStore = this.lmdbDataStore;
+            if (lmdbDataStore != null) {
+                lmdbDataStore.clear();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public CompletionState getCompletionState() {
+        return completionState;
+    }
+
+    /**
+     * Payloads are only produced and consumed by LMDB stores so we promote as soon as we receive one.
+     */
+    @Override
+    public void readPayload(final Input input) {
+        promote();
+        lock.readLock().lock();
+        try {
+            getDelegate().readPayload(input);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void writePayload(final Output output) {
+        throw new RuntimeException("Not producing payloads");
+    }
+
+    @Override
+    public long getByteSize() {
+        return getDelegate().getByteSize();
+    }
+
+    /**
+     * The LMDB store counts from zero again after promotion so we map its counts onto negative numbers to ensure the
+     * count differs from the one last seen for the heap store.
+     */
+    @Override
+    public long getChangeCount() {
+        final LmdbDataStore lmdbDataStore = this.lmdbDataStore;
+        if (lmdbDataStore != null) {
+            return -1 - lmdbDataStore.getChangeCount();
+        }
+        return getDelegate().getChangeCount();
+    }
+
+    @Override
+    public KeyFactory getKeyFactory() {
+        return getDelegate().getKeyFactory();
+    }
+
+    @Override
+    public DateTimeSettings getDateTimeSettings() {
+        return getDelegate().getDateTimeSettings();
+    }
+
+    @Override
+    public String toString() {
+        return "HybridDataStore{" +
+               "componentId='" + componentId + '\'' +
+               ", heapBudgetBytes=" + heapBudgetBytes +
+               ", promoted=" + isPromoted() +
+               '}';
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    /**
+     * Holds its own latch so that waiters are released whichever store holds the data when completion is signalled.
+     * The current store is signalled under the write lock so a promotion can't slip in between and miss the signal.
+     * Once released, waiters then wait for the current store to finish writing anything it still has queued.
+     */
+    private class HybridCompletionState implements CompletionState {
+
+        private final CountDownLatch signalled = new CountDownLatch(1);
+
+        @Override
+        public void signalComplete() {
+            lock.writeLock().lock();
+            try {
+                signalled.countDown();
+                getDelegate().getCompletionState().signalComplete();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        boolean isSignalled() {
+            return signalled.getCount() == 0;
+        }
+
+        @Override
+        public boolean isComplete() {
+            return isSignalled() && getDelegate().getCompletionState().isComplete();
+        }
+
+        @Override
+        public void awaitCompletion() throws InterruptedException {
+            signalled.await();
+            DataStore delegate = getDelegate();
+            delegate.getCompletionState().awaitCompletion();
+            // Wait on the LMDB store as well if we were promoted while waiting on the heap store.
+            while (delegate != getDelegate()) {
+                delegate = getDelegate();
+                delegate.getCompletionState().awaitCompletion();
+            }
+        }
+
+        @Override
+        public boolean awaitCompletion(final long timeout, final TimeUnit unit) throws InterruptedException {
+            final long deadline = System.nanoTime() + unit.toNanos(timeout);
+            if (!signalled.await(timeout, unit)) {
+                return false;
+            }
+            DataStore delegate = getDelegate();
+            if (!delegate.getCompletionState().awaitCompletion(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+            while (delegate != getDelegate()) {
+                delegate = getDelegate();
+                if (!delegate.getCompletionState().awaitCompletion(deadline - System.nanoTime(),
+                        TimeUnit.NANOSECONDS)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -40,10 +40,8 @@ import stroom.query.language.functions.FieldIndex;
 import stroom.query.language.functions.Generator;
 import stroom.query.language.functions.Val;
 import stroom.query.language.functions.ValNull;
-import stroom.query.language.functions.ref.DataReader;
 import stroom.query.language.functions.ref.DataWriter;
 import stroom.query.language.functions.ref.ErrorConsumer;
-import stroom.query.language.functions.ref.KryoDataReader;
 import stroom.query.language.functions.ref.StoredValues;
 import stroom.query.language.functions.ref.ValueReferenceIndex;
 import stroom.util.concurrent.CompleteException;
@@ -53,7 +51,6 @@ import stroom.util.logging.LambdaLogger;
 import stroom.util.logging.LambdaLoggerFactory;
 import stroom.util.logging.SimpleMetrics;
 
-import com.esotericsoftware.kryo.io.ByteBufferInput;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
 import jakarta.inject.Provider;
@@ -101,13 +98,16 @@ public class LmdbDataStore implements DataStore {
     private final LmdbDb db;
     private final LmdbDb stateDb;
     private final ValueReferenceIndex valueReferenceIndex;
+    private final StoredValuesCodec storedValuesCodec;
     private final CompiledColumns compiledColumns;
     private final CompiledColumn[] compiledColumnArray;
     private final CompiledSorters<Item> compiledSorters;
     private final CompiledDepths compiledDepths;
     private final LmdbPutFilter putFilter;
+    private final TopNFilter topNFilter;
     private final AtomicLong totalResultCount = new AtomicLong();
     private final AtomicLong resultCount = new AtomicLong();
+    private final AtomicLong changeCount = new AtomicLong();
     private final AtomicBoolean shutdown = new AtomicBoolean();
     private final Predicate<Val[]> valueFilter;
 
@@ -185,6 +185,7 @@ public class LmdbDataStore implements DataStore {
         valueReferenceIndex = compiledColumns.getValueReferenceIndex();
         compiledDepths = new CompiledDepths(this.compiledColumnArray, tableSettings.showDetail());
         compiledSorters = new CompiledSorters<>(compiledDepths, columns);
+        storedValuesCodec = new StoredValuesCodec(compiledColumns, compiledDepths);
         final int maxStringFieldLength = tableSettings.overrideMaxStringFieldLength() &&
                                          tableSettings.getMaxStringFieldLength() != null
                 ?
@@ -239,6 +240,17 @@ public class LmdbDataStore implements DataStore {
                 totalResultCount,
                 completionState);
 
+        // If we are sorting and only want the top N rows then we can drop rows that can never make it into the
+        // results before we write them.
+        topNFilter = TopNFilter.create(
+                compiledSorters,
+                compiledDepths,
+                compiledColumnArray,
+                keyFactoryConfig,
+                tableSettings.getWindow() != null,
+                maxResultSizes,
+                maxSortedItems);
+
         // Create a factory that makes DB state objects.
         currentDbStateFactory = new CurrentDbStateFactory(sourceType, fieldIndex, dataStoreSettings);
 
@@ -291,6 +303,12 @@ public class LmdbDataStore implements DataStore {
                 }
             }
 
+            // Drop the row and all of its descendants if it can't be in the top N. This must happen before we create
+            // any key buffers, so we don't leak them.
+            if (depth == 0 && topNFilter != null && !topNFilter.test(storedValues)) {
+                return;
+            }
+
             final ByteBuffer rowKey = lmdbRowKeyFactory.create(depth, parentRowKey, storedValues);
             final ByteBuffer rowValue = lmdbRowValueFactory.create(storedValues);
             parentRowKey = rowKey;
@@ -304,6 +322,40 @@ public class LmdbDataStore implements DataStore {
         }
     }
 
+    /**
+     * Add all items held by a heap based store to this store, e.g. when a {@link HybridDataStore} is promoted. The
+     * heap store must have been created from the same table settings as this store so that stored values share the
+     * same layout.
+     *
+     * @param mapDataStore The heap store to copy items from.
+     */
+    void putAll(final MapDataStore mapDataStore) {
+        mapDataStore.forEachChild(Key.ROOT_KEY, item -> {
+            // We build rows for the item and all of its descendants first before putting to ensure that the byte
+            // buffers used for parent row keys are not released and reused before we have read the values from them.
+            final List<LmdbKV> rows = new ArrayList<>();
+            addRows(mapDataStore, item, 0, null, rows);
+            for (final LmdbKV row : rows) {
+                put(row);
+            }
+        });
+    }
+
+    private void addRows(final MapDataStore mapDataStore,
+                         final MapDataStore.MapItem item,
+                         final int depth,
+                         final ByteBuffer parentRowKey,
+                         final List<LmdbKV> rows) {
+        final StoredValues storedValues = item.getStoredValues();
+        final ByteBuffer rowKey = lmdbRowKeyFactory.create(depth, parentRowKey, storedValues);
+        final ByteBuffer rowValue = lmdbRowValueFactory.create(storedValues);
+        rows.add(new LmdbKV(null, rowKey, rowValue));
+        if (depth < compiledDepths.getMaxDepth()) {
+            mapDataStore.forEachChild(item.getKey(), child ->
+                    addRows(mapDataStore, child, depth + 1, rowKey, rows));
+        }
+    }
+
     public void putCurrentDbState(final long streamId,
                                   final Long eventId,
                                   final Long lastEventTime) {
@@ -458,6 +510,7 @@ public class LmdbDataStore implements DataStore {
                         });
                     }
                     writeTxn.commit();
+                    changeCount.incrementAndGet();
                 });
     }
 
@@ -465,6 +518,8 @@ public class LmdbDataStore implements DataStore {
                         final CurrentDbState currentDbState) {
         putCurrentDbState(writeTxn, currentDbState);
         writeTxn.commit();
+        // Only count changes once they are committed and therefore visible to readers.
+        changeCount.incrementAndGet();
     }
 
 
@@ -499,13 +554,17 @@ public class LmdbDataStore implements DataStore {
                             boolean merged = false;
                             while (existingValueBuffer.remaining() > 0) {
                                 final int startPos = existingValueBuffer.position();
-                                final StoredValues existingStoredValues = readValues(existingValueBuffer);
+                                // Only materialise the values needed to compare the groups.
+                                final StoredValues existingGroupStoredValues =
+                                        storedValuesCodec.readGroupValues(existingValueBuffer, depth);
                                 final int endPos = existingValueBuffer.position();
                                 final Val[] existingGroupValues
-                                        = storedValueKeyFactory.getGroupValues(depth, existingStoredValues);
+                                        = storedValueKeyFactory.getGroupValues(depth, existingGroupStoredValues);
 
                                 // If this is the same value then update it and reinsert.
                                 if (Arrays.equals(existingGroupValues, newGroupValues)) {
+                                    final StoredValues existingStoredValues =
+                                            readValues(existingValueBuffer.slice(startPos, endPos - startPos));
                                     for (final CompiledColumn compiledColumn : compiledColumnArray) {
                                         compiledColumn.getGenerator().merge(existingStoredValues, newStoredValues);
                                     }
@@ -686,6 +745,7 @@ public class LmdbDataStore implements DataStore {
         } finally {
             resultCount.set(0);
             totalResultCount.set(0);
+            changeCount.incrementAndGet();
         }
     }
 
@@ -730,6 +790,11 @@ public class LmdbDataStore implements DataStore {
         return FileUtil.getByteSize(env.getDir().getEnvDir());
     }
 
+    @Override
+    public long getChangeCount() {
+        return changeCount.get();
+    }
+
     @Override
     public KeyFactory getKeyFactory() {
         return keyFactory;
@@ -855,6 +920,10 @@ public class LmdbDataStore implements DataStore {
                                    final Consumer<Long> totalRowCountConsumer) {
         // Update our sort columns if needed.
         compiledSorters.update(columns);
+        if (topNFilter != null && !topNFilter.isSortedBy(compiledSorters.get(0))) {
+            throw new RuntimeException("Attempt to change sort on top N limited results.\n" +
+                                       "Please revert change or run a new query.");
+        }
 
         final OffsetRange enforcedRange = Optional
                 .ofNullable(range)
@@ -1221,10 +1290,7 @@ public class LmdbDataStore implements DataStore {
     }
 
     private StoredValues readValues(final ByteBuffer valueBuffer) {
-        try (final DataReader reader =
-                new KryoDataReader(new ByteBufferInput(valueBuffer))) {
-            return valueReferenceIndex.read(reader);
-        }
+        return storedValuesCodec.read(valueBuffer);
     }
 
     // --------------------------------------------------------------------------------
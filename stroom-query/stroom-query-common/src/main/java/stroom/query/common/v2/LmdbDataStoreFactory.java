@@ -24,9 +24,11 @@ import stroom.lmdb2.LmdbEnvDir;
 import stroom.lmdb2.LmdbEnvDirFactory;
 import stroom.query.api.QueryKey;
 import stroom.query.api.SearchRequestSource;
+import stroom.query.api.SearchRequestSource.SourceType;
 import stroom.query.api.TableSettings;
 import stroom.query.language.functions.ExpressionContext;
 import stroom.query.language.functions.FieldIndex;
+import stroom.query.language.functions.Val;
 import stroom.query.language.functions.ref.ErrorConsumer;
 import stroom.util.io.FileUtil;
 import stroom.util.io.PathCreator;
@@ -50,6 +52,7 @@ import java.util.Objects;
 import java.util.UUID;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
 
 @Singleton // To ensure the localDir delete is done only once and before store creation
 public class LmdbDataStoreFactory implements DataStoreFactory {
@@ -122,39 +125,119 @@ public class LmdbDataStoreFactory implements DataStoreFactory {
                     errorConsumer,
                     executorProvider);
 
-        } else {
-            final String subDirectory = queryKey + "_" + componentId + "_" + UUID.randomUUID();
-            final LmdbEnvDir lmdbEnvDir = lmdbEnvDirFactory
-                    .builder()
-                    .config(resultStoreConfig.getLmdbConfig())
-                    .subDir(subDirectory)
-                    .build();
-
-            final LmdbEnv.Builder lmdbEnvBuilder = LmdbEnv
-                    .builder()
-                    .config(resultStoreConfig.getLmdbConfig())
-                    .lmdbEnvDir(lmdbEnvDir);
-
-            return new LmdbDataStore(
-                    searchRequestSource,
-                    lmdbEnvBuilder,
-                    resultStoreConfig,
-                    queryKey,
+        } else if (isHybridEligible(resultStoreConfig, searchRequestSource, tableSettings, dataStoreSettings)) {
+            final MapDataStore mapDataStore = new MapDataStore(
                     componentId,
                     tableSettings,
                     expressionContext,
                     fieldIndex,
                     paramMap,
                     dataStoreSettings,
-                    executorProvider,
                     errorConsumer,
-                    bufferFactory,
+                    resultStoreConfig.getMapConfig(),
+                    executorProvider);
+            final Predicate<Val[]> valueFilter = ValFilter.create(
+                    tableSettings.getValueFilter(),
+                    mapDataStore.getCompiledColumns(),
+                    mapDataStore.getDateTimeSettings(),
                     expressionPredicateFactory,
-                    annotationMapperFactory,
+                    paramMap,
                     wordListProvider);
+            return new HybridDataStore(
+                    componentId,
+                    mapDataStore,
+                    valueFilter,
+                    () -> createLmdbDataStore(
+                            resultStoreConfig,
+                            expressionContext,
+                            searchRequestSource,
+                            queryKey,
+                            componentId,
+                            tableSettings,
+                            fieldIndex,
+                            paramMap,
+                            dataStoreSettings,
+                            errorConsumer,
+                            executorProvider),
+                    resultStoreConfig.getMapConfig().getHeapBudget().getBytes());
+
+        } else {
+            return createLmdbDataStore(
+                    resultStoreConfig,
+                    expressionContext,
+                    searchRequestSource,
+                    queryKey,
+                    componentId,
+                    tableSettings,
+                    fieldIndex,
+                    paramMap,
+                    dataStoreSettings,
+                    errorConsumer,
+                    executorProvider);
         }
     }
 
+    /**
+     * Hybrid stores only ever hold final results so can't be used for stores that produce payloads for other nodes
+     * or that need features only implemented by LMDB stores, e.g. windows, event references and time keys.
+     */
+    private boolean isHybridEligible(final SearchResultStoreConfig resultStoreConfig,
+                                     final SearchRequestSource searchRequestSource,
+                                     final TableSettings tableSettings,
+                                     final DataStoreSettings dataStoreSettings) {
+        final boolean requireTimeValue = NullSafe.test(
+                searchRequestSource,
+                SearchRequestSource::getSourceType,
+                SourceType::isRequireTimeValue);
+        return resultStoreConfig.getMapConfig().isHybridEnabled() &&
+               !dataStoreSettings.isProducePayloads() &&
+               !dataStoreSettings.isStoreLatestEventReference() &&
+               tableSettings.getWindow() == null &&
+               !requireTimeValue;
+    }
+
+    private LmdbDataStore createLmdbDataStore(final SearchResultStoreConfig resultStoreConfig,
+                                              final ExpressionContext expressionContext,
+                                              final SearchRequestSource searchRequestSource,
+                                              final QueryKey queryKey,
+                                              final String componentId,
+                                              final TableSettings tableSettings,
+                                              final FieldIndex fieldIndex,
+                                              final Map<String, String> paramMap,
+                                              final DataStoreSettings dataStoreSettings,
+                                              final ErrorConsumer errorConsumer,
+                                              final Provider<Executor> executorProvider) {
+        final String subDirectory = queryKey + "_" + componentId + "_" + UUID.randomUUID();
+        final LmdbEnvDir lmdbEnvDir = lmdbEnvDirFactory
+                .builder()
+                .config(resultStoreConfig.getLmdbConfig())
+                .subDir(subDirectory)
+                .build();
+
+        final LmdbEnv.Builder lmdbEnvBuilder = LmdbEnv
+                .builder()
+                .config(resultStoreConfig.getLmdbConfig())
+                .lmdbEnvDir(lmdbEnvDir);
+
+        return new LmdbDataStore(
+                searchRequestSource,
+                lmdbEnvBuilder,
+                resultStoreConfig,
+                queryKey,
+                componentId,
+                tableSettings,
+                expressionContext,
+                fieldIndex,
+                paramMap,
+                dataStoreSettings,
+                executorProvider,
+                errorConsumer,
+                bufferFactory,
+                expressionPredicateFactory,
+                annotationMapperFactory,
+                wordListProvider);
+    }
+
     private Path getLocalDir(final AbstractResultStoreConfig resultStoreConfig,
                              final PathCreator pathCreator) {
         final String dirFromConfig = NullSafe.get(
@@ -27,6 +27,7 @@ import stroom.query.language.functions.FieldIndex;
 import stroom.query.language.functions.Generator;
 import stroom.query.language.functions.Val;
 import stroom.query.language.functions.ref.ErrorConsumer;
+import stroom.query.language.functions.ref.KryoDataWriter;
 import stroom.query.language.functions.ref.StoredValues;
 import stroom.query.language.functions.ref.ValueReferenceIndex;
 import stroom.util.logging.LambdaLogger;
@@ -37,9 +38,6 @@ import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
 import jakarta.inject.Provider;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
@@ -60,6 +58,13 @@ public class MapDataStore implements DataStore {
 
     private static final LambdaLogger LOGGER = LambdaLoggerFactory.getLogger(MapDataStore.class);
 
+    // The number of stored values we serialise to get an average item size for heap size estimates.
+    private static final int MAX_SIZE_SAMPLES = 100;
+    // Serialised size underestimates heap use as vals are held as objects with headers and references so apply a
+    // rough multiplier plus a fixed overhead for the item, key and list entry.
+    private static final int HEAP_SIZE_MULTIPLIER = 4;
+    private static final int ITEM_OVERHEAD_BYTES = 96;
+
     private final String componentId;
     private final Map<Key, ItemsImpl> childMap = new ConcurrentHashMap<>();
 
@@ -71,6 +76,10 @@ public class MapDataStore implements DataStore {
     private final Sizes maxResults;
     private final AtomicLong totalResultCount = new AtomicLong();
     private final AtomicLong resultCount = new AtomicLong();
+    private final AtomicLong itemCount = new AtomicLong();
+    private final AtomicLong changeCount = new AtomicLong();
+    private final AtomicLong sampledByteSize = new AtomicLong();
+    private final AtomicLong sampleCount = new AtomicLong();
 
     private final GroupingFunction[] groupingFunctions;
     private final boolean hasSort;
@@ -214,6 +223,11 @@ public class MapDataStore implements DataStore {
         // Update the total number of results that we have received.
         totalResultCount.getAndIncrement();
 
+        // Sample the size of the first few items so we can estimate how much heap we are using.
+        if (sampleCount.get() < MAX_SIZE_SAMPLES) {
+            sampleByteSize(storedValues);
+        }
+
         final GroupingFunction groupingFunction = groupingFunctions[depth];
         final Function<Stream<MapItem>, Stream<MapItem>> sortingFunction = compiledSorters.get(depth);
 
@@ -238,6 +252,7 @@ public class MapDataStore implements DataStore {
 
             return result;
         });
+        changeCount.incrementAndGet();
 
         // Some searches can be terminated early if the user is not sorting or grouping.
         if (!hasEnoughData && !hasSort && !compiledDepths.hasGroup()) {
@@ -258,6 +273,7 @@ public class MapDataStore implements DataStore {
                 final ItemsImpl items = childMap.remove(parentKey);
                 if (items != null) {
                     resultCount.addAndGet(-items.list.size());
+                    itemCount.addAndGet(-items.list.size());
                     items.list.forEach(item -> remove(item.getKey()));
                 }
             }, executor);
@@ -349,6 +365,19 @@ public class MapDataStore implements DataStore {
         }
     }
 
+    /**
+     * Visit the sorted and trimmed child items of the supplied parent key.
+     *
+     * @param parentKey The parent key to get child items for.
+     * @param consumer  The consumer of each child item.
+     */
+    void forEachChild(final Key parentKey, final Consumer<MapItem> consumer) {
+        final ItemsImpl items = childMap.get(parentKey);
+        if (items != null) {
+            items.copy().forEach(consumer);
+        }
+    }
+
     private long countChildren(final Key parentKey) {
         final ItemsImpl items = childMap.get(parentKey);
         if (items == null) {
@@ -366,7 +395,9 @@ public class MapDataStore implements DataStore {
     public void clear() {
         LOGGER.trace(() -> "clear()", new RuntimeException("clear"));
         totalResultCount.set(0);
+        itemCount.set(0);
         childMap.clear();
+        changeCount.incrementAndGet();
     }
 
     /**
@@ -443,18 +474,39 @@ public class MapDataStore implements DataStore {
 //        });
     }
 
+    /**
+     * @return An estimate of the heap used by this store based on the number of items currently held and the
+     * average serialised size of a sample of the items added.
+     */
     @Override
     public long getByteSize() {
-        long size = 0;
-        try (final ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            try (final ObjectOutputStream oos = new ObjectOutputStream(baos)) {
-                oos.writeObject(childMap);
+        final long samples = sampleCount.get();
+        if (samples == 0) {
+            return 0;
+        }
+        final long averageItemSize = (sampledByteSize.get() / samples) * HEAP_SIZE_MULTIPLIER + ITEM_OVERHEAD_BYTES;
+        return Math.max(0, itemCount.get()) * averageItemSize;
+    }
+
+    @Override
+    public long getChangeCount() {
+        return changeCount.get();
+    }
+
+    private void sampleByteSize(final StoredValues storedValues) {
+        try (final Output output = new Output(128, -1)) {
+            try (final KryoDataWriter writer = new KryoDataWriter(output)) {
+                valueReferenceIndex.write(storedValues, writer);
             }
-            size = baos.size();
-        } catch (final IOException e) {
+            sampledByteSize.addAndGet(output.total());
+            sampleCount.incrementAndGet();
+        } catch (final RuntimeException e) {
             LOGGER.debug(e::getMessage, e);
         }
-        return size;
+    }
+
+    public CompiledColumns getCompiledColumns() {
+        return compiledColumns;
     }
 
     @Override
@@ -554,12 +606,14 @@ public class MapDataStore implements DataStore {
         synchronized void add(final Key groupKey, final StoredValues storedValues) {
             if (groupingFunction != null || sortingFunction != null) {
                 list.add(new MapItem(dataStore, groupKey, dataStore.compiledColumnsArray, storedValues));
+                dataStore.itemCount.incrementAndGet();
                 trimmed = false;
                 if (list.size() > maxSize) {
                     sortAndTrim();
                 }
             } else if (list.size() < trimmedSize) {
                 list.add(new MapItem(dataStore, groupKey, dataStore.compiledColumnsArray, storedValues));
+                dataStore.itemCount.incrementAndGet();
             } else {
                 logTruncation();
                 removeHandler.accept(groupKey);
@@ -570,6 +624,7 @@ public class MapDataStore implements DataStore {
             if (!trimmed) {
                 // We won't group, sort or trim lists with only a single item obviously.
                 if (list.size() > 1) {
+                    final int sizeBefore = list.size();
                     if (groupingFunction != null || sortingFunction != null) {
                         // The sorting/grouping is CPU bound (I think) so OK to use the Fork Join Pool
                         Stream<MapItem> stream = list
@@ -597,6 +652,7 @@ public class MapDataStore implements DataStore {
                             removeHandler.accept(lastItem.getKey());
                         }
                     }
+                    dataStore.itemCount.addAndGet(list.size() - sizeBefore);
                 }
                 trimmed = true;
             }
@@ -640,6 +696,10 @@ public class MapDataStore implements DataStore {
             return key;
         }
 
+        StoredValues getStoredValues() {
+            return storedValues;
+        }
+
         @Override
         public Val getValue(final int index) {
             return createValue(dataStore, key, storedValues, index);
@@ -44,6 +44,8 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
 public class ResultStore {
 
@@ -57,6 +59,9 @@ public class ResultStore {
     private final Instant creationTime;
     private final String nodeName;
     private final SearchResponseCreator searchResponseCreator;
+    // The number of query keys that are using this store. More than one query key can use a store if identical
+    // searches are shared.
+    private final AtomicInteger referenceCount = new AtomicInteger(1);
 
     private volatile Instant lastAccessTime;
     private volatile ResultStoreSettings resultStoreSettings;
@@ -88,6 +93,35 @@ public class ResultStore {
                 executorProvider);
     }
 
+    /**
+     * Add a reference to this store for another query key.
+     *
+     * @return False if the store has already been released by all of its references and cannot be used.
+     */
+    boolean addReference() {
+        int count = referenceCount.get();
+        while (count > 0) {
+            if (referenceCount.compareAndSet(count, count + 1)) {
+                return true;
+            }
+            count = referenceCount.get();
+        }
+        return false;
+    }
+
+    /**
+     * Release a reference to this store.
+     *
+     * @return True if this was the last reference and the store should be destroyed.
+     */
+    boolean releaseReference() {
+        return referenceCount.decrementAndGet() == 0;
+    }
+
+    int getReferenceCount() {
+        return referenceCount.get();
+    }
+
     public Map<String, ResultCreator> makeDefaultResultCreators(final SearchRequest searchRequest) {
         return searchResponseCreator.makeDefaultResultCreators(searchRequest);
     }
@@ -220,6 +254,10 @@ public class ResultStore {
         return coprocessors.getData(componentId);
     }
 
+    public void forEachDataStore(final BiConsumer<String, DataStore> consumer) {
+        coprocessors.forEachDataStore(consumer);
+    }
+
     public UserRef getUserRef() {
         return userRef;
     }
@@ -30,10 +30,12 @@ import stroom.query.api.Param;
 import stroom.query.api.Query;
 import stroom.query.api.QueryKey;
 import stroom.query.api.Result;
+import stroom.query.api.ResultRequest;
 import stroom.query.api.ResultStoreInfo;
 import stroom.query.api.SearchRequest;
 import stroom.query.api.SearchResponse;
 import stroom.query.api.TableResult;
+import stroom.query.api.TableResultDelta;
 import stroom.query.api.TimeRange;
 import stroom.query.api.datasource.QueryField;
 import stroom.query.language.functions.ParamKeys;
@@ -52,15 +54,19 @@ import stroom.util.shared.PermissionException;
 import stroom.util.shared.ResultPage;
 import stroom.util.shared.Severity;
 import stroom.util.shared.UserRef;
+import stroom.util.sysinfo.HasSystemInfo;
+import stroom.util.sysinfo.SystemInfoResult;
 import stroom.util.time.StroomDuration;
 
 import com.google.common.base.Preconditions;
 import jakarta.inject.Inject;
+import jakarta.inject.Provider;
 import jakarta.inject.Singleton;
 
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -70,28 +76,38 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Singleton
-public final class ResultStoreManager implements Clearable, HasResultStoreInfo {
+public final class ResultStoreManager implements Clearable, HasResultStoreInfo, HasSystemInfo {
 
     private static final LambdaLogger LOGGER = LambdaLoggerFactory.getLogger(ResultStoreManager.class);
 
+    private static final long DEFAULT_DELTA_POLL_INTERVAL_MS = 1_000;
+
     private final TaskContextFactory taskContextFactory;
     private final SecurityContext securityContext;
     private final ExecutorProvider executorProvider;
     private final Map<QueryKey, ResultStore> resultStoreMap;
     private final SearchProviderRegistry searchProviderRegistry;
     private final UserRefLookup userRefLookup;
+    private final Provider<SearchResultStoreConfig> resultStoreConfigProvider;
+    // Running searches that identical searches can share, keyed by request fingerprint.
+    private final Map<String, RequestAndStore> sharedSearches = new HashMap<>();
 
     @Inject
     ResultStoreManager(final TaskContextFactory taskContextFactory,
                        final SecurityContext securityContext,
                        final ExecutorProvider executorProvider,
                        final SearchProviderRegistry searchProviderRegistry,
-                       final UserRefLookup userRefLookup) {
+                       final UserRefLookup userRefLookup,
+                       final Provider<SearchResultStoreConfig> resultStoreConfigProvider) {
         this.taskContextFactory = taskContextFactory;
+        this.resultStoreConfigProvider = resultStoreConfigProvider;
         this.securityContext = securityContext;
         this.executorProvider = executorProvider;
         this.userRefLookup = userRefLookup;
@@ -134,12 +150,25 @@ public final class ResultStoreManager implements Clearable, HasResultStoreInfo {
     }
 
     private void destroyAndRemove(final QueryKey queryKey, final ResultStore resultStore) {
-        try {
-            securityContext.asProcessingUser(resultStore::destroy);
-        } catch (final RuntimeException e) {
-            LOGGER.error(e::getMessage, e);
-        } finally {
-            resultStoreMap.remove(queryKey);
+        // A shared store is only destroyed once the last query key using it has been removed.
+        if (resultStoreMap.remove(queryKey, resultStore) && resultStore.releaseReference()) {
+            synchronized (sharedSearches) {
+                sharedSearches.values().removeIf(shared -> shared.resultStore == resultStore);
+            }
+            try {
+                securityContext.asProcessingUser(resultStore::destroy);
+            } catch (final RuntimeException e) {
+                LOGGER.error(e::getMessage, e);
+            }
+        }
+    }
+
+    /**
+     * Terminate the search process for a store unless other query keys are still sharing it.
+     */
+    private void terminate(final ResultStore resultStore) {
+        if (resultStore.getReferenceCount() <= 1) {
+            resultStore.terminate();
         }
     }
 
@@ -172,25 +201,78 @@ public final class ResultStoreManager implements Clearable, HasResultStoreInfo {
         }
     }
 
+    /**
+     * Stream row level deltas for every table result requested by the search request until the search completes. A
+     * delta is always sent for each table when streaming starts and when the search completes, in between deltas are
+     * only sent when rows have changed. Results are only rebuilt for a table when its data store reports a change.
+     *
+     * @param searchRequest The search request. If it has no key then a new search is started.
+     * @param consumer      The consumer of deltas. Throwing an exception from the consumer, e.g. because the client
+     *                      has gone away, stops the stream.
+     */
+    public void streamDeltas(final SearchRequest searchRequest,
+                             final Consumer<TableResultDelta> consumer) {
+        final RequestAndStore requestAndStore = getResultStore(searchRequest);
+        final ResultStore resultStore = requestAndStore.resultStore;
+        final SearchRequest request = requestAndStore.searchRequest;
+        final Map<String, ResultCreator> resultCreatorMap = resultStore.makeDefaultResultCreators(request);
+        final long pollIntervalMs = Objects.requireNonNullElse(request.getTimeout(), DEFAULT_DELTA_POLL_INTERVAL_MS);
+
+        final Map<String, TableResultDeltaCreator> deltaCreators = new HashMap<>();
+        final Map<String, Long> changeCounts = new HashMap<>();
+        securityContext.useAsRead(() -> {
+            boolean complete = false;
+            while (!complete && !Thread.currentThread().isInterrupted()) {
+                try {
+                    complete = resultStore.awaitCompletion(pollIntervalMs, TimeUnit.MILLISECONDS);
+                } catch (final InterruptedException e) {
+                    LOGGER.debug(e::getMessage, e);
+                    Thread.currentThread().interrupt();
+                    complete = true;
+                }
+
+                for (final ResultRequest resultRequest : request.getResultRequests()) {
+                    final String componentId = resultRequest.getComponentId();
+                    final ResultCreator resultCreator = resultCreatorMap.get(componentId);
+                    final DataStore dataStore = resultStore.getData(componentId);
+                    if (resultCreator instanceof TableResultCreator && dataStore != null) {
+                        final TableResultDeltaCreator deltaCreator = deltaCreators
+                                .computeIfAbsent(componentId, TableResultDeltaCreator::new);
+
+                        // Don't rebuild the table if nothing has changed since we last looked.
+                        final long changeCount = dataStore.getChangeCount();
+                        final Long lastChangeCount = changeCounts.put(componentId, changeCount);
+                        TableResult tableResult = null;
+                        if (lastChangeCount == null || lastChangeCount != changeCount) {
+                            tableResult = (TableResult) resultCreator.create(dataStore, resultRequest);
+                        }
+
+                        final TableResultDelta delta = deltaCreator.create(tableResult, complete);
+                        if (delta != null) {
+                            consumer.accept(delta);
+                        }
+                    }
+                }
+            }
+        });
+    }
+
     public RequestAndStore getResultStore(final SearchRequest searchRequest) {
         if (LOGGER.isDebugEnabled()) {
             final String json = JsonUtil.writeValueAsString(searchRequest);
             LOGGER.debug("/search called with searchRequest:\n{}", json);
         }
 
-        SearchRequest modifiedRequest = searchRequest;
-
         final UserRef userRef = securityContext.getUserRef();
         Objects.requireNonNull(userRef, "No user is logged in");
 
-        final ResultStore resultStore;
-        if (modifiedRequest.getKey() != null) {
-            final QueryKey queryKey = modifiedRequest.getKey();
+        if (searchRequest.getKey() != null) {
+            final QueryKey queryKey = searchRequest.getKey();
             final Optional<ResultStore> optionalResultStore =
                     getIfPresent(queryKey);
 
             final String message = "No active search found for key = " + queryKey;
-            resultStore = optionalResultStore.orElseThrow(() ->
+            final ResultStore resultStore = optionalResultStore.orElseThrow(() ->
                     new RuntimeException(message));
 
             // Check user identity.
@@ -198,52 +280,98 @@ public final class ResultStoreManager implements Clearable, HasResultStoreInfo {
                 throw new RuntimeException(
                         "You do not have permission to get the search results associated with this key");
             }
+            return new RequestAndStore(searchRequest, resultStore);
 
         } else {
             // If the query doesn't have a key then this is new.
             LOGGER.debug(() -> "New query");
+            if (resultStoreConfigProvider.get().isShareIdenticalSearches()) {
+                return getOrCreateSharedResultStore(userRef, searchRequest);
+            }
+            return createResultStore(searchRequest);
+        }
+    }
 
-            // Get the data source.
-            Objects.requireNonNull(modifiedRequest.getQuery(),
-                    "Query is null");
-            final DocRef dataSourceRef = modifiedRequest.getQuery().getDataSource();
-            if (dataSourceRef == null || dataSourceRef.getUuid() == null) {
-                throw new RuntimeException("No search data source has been specified");
+    /**
+     * Join an identical search that the user already has running if there is one, otherwise start a new one that
+     * later identical searches can join. Each caller gets its own query key so that the shared store is only
+     * destroyed once every caller has finished with it.
+     */
+    private RequestAndStore getOrCreateSharedResultStore(final UserRef userRef,
+                                                         final SearchRequest searchRequest) {
+        final String fingerprint = SearchRequestFingerprint.create(userRef, searchRequest);
+        synchronized (sharedSearches) {
+            final RequestAndStore shared = sharedSearches.get(fingerprint);
+            if (shared != null &&
+                !shared.resultStore.isComplete() &&
+                shared.resultStore.addReference()) {
+                final QueryKey queryKey = new QueryKey(UUID.randomUUID().toString());
+                LOGGER.debug(() -> LogUtil.message("Sharing result store for {} with new query key {}",
+                        shared.searchRequest.getKey(), queryKey));
+
+                // Use the request the shared search was started with so that params and reference time match the
+                // data in the store, but keep the caller's own result requests.
+                final SearchRequest modifiedRequest = shared.searchRequest
+                        .copy()
+                        .key(queryKey)
+                        .resultRequests(searchRequest.getResultRequests())
+                        .incremental(searchRequest.getIncremental())
+                        .timeout(searchRequest.getTimeout())
+                        .build();
+                resultStoreMap.put(queryKey, shared.resultStore);
+                return new RequestAndStore(modifiedRequest, shared.resultStore);
             }
 
-            // Get a store factory to perform this new search.
-            final Optional<SearchProvider> optionalSearchProvider =
-                    searchProviderRegistry.getSearchProvider(modifiedRequest.getQuery().getDataSource());
-            final SearchProvider searchProvider = optionalSearchProvider
-                    .orElseThrow(() ->
-                            new RuntimeException("No search provider found for " +
-                                                 searchRequest.getQuery().getDataSource().getType()));
+            final RequestAndStore requestAndStore = createResultStore(searchRequest);
+            sharedSearches.put(fingerprint, requestAndStore);
+            return requestAndStore;
+        }
+    }
 
+    private RequestAndStore createResultStore(final SearchRequest searchRequest) {
+        SearchRequest modifiedRequest = searchRequest;
 
-            // Create a new search UUID.
-            modifiedRequest = addQueryKey(modifiedRequest);
+        // Get the data source.
+        Objects.requireNonNull(modifiedRequest.getQuery(),
+                "Query is null");
+        final DocRef dataSourceRef = modifiedRequest.getQuery().getDataSource();
+        if (dataSourceRef == null || dataSourceRef.getUuid() == null) {
+            throw new RuntimeException("No search data source has been specified");
+        }
 
-            // Add a param for `currentUser()`
-            modifiedRequest = addCurrentUserParam(modifiedRequest);
+        // Get a store factory to perform this new search.
+        final Optional<SearchProvider> optionalSearchProvider =
+                searchProviderRegistry.getSearchProvider(modifiedRequest.getQuery().getDataSource());
+        final SearchProvider searchProvider = optionalSearchProvider
+                .orElseThrow(() ->
+                        new RuntimeException("No search provider found for " +
+                                             searchRequest.getQuery().getDataSource().getType()));
 
-            // Add partition time constraints to the query.
-            modifiedRequest = addTimeRangeExpression(searchProvider.getTimeField(dataSourceRef), modifiedRequest);
 
-            // Ensure we have a reference time so relative time expression work
-            modifiedRequest = addReferenceTime(modifiedRequest);
+        // Create a new search UUID.
+        modifiedRequest = addQueryKey(modifiedRequest);
 
-            final SearchRequest finalModifiedRequest = modifiedRequest;
-            final QueryKey queryKey = finalModifiedRequest.getKey();
-            LOGGER.trace(() -> "get() " + queryKey);
-            try {
-                LOGGER.trace(() -> "create() " + queryKey);
-                LOGGER.debug(() -> "Creating new store for key: " + queryKey);
-                resultStore = searchProvider.createResultStore(finalModifiedRequest);
-                resultStoreMap.put(queryKey, resultStore);
-            } catch (final RuntimeException e) {
-                LOGGER.debug(e.getMessage(), e);
-                throw e;
-            }
+        // Add a param for `currentUser()`
+        modifiedRequest = addCurrentUserParam(modifiedRequest);
+
+        // Add partition time constraints to the query.
+        modifiedRequest = addTimeRangeExpression(searchProvider.getTimeField(dataSourceRef), modifiedRequest);
+
+        // Ensure we have a reference time so relative time expression work
+        modifiedRequest = addReferenceTime(modifiedRequest);
+
+        final SearchRequest finalModifiedRequest = modifiedRequest;
+        final QueryKey queryKey = finalModifiedRequest.getKey();
+        LOGGER.trace(() -> "get() " + queryKey);
+        final ResultStore resultStore;
+        try {
+            LOGGER.trace(() -> "create() " + queryKey);
+            LOGGER.debug(() -> "Creating new store for key: " + queryKey);
+            resultStore = searchProvider.createResultStore(finalModifiedRequest);
+            resultStoreMap.put(queryKey, resultStore);
+        } catch (final RuntimeException e) {
+            LOGGER.debug(e.getMessage(), e);
+            throw e;
         }
 
         return new RequestAndStore(modifiedRequest, resultStore);
@@ -426,7 +554,7 @@ public final class ResultStoreManager implements Clearable, HasResultStoreInfo {
                     if (optionalResultStore.isPresent()) {
                         final ResultStore resultStore = optionalResultStore.get();
                         checkPermissions(resultStore);
-                        resultStore.terminate();
+                        terminate(resultStore);
                         return true;
                     }
                     return false;
@@ -471,7 +599,7 @@ public final class ResultStoreManager implements Clearable, HasResultStoreInfo {
                                         destroyAndRemove(queryKey, store);
                                     } else if (resultStoreSettings.getSearchProcessLifespan()
                                             .isDestroyOnTabClose()) {
-                                        store.terminate();
+                                        terminate(store);
                                     }
                                 }
                                 case WINDOW_CLOSE -> {
@@ -481,7 +609,7 @@ public final class ResultStoreManager implements Clearable, HasResultStoreInfo {
                                         destroyAndRemove(queryKey, store);
                                     } else if (resultStoreSettings.getSearchProcessLifespan()
                                             .isDestroyOnWindowClose()) {
-                                        store.terminate();
+                                        terminate(store);
                                     }
                                 }
                             }
@@ -527,12 +655,12 @@ public final class ResultStoreManager implements Clearable, HasResultStoreInfo {
                                now.isAfter(createTime.plus(settings.getSearchProcessLifespan().getTimeToLive()))) {
                         LOGGER.debug("Terminating resultStore for queryKey {} for user {} that is beyond the " +
                                      "search process TTL", queryKey, resultStore);
-                        resultStore.terminate();
+                        terminate(resultStore);
                     } else if (settings.getSearchProcessLifespan().getTimeToIdle() != null &&
                                now.isAfter(accessTime.plus(settings.getSearchProcessLifespan().getTimeToIdle()))) {
                         LOGGER.debug("Terminating resultStore for queryKey {} for user {} that is beyond the " +
                                      "search process TTI", queryKey, resultStore);
-                        resultStore.terminate();
+                        terminate(resultStore);
                     } else {
                         final String ownerUuid = NullSafe.get(userRef, UserRef::getUuid);
                         final Optional<UserRef> optUserRef = userRefLookup.getByUuid(ownerUuid);
@@ -583,6 +711,64 @@ public final class ResultStoreManager implements Clearable, HasResultStoreInfo {
         return new ResultPage<>(list);
     }
 
+    @Override
+    public SystemInfoResult getSystemInfo() {
+        final LongAdder heapBytes = new LongAdder();
+        final LongAdder offHeapBytes = new LongAdder();
+        final LongAdder promotedCount = new LongAdder();
+        final List<Map<String, Object>> storeInfo = new ArrayList<>();
+        resultStoreMap.forEach((queryKey, resultStore) -> {
+            final List<Map<String, Object>> dataStoreInfo = new ArrayList<>();
+            resultStore.forEachDataStore((componentId, dataStore) -> {
+                final long byteSize = dataStore.getByteSize();
+                final String storeType;
+                final boolean onHeap;
+                switch (dataStore) {
+                    case final MapDataStore ignored -> {
+                        storeType = "Map";
+                        onHeap = true;
+                    }
+                    case final HybridDataStore hybridDataStore -> {
+                        onHeap = !hybridDataStore.isPromoted();
+                        if (onHeap) {
+                            storeType = "Hybrid (heap)";
+                        } else {
+                            storeType = "Hybrid (LMDB)";
+                            promotedCount.increment();
+                        }
+                    }
+                    default -> {
+                        storeType = dataStore.getClass().getSimpleName();
+                        onHeap = false;
+                    }
+                }
+                if (onHeap) {
+                    heapBytes.add(byteSize);
+                } else {
+                    offHeapBytes.add(byteSize);
+                }
+                dataStoreInfo.add(Map.of(
+                        "componentId", componentId,
+                        "storeType", storeType,
+                        "byteSize", byteSize));
+            });
+            storeInfo.add(Map.of(
+                    "queryKey", queryKey.toString(),
+                    "owner", resultStore.getUserRef().toInfoString(),
+                    "creationTime", resultStore.getCreationTime().toString(),
+                    "complete", resultStore.isComplete(),
+                    "dataStores", dataStoreInfo));
+        });
+
+        return SystemInfoResult.builder(this)
+                .addDetail("resultStoreCount", storeInfo.size())
+                .addDetail("heapBytes", heapBytes.longValue())
+                .addDetail("offHeapBytes", offHeapBytes.longValue())
+                .addDetail("promotedHybridStoreCount", promotedCount.longValue())
+                .addDetail("resultStores", storeInfo)
+                .build();
+    }
+
     private LifespanInfo getLifespanInfo(final Lifespan lifespan) {
         return new LifespanInfo(
                 getDurationString(lifespan.getTimeToIdle()),
@@ -16,6 +16,7 @@
 
 package stroom.query.common.v2;
 
+import stroom.util.io.ByteSize;
 import stroom.util.shared.AbstractConfig;
 import stroom.util.shared.IsStroomConfig;
 import stroom.util.shared.NotInjectableConfig;
@@ -33,22 +34,32 @@ public class ResultStoreMapConfig extends AbstractConfig implements IsStroomConf
 
     private static final int DEFAULT_TRIMMED_SIZE_LIMIT = 500_000;
     private static final int DEFAULT_MIN_UNTRIMMED_SIZE = 100_000;
+    private static final boolean DEFAULT_HYBRID_ENABLED = false;
+    private static final ByteSize DEFAULT_HEAP_BUDGET = ByteSize.ofMebibytes(64);
 
     private final int trimmedSizeLimit;
     private final int minUntrimmedSize;
+    private final boolean hybridEnabled;
+    private final ByteSize heapBudget;
 
 
     public ResultStoreMapConfig() {
         this.trimmedSizeLimit = DEFAULT_TRIMMED_SIZE_LIMIT;
         this.minUntrimmedSize = DEFAULT_MIN_UNTRIMMED_SIZE;
+        this.hybridEnabled = DEFAULT_HYBRID_ENABLED;
+        this.heapBudget = DEFAULT_HEAP_BUDGET;
     }
 
     @SuppressWarnings("unused")
     @JsonCreator
     public ResultStoreMapConfig(@JsonProperty("trimmedSizeLimit") final Integer trimmedSizeLimit,
-                                @JsonProperty("minUntrimmedSize") final Integer minUntrimmedSize) {
+                                @JsonProperty("minUntrimmedSize") final Integer minUntrimmedSize,
+                                @JsonProperty("hybridEnabled") final Boolean hybridEnabled,
+                                @JsonProperty("heapBudget") final ByteSize heapBudget) {
         this.trimmedSizeLimit = Objects.requireNonNullElse(trimmedSizeLimit, DEFAULT_TRIMMED_SIZE_LIMIT);
         this.minUntrimmedSize = Objects.requireNonNullElse(minUntrimmedSize, DEFAULT_MIN_UNTRIMMED_SIZE);
+        this.hybridEnabled = Objects.requireNonNullElse(hybridEnabled, DEFAULT_HYBRID_ENABLED);
+        this.heapBudget = Objects.requireNonNullElse(heapBudget, DEFAULT_HEAP_BUDGET);
     }
 
     @JsonPropertyDescription("The trimmed size of sorted results for on heap result stores.")
@@ -62,4 +73,20 @@ public class ResultStoreMapConfig extends AbstractConfig implements IsStroomConf
     public int getMinUntrimmedSize() {
         return minUntrimmedSize;
     }
+
+    @JsonPropertyDescription("If true, and off heap results are enabled, search result stores will start by holding " +
+                             "results on the heap and will only move them to LMDB once the estimated heap used by " +
+                             "the store exceeds 'heapBudget'. Stores that produce payloads or use windows always " +
+                             "use LMDB.")
+    @JsonProperty("hybridEnabled")
+    public boolean isHybridEnabled() {
+        return hybridEnabled;
+    }
+
+    @JsonPropertyDescription("The estimated heap size that a hybrid search result store can reach before its " +
+                             "contents are moved to LMDB.")
+    @JsonProperty("heapBudget")
+    public ByteSize getHeapBudget() {
+        return heapBudget;
+    }
 }
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.query.common.v2;
+
+import stroom.query.api.DateTimeSettings;
+import stroom.query.api.QueryKey;
+import stroom.query.api.ResultRequest;
+import stroom.query.api.SearchRequest;
+import stroom.util.json.JsonUtil;
+import stroom.util.shared.NullSafe;
+import stroom.util.shared.UserRef;
+
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Creates a fingerprint for a search request so that identical searches can share a result store.
+ * <p>
+ * Only the parts of the request that affect what is searched and stored are included, so paging, open groups, the
+ * query key and incremental polling settings are ignored. The reference time is also ignored as we only share stores
+ * for searches that are still running. The user is always included as the data a search returns depends on the
+ * permissions of the user running it.
+ */
+final class SearchRequestFingerprint {
+
+    private SearchRequestFingerprint() {
+        // Utility class.
+    }
+
+    static String create(final UserRef userRef, final SearchRequest searchRequest) {
+        final List<ResultRequest> resultRequests = NullSafe.list(searchRequest.getResultRequests())
+                .stream()
+                .map(resultRequest -> ResultRequest.builder()
+                        .componentId(resultRequest.getComponentId())
+                        .searchRequestSource(resultRequest.getSearchRequestSource())
+                        .tableName(resultRequest.getTableName())
+                        .mappings(resultRequest.getMappings())
+                        .resultStyle(resultRequest.getResultStyle())
+                        .build())
+                .toList();
+        final DateTimeSettings dateTimeSettings = NullSafe.get(
+                searchRequest.getDateTimeSettings(),
+                settings -> settings.copy().referenceTime(null).build());
+        final SearchRequest normalised = searchRequest
+                .copy()
+                .key((QueryKey) null)
+                .resultRequests(resultRequests)
+                .dateTimeSettings(dateTimeSettings)
+                .incremental(null)
+                .timeout(null)
+                .build();
+
+        return Hashing.sha256()
+                .hashString(userRef.getUuid() + JsonUtil.writeValueAsString(normalised, false),
+                        StandardCharsets.UTF_8)
+                .toString();
+    }
+}
@@ -21,6 +21,7 @@ import stroom.util.shared.IsStroomConfig;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
 import java.util.Objects;
@@ -33,6 +34,7 @@ public class SearchResultStoreConfig extends AbstractResultStoreConfig implement
             ResultStoreLmdbConfig.builder().localDir("search_results").build();
 
     private final ResultStoreMapConfig mapConfig;
+    private final boolean shareIdenticalSearches;
 
     public SearchResultStoreConfig() {
         super(DEFAULT_MAX_PUTS_BEFORE_COMMIT,
@@ -44,6 +46,7 @@ public class SearchResultStoreConfig extends AbstractResultStoreConfig implement
                 DEFAULT_MAX_SORTED_ITEMS,
                 DEFAULT_LMDB_CONFIG);
         this.mapConfig = DEFAULT_MAP_CONFIG;
+        this.shareIdenticalSearches = false;
     }
 
     @JsonCreator
@@ -55,7 +58,8 @@ public class SearchResultStoreConfig extends AbstractResultStoreConfig implement
                                    @JsonProperty("valueQueueSize") final Integer valueQueueSize,
                                    @JsonProperty("maxSortedItems") final Integer maxSortedItems,
                                    @JsonProperty("lmdb") final ResultStoreLmdbConfig lmdbConfig,
-                                   @JsonProperty("map") final ResultStoreMapConfig mapConfig) {
+                                   @JsonProperty("map") final ResultStoreMapConfig mapConfig,
+                                   @JsonProperty("shareIdenticalSearches") final Boolean shareIdenticalSearches) {
         super(Objects.requireNonNullElse(maxPutsBeforeCommit, DEFAULT_MAX_PUTS_BEFORE_COMMIT),
                 Objects.requireNonNullElse(offHeapResults, DEFAULT_OFF_HEAP_RESULTS),
                 Objects.requireNonNullElse(minPayloadSize, DEFAULT_MIN_PAYLOAD_SIZE),
@@ -65,10 +69,19 @@ public class SearchResultStoreConfig extends AbstractResultStoreConfig implement
                 Objects.requireNonNullElse(maxSortedItems, DEFAULT_MAX_SORTED_ITEMS),
                 Objects.requireNonNullElse(lmdbConfig, DEFAULT_LMDB_CONFIG));
         this.mapConfig = Objects.requireNonNullElse(mapConfig, DEFAULT_MAP_CONFIG);
+        this.shareIdenticalSearches = Objects.requireNonNullElse(shareIdenticalSearches, false);
     }
 
     @JsonProperty("map")
     public ResultStoreMapConfig getMapConfig() {
         return mapConfig;
     }
+
+    @JsonPropertyDescription("If true then a new search that is identical to a search the same user already has " +
+                             "running will share the running search's result store rather than starting " +
+                             "another search.")
+    @JsonProperty("shareIdenticalSearches")
+    public boolean isShareIdenticalSearches() {
+        return shareIdenticalSearches;
+    }
 }
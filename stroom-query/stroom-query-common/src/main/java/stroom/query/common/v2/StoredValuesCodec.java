@@ -0,0 +1,109 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.query.common.v2;
+
+import stroom.query.language.functions.ref.KryoDataReader;
+import stroom.query.language.functions.ref.StoredValues;
+import stroom.query.language.functions.ref.ValueReferenceIndex;
+
+import com.esotericsoftware.kryo.io.ByteBufferInput;
+import com.esotericsoftware.kryo.util.Pool;
+
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+
+/**
+ * Reads stored values from LMDB value buffers.
+ * <p>
+ * Readers are pooled so that reading a row does not allocate a new Kryo input for every value buffer, and the codec
+ * knows which value references are needed to evaluate the group columns at each depth so that group comparisons can
+ * be made without materialising the other column values.
+ */
+class StoredValuesCodec {
+
+    private static final int MAX_POOLED_READERS = 64;
+    private static final ByteBuffer EMPTY = ByteBuffer.allocateDirect(0);
+
+    private final ValueReferenceIndex valueReferenceIndex;
+    private final BitSet[] groupReferencesByDepth;
+    private final Pool<PooledReader> readerPool = new Pool<>(true, false, MAX_POOLED_READERS) {
+        @Override
+        protected PooledReader create() {
+            return new PooledReader();
+        }
+    };
+
+    StoredValuesCodec(final CompiledColumns compiledColumns,
+                      final CompiledDepths compiledDepths) {
+        this.valueReferenceIndex = compiledColumns.getValueReferenceIndex();
+        final boolean[][] groupIndicesByDepth = compiledDepths.getGroupIndicesByDepth();
+        this.groupReferencesByDepth = new BitSet[groupIndicesByDepth.length];
+        for (int depth = 0; depth < groupIndicesByDepth.length; depth++) {
+            groupReferencesByDepth[depth] = compiledColumns.getValueReferences(groupIndicesByDepth[depth]);
+        }
+    }
+
+    /**
+     * Read all stored values from the current position of the buffer, leaving the buffer positioned after them.
+     */
+    StoredValues read(final ByteBuffer byteBuffer) {
+        final PooledReader reader = readerPool.obtain();
+        try {
+            reader.input.setBuffer(byteBuffer);
+            final StoredValues storedValues = valueReferenceIndex.read(reader.dataReader);
+            byteBuffer.position(reader.input.position());
+            return storedValues;
+        } finally {
+            reader.input.setBuffer(EMPTY);
+            readerPool.free(reader);
+        }
+    }
+
+    /**
+     * Read only the values needed to evaluate the group columns at the supplied depth, leaving the buffer positioned
+     * after the complete set of stored values.
+     */
+    StoredValues readGroupValues(final ByteBuffer byteBuffer, final int depth) {
+        if (depth >= groupReferencesByDepth.length) {
+            return read(byteBuffer);
+        }
+
+        final PooledReader reader = readerPool.obtain();
+        try {
+            reader.input.setBuffer(byteBuffer);
+            final StoredValues storedValues = valueReferenceIndex.read(
+                    reader.dataReader,
+                    groupReferencesByDepth[depth]);
+            byteBuffer.position(reader.input.position());
+            return storedValues;
+        } finally {
+            reader.input.setBuffer(EMPTY);
+            readerPool.free(reader);
+        }
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    private static class PooledReader {
+
+        private final ByteBufferInput input = new ByteBufferInput();
+        private final KryoDataReader dataReader = new KryoDataReader(input);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.query.common.v2;
+
+import stroom.query.api.Row;
+import stroom.query.api.RowDelta;
+import stroom.query.api.TableResult;
+import stroom.query.api.TableResultDelta;
+import stroom.util.shared.NullSafe;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Turns a sequence of table results for a single component into row level deltas keyed by group key so that only the
+ * rows that have changed need to be serialised and sent to a client.
+ */
+public class TableResultDeltaCreator {
+
+    private final String componentId;
+
+    private Map<String, IndexedRow> lastRows = new HashMap<>();
+    private TableResult lastResult;
+    private long sequence;
+
+    public TableResultDeltaCreator(final String componentId) {
+        this.componentId = componentId;
+    }
+
+    /**
+     * Create a delta between the last table result passed to this method and the current one.
+     *
+     * @param result   The current table result or null if the result has not changed.
+     * @param complete True if the search is complete.
+     * @return A delta or null if nothing has changed and the search is not complete. A delta is always returned the
+     * first time this method is called and when the search is complete.
+     */
+    public TableResultDelta create(final TableResult result, final boolean complete) {
+        final TableResult current = result == null
+                ? lastResult
+                : result;
+        final boolean first = sequence == 0;
+
+        final List<RowDelta> rowDeltas = new ArrayList<>();
+        final Map<String, IndexedRow> currentRows = new HashMap<>();
+        if (current != null) {
+            final List<Row> rows = NullSafe.list(current.getRows());
+            for (int i = 0; i < rows.size(); i++) {
+                final Row row = rows.get(i);
+                final IndexedRow previous = lastRows.get(row.getGroupKey());
+                if (previous == null) {
+                    rowDeltas.add(RowDelta.insert(i, row));
+                } else if (previous.index != i || !Objects.equals(previous.row, row)) {
+                    rowDeltas.add(RowDelta.update(i, row));
+                }
+                currentRows.put(row.getGroupKey(), new IndexedRow(i, row));
+            }
+        }
+        lastRows.forEach((groupKey, indexedRow) -> {
+            if (!currentRows.containsKey(groupKey)) {
+                rowDeltas.add(RowDelta.delete(groupKey));
+            }
+        });
+
+        final boolean summaryChanged = current != null &&
+                                       (lastResult == null ||
+                                        !Objects.equals(current.getTotalResults(), lastResult.getTotalResults()) ||
+                                        !Objects.equals(current.getResultRange(), lastResult.getResultRange()) ||
+                                        !Objects.equals(current.getErrorMessages(), lastResult.getErrorMessages()));
+
+        lastRows = currentRows;
+        lastResult = current;
+
+        if (!first && !complete && rowDeltas.isEmpty() && !summaryChanged) {
+            return null;
+        }
+
+        return new TableResultDelta(
+                componentId,
+                sequence++,
+                rowDeltas.isEmpty()
+                        ? null
+                        : rowDeltas,
+                NullSafe.get(current, TableResult::getResultRange),
+                NullSafe.get(current, TableResult::getTotalResults),
+                complete,
+                NullSafe.get(current, TableResult::getErrorMessages));
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    private record IndexedRow(int index, Row row) {
+
+    }
+}
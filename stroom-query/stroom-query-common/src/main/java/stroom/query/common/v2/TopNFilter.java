@@ -0,0 +1,157 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.query.common.v2;
+
+import stroom.query.language.functions.Val;
+import stroom.query.language.functions.ValNull;
+
+import java.util.TreeSet;
+
+/**
+ * Drops rows at insertion time that can never be returned from a sorted store because the store is limited to the top
+ * N rows at depth 0 and we have already seen N better rows.
+ * <p>
+ * This is only safe if the sort values of a row can never change once it has been added, so we only use it when the
+ * depth 0 sort columns are either ungrouped or are group columns at depth 0. We keep the best N distinct sort values
+ * seen so far and reject any row that sorts after all of them. Rows that were accepted but have since been pushed out
+ * of the top N remain in the store and are trimmed when results are fetched.
+ */
+class TopNFilter {
+
+    private final CompiledSorter<Item> sorter;
+    private final CompiledColumn[] compiledColumns;
+    private final int[] sortColumnIndices;
+    private final int maxSize;
+    private final TreeSet<Item> best;
+
+    private TopNFilter(final CompiledSorter<Item> sorter,
+                       final CompiledColumn[] compiledColumns,
+                       final int maxSize) {
+        this.sorter = sorter;
+        this.compiledColumns = compiledColumns;
+        this.sortColumnIndices = sorter.getCompiledSorts()
+                .stream()
+                .mapToInt(CompiledSort::getFieldIndex)
+                .toArray();
+        this.maxSize = maxSize;
+        this.best = new TreeSet<>(sorter);
+    }
+
+    /**
+     * Create a top N filter if the table settings allow rows to be dropped at insertion time.
+     *
+     * @return A filter or null if rows cannot be safely dropped.
+     */
+    static TopNFilter create(final CompiledSorters<Item> compiledSorters,
+                             final CompiledDepths compiledDepths,
+                             final CompiledColumn[] compiledColumns,
+                             final KeyFactoryConfig keyFactoryConfig,
+                             final boolean windowed,
+                             final Sizes maxResultSizes,
+                             final int maxSortedItems) {
+        final CompiledSorter<Item> sorter = compiledSorters.get(0);
+        final long maxResults = maxResultSizes.size(0);
+
+        // We can only trim if we know how many results are wanted and the number is small enough to hold in memory.
+        // We never sort more than the max sorted items when fetching so there is no point keeping more than that.
+        if (sorter == null ||
+            maxResults >= Sizes.MAX_SIZE ||
+            maxResults > maxSortedItems ||
+            windowed ||
+            keyFactoryConfig.addTimeToKey()) {
+            return null;
+        }
+
+        // If we are grouping then the sort must only use depth 0 group columns so that the sort values of a group
+        // never change as more values are added.
+        if (compiledDepths.hasGroup()) {
+            for (final CompiledSort compiledSort : sorter.getCompiledSorts()) {
+                if (compiledColumns[compiledSort.getFieldIndex()].getGroupDepth() != 0) {
+                    return null;
+                }
+            }
+        }
+
+        return new TopNFilter(sorter, compiledColumns, (int) maxResults);
+    }
+
+    /**
+     * Test whether a row could be in the top N.
+     *
+     * @param storedValues The stored values for the depth 0 row.
+     * @return True if the row should be added to the store.
+     */
+    synchronized boolean test(final StoredValues storedValues) {
+        final SortValues sortValues = new SortValues(compiledColumns.length);
+        for (final int index : sortColumnIndices) {
+            sortValues.values[index] = compiledColumns[index].getGenerator().eval(storedValues, null);
+        }
+
+        if (best.contains(sortValues)) {
+            // We already have these sort values so the row is at least as good as one we are keeping.
+            return true;
+        } else if (best.size() < maxSize) {
+            best.add(sortValues);
+            return true;
+        } else if (sorter.compare(sortValues, best.last()) < 0) {
+            best.pollLast();
+            best.add(sortValues);
+            return true;
+        }
+        return false;
+    }
+
+    boolean isSortedBy(final CompiledSorter<Item> sorter) {
+        return this.sorter.isEquivalent(sorter);
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    private static class SortValues implements Item {
+
+        private final Val[] values;
+
+        private SortValues(final int size) {
+            this.values = new Val[size];
+        }
+
+        @Override
+        public Key getKey() {
+            return null;
+        }
+
+        @Override
+        public Val getValue(final int index) {
+            final Val val = values[index];
+            return val == null
+                    ? ValNull.INSTANCE
+                    : val;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public Val[] toArray() {
+            return values;
+        }
+    }
+}
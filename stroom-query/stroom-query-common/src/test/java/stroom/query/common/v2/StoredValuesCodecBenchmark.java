@@ -0,0 +1,161 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.query.common.v2;
+
+import stroom.bytebuffer.impl6.ByteBufferFactoryImpl;
+import stroom.query.api.Column;
+import stroom.query.language.functions.ExpressionContext;
+import stroom.query.language.functions.FieldIndex;
+import stroom.query.language.functions.Val;
+import stroom.query.language.functions.ValLong;
+import stroom.query.language.functions.ValString;
+import stroom.query.language.functions.ref.DataReader;
+import stroom.query.language.functions.ref.KryoDataReader;
+import stroom.query.language.functions.ref.StoredValues;
+import stroom.query.language.functions.ref.ValueReferenceIndex;
+
+import com.esotericsoftware.kryo.io.ByteBufferInput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compares reading stored values with a new Kryo input per row against the pooled readers in
+ * {@link StoredValuesCodec}, and reading only the group values, for some common column mixes.
+ */
+@Fork(value = 1, warmups = 1)
+@BenchmarkMode(Mode.Throughput)
+@Measurement(iterations = 1)
+@Threads(4)
+public class StoredValuesCodecBenchmark {
+
+    @Benchmark
+    public void writeRow(final ColumnMix state, final Blackhole blackhole) {
+        final ByteBuffer byteBuffer = state.rowValueFactory.create(state.storedValues);
+        blackhole.consume(byteBuffer);
+        state.bufferFactory.release(byteBuffer);
+    }
+
+    @Benchmark
+    public void readRowUnpooled(final ColumnMix state, final Blackhole blackhole) {
+        try (final DataReader reader = new KryoDataReader(new ByteBufferInput(state.row.duplicate()))) {
+            blackhole.consume(state.valueReferenceIndex.read(reader));
+        }
+    }
+
+    @Benchmark
+    public void readRowPooled(final ColumnMix state, final Blackhole blackhole) {
+        blackhole.consume(state.codec.read(state.row.duplicate()));
+    }
+
+    @Benchmark
+    public void readGroupValues(final ColumnMix state, final Blackhole blackhole) {
+        blackhole.consume(state.codec.readGroupValues(state.row.duplicate(), 0));
+    }
+
+
+    // --------------------------------------------------------------------------------
+
+
+    @State(Scope.Benchmark)
+    public static class ColumnMix {
+
+        @Param({"NUMERIC", "TEXT", "MIXED"})
+        public String mix;
+
+        private ByteBufferFactoryImpl bufferFactory;
+        private ValueReferenceIndex valueReferenceIndex;
+        private LmdbRowValueFactory rowValueFactory;
+        private StoredValuesCodec codec;
+        private StoredValues storedValues;
+        private ByteBuffer row;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            final List<Column> columns = switch (mix) {
+                case "NUMERIC" -> List.of(
+                        column("${Number}", 0),
+                        column("count()", null),
+                        column("sum(${Number})", null),
+                        column("average(${Number})", null));
+                case "TEXT" -> List.of(
+                        column("${Text}", 0),
+                        column("first(${Text2})", null),
+                        column("last(${Text3})", null),
+                        column("count()", null));
+                default -> List.of(
+                        column("${Text}", 0),
+                        column("max(${Number})", null),
+                        column("any(${Text2})", null),
+                        column("count()", null));
+            };
+
+            final FieldIndex fieldIndex = new FieldIndex();
+            final CompiledColumns compiledColumns = CompiledColumns.create(
+                    new ExpressionContext(),
+                    columns,
+                    fieldIndex,
+                    Collections.emptyMap());
+            final CompiledDepths compiledDepths = new CompiledDepths(compiledColumns.getCompiledColumns(), false);
+
+            final Val[] values = new Val[fieldIndex.size()];
+            for (int i = 0; i < values.length; i++) {
+                final String field = fieldIndex.getField(i);
+                values[i] = field.startsWith("Number")
+                        ? ValLong.create(123_456L)
+                        : ValString.create(field + " value that is long enough to be realistic");
+            }
+
+            valueReferenceIndex = compiledColumns.getValueReferenceIndex();
+            storedValues = valueReferenceIndex.createStoredValues();
+            for (final CompiledColumn compiledColumn : compiledColumns.getCompiledColumns()) {
+                compiledColumn.getGenerator().set(values, storedValues);
+            }
+
+            bufferFactory = new ByteBufferFactoryImpl();
+            rowValueFactory = new LmdbRowValueFactory(
+                    bufferFactory,
+                    valueReferenceIndex,
+                    new DataWriterFactory(new ErrorConsumerImpl(), 1000));
+            codec = new StoredValuesCodec(compiledColumns, compiledDepths);
+            row = rowValueFactory.create(storedValues);
+        }
+
+        private static Column column(final String expression, final Integer group) {
+            return Column.builder()
+                    .id(expression)
+                    .name(expression)
+                    .expression(expression)
+                    .group(group)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.query.common.v2;
+
+import stroom.bytebuffer.impl6.ByteBufferFactoryImpl;
+import stroom.lmdb.LmdbLibrary;
+import stroom.lmdb.LmdbLibraryConfig;
+import stroom.lmdb2.LmdbEnv;
+import stroom.lmdb2.LmdbEnvDir;
+import stroom.lmdb2.LmdbEnvDirFactory;
+import stroom.query.api.Column;
+import stroom.query.api.Format;
+import stroom.query.api.OffsetRange;
+import stroom.query.api.ParamUtil;
+import stroom.query.api.QueryKey;
+import stroom.query.api.ResultRequest;
+import stroom.query.api.SearchRequestSource;
+import stroom.query.api.TableResult;
+import stroom.query.api.TableSettings;
+import stroom.query.language.functions.ExpressionContext;
+import stroom.query.language.functions.FieldIndex;
+import stroom.query.language.functions.Val;
+import stroom.query.language.functions.ValString;
+import stroom.util.io.PathCreator;
+import stroom.util.io.SimplePathCreator;
+import stroom.util.io.TempDirProvider;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestHybridDataStore extends AbstractDataStoreTest {
+
+    private Path tempDir;
+    private ExecutorService executorService;
+    // Tiny by default so that the shared tests exercise promotion.
+    private long heapBudgetBytes = 1;
+
+    @BeforeEach
+    void setup(@TempDir final Path tempDir) {
+        this.tempDir = tempDir;
+        executorService = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void after() {
+        // Clear the stores before closing the executor, see TestLmdbDataStore.
+        clearCreatedStores();
+        executorService.close();
+    }
+
+    @Override
+    DataStore create(final SearchRequestSource searchRequestSource,
+                     final QueryKey queryKey,
+                     final String componentId,
+                     final TableSettings tableSettings,
+                     final SearchResultStoreConfig resultStoreConfig,
+                     final DataStoreSettings dataStoreSettings,
+                     final String subDirectory) {
+        final FieldIndex fieldIndex = new FieldIndex();
+        final ErrorConsumerImpl errorConsumer = new ErrorConsumerImpl();
+        final MapDataStore mapDataStore = new MapDataStore(
+                componentId,
+                tableSettings,
+                new ExpressionContext(),
+                fieldIndex,
+                Collections.emptyMap(),
+                dataStoreSettings,
+                errorConsumer,
+                resultStoreConfig.getMapConfig(),
+                () -> executorService);
+
+        return new HybridDataStore(
+                componentId,
+                mapDataStore,
+                values -> true,
+                () -> {
+                    final TempDirProvider tempDirProvider = () -> tempDir;
+                    final PathCreator pathCreator = new SimplePathCreator(() -> tempDir, () -> tempDir);
+                    final LmdbLibraryConfig lmdbLibraryConfig = new LmdbLibraryConfig();
+                    final LmdbEnvDirFactory lmdbEnvDirFactory = new LmdbEnvDirFactory(
+                            new LmdbLibrary(pathCreator, tempDirProvider, () -> lmdbLibraryConfig), pathCreator);
+                    final LmdbEnvDir lmdbEnvDir = lmdbEnvDirFactory
+                            .builder()
+                            .config(resultStoreConfig.getLmdbConfig())
+                            .subDir(subDirectory)
+                            .build();
+                    final LmdbEnv.Builder lmdbEnvBuilder = LmdbEnv
+                            .builder()
+                            .config(resultStoreConfig.getLmdbConfig())
+                            .lmdbEnvDir(lmdbEnvDir);
+                    return new LmdbDataStore(
+                            searchRequestSource,
+                            lmdbEnvBuilder,
+                            resultStoreConfig,
+                            queryKey,
+                            componentId,
+                            tableSettings,
+                            new ExpressionContext(),
+                            fieldIndex,
+                            Collections.emptyMap(),
+                            dataStoreSettings,
+                            () -> executorService,
+                            errorConsumer,
+                            new ByteBufferFactoryImpl(),
+                            new ExpressionPredicateFactory(),
+                            AnnotationMapperFactory.NO_OP,
+                            null);
+                },
+                heapBudgetBytes);
+    }
+
+    @Test
+    void testPromotion() {
+        final HybridDataStore dataStore = (HybridDataStore) createGroupedStore();
+        addAndComplete(dataStore, 5_000);
+
+        assertThat(dataStore.isPromoted()).isTrue();
+        assertGroupCount(dataStore, 100);
+    }
+
+    @Test
+    void testNoPromotion() {
+        heapBudgetBytes = Long.MAX_VALUE;
+        final HybridDataStore dataStore = (HybridDataStore) createGroupedStore();
+        addAndComplete(dataStore, 5_000);
+
+        assertThat(dataStore.isPromoted()).isFalse();
+        assertThat(dataStore.getByteSize()).isGreaterThan(0);
+        assertGroupCount(dataStore, 100);
+    }
+
+    @Test
+    void testAwaitCompletionAcrossPromotion() throws Exception {
+        final HybridDataStore dataStore = (HybridDataStore) createGroupedStore();
+
+        // Start waiting while the data is still held on the heap.
+        final CompletableFuture<Void> waiter = CompletableFuture.runAsync(() -> {
+            try {
+                dataStore.getCompletionState().awaitCompletion();
+            } catch (final InterruptedException e) {
+                throw new RuntimeException(e.getMessage(), e);
+            }
+        }, executorService);
+
+        addAndComplete(dataStore, 5_000);
+
+        assertThat(dataStore.isPromoted()).isTrue();
+        waiter.get(10, TimeUnit.SECONDS);
+        assertThat(dataStore.getCompletionState().isComplete()).isTrue();
+    }
+
+    private DataStore createGroupedStore() {
+        final TableSettings tableSettings = TableSettings.builder()
+                .addColumns(Column.builder()
+                        .id("Text")
+                        .name("Text")
+                        .expression(ParamUtil.create("Text"))
+                        .format(Format.TEXT)
+                        .group(0)
+                        .build())
+                .addColumns(Column.builder()
+                        .id("Count")
+                        .name("Count")
+                        .expression("count()")
+                        .build())
+                .build();
+        return createUnlimitedDataStore(tableSettings);
+    }
+
+    private void addAndComplete(final DataStore dataStore, final int count) {
+        for (int i = 0; i < count; i++) {
+            dataStore.accept(Val.of(ValString.create("Text " + (i % 100))));
+        }
+
+        // Wait for all items to be added.
+        try {
+            dataStore.getCompletionState().signalComplete();
+            dataStore.getCompletionState().awaitCompletion();
+        } catch (final InterruptedException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    private void assertGroupCount(final DataStore dataStore, final int expected) {
+        final TableSettings tableSettings = TableSettings.builder()
+                .addColumns(dataStore.getColumns())
+                .build();
+        final ResultRequest tableResultRequest = ResultRequest.builder()
+                .componentId("componentX")
+                .addMappings(tableSettings)
+                .requestedRange(new OffsetRange(0, 1000))
+                .build();
+        final TableResult searchResult = (TableResult) new TableResultCreator().create(
+                dataStore,
+                tableResultRequest);
+        assertThat(searchResult.getTotalResults().intValue()).isEqualTo(expected);
+        searchResult.getRows().forEach(row ->
+                assertThat(row.getValues().get(1)).isEqualTo("50"));
+    }
+
+    @Test
+    void basicTest() {
+        super.basicTest();
+    }
+
+    @Test
+    void nestedTest() {
+        super.nestedTest();
+    }
+
+    @Test
+    void noValuesTest() {
+        super.noValuesTest();
+    }
+
+    @Test
+    void sortedTextTest() {
+        super.sortedTextTest();
+    }
+
+    @Test
+    void sortedNumberTest() {
+        super.sortedNumberTest();
+    }
+
+    @Test
+    void sortedCountedTextTest1() {
+        super.sortedCountedTextTest1();
+    }
+
+    @Test
+    void sortedCountedTextTest2() {
+        super.sortedCountedTextTest2();
+    }
+
+    @Test
+    void sortedCountedTextTest3() {
+        super.sortedCountedTextTest3();
+    }
+
+    @Test
+    void firstLastSelectorTest() {
+        super.firstLastSelectorTest();
+    }
+}
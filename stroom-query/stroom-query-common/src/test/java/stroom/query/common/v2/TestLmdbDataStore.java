@@ -31,6 +31,8 @@ import stroom.query.api.ResultRequest;
 import stroom.query.api.Row;
 import stroom.query.api.SearchRequestSource;
 import stroom.query.api.SearchRequestSource.SourceType;
+import stroom.query.api.Sort;
+import stroom.query.api.Sort.SortDirection;
 import stroom.query.api.TableResult;
 import stroom.query.api.TableSettings;
 import stroom.query.common.v2.format.FormatterFactory;
@@ -54,6 +56,8 @@ import org.junit.jupiter.api.io.TempDir;
 
 import java.nio.file.Path;
 import java.util.Collections;
+import java.util.List;
+import java.util.Random;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
@@ -62,8 +66,11 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class TestLmdbDataStore extends AbstractDataStoreTest {
 
@@ -483,6 +490,68 @@ class TestLmdbDataStore extends AbstractDataStoreTest {
         // dataStore2 is recorded, so teardown closes it before the @TempDir is deleted.
     }
 
+    @Test
+    void testTopN() {
+        final TableSettings tableSettings = TableSettings.builder()
+                .addColumns(Column.builder()
+                        .id("Number")
+                        .name("Number")
+                        .expression(ParamUtil.create("Number"))
+                        .sort(new Sort(0, SortDirection.DESCENDING))
+                        .build())
+                .build();
+        final DataStoreSettings dataStoreSettings = DataStoreSettings
+                .createBasicSearchResultStoreSettings()
+                .copy()
+                .maxResults(Sizes.create(10))
+                .build();
+        final DataStore dataStore = create(tableSettings, dataStoreSettings);
+
+        // Add the numbers in a shuffled order so that the top N changes as we go.
+        final List<Long> numbers = LongStream.range(0, 10_000).boxed().collect(Collectors.toList());
+        Collections.shuffle(numbers, new Random(1));
+        numbers.forEach(number -> dataStore.accept(Val.of(ValLong.create(number))));
+
+        // Wait for all items to be added.
+        try {
+            dataStore.getCompletionState().signalComplete();
+            dataStore.getCompletionState().awaitCompletion();
+        } catch (final InterruptedException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+
+        final ResultRequest tableResultRequest = ResultRequest.builder()
+                .componentId("componentX")
+                .addMappings(tableSettings)
+                .requestedRange(new OffsetRange(0, 100))
+                .build();
+        final TableResult searchResult = (TableResult) new TableResultCreator().create(
+                dataStore,
+                tableResultRequest);
+        assertThat(searchResult.getRows()
+                .stream()
+                .map(row -> row.getValues().getFirst())
+                .toList())
+                .containsExactly("9999", "9998", "9997", "9996", "9995", "9994", "9993", "9992", "9991", "9990");
+
+        // We can't change the sort once rows have been dropped.
+        final List<Column> resorted = List.of(tableSettings.getColumns().getFirst()
+                .copy()
+                .sort(new Sort(0, SortDirection.ASCENDING))
+                .build());
+        assertThatThrownBy(() -> dataStore.fetch(
+                resorted,
+                OffsetRange.ZERO_100,
+                OpenGroups.NONE,
+                null,
+                Stream::of,
+                item -> {
+                },
+                null))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("top N");
+    }
+
     @Test
     void basicTest() {
         super.basicTest();
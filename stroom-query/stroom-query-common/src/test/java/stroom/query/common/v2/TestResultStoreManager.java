@@ -0,0 +1,102 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.query.common.v2;
+
+import stroom.query.api.QueryKey;
+import stroom.query.test.util.MockitoExtension;
+import stroom.security.mock.MockSecurityContext;
+import stroom.task.api.ExecutorProvider;
+import stroom.task.api.SimpleTaskContextFactory;
+import stroom.util.time.StroomDuration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class TestResultStoreManager {
+
+    @Mock
+    private ResultStore mockStore;
+    @Mock
+    private ExecutorProvider mockExecutorProvider;
+
+    private ResultStoreManager resultStoreManager;
+
+    @BeforeEach
+    void setup() {
+        resultStoreManager = new ResultStoreManager(
+                new SimpleTaskContextFactory(),
+                new MockSecurityContext(),
+                mockExecutorProvider,
+                null,
+                null,
+                SearchResultStoreConfig::new);
+    }
+
+    @Test
+    void testTerminate_sharedStore() {
+        Mockito.when(mockExecutorProvider.get()).thenReturn(Runnable::run);
+        final QueryKey queryKey1 = createQueryKey();
+        final QueryKey queryKey2 = createQueryKey();
+        resultStoreManager.put(queryKey1, mockStore);
+        resultStoreManager.put(queryKey2, mockStore);
+
+        // Both keys still hold a reference so terminating one must not stop the search for the other.
+        Mockito.when(mockStore.getReferenceCount()).thenReturn(2);
+        assertThat(resultStoreManager.terminate(queryKey1)).isTrue();
+        Mockito.verify(mockStore, Mockito.never()).terminate();
+
+        // Once the other key has gone the remaining key can terminate the search.
+        Mockito.when(mockStore.getReferenceCount()).thenReturn(1);
+        assertThat(resultStoreManager.terminate(queryKey2)).isTrue();
+        Mockito.verify(mockStore).terminate();
+    }
+
+    @Test
+    void testEvictExpiredElements_sharedStore() {
+        final QueryKey queryKey1 = createQueryKey();
+        final QueryKey queryKey2 = createQueryKey();
+        resultStoreManager.put(queryKey1, mockStore);
+        resultStoreManager.put(queryKey2, mockStore);
+
+        // The search process is beyond its TTL but the store itself has no lifespan limit.
+        final ResultStoreSettings settings = new ResultStoreSettings(
+                new Lifespan(null, StroomDuration.ofMinutes(1), false, false),
+                new Lifespan(null, null, false, false));
+        Mockito.when(mockStore.getResultStoreSettings()).thenReturn(settings);
+        Mockito.when(mockStore.getCreationTime()).thenReturn(Instant.now().minusSeconds(120));
+        Mockito.when(mockStore.getReferenceCount()).thenReturn(2);
+
+        resultStoreManager.evictExpiredElements();
+
+        Mockito.verify(mockStore, Mockito.never()).terminate();
+        assertThat(resultStoreManager.getIfPresent(queryKey1)).containsSame(mockStore);
+        assertThat(resultStoreManager.getIfPresent(queryKey2)).containsSame(mockStore);
+    }
+
+    private QueryKey createQueryKey() {
+        return new QueryKey(UUID.randomUUID().toString());
+    }
+}
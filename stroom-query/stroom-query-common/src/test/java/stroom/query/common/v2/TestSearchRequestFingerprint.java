@@ -0,0 +1,83 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.query.common.v2;
+
+import stroom.docref.DocRef;
+import stroom.query.api.DateTimeSettings;
+import stroom.query.api.ExpressionOperator;
+import stroom.query.api.ExpressionTerm.Condition;
+import stroom.query.api.OffsetRange;
+import stroom.query.api.Query;
+import stroom.query.api.QueryKey;
+import stroom.query.api.ResultRequest;
+import stroom.query.api.SearchRequest;
+import stroom.query.api.TableSettings;
+import stroom.util.shared.UserRef;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestSearchRequestFingerprint {
+
+    private static final UserRef USER_1 = UserRef.builder().uuid("user1").build();
+    private static final UserRef USER_2 = UserRef.builder().uuid("user2").build();
+
+    @Test
+    void testIdenticalSearches() {
+        final String fingerprint = SearchRequestFingerprint.create(USER_1, createRequest("foo", 0, 1000L));
+
+        // Paging, keys and reference times don't change what is searched.
+        final SearchRequest other = createRequest("foo", 100, 2000L)
+                .copy()
+                .key(new QueryKey("abc"))
+                .incremental(true)
+                .timeout(1000L)
+                .build();
+        assertThat(SearchRequestFingerprint.create(USER_1, other)).isEqualTo(fingerprint);
+    }
+
+    @Test
+    void testDifferentSearches() {
+        final String fingerprint = SearchRequestFingerprint.create(USER_1, createRequest("foo", 0, 1000L));
+
+        assertThat(SearchRequestFingerprint.create(USER_1, createRequest("bar", 0, 1000L)))
+                .isNotEqualTo(fingerprint);
+        // Different users never share as they may have different permissions.
+        assertThat(SearchRequestFingerprint.create(USER_2, createRequest("foo", 0, 1000L)))
+                .isNotEqualTo(fingerprint);
+    }
+
+    private SearchRequest createRequest(final String term,
+                                        final int offset,
+                                        final long referenceTime) {
+        return SearchRequest.builder()
+                .query(Query.builder()
+                        .dataSource(DocRef.builder().type("Index").uuid("index1").build())
+                        .expression(ExpressionOperator.builder()
+                                .addTerm("Text", Condition.EQUALS, term)
+                                .build())
+                        .build())
+                .addResultRequests(ResultRequest.builder()
+                        .componentId("table1")
+                        .addMappings(TableSettings.builder().build())
+                        .requestedRange(new OffsetRange(offset, 100))
+                        .build())
+                .dateTimeSettings(DateTimeSettings.builder().referenceTime(referenceTime).build())
+                .build();
+    }
+}
@@ -378,6 +378,11 @@ class TestSearchResponseCreator {
                 return 0;
             }
 
+            @Override
+            public long getChangeCount() {
+                return 0;
+            }
+
             @Override
             public KeyFactory getKeyFactory() {
                 return KeyFactoryFactory.create(
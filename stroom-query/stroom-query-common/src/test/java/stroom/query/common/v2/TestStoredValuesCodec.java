@@ -0,0 +1,108 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.query.common.v2;
+
+import stroom.bytebuffer.impl6.ByteBufferFactoryImpl;
+import stroom.query.api.Column;
+import stroom.query.language.functions.ExpressionContext;
+import stroom.query.language.functions.FieldIndex;
+import stroom.query.language.functions.Generator;
+import stroom.query.language.functions.Val;
+import stroom.query.language.functions.ValLong;
+import stroom.query.language.functions.ValString;
+import stroom.query.language.functions.ref.StoredValues;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestStoredValuesCodec {
+
+    private final FieldIndex fieldIndex = new FieldIndex();
+    private final CompiledColumns compiledColumns = CompiledColumns.create(
+            new ExpressionContext(),
+            List.of(
+                    Column.builder().id("Text").name("Text").expression("${Text}").group(0).build(),
+                    Column.builder().id("Max").name("Max").expression("max(${Number})").build(),
+                    Column.builder().id("Any").name("Any").expression("any(${Other})").build(),
+                    Column.builder().id("Count").name("Count").expression("count()").build()),
+            fieldIndex,
+            Collections.emptyMap());
+    private final CompiledDepths compiledDepths = new CompiledDepths(compiledColumns.getCompiledColumns(), false);
+    private final LmdbRowValueFactory rowValueFactory = new LmdbRowValueFactory(
+            new ByteBufferFactoryImpl(),
+            compiledColumns.getValueReferenceIndex(),
+            new DataWriterFactory(new ErrorConsumerImpl(), 1000));
+    private final StoredValuesCodec codec = new StoredValuesCodec(compiledColumns, compiledDepths);
+
+    @Test
+    void testReadAll() {
+        final StoredValues storedValues = create("abc", 10, "other");
+        final ByteBuffer byteBuffer = rowValueFactory.create(storedValues);
+
+        final StoredValues read = codec.read(byteBuffer);
+        assertThat(read).isEqualTo(storedValues);
+        assertThat(byteBuffer.remaining()).isZero();
+    }
+
+    @Test
+    void testReadGroupValues() {
+        final StoredValues first = create("abc", 10, "other");
+        final StoredValues second = create("def", 20, "another");
+        final ByteBuffer firstBuffer = rowValueFactory.create(first);
+        final ByteBuffer secondBuffer = rowValueFactory.create(second);
+        final int firstLength = firstBuffer.remaining();
+
+        // Values for several groups can be stored in one LMDB value.
+        final ByteBuffer combined = ByteBuffer.allocateDirect(firstLength + secondBuffer.remaining());
+        combined.put(firstBuffer).put(secondBuffer).flip();
+
+        final StoredValues firstGroup = codec.readGroupValues(combined, 0);
+        assertThat(combined.position()).isEqualTo(firstLength);
+        assertThat(eval(0, firstGroup)).isEqualTo(ValString.create("abc"));
+        // The other columns should not have been read.
+        assertThat(eval(1, firstGroup)).isNotEqualTo(ValLong.create(10));
+        assertThat(eval(2, firstGroup)).isNotEqualTo(ValString.create("other"));
+
+        final StoredValues secondGroup = codec.readGroupValues(combined, 0);
+        assertThat(combined.remaining()).isZero();
+        assertThat(eval(0, secondGroup)).isEqualTo(ValString.create("def"));
+    }
+
+    private StoredValues create(final String text, final long number, final String other) {
+        final Val[] values = new Val[fieldIndex.size()];
+        values[fieldIndex.getPos("Text")] = ValString.create(text);
+        values[fieldIndex.getPos("Number")] = ValLong.create(number);
+        values[fieldIndex.getPos("Other")] = ValString.create(other);
+
+        final StoredValues storedValues = compiledColumns.getValueReferenceIndex().createStoredValues();
+        for (final CompiledColumn compiledColumn : compiledColumns.getCompiledColumns()) {
+            compiledColumn.getGenerator().set(values, storedValues);
+        }
+        return storedValues;
+    }
+
+    private Val eval(final int columnIndex, final StoredValues storedValues) {
+        final Generator generator = compiledColumns.getCompiledColumns()[columnIndex].getGenerator();
+        return generator.eval(storedValues, null);
+    }
+}
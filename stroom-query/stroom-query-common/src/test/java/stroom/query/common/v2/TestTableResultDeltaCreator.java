@@ -0,0 +1,88 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.query.common.v2;
+
+import stroom.query.api.OffsetRange;
+import stroom.query.api.Row;
+import stroom.query.api.RowDelta;
+import stroom.query.api.TableResult;
+import stroom.query.api.TableResultBuilder;
+import stroom.query.api.TableResultDelta;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestTableResultDeltaCreator {
+
+    @Test
+    void testDeltas() {
+        final TableResultDeltaCreator deltaCreator = new TableResultDeltaCreator("table");
+
+        // Everything is an insert the first time.
+        final Row a1 = row("a", "1");
+        final Row b1 = row("b", "1");
+        TableResultDelta delta = deltaCreator.create(result(a1, b1), false);
+        assertThat(delta.getSequence()).isEqualTo(0);
+        assertThat(delta.getRowDeltas()).containsExactly(
+                RowDelta.insert(0, a1),
+                RowDelta.insert(1, b1));
+        assertThat(delta.getTotalResults()).isEqualTo(2);
+
+        // No change means no delta.
+        assertThat(deltaCreator.create(result(a1, b1), false)).isNull();
+        assertThat(deltaCreator.create(null, false)).isNull();
+
+        // Update a row, move a row, add one and remove one.
+        final Row b2 = row("b", "2");
+        final Row c1 = row("c", "1");
+        delta = deltaCreator.create(result(b2, c1), false);
+        assertThat(delta.getSequence()).isEqualTo(1);
+        assertThat(delta.getRowDeltas()).containsExactly(
+                RowDelta.update(0, b2),
+                RowDelta.insert(1, c1),
+                RowDelta.delete("a"));
+
+        // Completion is always delivered even if nothing has changed.
+        delta = deltaCreator.create(null, true);
+        assertThat(delta.getSequence()).isEqualTo(2);
+        assertThat(delta.isComplete()).isTrue();
+        assertThat(delta.getRowDeltas()).isNull();
+        assertThat(delta.getTotalResults()).isEqualTo(2);
+    }
+
+    private static Row row(final String groupKey, final String value) {
+        return Row.builder()
+                .groupKey(groupKey)
+                .values(List.of(groupKey, value))
+                .depth(0)
+                .build();
+    }
+
+    private static TableResult result(final Row... rows) {
+        final TableResultBuilder builder = TableResult.builder()
+                .componentId("table")
+                .resultRange(new OffsetRange(0, rows.length))
+                .totalResults((long) rows.length);
+        for (final Row row : rows) {
+            builder.addRow(row);
+        }
+        return builder.build();
+    }
+}
@@ -23,6 +23,7 @@ import stroom.util.logging.LogUtil;
 import java.util.Arrays;
 import java.util.Objects;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 public final class ValSerialiser {
@@ -37,43 +38,57 @@ public final class ValSerialiser {
         SERIALISERS[Type.NULL.getId()] = new Serialiser(
                 input -> ValNull.INSTANCE,
                 (output, value) -> {
+                },
+                input -> {
                 });
         SERIALISERS[Type.BOOLEAN.getId()] = new Serialiser(
                 input -> ValBoolean.create(input.readBoolean()),
-                (output, value) -> output.writeBoolean(value.toBoolean()));
+                (output, value) -> output.writeBoolean(value.toBoolean()),
+                DataReader::readBoolean);
         SERIALISERS[Type.FLOAT.getId()] = new Serialiser(
                 input -> ValFloat.create(input.readFloat()),
-                (output, value) -> output.writeFloat(value.toFloat()));
+                (output, value) -> output.writeFloat(value.toFloat()),
+                DataReader::readFloat);
         SERIALISERS[Type.DOUBLE.getId()] = new Serialiser(
                 input -> ValDouble.create(input.readDouble()),
-                (output, value) -> output.writeDouble(value.toDouble()));
+                (output, value) -> output.writeDouble(value.toDouble()),
+                DataReader::readDouble);
         SERIALISERS[Type.INTEGER.getId()] = new Serialiser(
                 input -> ValInteger.create(input.readInt()),
-                (output, value) -> output.writeInt(value.toInteger()));
+                (output, value) -> output.writeInt(value.toInteger()),
+                DataReader::readInt);
         SERIALISERS[Type.LONG.getId()] = new Serialiser(
                 input -> ValLong.create(input.readLong()),
-                (output, value) -> output.writeLong(value.toLong()));
+                (output, value) -> output.writeLong(value.toLong()),
+                DataReader::readLong);
         SERIALISERS[Type.DATE.getId()] = new Serialiser(
                 input -> ValDate.create(input.readLong()),
-                (output, value) -> output.writeLong(value.toLong()));
+                (output, value) -> output.writeLong(value.toLong()),
+                DataReader::readLong);
         SERIALISERS[Type.STRING.getId()] = new Serialiser(
                 input -> ValString.create(input.readString()),
-                (output, value) -> output.writeString(value.toString()));
+                (output, value) -> output.writeString(value.toString()),
+                DataReader::readString);
         SERIALISERS[Type.ERR.getId()] = new Serialiser(
                 input -> ValErr.create(input.readString()),
-                (output, value) -> output.writeString(((ValErr) value).getMessage()));
+                (output, value) -> output.writeString(((ValErr) value).getMessage()),
+                DataReader::readString);
         SERIALISERS[Type.DURATION.getId()] = new Serialiser(
                 input -> ValDuration.create(input.readLong()),
-                (output, value) -> output.writeLong(value.toLong()));
+                (output, value) -> output.writeLong(value.toLong()),
+                DataReader::readLong);
         SERIALISERS[Type.BYTE.getId()] = new Serialiser(
                 input -> ValByte.create(input.readByte()),
-                (output, value) -> output.writeByte(((ValByte) value).getValue()));
+                (output, value) -> output.writeByte(((ValByte) value).getValue()),
+                DataReader::readByte);
         SERIALISERS[Type.SHORT.getId()] = new Serialiser(
                 input -> ValShort.create(input.readShort()),
-                (output, value) -> output.writeShort(((ValShort) value).getValue()));
+                (output, value) -> output.writeShort(((ValShort) value).getValue()),
+                DataReader::readShort);
         SERIALISERS[Type.XML.getId()] = new Serialiser(
                 input -> ValXml.create(input.readBytes()),
-                (output, value) -> output.writeBytes(((ValXml) value).getBytes()));
+                (output, value) -> output.writeBytes(((ValXml) value).getBytes()),
+                DataReader::readBytes);
     }
 
     public static Val read(final DataReader reader) {
@@ -82,6 +97,15 @@ public final class ValSerialiser {
         return serialiser.reader.apply(reader);
     }
 
+    /**
+     * Move the reader past the next serialised value without creating a {@link Val} for it.
+     */
+    public static void skip(final DataReader reader) {
+        final int id = reader.readByte();
+        final Serialiser serialiser = SERIALISERS[id];
+        serialiser.skipper.accept(reader);
+    }
+
     public static void write(final DataWriter writer, final Val val) {
         final byte id = val.type().getId();
         writer.writeByte(id);
@@ -134,11 +158,14 @@ public final class ValSerialiser {
 
         final Function<DataReader, Val> reader;
         final BiConsumer<DataWriter, Val> writer;
+        final Consumer<DataReader> skipper;
 
         public Serialiser(final Function<DataReader, Val> reader,
-                          final BiConsumer<DataWriter, Val> writer) {
+                          final BiConsumer<DataWriter, Val> writer,
+                          final Consumer<DataReader> skipper) {
             this.reader = reader;
             this.writer = writer;
+            this.skipper = skipper;
         }
     }
 }
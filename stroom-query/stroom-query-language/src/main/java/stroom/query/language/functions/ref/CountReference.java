@@ -53,6 +53,11 @@ public class CountReference implements ValueReference<Long> {
         set(storedValues, reader.readLong());
     }
 
+    @Override
+    public void skip(final DataReader reader) {
+        reader.readLong();
+    }
+
     @Override
     public void write(final StoredValues storedValues, final DataWriter writer) {
         writer.writeLong(get(storedValues));
@@ -53,6 +53,14 @@ public class DoubleListReference implements ValueReference<List<Double>> {
         set(storedValues, list);
     }
 
+    @Override
+    public void skip(final DataReader reader) {
+        final int length = reader.readInt();
+        for (int i = 0; i < length; i++) {
+            reader.readDouble();
+        }
+    }
+
     @Override
     public void write(final StoredValues storedValues, final DataWriter writer) {
         final List<Double> list = get(storedValues);
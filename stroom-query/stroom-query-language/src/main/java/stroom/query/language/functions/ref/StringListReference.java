@@ -53,6 +53,14 @@ public class StringListReference implements ValueReference<List<String>> {
         set(storedValues, list);
     }
 
+    @Override
+    public void skip(final DataReader reader) {
+        final int length = reader.readInt();
+        for (int i = 0; i < length; i++) {
+            reader.readString();
+        }
+    }
+
     @Override
     public void write(final StoredValues storedValues, final DataWriter writer) {
         final List<String> list = get(storedValues);
@@ -56,6 +56,14 @@ public class ValListReference implements ValueReference<List<Val>> {
         set(storedValues, list);
     }
 
+    @Override
+    public void skip(final DataReader reader) {
+        final int length = reader.readInt();
+        for (int i = 0; i < length; i++) {
+            ValSerialiser.skip(reader);
+        }
+    }
+
     @Override
     public void write(final StoredValues storedValues, final DataWriter writer) {
         final List<Val> list = get(storedValues);
@@ -53,6 +53,11 @@ public class ValReference implements ValueReference<Val> {
         set(storedValues, ValSerialiser.read(reader));
     }
 
+    @Override
+    public void skip(final DataReader reader) {
+        ValSerialiser.skip(reader);
+    }
+
     @Override
     public void write(final StoredValues storedValues, final DataWriter writer) {
         ValSerialiser.write(writer, get(storedValues));
@@ -25,4 +25,9 @@ public interface ValueReference<T> {
     void read(StoredValues storedValues, DataReader reader);
 
     void write(StoredValues storedValues, DataWriter writer);
+
+    /**
+     * Move the reader past this value without materialising it.
+     */
+    void skip(DataReader reader);
 }
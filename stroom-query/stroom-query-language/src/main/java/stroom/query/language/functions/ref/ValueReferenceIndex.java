@@ -20,6 +20,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Objects;
 
@@ -28,6 +29,7 @@ public class ValueReferenceIndex {
     private static final Logger LOGGER = LoggerFactory.getLogger(ValueReferenceIndex.class);
 
     private final List<ValueReference<?>> list = new ArrayList<>();
+    private BitSet recorded;
 
     public CountReference addCount(final String name) {
         return add(new CountReference(list.size(), name));
@@ -52,11 +54,11 @@ public class ValueReferenceIndex {
         // Only store one reference to each field.
         final int index = list.indexOf(valueReference);
         if (index != -1) {
+            record(index);
             return (FieldValReference) list.get(index);
         }
 
-        list.add(valueReference);
-        return valueReference;
+        return add(valueReference);
     }
 
     public RandomValReference addRandomValue(final String name) {
@@ -80,10 +82,39 @@ public class ValueReferenceIndex {
     }
 
     private <T extends ValueReference<?>> T add(final T valueReference) {
+        record(list.size());
         list.add(valueReference);
         return valueReference;
     }
 
+    private void record(final int index) {
+        if (recorded != null) {
+            recorded.set(index);
+        }
+    }
+
+    /**
+     * Find out which value references are added or reused by the supplied action, e.g. when an expression adds its
+     * value references, so that values can later be read selectively.
+     *
+     * @return The indices of all value references used by the action.
+     */
+    public BitSet recordReferences(final Runnable runnable) {
+        final BitSet previous = recorded;
+        final BitSet bitSet = new BitSet();
+        recorded = bitSet;
+        try {
+            runnable.run();
+        } finally {
+            recorded = previous;
+        }
+        return bitSet;
+    }
+
+    public int size() {
+        return list.size();
+    }
+
     public StoredValues createStoredValues() {
         return new StoredValues(new Object[list.size()]);
     }
@@ -112,6 +143,35 @@ public class ValueReferenceIndex {
         }
     }
 
+    /**
+     * Read only the value references in the supplied set, skipping over the rest without materialising them. The
+     * reader is always left positioned after the complete set of values.
+     */
+    public StoredValues read(final DataReader reader, final BitSet include) {
+        try {
+            final StoredValues storedValues = createStoredValues();
+            for (int i = 0; i < list.size(); i++) {
+                final ValueReference<?> valueReference = list.get(i);
+                if (include.get(i)) {
+                    valueReference.read(storedValues, reader);
+                } else {
+                    valueReference.skip(reader);
+                }
+            }
+            return storedValues;
+        } catch (final RuntimeException e) {
+            LOGGER.error("Error reading selected values:\n" +
+                         e.getClass().getSimpleName() +
+                         "\n" +
+                         e.getMessage() +
+                         "\n" +
+                         "Value Reference Index:\n" +
+                         this, e);
+
+            throw e;
+        }
+    }
+
     public void write(final StoredValues storedValues, final DataWriter writer) {
         try {
             for (final ValueReference<?> valueReference : list) {
@@ -138,6 +138,42 @@ class TestValSerialiser {
         }
     }
 
+    @Test
+    void testSkip() {
+        final List<Val> vals = List.of(
+                ValNull.INSTANCE,
+                ValBoolean.TRUE,
+                ValFloat.create(1.23F),
+                ValDouble.create(1.23D),
+                ValInteger.create(123),
+                ValLong.create(123L),
+                ValDate.create(System.currentTimeMillis()),
+                ValString.create("hello world!"),
+                ValErr.create("Bad things happened"),
+                ValDuration.create(123),
+                ValByte.create((byte) 1),
+                ValShort.create((short) 1),
+                ValString.create("last"));
+
+        final ByteBuffer byteBuffer;
+        try (final UnsafeByteBufferOutput output = new UnsafeByteBufferOutput(200)) {
+            try (final KryoDataWriter writer = new KryoDataWriter(output)) {
+                for (final Val val : vals) {
+                    ValSerialiser.write(writer, val);
+                }
+                byteBuffer = output.getByteBuffer();
+            }
+        }
+        byteBuffer.flip();
+
+        try (final KryoDataReader reader = new KryoDataReader(new ByteBufferInput(byteBuffer))) {
+            for (int i = 0; i < vals.size() - 1; i++) {
+                ValSerialiser.skip(reader);
+            }
+            assertThat(ValSerialiser.read(reader)).isEqualTo(ValString.create("last"));
+        }
+    }
+
     @Test
     void ensureAllSerialisers() {
         for (final Type type : Type.values()) {
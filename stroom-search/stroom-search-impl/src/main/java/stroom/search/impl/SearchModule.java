@@ -30,6 +30,7 @@ import stroom.query.common.v2.SizesProvider;
 import stroom.search.extraction.ExtractionModule;
 import stroom.util.RunnableWrapper;
 import stroom.util.guice.GuiceUtil;
+import stroom.util.guice.HasSystemInfoBinder;
 import stroom.util.guice.RestResourcesBinder;
 import stroom.util.shared.Clearable;
 
@@ -59,6 +60,8 @@ public class SearchModule extends AbstractModule {
 
         GuiceUtil.buildMultiBinder(binder(), Clearable.class).addBinding(ResultStoreManager.class);
         GuiceUtil.buildMultiBinder(binder(), HasResultStoreInfo.class).addBinding(ResultStoreManager.class);
+        HasSystemInfoBinder.create(binder())
+                .bind(ResultStoreManager.class);
 
         RestResourcesBinder.create(binder())
                 .bind(StroomIndexQueryResourceImpl.class)
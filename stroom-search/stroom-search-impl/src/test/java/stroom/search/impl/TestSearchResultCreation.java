@@ -144,6 +144,7 @@ class TestSearchResultCreation {
                                 .localDir("search_results")
                                 .maxStoreSize(ByteSize.ofMebibytes(100))
                                 .build(),
+                        null,
                         null),
                 pathCreator,
                 executorProvider,
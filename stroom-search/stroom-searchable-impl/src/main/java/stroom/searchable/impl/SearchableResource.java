@@ -31,6 +31,7 @@ import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.StreamingOutput;
 
 @Tag(name = "Searchable")
 @Path("/searchable" + ResourcePaths.V2)
@@ -38,6 +39,8 @@ import jakarta.ws.rs.core.MediaType;
 @Consumes(MediaType.APPLICATION_JSON)
 public interface SearchableResource extends DataSourceResource, RestResource {
 
+    String NDJSON = "application/x-ndjson";
+
     @POST
     @Path("/search")
     @Operation(
@@ -45,6 +48,15 @@ public interface SearchableResource extends DataSourceResource, RestResource {
             operationId = "startSearchableQuery")
     SearchResponse search(@Parameter(description = "SearchRequest", required = true) SearchRequest request);
 
+    @POST
+    @Path("/searchDeltas")
+    @Produces(SearchableResource.NDJSON)
+    @Operation(
+            summary = "Submit a search request and stream changes to the table results as newline delimited JSON " +
+                      "until the search completes",
+            operationId = "streamSearchableQueryDeltas")
+    StreamingOutput searchDeltas(@Parameter(description = "SearchRequest", required = true) SearchRequest request);
+
     @POST
     @Path("/destroy")
     @Operation(
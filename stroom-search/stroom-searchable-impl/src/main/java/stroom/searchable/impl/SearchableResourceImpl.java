@@ -24,10 +24,18 @@ import stroom.query.api.SearchRequest;
 import stroom.query.api.SearchResponse;
 import stroom.query.common.v2.ResultStoreManager;
 import stroom.query.common.v2.TerminateDecorator;
+import stroom.util.json.JsonUtil;
 
 import com.codahale.metrics.annotation.Timed;
 import jakarta.inject.Inject;
 import jakarta.inject.Provider;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 
 @AutoLogged
 public class SearchableResourceImpl implements SearchableResource {
@@ -46,6 +54,24 @@ public class SearchableResourceImpl implements SearchableResource {
         return searchResponseCreatorManagerProvider.get().search(request);
     }
 
+    @Timed
+    @Override
+    public StreamingOutput searchDeltas(final SearchRequest request) {
+        return outputStream -> {
+            final Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+            searchResponseCreatorManagerProvider.get().streamDeltas(request, delta -> {
+                try {
+                    writer.write(JsonUtil.writeValueAsString(delta, false));
+                    writer.write('\n');
+                    // Flush each delta so the client sees it straight away.
+                    writer.flush();
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        };
+    }
+
     @Timed
     @Override
     @AutoLogged(value = OperationType.PROCESS, verb = "Closing Query", decorator = TerminateDecorator.class)
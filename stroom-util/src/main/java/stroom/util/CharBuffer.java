@@ -16,8 +16,10 @@
 
 package stroom.util;
 
+import java.io.IOException;
 import java.io.Serial;
 import java.io.Serializable;
+import java.io.Writer;
 
 public class CharBuffer implements CharSequence, Serializable {
 
@@ -61,16 +63,7 @@ public class CharBuffer implements CharSequence, Serializable {
     }
 
     public CharBuffer append(final char[] ch, final int start, final int len) {
-        // Grow the buffer if we need to.
-        int required = end + len;
-        if (required > buffer.length) {
-            final int multiple = (required / buffer.length) + 1;
-            required = buffer.length * multiple;
-            final char[] tmp = new char[required];
-            System.arraycopy(buffer, 0, tmp, 0, buffer.length);
-            buffer = tmp;
-        }
-
+        ensureCapacity(end + len);
         System.arraycopy(ch, start, buffer, end, len);
         end += len;
 
@@ -78,12 +71,30 @@ public class CharBuffer implements CharSequence, Serializable {
     }
 
     public CharBuffer append(final String string) {
-        final char[] chars = string.toCharArray();
-        append(chars, 0, chars.length);
+        return append(string, 0, string.length());
+    }
+
+    /**
+     * Append part of a string without first copying it to a char array.
+     */
+    public CharBuffer append(final String string, final int start, final int len) {
+        ensureCapacity(end + len);
+        string.getChars(start, start + len, buffer, end);
+        end += len;
 
         return this;
     }
 
+    private void ensureCapacity(final int required) {
+        // Grow the buffer if we need to.
+        if (required > buffer.length) {
+            final int multiple = (required / buffer.length) + 1;
+            final char[] tmp = new char[buffer.length * multiple];
+            System.arraycopy(buffer, 0, tmp, 0, buffer.length);
+            buffer = tmp;
+        }
+    }
+
     public CharBuffer append(final Object obj) {
         return append(String.valueOf(obj));
     }
@@ -169,6 +180,13 @@ public class CharBuffer implements CharSequence, Serializable {
         return new String(buffer, start, end - start);
     }
 
+    /**
+     * Write the content of the buffer to a writer without creating an intermediate string.
+     */
+    public void writeTo(final Writer writer) throws IOException {
+        writer.write(buffer, start, end - start);
+    }
+
     public char[] toCharArray() {
         final int len = end - start;
         final char[] tmp = new char[len];
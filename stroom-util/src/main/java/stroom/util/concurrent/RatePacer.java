@@ -0,0 +1,73 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.util.concurrent;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spaces out operations so that no more than a given number happen per second. Each caller reserves the next free
+ * time slot and then waits until it arrives, so callers are let through in the order they reserved their slots
+ * without any background thread. Unused time is not saved up so there are no bursts after a quiet period.
+ * <p>
+ * The interval is passed to each call so that a rate read from config can change between calls.
+ */
+public class RatePacer {
+
+    // nanoTime can be negative so the first free slot must be relative to it rather than zero.
+    private long nextSlotNanos = System.nanoTime();
+
+    /**
+     * @param maxPerSecond The maximum number of operations per second.
+     * @return The interval between operations in nanos or zero if the rate is not limited, i.e. maxPerSecond is
+     * zero or less.
+     */
+    public static long intervalNanos(final double maxPerSecond) {
+        return maxPerSecond > 0
+                ? (long) (TimeUnit.SECONDS.toNanos(1) / maxPerSecond)
+                : 0;
+    }
+
+    /**
+     * Reserve the next slot without waiting for it.
+     *
+     * @param intervalNanos The minimum time between slots.
+     * @return The number of nanos the caller must wait before it can use the slot it has reserved.
+     */
+    public synchronized long reserve(final long intervalNanos) {
+        final long now = System.nanoTime();
+        final long slot = Math.max(now, nextSlotNanos);
+        nextSlotNanos = slot + Math.max(0, intervalNanos);
+        return slot - now;
+    }
+
+    /**
+     * Reserve the next slot and wait for it to arrive.
+     *
+     * @param intervalNanos The minimum time between slots. Does nothing if this is zero or less.
+     * @return The number of nanos spent waiting.
+     */
+    public long pace(final long intervalNanos) throws InterruptedException {
+        if (intervalNanos <= 0) {
+            return 0;
+        }
+        final long waitNanos = reserve(intervalNanos);
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+        return waitNanos;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.util.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * A writer that encodes characters straight to UTF-8 bytes in a reusable buffer rather than going through a
+ * {@link java.nio.charset.CharsetEncoder}. Runs of ASCII are copied a byte at a time with no further checks.
+ * <p>
+ * Like {@link EncodingWriter} this writer does not pass flushes on to the output stream, it only writes out the bytes
+ * it has buffered. Malformed surrogates are replaced with '?' as they would be by an
+ * {@link java.io.OutputStreamWriter}.
+ */
+public class Utf8Writer extends Writer {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final byte REPLACEMENT = '?';
+
+    private final OutputStream outputStream;
+    private final byte[] bytes = new byte[BUFFER_SIZE];
+    private final char[] chars = new char[BUFFER_SIZE];
+    private int pos;
+    // A high surrogate waiting for the low surrogate that should follow it.
+    private char highSurrogate;
+
+    public Utf8Writer(final OutputStream outputStream) {
+        this.outputStream = outputStream;
+    }
+
+    @Override
+    public void write(final int c) throws IOException {
+        if (pos > BUFFER_SIZE - 4) {
+            writeBuffer();
+        }
+        encode((char) c);
+    }
+
+    @Override
+    public void write(final char[] cbuf, final int off, final int len) throws IOException {
+        int i = off;
+        final int end = off + len;
+        while (i < end) {
+            if (pos > BUFFER_SIZE - 4) {
+                writeBuffer();
+            }
+
+            // Copy as much ASCII as will fit in the buffer.
+            final int asciiEnd = Math.min(end, i + (BUFFER_SIZE - 4 - pos));
+            if (highSurrogate == 0) {
+                while (i < asciiEnd) {
+                    final char c = cbuf[i];
+                    if (c >= 0x80) {
+                        break;
+                    }
+                    bytes[pos++] = (byte) c;
+                    i++;
+                }
+            }
+
+            if (i < end && pos <= BUFFER_SIZE - 4) {
+                encode(cbuf[i++]);
+            }
+        }
+    }
+
+    @Override
+    public void write(final String str, final int off, final int len) throws IOException {
+        // Copy the string in chunks to a reusable array so that we never allocate.
+        int i = off;
+        final int end = off + len;
+        while (i < end) {
+            final int chunk = Math.min(end - i, BUFFER_SIZE);
+            str.getChars(i, i + chunk, chars, 0);
+            write(chars, 0, chunk);
+            i += chunk;
+        }
+    }
+
+    private void encode(final char c) {
+        if (highSurrogate != 0) {
+            final char high = highSurrogate;
+            highSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                final int codePoint = Character.toCodePoint(high, c);
+                bytes[pos++] = (byte) (0xF0 | (codePoint >> 18));
+                bytes[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                bytes[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                bytes[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+                return;
+            }
+            // The high surrogate wasn't followed by a low one so replace it and carry on with this char. Callers
+            // leave room for 4 bytes which is enough for the replacement and any BMP char.
+            bytes[pos++] = REPLACEMENT;
+        }
+
+        if (c < 0x80) {
+            bytes[pos++] = (byte) c;
+        } else if (c < 0x800) {
+            bytes[pos++] = (byte) (0xC0 | (c >> 6));
+            bytes[pos++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c)) {
+            highSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            bytes[pos++] = REPLACEMENT;
+        } else {
+            bytes[pos++] = (byte) (0xE0 | (c >> 12));
+            bytes[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            bytes[pos++] = (byte) (0x80 | (c & 0x3F));
+        }
+    }
+
+    private void writeBuffer() throws IOException {
+        if (pos > 0) {
+            outputStream.write(bytes, 0, pos);
+            pos = 0;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        // Any pending high surrogate is kept until we see the next char.
+        writeBuffer();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (highSurrogate != 0) {
+            highSurrogate = 0;
+            bytes[pos++] = REPLACEMENT;
+        }
+        writeBuffer();
+        outputStream.close();
+    }
+}
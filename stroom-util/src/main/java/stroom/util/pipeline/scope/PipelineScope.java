@@ -17,7 +17,6 @@
 package stroom.util.pipeline.scope;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Maps;
 import com.google.inject.Key;
 import com.google.inject.OutOfScopeException;
 import com.google.inject.Provider;
@@ -25,8 +24,11 @@ import com.google.inject.Scope;
 import com.google.inject.Scopes;
 
 import java.util.ArrayDeque;
+import java.util.Collections;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * Scopes a single execution of a block of code. Apply this scope with a
@@ -70,7 +72,8 @@ public class PipelineScope implements Scope {
 
     public void enter() {
         final Deque<Map<Key<?>, Object>> deque = threadLocal.get();
-        deque.offerLast(Maps.newHashMap());
+        // Synchronised as the scoped objects may be shared with other threads, see inCurrentScope().
+        deque.offerLast(Collections.synchronizedMap(new HashMap<>()));
     }
 
     public boolean isScopeActive() {
@@ -89,6 +92,27 @@ public class PipelineScope implements Scope {
 //        }
     }
 
+    /**
+     * Wrap a supplier so that it runs in the scope that is current on the calling thread. This lets work that is
+     * handed to another thread use the same scoped objects as the thread that handed it over. Scoped objects are only
+     * ever created once however many threads share the scope but the objects themselves must be safe to use from more
+     * than one thread.
+     */
+    public <T> Supplier<T> inCurrentScope(final Supplier<T> supplier) {
+        final Deque<Map<Key<?>, Object>> callerDeque = threadLocal.get();
+        final Map<Key<?>, Object> scopedObjects = callerDeque.peekLast();
+        Preconditions.checkState(scopedObjects != null, "No scoping block in progress");
+        return () -> {
+            final Deque<Map<Key<?>, Object>> deque = threadLocal.get();
+            deque.offerLast(scopedObjects);
+            try {
+                return supplier.get();
+            } finally {
+                deque.pollLast();
+            }
+        };
+    }
+
     public <T> void seed(final Key<T> key, final T value) {
         final Map<Key<?>, Object> scopedObjects = getScopedObjectMap(key);
         Preconditions.checkState(!scopedObjects.containsKey(key),
@@ -108,19 +132,22 @@ public class PipelineScope implements Scope {
         return () -> {
             final Map<Key<?>, Object> scopedObjects = getScopedObjectMap(key);
 
-            @SuppressWarnings("unchecked")
-            T current = (T) scopedObjects.get(key);
-            if (current == null && !scopedObjects.containsKey(key)) {
-                current = unscoped.get();
+            // Hold the lock while creating the object so threads sharing the scope never create one each.
+            synchronized (scopedObjects) {
+                @SuppressWarnings("unchecked")
+                T current = (T) scopedObjects.get(key);
+                if (current == null && !scopedObjects.containsKey(key)) {
+                    current = unscoped.get();
 
-                // don't remember proxies; these exist only to serve circular dependencies
-                if (Scopes.isCircularProxy(current)) {
-                    return current;
-                }
+                    // don't remember proxies; these exist only to serve circular dependencies
+                    if (Scopes.isCircularProxy(current)) {
+                        return current;
+                    }
 
-                scopedObjects.put(key, current);
+                    scopedObjects.put(key, current);
+                }
+                return current;
             }
-            return current;
         };
     }
 
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.util.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestRatePacer {
+
+    @Test
+    void testIntervalNanos() {
+        assertThat(RatePacer.intervalNanos(0)).isZero();
+        assertThat(RatePacer.intervalNanos(-1)).isZero();
+        assertThat(RatePacer.intervalNanos(4)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(250));
+        assertThat(RatePacer.intervalNanos(0.5)).isEqualTo(TimeUnit.SECONDS.toNanos(2));
+    }
+
+    @Test
+    void testReserve() {
+        final RatePacer ratePacer = new RatePacer();
+        final long intervalNanos = TimeUnit.SECONDS.toNanos(10);
+
+        // The first slot is free straight away, each later one is an interval after the last.
+        assertThat(ratePacer.reserve(intervalNanos)).isZero();
+        assertThat(ratePacer.reserve(intervalNanos))
+                .isGreaterThan(intervalNanos - TimeUnit.SECONDS.toNanos(1))
+                .isLessThanOrEqualTo(intervalNanos);
+        assertThat(ratePacer.reserve(intervalNanos))
+                .isGreaterThan((2 * intervalNanos) - TimeUnit.SECONDS.toNanos(1))
+                .isLessThanOrEqualTo(2 * intervalNanos);
+    }
+
+    @Test
+    void testPace() throws InterruptedException {
+        final RatePacer ratePacer = new RatePacer();
+        final long intervalNanos = TimeUnit.MILLISECONDS.toNanos(50);
+
+        final long startNanos = System.nanoTime();
+        long waitedNanos = 0;
+        for (int i = 0; i < 5; i++) {
+            waitedNanos += ratePacer.pace(intervalNanos);
+        }
+        final long elapsedNanos = System.nanoTime() - startNanos;
+
+        // The first is immediate and the other four wait for their slots.
+        assertThat(elapsedNanos).isGreaterThanOrEqualTo(3 * intervalNanos);
+        assertThat(waitedNanos).isPositive();
+
+        // Not limited.
+        assertThat(ratePacer.pace(0)).isZero();
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.util.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestUtf8Writer {
+
+    @Test
+    void testAscii() throws IOException {
+        assertSameAsOutputStreamWriter("<Event><Id>1</Id></Event>");
+    }
+
+    @Test
+    void testMultiByte() throws IOException {
+        assertSameAsOutputStreamWriter("café €100 日本 😀 end");
+    }
+
+    @Test
+    void testLargerThanBuffer() throws IOException {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5_000; i++) {
+            sb.append("<Data Name=\"x\" Value=\"é€😀").append(i).append("\"/>");
+        }
+        assertSameAsOutputStreamWriter(sb.toString());
+    }
+
+    @Test
+    void testMalformedSurrogates() throws IOException {
+        assertSameAsOutputStreamWriter("a\uD83Db");
+        assertSameAsOutputStreamWriter("a\uDE00b");
+        assertSameAsOutputStreamWriter("a\uD83D😀b");
+        assertSameAsOutputStreamWriter("a\uD83D");
+    }
+
+    @Test
+    void testSurrogatePairSplitAcrossWrites() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (final Writer writer = new Utf8Writer(out)) {
+            writer.write("a\uD83D");
+            writer.flush();
+            writer.write("\uDE00b");
+        }
+        assertThat(out.toByteArray()).isEqualTo("a😀b".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testFlushDoesNotFlushStream() throws IOException {
+        final boolean[] flushed = new boolean[1];
+        final ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void flush() {
+                flushed[0] = true;
+            }
+        };
+        final Writer writer = new Utf8Writer(out);
+        writer.write("test");
+        writer.flush();
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("test");
+        assertThat(flushed[0]).isFalse();
+    }
+
+    private void assertSameAsOutputStreamWriter(final String string) throws IOException {
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        try (final Writer writer = new OutputStreamWriter(expected, StandardCharsets.UTF_8)) {
+            writer.write(string);
+        }
+
+        // Write as a whole and one char at a time.
+        final ByteArrayOutputStream actual1 = new ByteArrayOutputStream();
+        try (final Writer writer = new Utf8Writer(actual1)) {
+            writer.write(string);
+        }
+        final ByteArrayOutputStream actual2 = new ByteArrayOutputStream();
+        try (final Writer writer = new Utf8Writer(actual2)) {
+            for (int i = 0; i < string.length(); i++) {
+                writer.write(string.charAt(i));
+            }
+        }
+
+        assertThat(actual1.toByteArray()).isEqualTo(expected.toByteArray());
+        assertThat(actual2.toByteArray()).isEqualTo(expected.toByteArray());
+    }
+}